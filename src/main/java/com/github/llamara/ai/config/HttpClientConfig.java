@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for the HTTP clients of the chat and embedding model providers.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "http-client")
+public interface HttpClientConfig {
+    /**
+     * Whether to prefer HTTP/2, which multiplexes concurrent requests over a single connection.
+     * Falls back to HTTP/1.1 if the server does not support it.
+     *
+     * @return whether HTTP/2 is preferred
+     */
+    @WithDefault("true")
+    boolean http2Enabled();
+
+    @WithDefault("PT10S")
+    Duration connectTimeout();
+
+    /**
+     * Maximum number of connections of the Quarkus REST client pool. The pool of the shared JDK
+     * HTTP client is configured by JVM options instead.
+     *
+     * @return the pool size
+     */
+    @WithDefault("20")
+    int poolSize();
+
+    /**
+     * Timeout of a request to a model provider, unless overridden for the provider by {@link
+     * #providerTimeouts()}.
+     *
+     * @return the request timeout
+     */
+    @WithDefault("PT60S")
+    Duration timeout();
+
+    /**
+     * Request timeouts by model provider, e.g. <code>mistral</code> or <code>google-gemini</code>.
+     *
+     * @return the request timeouts by provider
+     */
+    Map<String, Duration> providerTimeouts();
+
+    PrewarmConfig prewarm();
+
+    interface PrewarmConfig {
+        /**
+         * Whether to open the connections of the shared JDK HTTP client to the model providers at
+         * startup, so the first user requests do not pay for DNS lookups and TLS handshakes.
+         *
+         * @return whether pre-warming is enabled
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        @WithDefault("PT5S")
+        Duration timeout();
+    }
+}
@@ -19,7 +19,10 @@
  */
 package com.github.llamara.ai.config;
 
+import java.util.Optional;
+
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 
 /**
  * Provides configuration for the {@link dev.langchain4j.rag.RetrievalAugmentor} implementation.
@@ -31,4 +34,169 @@ public interface RetrievalConfig {
     String promptTemplate();
 
     String missingKnowledgePromptTemplate();
+
+    /**
+     * Maximum number of segments to retrieve for a prompt.
+     *
+     * @return maximum number of results
+     */
+    @WithDefault("3")
+    int maxResults();
+
+    /**
+     * Minimum relevance score of a segment to be retrieved.
+     *
+     * @return minimum score between 0 and 1
+     */
+    @WithDefault("0.0")
+    double minScore();
+
+    Adaptive adaptive();
+
+    Compression compression();
+
+    QueryExpansion queryExpansion();
+
+    NeighbourExpansion neighbourExpansion();
+
+    /**
+     * Adaptive top-k: Over-fetch candidates and cut the list at the largest gap between the scores
+     * of two consecutive candidates, so the number of segments follows the query.
+     */
+    interface Adaptive {
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Number of candidates to fetch. Replaces {@link RetrievalConfig#maxResults()} as upper
+         * bound when adaptive top-k is enabled.
+         *
+         * @return number of candidates
+         */
+        @WithDefault("10")
+        int maxCandidates();
+
+        /**
+         * Minimum number of segments to keep, regardless of the score gap.
+         *
+         * @return minimum number of results
+         */
+        @WithDefault("1")
+        int minResults();
+    }
+
+    /**
+     * Query-focused contextual compression: Reduce each retrieved segment to the sentences most
+     * relevant to the query and their neighbours.
+     */
+    interface Compression {
+        @WithDefault("false")
+        boolean enabled();
+
+        @WithDefault("lexical")
+        CompressionScorer scorer();
+
+        /**
+         * Number of most relevant sentences to keep per segment.
+         *
+         * @return maximum number of relevant sentences
+         */
+        @WithDefault("3")
+        int maxSentences();
+
+        /**
+         * Number of neighbouring sentences to keep before and after each relevant sentence.
+         *
+         * @return number of neighbours
+         */
+        @WithDefault("1")
+        int neighbours();
+
+        enum CompressionScorer {
+            /** Score sentences by the overlap of their terms with the query terms. */
+            LEXICAL,
+            /**
+             * Score sentences by the cosine similarity of their embeddings with the query
+             * embedding. Sends all retrieved sentences to the embedding model in an additional
+             * request per retrieval, which adds latency and cost to every prompt.
+             */
+            EMBEDDING
+        }
+    }
+
+    /**
+     * Query expansion: Search with several variants of the query concurrently and merge the
+     * results.
+     */
+    interface QueryExpansion {
+        @WithDefault("false")
+        boolean enabled();
+
+        @WithDefault("rules")
+        QueryExpansionType type();
+
+        /**
+         * UID of the chat model used to generate query variants, required for the model type. A
+         * small, cheap model is sufficient.
+         *
+         * @return the chat model uid
+         */
+        Optional<String> modelUid();
+
+        /**
+         * Maximum number of queries to search with, including the original query.
+         *
+         * @return maximum number of queries
+         */
+        @WithDefault("3")
+        int maxQueries();
+
+        /**
+         * Maximum number of searches to run concurrently across all requests.
+         *
+         * @return number of search threads
+         */
+        @WithDefault("8")
+        int parallelism();
+
+        /**
+         * Maximum number of model-generated query variants to cache.
+         *
+         * @return cache size
+         */
+        @WithDefault("1000")
+        int cacheSize();
+
+        enum QueryExpansionType {
+            /** Rule-based rewrites, e.g. keyword-only query and splitting of compound questions. */
+            RULES,
+            /** Query variants generated by a chat model. */
+            MODEL
+        }
+    }
+
+    /**
+     * Neighbour expansion: Add the segments before and after the top retrieved segments of the same
+     * knowledge, so passages spanning a segment boundary are not cut off.
+     */
+    interface NeighbourExpansion {
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Number of segments to add before and after each expanded segment.
+         *
+         * @return number of neighbours
+         */
+        @WithDefault("1")
+        int neighbours();
+
+        /**
+         * Number of top retrieved segments to expand.
+         *
+         * @return maximum number of expanded segments
+         */
+        @WithDefault("3")
+        int maxHits();
+    }
 }
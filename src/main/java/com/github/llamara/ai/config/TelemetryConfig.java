@@ -0,0 +1,41 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for the telemetry package.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "telemetry")
+public interface TelemetryConfig {
+    /**
+     * Whether to return the latency breakdown of a request in the <code>Server-Timing</code>
+     * response header, if the request has the <code>X-Debug-Timing</code> header. Exposes internal
+     * timings, so only enable it for debugging.
+     *
+     * @return whether the breakdown may be returned
+     */
+    @WithDefault("false")
+    boolean serverTimingEnabled();
+}
@@ -0,0 +1,48 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config.chat;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for batch prompts, e.g. for offline evaluation.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "chat.batch")
+public interface ChatBatchConfig {
+    /**
+     * Maximum number of prompts of a single batch.
+     *
+     * @return the maximum number of prompts
+     */
+    @WithDefault("10000")
+    int maxPrompts();
+
+    /**
+     * Maximum number of prompts of a batch sent to the chat model concurrently. Prompts are
+     * additionally subject to the concurrency limit of the chat model.
+     *
+     * @return the maximum concurrency
+     */
+    @WithDefault("16")
+    int maxConcurrency();
+}
@@ -0,0 +1,67 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config.chat;
+
+import java.time.Duration;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for the semantic chat response cache.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "chat.cache")
+public interface ChatCacheConfig {
+    /**
+     * Whether to answer near-identical first-turn prompts from the cache instead of calling the
+     * chat model.
+     *
+     * @return whether the cache is enabled
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Minimum cosine similarity between the embeddings of a new prompt and a cached prompt for the
+     * cached response to be returned.
+     *
+     * @return similarity threshold between 0 and 1
+     */
+    @WithDefault("0.95")
+    double similarityThreshold();
+
+    /**
+     * Maximum number of cached responses, the oldest entries are evicted first.
+     *
+     * @return maximum number of entries
+     */
+    @WithDefault("1000")
+    int maxEntries();
+
+    /**
+     * Time after which a cached response expires, regardless of knowledge changes.
+     *
+     * @return time to live
+     */
+    @WithDefault("PT1H")
+    Duration timeToLive();
+}
@@ -0,0 +1,51 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config.chat;
+
+import java.time.Duration;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for the coalescing of identical concurrent chat requests.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "chat.coalescing")
+public interface ChatCoalescingConfig {
+    /**
+     * Whether identical concurrent first-turn prompts to the same chat model with the same
+     * permissions share a single retrieval and generation.
+     *
+     * @return whether coalescing is enabled
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Maximum duration a request waits for the result of the identical in-flight request, before
+     * it is answered on its own.
+     *
+     * @return the wait timeout
+     */
+    @WithDefault("PT60S")
+    Duration waitTimeout();
+}
@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config.chat;
+
+import java.time.Duration;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for the adaptive concurrency limit of the chat models.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "chat.concurrency")
+public interface ChatConcurrencyConfig {
+    /**
+     * Whether to limit the number of concurrent requests to each chat model and reject requests
+     * that exceed the limit.
+     *
+     * @return whether the limit is enabled
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Number of concurrent requests allowed to each chat model before any latency was observed.
+     *
+     * @return initial limit
+     */
+    @WithDefault("20")
+    int initialLimit();
+
+    /**
+     * Lower bound of the adaptive limit.
+     *
+     * @return minimum limit
+     */
+    @WithDefault("1")
+    int minLimit();
+
+    /**
+     * Upper bound of the adaptive limit.
+     *
+     * @return maximum limit
+     */
+    @WithDefault("200")
+    int maxLimit();
+
+    /**
+     * Maximum number of requests waiting for the limit, further requests are rejected immediately.
+     *
+     * @return queue size
+     */
+    @WithDefault("20")
+    int queueSize();
+
+    /**
+     * Maximum time a request waits for the limit before it is rejected.
+     *
+     * @return queue timeout
+     */
+    @WithDefault("PT2S")
+    Duration queueTimeout();
+
+    /**
+     * Factor by which the latency of a request may exceed the long-term average latency before
+     * the limit is decreased.
+     *
+     * @return latency tolerance
+     */
+    @WithDefault("2.0")
+    double latencyTolerance();
+
+    /**
+     * Factor the limit is multiplied with when the chat model is overloaded, i.e. a request failed
+     * or exceeded the latency tolerance.
+     *
+     * @return backoff ratio between 0 and 1
+     */
+    @WithDefault("0.9")
+    double backoffRatio();
+}
@@ -20,6 +20,7 @@
 package com.github.llamara.ai.config.chat;
 
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 
 /**
  * Provides configuration for the chat history.
@@ -29,4 +30,13 @@ import io.smallrye.config.ConfigMapping;
 @ConfigMapping(prefix = "chat.history")
 public interface ChatHistoryConfig {
     int maxMessages();
+
+    /**
+     * Maximum number of history writes, possibly from different sessions, that are sent to Redis
+     * in one pipelined batch.
+     *
+     * @return the maximum batch size
+     */
+    @WithDefault("100")
+    int maxBatchSize();
 }
@@ -19,9 +19,11 @@
  */
 package com.github.llamara.ai.config.chat;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 
 /**
  * Provides configuration for the {@link dev.langchain4j.memory.ChatMemory}.
@@ -38,6 +40,10 @@ public interface ChatMemoryConfig {
 
     Optional<TokenizerConfig> tokenizer();
 
+    NearCacheConfig nearCache();
+
+    SummaryConfig summary();
+
     interface TokenizerConfig {
         TokenizerProvider provider();
 
@@ -48,8 +54,62 @@ public interface ChatMemoryConfig {
         }
     }
 
+    interface NearCacheConfig {
+        /**
+         * Whether to keep chat memories in a local cache in front of Redis. Writes go through to
+         * Redis, and other instances are notified to invalidate their copies.
+         *
+         * @return whether the near-cache is enabled
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Maximum number of chat memories in the local cache.
+         *
+         * @return maximum number of entries
+         */
+        @WithDefault("10000")
+        long maxEntries();
+
+        /**
+         * Time after which a chat memory is evicted from the local cache if it was not accessed.
+         *
+         * @return expiry after access
+         */
+        @WithDefault("PT10M")
+        Duration expireAfterAccess();
+    }
+
+    interface SummaryConfig {
+        /**
+         * UID of the configured chat model that folds evicted messages into the running summary of
+         * the {@link ChatMemoryWindowType#SUMMARY} window. A cheap model is sufficient.
+         *
+         * @return the chat model UID
+         */
+        Optional<String> modelUid();
+
+        /**
+         * Maximum number of words the summary model is asked to keep the summary within.
+         *
+         * @return maximum number of words
+         */
+        @WithDefault("200")
+        int maxWords();
+
+        /**
+         * Prompt template the summary model is asked with. Supports the <code>{{maxWords}}</code>,
+         * <code>{{summary}}</code> and <code>{{messages}}</code> variables.
+         *
+         * @return the prompt template
+         */
+        String promptTemplate();
+    }
+
     enum ChatMemoryWindowType {
         MESSAGE,
-        TOKEN
+        TOKEN,
+        SUMMARY
     }
 }
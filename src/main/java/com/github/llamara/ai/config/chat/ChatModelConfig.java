@@ -101,6 +101,41 @@ public interface ChatModelConfig {
          * @return max tokens
          */
         Optional<Integer> maxTokens();
+
+        /**
+         * An upper bound for the number of tokens of the chat memory and the retrieved knowledge
+         * injected into a prompt. The chat memory is subtracted first, retrieved segments are then
+         * added in order of relevance until the remaining budget is exhausted. Leave room for the
+         * system prompt, user prompt and completion in the model's context window. If no budget is
+         * set, the retrieved knowledge is not limited.
+         *
+         * @return context token budget
+         */
+        Optional<Integer> contextTokenBudget();
+
+        /**
+         * Additional endpoints serving this model, e.g. deployments in other regions or other
+         * providers. Requests are routed to the endpoint with the lowest observed latency and error
+         * rate and fail over to the other endpoints. Model parameters are shared by all endpoints.
+         *
+         * @return additional endpoints
+         */
+        Optional<List<EndpointConfig>> endpoints();
+    }
+
+    interface EndpointConfig {
+        ChatModelProvider provider();
+
+        Optional<String> baseUrl();
+
+        Optional<String> resourceName();
+
+        /**
+         * The model to use at this endpoint, defaults to the model of the chat model.
+         *
+         * @return model
+         */
+        Optional<String> model();
     }
 
     enum ChatModelProvider {
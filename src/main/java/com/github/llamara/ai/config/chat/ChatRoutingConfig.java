@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.config.chat;
+
+import java.time.Duration;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Provides configuration for routing the requests of chat models with multiple endpoints.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ConfigMapping(prefix = "chat.routing")
+public interface ChatRoutingConfig {
+    /**
+     * Number of consecutive failures after which an endpoint is taken out of rotation.
+     *
+     * @return failure threshold
+     */
+    @WithDefault("3")
+    int failureThreshold();
+
+    /**
+     * Time an endpoint is taken out of rotation before a single probe request is sent to it.
+     *
+     * @return open duration of the circuit breaker
+     */
+    @WithDefault("PT30S")
+    Duration openDuration();
+
+    /**
+     * Whether to send a hedged request to the next best endpoint if the response takes longer than
+     * the {@link #hedgePercentile()} of recent response latencies. The first response is used.
+     *
+     * @return whether hedging is enabled
+     */
+    @WithDefault("false")
+    boolean hedgingEnabled();
+
+    /**
+     * Percentile of recent response latencies after which a hedged request is sent.
+     *
+     * @return percentile between 0 and 1
+     */
+    @WithDefault("0.95")
+    double hedgePercentile();
+}
@@ -19,7 +19,10 @@
  */
 package com.github.llamara.ai.config.embedding;
 
+import java.util.OptionalInt;
+
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 
 /**
  * Provides configuration for the {@link dev.langchain4j.store.embedding.EmbeddingStore}.
@@ -40,7 +43,190 @@ public interface EmbeddingStoreConfig {
 
     boolean tls();
 
+    /**
+     * Whether to store the original vectors on disk instead of in RAM. Best combined with
+     * quantization, so searches use the quantized vectors kept in RAM.
+     *
+     * @return whether vectors are stored on disk
+     */
+    @WithDefault("false")
+    boolean onDisk();
+
+    /**
+     * Whether to store the payload on disk instead of in RAM.
+     *
+     * @return whether the payload is stored on disk
+     */
+    @WithDefault("false")
+    boolean onDiskPayload();
+
+    /**
+     * Whether to apply the collection settings to an existing collection on startup. Changing
+     * quantization or HNSW parameters triggers a rebuild of the index in the background.
+     *
+     * @return whether to update existing collections
+     */
+    @WithDefault("false")
+    boolean updateExisting();
+
+    QuantizationConfig quantization();
+
+    HnswConfig hnsw();
+
+    /**
+     * Settings of the in-process store, only used with {@link EmbeddingStoreType#EMBEDDED}.
+     *
+     * @return the embedded store config
+     */
+    EmbeddedConfig embedded();
+
+    /**
+     * Settings of the pgvector store, only used with {@link EmbeddingStoreType#PGVECTOR}.
+     *
+     * @return the pgvector store config
+     */
+    PgVectorConfig pgvector();
+
+    interface QuantizationConfig {
+        @WithDefault("none")
+        QuantizationType type();
+
+        /**
+         * Whether to keep the quantized vectors in RAM, even if the vectors are stored on disk.
+         *
+         * @return whether quantized vectors are always kept in RAM
+         */
+        @WithDefault("true")
+        boolean alwaysRam();
+
+        /**
+         * Whether to re-score the candidates found with quantized vectors using the original
+         * vectors.
+         *
+         * @return whether to rescore
+         */
+        @WithDefault("true")
+        boolean rescore();
+
+        /**
+         * Factor of candidates to fetch with quantized vectors before re-scoring, e.g. 2.0 fetches
+         * twice the number of requested results.
+         *
+         * @return the oversampling factor
+         */
+        @WithDefault("2.0")
+        double oversampling();
+
+        enum QuantizationType {
+            NONE,
+            SCALAR,
+            BINARY
+        }
+    }
+
+    interface HnswConfig {
+        /**
+         * Number of edges per node in the HNSW graph. Higher values increase accuracy and RAM.
+         *
+         * @return the number of edges per node
+         */
+        @WithDefault("16")
+        int m();
+
+        /**
+         * Number of neighbours to consider when building the HNSW graph.
+         *
+         * @return the construction search size
+         */
+        @WithDefault("100")
+        int efConstruct();
+
+        /**
+         * Number of neighbours to consider per query, defaults to the Qdrant default.
+         *
+         * @return the query search size
+         */
+        OptionalInt ef();
+
+        /**
+         * Whether to search exactly without the HNSW index. Only useful for small collections or
+         * for measuring recall.
+         *
+         * @return whether to search exactly
+         */
+        @WithDefault("false")
+        boolean exact();
+    }
+
+    interface EmbeddedConfig {
+        /**
+         * Directory to store the vectors, snapshots and write-ahead log in.
+         *
+         * @return the directory path
+         */
+        @WithDefault("data/embedding-store")
+        String path();
+
+        /**
+         * Number of write-ahead log records after which a snapshot is written and the log is
+         * truncated.
+         *
+         * @return the snapshot interval
+         */
+        @WithDefault("10000")
+        int snapshotInterval();
+    }
+
+    interface PgVectorConfig {
+        /**
+         * Table to store the embeddings in, created in the default datasource if missing.
+         *
+         * @return the table name
+         */
+        @WithDefault("embedding")
+        String table();
+
+        @WithDefault("hnsw")
+        PgVectorIndexType index();
+
+        /**
+         * Number of inverted lists of the IVFFlat index. Should be about rows / 1000 for up to 1M
+         * rows.
+         *
+         * @return the number of lists
+         */
+        @WithDefault("100")
+        int lists();
+
+        /**
+         * Number of inverted lists to probe per query with the IVFFlat index.
+         *
+         * @return the number of probes
+         */
+        OptionalInt probes();
+
+        /**
+         * Whether filtered searches keep scanning the vector index until enough rows match the
+         * filter, instead of filtering only the first candidates. Requires pgvector 0.8 or later.
+         *
+         * @return whether to use iterative index scans
+         */
+        @WithDefault("true")
+        boolean iterativeScan();
+
+        enum PgVectorIndexType {
+            /** HNSW index using the {@link HnswConfig} settings. */
+            HNSW,
+            /** IVFFlat index, faster to build and smaller, but lower recall. */
+            IVFFLAT
+        }
+    }
+
     enum EmbeddingStoreType {
-        QDRANT
+        QDRANT,
+        /** In-process HNSW index, persisted to the local file system. */
+        EMBEDDED,
+        /** PostgreSQL with the pgvector extension, using the default datasource. */
+        PGVECTOR
     }
 }
@@ -35,9 +35,22 @@ public final class EmbeddingMetadataKeys {
     /** The ingestion timestamp of the document as {@link java.time.Instant} as string. */
     public static final String INGESTED_AT = "ingested_at";
 
-    /** The comma-separated list of usernames that have permission to access the knowledge. */
+    /**
+     * The usernames that have permission to access the knowledge. Stored as keyword array in the
+     * embedding store, see {@link
+     * com.github.llamara.ai.internal.security.PermissionMetadataMapper}.
+     */
     public static final String PERMISSION = "permission";
 
+    /**
+     * The user-provided tags of the knowledge. Stored as keyword array in the embedding store, see
+     * {@link MetadataArrayMapper}.
+     */
+    public static final String TAGS = "tags";
+
+    /** The user-provided label of the knowledge, empty if the knowledge has no label. */
+    public static final String LABEL = "label";
+
     /**
      * The page number of the {@link dev.langchain4j.data.segment.TextSegment} within the document.
      */
@@ -49,11 +49,16 @@ import io.quarkus.runtime.Startup;
 class EmbeddingModelProducer {
     private final EmbeddingModelConfig config;
     private final EnvironmentVariables env;
+    private final HttpClientProvider httpClientProvider;
 
     @Inject
-    EmbeddingModelProducer(EmbeddingModelConfig config, EnvironmentVariables env) {
+    EmbeddingModelProducer(
+            EmbeddingModelConfig config,
+            EnvironmentVariables env,
+            HttpClientProvider httpClientProvider) {
         this.config = config;
         this.env = env;
+        this.httpClientProvider = httpClientProvider;
     }
 
     @Startup // create bean at startup to validate config
@@ -64,25 +69,29 @@ class EmbeddingModelProducer {
                 "Creating embedding model '%s' of provider '%s' ...",
                 config.model(), config.provider());
 
+        Duration timeout = httpClientProvider.timeout(config.provider());
+
         return switch (config.provider()) {
             case AZURE ->
                     AzureOpenAiEmbeddingModel.builder()
                             .endpoint(buildAzureOpenaiEndpoint(config))
                             .apiKey(env.getAzureApiKey())
                             .apiVersion(AZURE_OPENAI_API_VERSION)
+                            .timeout(timeout)
                             .maxRetries(3)
                             .build();
             case GOOGLE_GEMINI ->
                     AiGeminiEmbeddingModel.builder()
                             .baseUrl(config.baseUrl())
                             .key(env.getGoogleGeminiApiKey())
+                            .timeout(timeout)
                             .modelId(config.model())
                             .build();
             case MISTRAL ->
                     MistralAiEmbeddingModel.builder()
                             .baseUrl(config.baseUrl().orElse(null))
                             .apiKey(env.getMistralApiKey())
-                            .timeout(Duration.ofSeconds(3))
+                            .timeout(timeout)
                             .modelName(config.model())
                             .build();
             case OLLAMA -> {
@@ -90,7 +99,10 @@ class EmbeddingModelProducer {
                     throw new IllegalArgumentException(
                             "Base URL is required for Ollama embedding model.");
                 }
+                httpClientProvider.prewarm(config.baseUrl().get()); // NOSONAR: checked for empty
                 yield OllamaEmbeddingModel.builder()
+                        .httpClientBuilder(
+                                httpClientProvider.jdkHttpClientBuilder(config.provider()))
                         .baseUrl(config.baseUrl().get()) // NOSONAR: we have checked for empty
                         .model(config.model())
                         .build();
@@ -99,6 +111,7 @@ class EmbeddingModelProducer {
                     OpenAiEmbeddingModel.builder()
                             .baseUrl(config.baseUrl().orElse(null))
                             .apiKey(env.getOpenaiApiKey())
+                            .timeout(timeout)
                             .modelName(config.model())
                             .build();
         };
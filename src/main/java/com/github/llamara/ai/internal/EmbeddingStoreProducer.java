@@ -21,14 +21,18 @@ package com.github.llamara.ai.internal;
 
 import com.github.llamara.ai.config.EnvironmentVariables;
 import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.internal.embedded.EmbeddedEmbeddingStore;
 
+import java.io.Closeable;
+import java.io.IOException;
+import javax.sql.DataSource;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Produces;
 
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.qdrant.QdrantEmbeddingStore;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.Startup;
 
@@ -42,11 +46,14 @@ import io.quarkus.runtime.Startup;
 class EmbeddingStoreProducer {
     private final EmbeddingStoreConfig config;
     private final EnvironmentVariables env;
+    private final DataSource dataSource;
 
     @Inject
-    EmbeddingStoreProducer(EmbeddingStoreConfig config, EnvironmentVariables env) {
+    EmbeddingStoreProducer(
+            EmbeddingStoreConfig config, EnvironmentVariables env, DataSource dataSource) {
         this.config = config;
         this.env = env;
+        this.dataSource = dataSource;
     }
 
     @Startup // create bean at startup to validate config
@@ -56,17 +63,16 @@ class EmbeddingStoreProducer {
         Log.infof("Creating embedding store of type '%s' ...", config.type());
 
         return switch (config.type()) {
-            case QDRANT -> produceQdrantEmbeddingStore();
+            case QDRANT -> new QdrantEmbeddingStoreImpl(config, env);
+            case EMBEDDED -> new EmbeddedEmbeddingStore(config);
+            case PGVECTOR -> new PgVectorEmbeddingStoreImpl(config, dataSource);
         };
     }
 
-    private QdrantEmbeddingStore produceQdrantEmbeddingStore() {
-        return new QdrantEmbeddingStore(
-                config.collectionName(),
-                config.host(),
-                config.port(),
-                config.tls(),
-                "text_segment",
-                env.getQdrantApiKey().orElse(null));
+    void disposeEmbeddingStore(@Disposes EmbeddingStore<TextSegment> store) throws IOException {
+        // write a final snapshot of the embedded store
+        if (store instanceof Closeable closeable) {
+            closeable.close();
+        }
     }
 }
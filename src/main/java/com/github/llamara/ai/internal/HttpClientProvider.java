@@ -0,0 +1,180 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.HttpClientConfig;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+import dev.langchain4j.http.client.jdk.JdkHttpClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+
+/**
+ * Provides the shared HTTP client of the chat and embedding model providers based on the {@link
+ * HttpClientConfig}.
+ *
+ * <p>All models built with {@link #jdkHttpClientBuilder(Enum)} share a single JDK {@link
+ * HttpClient} and therefore its connection pool, while each model keeps its own request timeout.
+ * Providers integrated through the Quarkus REST client share the REST client connection pool
+ * instead, which is configured from the same settings in <code>application.properties</code>.
+ *
+ * <p>The connection pool of the JDK client is configured by the <code>
+ * jdk.httpclient.connectionPoolSize</code> and <code>jdk.httpclient.keepalive.timeout</code> JVM
+ * options.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+public class HttpClientProvider {
+    private static final String PREWARM_TIMER_NAME = "llamara.http.client.prewarm";
+
+    private final HttpClientConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient delegate;
+    private final HttpClient client;
+    private final Set<String> prewarmedOrigins = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    HttpClientProvider(HttpClientConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.delegate =
+                HttpClient.newBuilder()
+                        .version(
+                                config.http2Enabled()
+                                        ? HttpClient.Version.HTTP_2
+                                        : HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(config.connectTimeout())
+                        .executor(executor)
+                        .build();
+        this.client = new InstrumentedHttpClient(delegate, meterRegistry);
+    }
+
+    /**
+     * Get the request timeout of the given model provider.
+     *
+     * @param provider the model provider
+     * @return the timeout
+     */
+    public Duration timeout(Enum<?> provider) {
+        return config.providerTimeouts().getOrDefault(providerKey(provider), config.timeout());
+    }
+
+    /**
+     * Create a builder for a langchain4j {@link JdkHttpClient} that uses the shared HTTP client
+     * and the request timeout of the given model provider.
+     *
+     * @param provider the model provider
+     * @return the builder
+     */
+    public JdkHttpClientBuilder jdkHttpClientBuilder(Enum<?> provider) {
+        return JdkHttpClient.builder()
+                .httpClientBuilder(new SharedHttpClientBuilder(client))
+                .connectTimeout(config.connectTimeout())
+                .readTimeout(timeout(provider));
+    }
+
+    /**
+     * Open a connection of the shared HTTP client to the given base URL in the background, so it
+     * is pooled for the models built with {@link #jdkHttpClientBuilder(Enum)}. Each origin is only
+     * pre-warmed once.
+     *
+     * @param baseUrl the base URL of the model provider
+     */
+    public void prewarm(String baseUrl) {
+        if (!config.prewarm().enabled()) {
+            return;
+        }
+        URI origin;
+        try {
+            URI uri = URI.create(baseUrl);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return;
+            }
+            origin = new URI(uri.getScheme(), null, uri.getHost(), uri.getPort(), "/", null, null);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // an invalid URL is reported once the model is used
+            Log.debugf("Skipping pre-warming of invalid URL '%s'.", baseUrl);
+            return;
+        }
+        if (!prewarmedOrigins.add(origin.toString())) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        HttpRequest request =
+                HttpRequest.newBuilder(origin)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .timeout(config.prewarm().timeout())
+                        .build();
+        delegate.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete(
+                        (response, e) -> {
+                            // any response means the connection has been established
+                            String outcome = e == null ? "success" : "failure";
+                            sample.stop(
+                                    Timer.builder(PREWARM_TIMER_NAME)
+                                            .description(
+                                                    "Duration of opening the connection to a"
+                                                            + " model provider at startup")
+                                            .tag("host", origin.getHost())
+                                            .tag("outcome", outcome)
+                                            .register(meterRegistry));
+                            if (e != null) {
+                                Log.warnf(
+                                        "Failed to pre-warm connection to %s: %s",
+                                        origin, e.getMessage());
+                            } else {
+                                Log.debugf("Pre-warmed connection to %s.", origin);
+                            }
+                        });
+    }
+
+    private static String providerKey(Enum<?> provider) {
+        return provider.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        delegate.shutdown();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            Log.warn("Pending model provider requests did not finish before shutdown.");
+        }
+    }
+}
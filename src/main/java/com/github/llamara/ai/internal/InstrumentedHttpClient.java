@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link HttpClient} delegating to another client, which exports the number of in-flight requests
+ * and the time until the response headers are received per host to Micrometer.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class InstrumentedHttpClient extends HttpClient {
+    private static final String METRIC_PREFIX = "llamara.http.client.";
+
+    private final HttpClient delegate;
+    private final MeterRegistry registry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    InstrumentedHttpClient(HttpClient delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        Gauge.builder(METRIC_PREFIX + "in-flight", inFlight, AtomicInteger::get)
+                .description("Number of requests currently sent to the model providers")
+                .register(registry);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(
+            HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(registry);
+        inFlight.incrementAndGet();
+        String outcome = "error";
+        try {
+            HttpResponse<T> response = delegate.send(request, responseBodyHandler);
+            outcome = outcome(response);
+            return response;
+        } finally {
+            inFlight.decrementAndGet();
+            record(sample, request, outcome);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+            HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return instrument(request, delegate.sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> responseBodyHandler,
+            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return instrument(
+                request, delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler));
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> instrument(
+            HttpRequest request, CompletableFuture<HttpResponse<T>> future) {
+        Timer.Sample sample = Timer.start(registry);
+        inFlight.incrementAndGet();
+        return future.whenComplete(
+                (response, e) -> {
+                    inFlight.decrementAndGet();
+                    record(sample, request, e == null ? outcome(response) : "error");
+                });
+    }
+
+    private static String outcome(HttpResponse<?> response) {
+        return response.statusCode() / 100 + "xx";
+    }
+
+    private void record(Timer.Sample sample, HttpRequest request, String outcome) {
+        sample.stop(
+                Timer.builder(METRIC_PREFIX + "requests")
+                        .description("Time until the response of a model provider is received")
+                        .tag("host", String.valueOf(request.uri().getHost()))
+                        .tag("outcome", outcome)
+                        .register(registry));
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Mapper for converting between metadata entries holding multiple values and the values.
+ *
+ * <p>{@link dev.langchain4j.data.document.Metadata} does not support arrays, so multiple values are
+ * stored as string of delimited values inside {@link dev.langchain4j.data.segment.TextSegment}
+ * metadata. Embedding stores store them as keyword arrays, see {@link #KEYS}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public final class MetadataArrayMapper {
+    public static final String DELIMITER = "|";
+
+    /** The embedding metadata keys that hold multiple values. */
+    public static final Collection<String> KEYS =
+            List.of(EmbeddingMetadataKeys.PERMISSION, EmbeddingMetadataKeys.TAGS);
+
+    private MetadataArrayMapper() {}
+
+    /**
+     * Convert the given values to a metadata entry.
+     *
+     * @param values the values to convert, must not contain the {@link #DELIMITER}
+     * @return the metadata entry
+     */
+    public static String valuesToMetadataEntry(Collection<String> values) {
+        if (values.isEmpty()) {
+            return "";
+        }
+        return DELIMITER + String.join(DELIMITER, values) + DELIMITER;
+    }
+
+    /**
+     * Convert the given metadata entry to its values.
+     *
+     * @param metadataEntry the metadata entry to convert
+     * @return the values
+     */
+    public static List<String> metadataEntryToValues(String metadataEntry) {
+        return Arrays.stream(metadataEntry.split(Pattern.quote(DELIMITER)))
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+}
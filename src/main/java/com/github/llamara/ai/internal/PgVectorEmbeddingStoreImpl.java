@@ -0,0 +1,455 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.postgresql.PGConnection;
+
+/**
+ * {@link EmbeddingStore} implementation for PostgreSQL with the pgvector extension, using the
+ * default datasource.
+ *
+ * <p>As the datasource takes part in JTA transactions, changes made inside a transaction, e.g.
+ * removing the embeddings of deleted knowledge, commit or roll back together with the knowledge.
+ * Embeddings are inserted with <code>COPY</code>. See {@link PgVectorSchema} for the table layout
+ * and {@link PgVectorFilterMapper} for the supported filters.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class PgVectorEmbeddingStoreImpl implements ScrollableEmbeddingStore {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE =
+            new TypeReference<>() {};
+    private static final String NULL = "\\N";
+
+    private final DataSource dataSource;
+    private final PgVectorSchema schema;
+    private final String selectColumns;
+
+    @FunctionalInterface
+    private interface SqlFunction<T> {
+        T apply(Connection connection) throws SQLException, IOException;
+    }
+
+    PgVectorEmbeddingStoreImpl(EmbeddingStoreConfig config, DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.schema = new PgVectorSchema(config);
+        this.selectColumns =
+                String.join(
+                        ", ",
+                        PgVectorSchema.EMBEDDING_ID,
+                        PgVectorSchema.TEXT,
+                        PgVectorSchema.METADATA,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        EmbeddingMetadataKeys.TAGS);
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, textSegments);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        StringBuilder rows = new StringBuilder();
+        try {
+            for (int i = 0; i < embeddings.size(); i++) {
+                TextSegment segment = segments == null ? null : segments.get(i);
+                appendRow(rows, ids.get(i), embeddings.get(i), segment);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize metadata", e);
+        }
+        String copy =
+                String.format(
+                        "COPY %s (%s, %s, %s, %s, %s, %s, %s) FROM STDIN",
+                        schema.table(),
+                        PgVectorSchema.EMBEDDING_ID,
+                        PgVectorSchema.EMBEDDING,
+                        PgVectorSchema.TEXT,
+                        PgVectorSchema.METADATA,
+                        EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        EmbeddingMetadataKeys.TAGS);
+        // replace existing embeddings and insert in one transaction, or in the caller's one
+        QuarkusTransaction.joiningExisting()
+                .run(
+                        () ->
+                                execute(
+                                        connection -> {
+                                            deleteByIds(connection, ids);
+                                            return connection
+                                                    .unwrap(PGConnection.class)
+                                                    .getCopyAPI()
+                                                    .copyIn(
+                                                            copy,
+                                                            new StringReader(rows.toString()));
+                                        }));
+    }
+
+    /** Append a row in <code>COPY</code> text format. */
+    private static void appendRow(
+            StringBuilder rows, String id, Embedding embedding, TextSegment segment)
+            throws JsonProcessingException {
+        rows.append(id).append('\t');
+        rows.append(vectorLiteral(embedding.vector())).append('\t');
+        if (segment == null) {
+            rows.append(NULL).append('\t').append("{}").append('\t').append(NULL);
+            rows.append('\t').append("{}").append('\t').append("{}").append('\n');
+            return;
+        }
+        rows.append(escape(segment.text())).append('\t');
+        Map<String, Object> metadata = new HashMap<>(segment.metadata().toMap());
+        List<String> permission = arrayValues(metadata.remove(EmbeddingMetadataKeys.PERMISSION));
+        List<String> tags = arrayValues(metadata.remove(EmbeddingMetadataKeys.TAGS));
+        rows.append(escape(OBJECT_MAPPER.writeValueAsString(metadata))).append('\t');
+        Object knowledgeId = metadata.get(EmbeddingMetadataKeys.KNOWLEDGE_ID);
+        rows.append(knowledgeId == null ? NULL : escape(knowledgeId.toString())).append('\t');
+        rows.append(escape(arrayLiteral(permission))).append('\t');
+        rows.append(escape(arrayLiteral(tags))).append('\n');
+    }
+
+    private static String vectorLiteral(float[] vector) {
+        StringBuilder literal = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(vector[i]);
+        }
+        return literal.append(']').toString();
+    }
+
+    private static List<String> arrayValues(Object metadataEntry) {
+        return metadataEntry == null
+                ? List.of()
+                : MetadataArrayMapper.metadataEntryToValues(metadataEntry.toString());
+    }
+
+    private static String arrayLiteral(List<String> values) {
+        StringBuilder literal = new StringBuilder("{");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append('"')
+                    .append(values.get(i).replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append('"');
+        }
+        return literal.append('}').toString();
+    }
+
+    /** Escape a value for the <code>COPY</code> text format. */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+
+    @Override
+    public void remove(String id) {
+        removeAll(List.of(id));
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        execute(
+                connection -> {
+                    deleteByIds(connection, ids);
+                    return null;
+                });
+    }
+
+    private void deleteByIds(Connection connection, Collection<String> ids) throws SQLException {
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        String.format(
+                                "DELETE FROM %s WHERE %s = ANY(?::uuid[])",
+                                schema.table(), PgVectorSchema.EMBEDDING_ID))) {
+            statement.setArray(1, connection.createArrayOf("text", ids.toArray(String[]::new)));
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        PgVectorFilterMapper.SqlFilter sqlFilter = PgVectorFilterMapper.map(filter);
+        execute(
+                connection -> {
+                    try (PreparedStatement statement =
+                            connection.prepareStatement(
+                                    String.format(
+                                            "DELETE FROM %s WHERE %s",
+                                            schema.table(), sqlFilter.sql()))) {
+                        bind(connection, statement, 1, sqlFilter.parameters());
+                        return statement.executeUpdate();
+                    }
+                });
+    }
+
+    @Override
+    public void removeAll() {
+        execute(
+                connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        return statement.executeUpdate("DELETE FROM " + schema.table());
+                    }
+                });
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        PgVectorFilterMapper.SqlFilter sqlFilter =
+                request.filter() == null ? null : PgVectorFilterMapper.map(request.filter());
+        // order by the indexed expression, so the vector index is used
+        String distance = schema.indexedVector() + " <=> " + schema.queryVectorParameter();
+        String query =
+                String.format(
+                        "SELECT %s, %s AS distance FROM %s%s ORDER BY %s LIMIT ?",
+                        selectColumns,
+                        distance,
+                        schema.table(),
+                        sqlFilter == null ? "" : " WHERE " + sqlFilter.sql(),
+                        distance);
+        // relaxed order iterative scans may return slightly out of order results
+        String sql =
+                schema.iterativeScan(sqlFilter != null)
+                        ? String.format(
+                                "WITH relaxed_results AS MATERIALIZED (%s) SELECT * FROM"
+                                        + " relaxed_results ORDER BY distance",
+                                query)
+                        : query;
+        List<String> settings = schema.searchSettings(sqlFilter != null);
+        String queryVector = vectorLiteral(request.queryEmbedding().vector());
+
+        SqlFunction<List<EmbeddingMatch<TextSegment>>> search =
+                connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        for (String setting : settings) {
+                            statement.execute(setting);
+                        }
+                    }
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        int index = 1;
+                        statement.setString(index++, queryVector);
+                        if (sqlFilter != null) {
+                            index = bind(connection, statement, index, sqlFilter.parameters());
+                        }
+                        statement.setString(index++, queryVector);
+                        statement.setInt(index, request.maxResults());
+                        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                double score =
+                                        RelevanceScore.fromCosineSimilarity(
+                                                1 - rs.getDouble("distance"));
+                                if (score >= request.minScore()) {
+                                    matches.add(
+                                            new EmbeddingMatch<>(
+                                                    score,
+                                                    rs.getString(PgVectorSchema.EMBEDDING_ID),
+                                                    null,
+                                                    toTextSegment(rs)));
+                                }
+                            }
+                        }
+                        return matches;
+                    }
+                };
+        List<EmbeddingMatch<TextSegment>> matches =
+                settings.isEmpty()
+                        ? execute(search)
+                        // SET LOCAL requires a transaction, which must not leak into the caller's
+                        : QuarkusTransaction.requiringNew().call(() -> execute(search));
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    @Override
+    public Map<String, TextSegment> scroll(Filter filter, int limit) {
+        PgVectorFilterMapper.SqlFilter sqlFilter = PgVectorFilterMapper.map(filter);
+        return execute(
+                connection -> {
+                    try (PreparedStatement statement =
+                            connection.prepareStatement(
+                                    String.format(
+                                            "SELECT %s FROM %s WHERE %s LIMIT ?",
+                                            selectColumns, schema.table(), sqlFilter.sql()))) {
+                        int index = bind(connection, statement, 1, sqlFilter.parameters());
+                        statement.setInt(index, limit);
+                        Map<String, TextSegment> segments = new LinkedHashMap<>();
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                TextSegment segment = toTextSegment(rs);
+                                if (segment != null) {
+                                    segments.put(
+                                            rs.getString(PgVectorSchema.EMBEDDING_ID), segment);
+                                }
+                            }
+                        }
+                        return segments;
+                    }
+                });
+    }
+
+    @Override
+    public Map<String, TextSegment> getByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return execute(
+                connection -> {
+                    try (PreparedStatement statement =
+                            connection.prepareStatement(
+                                    String.format(
+                                            "SELECT %s FROM %s WHERE %s = ANY(?::uuid[])",
+                                            selectColumns,
+                                            schema.table(),
+                                            PgVectorSchema.EMBEDDING_ID))) {
+                        statement.setArray(
+                                1, connection.createArrayOf("text", ids.toArray(String[]::new)));
+                        Map<String, TextSegment> segments = new LinkedHashMap<>();
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                TextSegment segment = toTextSegment(rs);
+                                if (segment != null) {
+                                    segments.put(
+                                            rs.getString(PgVectorSchema.EMBEDDING_ID), segment);
+                                }
+                            }
+                        }
+                        return segments;
+                    }
+                });
+    }
+
+    /**
+     * Bind the given filter parameters, binding <code>String[]</code> as text arrays.
+     *
+     * @return the index of the next parameter
+     */
+    private static int bind(
+            Connection connection, PreparedStatement statement, int index, List<Object> parameters)
+            throws SQLException {
+        for (Object parameter : parameters) {
+            if (parameter instanceof String[] array) {
+                statement.setArray(index++, connection.createArrayOf("text", array));
+            } else {
+                statement.setObject(index++, parameter);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Convert the current row to a {@link TextSegment}, restoring the array columns as metadata
+     * entries.
+     *
+     * @return the text segment, or <code>null</code> if the row has no text
+     */
+    private static TextSegment toTextSegment(ResultSet rs) throws SQLException, IOException {
+        String text = rs.getString(PgVectorSchema.TEXT);
+        if (text == null) {
+            return null;
+        }
+        Map<String, Object> metadata =
+                OBJECT_MAPPER.readValue(rs.getString(PgVectorSchema.METADATA), METADATA_TYPE);
+        for (String key : MetadataArrayMapper.KEYS) {
+            Array array = rs.getArray(key);
+            if (array != null) {
+                metadata.put(
+                        key,
+                        MetadataArrayMapper.valuesToMetadataEntry(
+                                List.of((String[]) array.getArray())));
+            }
+        }
+        return TextSegment.from(text, Metadata.from(metadata));
+    }
+
+    private <T> T execute(SqlFunction<T> function) {
+        try (Connection connection = dataSource.getConnection()) {
+            return function.apply(connection);
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException(e); // NOSONAR: we want to fail the operation
+        }
+    }
+}
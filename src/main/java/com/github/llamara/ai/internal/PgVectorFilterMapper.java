@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.ContainsString;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+
+/**
+ * Maps LangChain4j metadata {@link Filter}s to SQL conditions on the {@link PgVectorSchema} table.
+ *
+ * <p>Matches the semantics of the Qdrant filter mapping: {@link IsEqualTo} and {@link IsIn} on the
+ * array columns of {@link MetadataArrayMapper#KEYS} match if any element matches, using the GIN
+ * indexable <code>@&gt;</code> and <code>&amp;&amp;</code> operators. Negations match rows without
+ * the key.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class PgVectorFilterMapper {
+    private PgVectorFilterMapper() {}
+
+    /**
+     * A SQL condition with its parameters. Parameters of type <code>String[]</code> have to be
+     * bound as text arrays.
+     *
+     * @param sql the SQL condition with <code>?</code> placeholders
+     * @param parameters the parameters in order of their placeholders
+     */
+    record SqlFilter(String sql, List<Object> parameters) {}
+
+    /**
+     * Map the given {@link Filter} to a SQL condition.
+     *
+     * @param filter the filter to map
+     * @return the SQL condition
+     * @throws UnsupportedOperationException if the filter type is not supported
+     */
+    static SqlFilter map(Filter filter) {
+        List<Object> parameters = new ArrayList<>();
+        String sql = map(filter, parameters);
+        return new SqlFilter(sql, parameters);
+    }
+
+    private static String map(Filter filter, List<Object> parameters) {
+        return switch (filter) {
+            case And and -> combine(and.left(), "AND", and.right(), parameters);
+            case Or or -> combine(or.left(), "OR", or.right(), parameters);
+            case Not not -> negate(map(not.expression(), parameters));
+            case IsEqualTo isEqualTo ->
+                    equalTo(isEqualTo.key(), isEqualTo.comparisonValue(), parameters);
+            case IsNotEqualTo isNotEqualTo ->
+                    negate(equalTo(isNotEqualTo.key(), isNotEqualTo.comparisonValue(), parameters));
+            case IsIn isIn -> in(isIn.key(), isIn.comparisonValues(), parameters);
+            case IsNotIn isNotIn ->
+                    negate(in(isNotIn.key(), isNotIn.comparisonValues(), parameters));
+            case ContainsString containsString -> {
+                parameters.add(containsString.comparisonValue());
+                yield "strpos(" + field(containsString.key()) + ", ?) > 0";
+            }
+            case IsGreaterThan gt -> compare(gt.key(), ">", gt.comparisonValue(), parameters);
+            case IsGreaterThanOrEqualTo gte ->
+                    compare(gte.key(), ">=", gte.comparisonValue(), parameters);
+            case IsLessThan lt -> compare(lt.key(), "<", lt.comparisonValue(), parameters);
+            case IsLessThanOrEqualTo lte ->
+                    compare(lte.key(), "<=", lte.comparisonValue(), parameters);
+            default ->
+                    throw new UnsupportedOperationException(
+                            "Unsupported filter type: " + filter.getClass().getName());
+        };
+    }
+
+    private static String combine(
+            Filter left, String operator, Filter right, List<Object> parameters) {
+        String leftSql = map(left, parameters);
+        String rightSql = map(right, parameters);
+        return "(" + leftSql + " " + operator + " " + rightSql + ")";
+    }
+
+    /** Negate the given condition, treating a missing key (SQL <code>NULL</code>) as no match. */
+    private static String negate(String condition) {
+        return "NOT coalesce(" + condition + ", false)";
+    }
+
+    private static String equalTo(String key, Object value, List<Object> parameters) {
+        if (MetadataArrayMapper.KEYS.contains(key)) {
+            parameters.add(new String[] {String.valueOf(value)});
+            return key + " @> ?::text[]";
+        }
+        if (EmbeddingMetadataKeys.KNOWLEDGE_ID.equals(key)) {
+            parameters.add(String.valueOf(value));
+            return key + " = ?::uuid";
+        }
+        parameters.add(String.valueOf(value));
+        return field(key) + " = ?";
+    }
+
+    private static String in(String key, Collection<?> values, List<Object> parameters) {
+        String[] array = values.stream().map(String::valueOf).toArray(String[]::new);
+        if (MetadataArrayMapper.KEYS.contains(key)) {
+            parameters.add(array);
+            return key + " && ?::text[]";
+        }
+        if (EmbeddingMetadataKeys.KNOWLEDGE_ID.equals(key)) {
+            parameters.add(array);
+            return key + " = ANY(?::uuid[])";
+        }
+        parameters.add(array);
+        return field(key) + " = ANY(?::text[])";
+    }
+
+    private static String compare(
+            String key, String operator, Comparable<?> value, List<Object> parameters) {
+        if (!(value instanceof Number number)) {
+            throw new UnsupportedOperationException(
+                    "Range filters are only supported for numeric values, got: " + value);
+        }
+        parameters.add(number.doubleValue());
+        return field(key) + "::float8 " + operator + " ?";
+    }
+
+    /**
+     * Get the text value of the given metadata key. The key is inlined as literal instead of bound
+     * as parameter, so expression indexes on the metadata column can be used.
+     */
+    private static String field(String key) {
+        return "(" + PgVectorSchema.METADATA + " ->> '" + key.replace("'", "''") + "')";
+    }
+}
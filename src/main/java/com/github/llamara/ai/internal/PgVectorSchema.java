@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Schema of the pgvector embedding table, shared between the {@link
+ * dev.langchain4j.store.embedding.EmbeddingStore} and the metadata manager.
+ *
+ * <p>The {@link EmbeddingMetadataKeys#KNOWLEDGE_ID} is stored in an indexed uuid column, the
+ * metadata of {@link MetadataArrayMapper#KEYS} in text array columns with GIN indexes, so filters
+ * on them can be served by indexes. All other metadata is stored as jsonb. pgvector cannot index
+ * vectors with more than 2000 dimensions, so larger vectors are indexed as half-precision vectors.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public final class PgVectorSchema {
+    public static final String EMBEDDING_ID = "embedding_id";
+    public static final String EMBEDDING = "embedding";
+    public static final String TEXT = "text";
+    public static final String METADATA = "metadata";
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final int MAX_VECTOR_INDEX_DIMENSIONS = 2000;
+
+    private final EmbeddingStoreConfig config;
+    private final String table;
+    private final int dimension;
+
+    /**
+     * @param config the embedding store config
+     * @throws StartupException if the configured table name is not a valid identifier
+     */
+    public PgVectorSchema(EmbeddingStoreConfig config) {
+        this.config = config;
+        this.table = config.pgvector().table();
+        this.dimension = config.vectorSize();
+        if (!IDENTIFIER_PATTERN.matcher(table).matches()) {
+            throw new StartupException(String.format("Invalid pgvector table name '%s'.", table));
+        }
+    }
+
+    public String table() {
+        return table;
+    }
+
+    private boolean isHalfPrecision() {
+        return dimension > MAX_VECTOR_INDEX_DIMENSIONS;
+    }
+
+    /**
+     * Get the expression the vector index is built on, searches must order by it.
+     *
+     * @return the SQL expression
+     */
+    String indexedVector() {
+        return isHalfPrecision()
+                ? String.format("(%s::halfvec(%d))", EMBEDDING, dimension)
+                : EMBEDDING;
+    }
+
+    /**
+     * Get the parameter placeholder for a query vector in text representation, cast to the type of
+     * the {@link #indexedVector()}.
+     *
+     * @return the SQL placeholder
+     */
+    String queryVectorParameter() {
+        return isHalfPrecision() ? String.format("?::halfvec(%d)", dimension) : "?::vector";
+    }
+
+    /**
+     * Get the statements to create the extension, table and indexes if they do not exist.
+     *
+     * @return the DDL statements
+     */
+    public List<String> createStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE EXTENSION IF NOT EXISTS vector");
+        statements.add(
+                String.format(
+                        "CREATE TABLE IF NOT EXISTS %s (%s uuid PRIMARY KEY, %s vector(%d) NOT"
+                                + " NULL, %s text, %s jsonb NOT NULL DEFAULT '{}', %s uuid, %s"
+                                + " text[] NOT NULL DEFAULT '{}', %s text[] NOT NULL DEFAULT"
+                                + " '{}')",
+                        table,
+                        EMBEDDING_ID,
+                        EMBEDDING,
+                        dimension,
+                        TEXT,
+                        METADATA,
+                        EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        EmbeddingMetadataKeys.TAGS));
+        statements.add(createColumnIndex(EmbeddingMetadataKeys.KNOWLEDGE_ID, "btree"));
+        statements.add(createColumnIndex(EmbeddingMetadataKeys.PERMISSION, "gin"));
+        statements.add(createColumnIndex(EmbeddingMetadataKeys.TAGS, "gin"));
+        statements.add(
+                createIndex(
+                        CommonMetadataKeys.CONTENT_TYPE,
+                        "btree",
+                        String.format(
+                                "((%s ->> '%s'))", METADATA, CommonMetadataKeys.CONTENT_TYPE)));
+        String operatorClass = isHalfPrecision() ? "halfvec_cosine_ops" : "vector_cosine_ops";
+        statements.add(
+                switch (config.pgvector().index()) {
+                    case HNSW ->
+                            createIndex(
+                                    EMBEDDING,
+                                    "hnsw",
+                                    String.format(
+                                            "(%s %s) WITH (m = %d, ef_construction = %d)",
+                                            indexedVector(),
+                                            operatorClass,
+                                            config.hnsw().m(),
+                                            config.hnsw().efConstruct()));
+                    case IVFFLAT ->
+                            createIndex(
+                                    EMBEDDING,
+                                    "ivfflat",
+                                    String.format(
+                                            "(%s %s) WITH (lists = %d)",
+                                            indexedVector(),
+                                            operatorClass,
+                                            config.pgvector().lists()));
+                });
+        return statements;
+    }
+
+    private String createColumnIndex(String column, String method) {
+        return createIndex(column, method, "(" + column + ")");
+    }
+
+    private String createIndex(String column, String method, String definition) {
+        return String.format(
+                "CREATE INDEX IF NOT EXISTS %s_%s_idx ON %s USING %s %s",
+                table, column, table, method, definition);
+    }
+
+    /**
+     * Get the statements to configure the vector index search for the current transaction.
+     *
+     * <p>Without iterative scans, the index returns only <code>ef_search</code> or <code>probes
+     * </code> candidates, which a selective filter may reduce to less than the requested number of
+     * results. Iterative scans in relaxed order keep scanning instead, so the results must be
+     * re-ordered by distance.
+     *
+     * @param filtered whether the search has a filter
+     * @return the <code>SET LOCAL</code> statements, empty if the defaults are used
+     */
+    List<String> searchSettings(boolean filtered) {
+        List<String> statements = new ArrayList<>();
+        if (config.hnsw().exact()) {
+            statements.add("SET LOCAL enable_indexscan = off");
+        }
+        switch (config.pgvector().index()) {
+            case HNSW ->
+                    config.hnsw()
+                            .ef()
+                            .ifPresent(ef -> statements.add("SET LOCAL hnsw.ef_search = " + ef));
+            case IVFFLAT ->
+                    config.pgvector()
+                            .probes()
+                            .ifPresent(
+                                    probes ->
+                                            statements.add(
+                                                    "SET LOCAL ivfflat.probes = " + probes));
+        }
+        if (iterativeScan(filtered)) {
+            statements.add(
+                    switch (config.pgvector().index()) {
+                        case HNSW -> "SET LOCAL hnsw.iterative_scan = relaxed_order";
+                        case IVFFLAT -> "SET LOCAL ivfflat.iterative_scan = relaxed_order";
+                    });
+        }
+        return statements;
+    }
+
+    /**
+     * Whether a search uses an iterative index scan, whose results are only roughly ordered.
+     *
+     * @param filtered whether the search has a filter
+     * @return whether to scan iteratively
+     */
+    boolean iterativeScan(boolean filtered) {
+        return filtered && !config.hnsw().exact() && config.pgvector().iterativeScan();
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.EnvironmentVariables;
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig.QuantizationConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.VectorsFactory.vectors;
+import static io.qdrant.client.WithPayloadSelectorFactory.enable;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+
+/**
+ * {@link EmbeddingStore} implementation for Qdrant.
+ *
+ * <p>In contrast to LangChain4j's <code>QdrantEmbeddingStore</code>, it stores the metadata of
+ * {@link MetadataArrayMapper#KEYS}, e.g. {@link EmbeddingMetadataKeys#PERMISSION}, as keyword array
+ * payload, so that filters can be served by a keyword payload index instead of scanning a
+ * concatenated string. {@link
+ * Filter}s are mapped through {@link QdrantFilterMapper}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class QdrantEmbeddingStoreImpl implements ScrollableEmbeddingStore {
+    static final String PAYLOAD_TEXT_KEY = "text_segment";
+
+    private final QdrantClient client;
+    private final String collectionName;
+    private final Points.SearchParams searchParams;
+
+    QdrantEmbeddingStoreImpl(EmbeddingStoreConfig config, EnvironmentVariables env) {
+        QdrantGrpcClient.Builder grpcClientBuilder =
+                QdrantGrpcClient.newBuilder(config.host(), config.port(), config.tls());
+        env.getQdrantApiKey().ifPresent(grpcClientBuilder::withApiKey);
+        this.client = new QdrantClient(grpcClientBuilder.build());
+        this.collectionName = config.collectionName();
+        this.searchParams = buildSearchParams(config);
+    }
+
+    private static Points.SearchParams buildSearchParams(EmbeddingStoreConfig config) {
+        Points.SearchParams.Builder params =
+                Points.SearchParams.newBuilder().setExact(config.hnsw().exact());
+        config.hnsw().ef().ifPresent(params::setHnswEf);
+        if (config.quantization().type() != QuantizationConfig.QuantizationType.NONE) {
+            params.setQuantization(
+                    Points.QuantizationSearchParams.newBuilder()
+                            .setRescore(config.quantization().rescore())
+                            .setOversampling(config.quantization().oversampling()));
+        }
+        return params.build();
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, textSegments);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        List<Points.PointStruct> points = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            Points.PointStruct.Builder point =
+                    Points.PointStruct.newBuilder()
+                            .setId(id(UUID.fromString(ids.get(i))))
+                            .setVectors(vectors(embeddings.get(i).vector()));
+            if (segments != null) {
+                point.putAllPayload(toPayload(segments.get(i)));
+            }
+            points.add(point.build());
+        }
+        await(client.upsertAsync(collectionName, points));
+    }
+
+    @Override
+    public void remove(String id) {
+        removeAll(List.of(id));
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        List<Points.PointId> pointIds = ids.stream().map(id -> id(UUID.fromString(id))).toList();
+        await(client.deleteAsync(collectionName, pointIds));
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        await(client.deleteAsync(collectionName, QdrantFilterMapper.map(filter)));
+    }
+
+    @Override
+    public void removeAll() {
+        await(client.deleteAsync(collectionName, Points.Filter.getDefaultInstance()));
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        Points.SearchPoints.Builder search =
+                Points.SearchPoints.newBuilder()
+                        .setCollectionName(collectionName)
+                        .addAllVector(request.queryEmbedding().vectorAsList())
+                        .setLimit(request.maxResults())
+                        .setParams(searchParams)
+                        .setWithPayload(enable(true));
+        if (request.minScore() > 0) {
+            // Qdrant returns the cosine similarity, LangChain4j expects relevance scores
+            search.setScoreThreshold((float) (2 * request.minScore() - 1));
+        }
+        if (request.filter() != null) {
+            search.setFilter(QdrantFilterMapper.map(request.filter()));
+        }
+
+        List<Points.ScoredPoint> results = await(client.searchAsync(search.build()));
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(results.size());
+        for (Points.ScoredPoint point : results) {
+            matches.add(
+                    new EmbeddingMatch<>(
+                            RelevanceScore.fromCosineSimilarity(point.getScore()),
+                            point.getId().getUuid(),
+                            null,
+                            toTextSegment(point.getPayloadMap())));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    @Override
+    public Map<String, TextSegment> scroll(Filter filter, int limit) {
+        Points.ScrollPoints scroll =
+                Points.ScrollPoints.newBuilder()
+                        .setCollectionName(collectionName)
+                        .setFilter(QdrantFilterMapper.map(filter))
+                        .setLimit(limit)
+                        .setWithPayload(enable(true))
+                        .build();
+        Map<String, TextSegment> segments = new LinkedHashMap<>();
+        for (Points.RetrievedPoint point : await(client.scrollAsync(scroll)).getResultList()) {
+            TextSegment segment = toTextSegment(point.getPayloadMap());
+            if (segment != null) {
+                segments.put(point.getId().getUuid(), segment);
+            }
+        }
+        return segments;
+    }
+
+    @Override
+    public Map<String, TextSegment> getByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<Points.PointId> pointIds = ids.stream().map(id -> id(UUID.fromString(id))).toList();
+        Map<String, TextSegment> segments = new LinkedHashMap<>();
+        for (Points.RetrievedPoint point :
+                await(client.retrieveAsync(collectionName, pointIds, true, false, null))) {
+            TextSegment segment = toTextSegment(point.getPayloadMap());
+            if (segment != null) {
+                segments.put(point.getId().getUuid(), segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Convert the given {@link TextSegment} to a Qdrant payload. The metadata entries of {@link
+     * MetadataArrayMapper#KEYS} are converted to keyword arrays.
+     *
+     * @param segment the text segment
+     * @return the payload
+     */
+    static Map<String, JsonWithInt.Value> toPayload(TextSegment segment) {
+        Map<String, JsonWithInt.Value> payload = new HashMap<>();
+        payload.put(PAYLOAD_TEXT_KEY, value(segment.text()));
+        for (Map.Entry<String, Object> entry : segment.metadata().toMap().entrySet()) {
+            Object v = entry.getValue();
+            if (MetadataArrayMapper.KEYS.contains(entry.getKey())) {
+                payload.put(
+                        entry.getKey(),
+                        list(
+                                MetadataArrayMapper.metadataEntryToValues(v.toString()).stream()
+                                        .map(ValueFactory::value)
+                                        .toList()));
+            } else if (v instanceof Integer || v instanceof Long) {
+                payload.put(entry.getKey(), value(((Number) v).longValue()));
+            } else if (v instanceof Number number) {
+                payload.put(entry.getKey(), value(number.doubleValue()));
+            } else {
+                payload.put(entry.getKey(), value(v.toString()));
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * Convert the given Qdrant payload to a {@link TextSegment}. The keyword arrays of {@link
+     * MetadataArrayMapper#KEYS} are converted back to metadata entries, payload values not
+     * supported by {@link Metadata} are skipped.
+     *
+     * @param payload the payload
+     * @return the text segment, or <code>null</code> if the payload has no text
+     */
+    static TextSegment toTextSegment(Map<String, JsonWithInt.Value> payload) {
+        JsonWithInt.Value text = payload.get(PAYLOAD_TEXT_KEY);
+        if (text == null) {
+            return null;
+        }
+        Metadata metadata = new Metadata();
+        for (Map.Entry<String, JsonWithInt.Value> entry : payload.entrySet()) {
+            String key = entry.getKey();
+            JsonWithInt.Value v = entry.getValue();
+            switch (v.getKindCase()) {
+                case STRING_VALUE -> {
+                    if (!PAYLOAD_TEXT_KEY.equals(key)) {
+                        metadata.put(key, v.getStringValue());
+                    }
+                }
+                case INTEGER_VALUE -> metadata.put(key, v.getIntegerValue());
+                case DOUBLE_VALUE -> metadata.put(key, v.getDoubleValue());
+                case LIST_VALUE -> {
+                    if (MetadataArrayMapper.KEYS.contains(key)) {
+                        metadata.put(
+                                key,
+                                MetadataArrayMapper.valuesToMetadataEntry(
+                                        v.getListValue().getValuesList().stream()
+                                                .map(JsonWithInt.Value::getStringValue)
+                                                .toList()));
+                    }
+                }
+                default -> {
+                    // not supported by metadata
+                }
+            }
+        }
+        return TextSegment.from(text.getStringValue(), metadata);
+    }
+
+    private static <T> T await(ListenableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e); // NOSONAR: we want to fail the operation
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause()); // NOSONAR: we want to fail the operation
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static io.qdrant.client.ConditionFactory.filter;
+import static io.qdrant.client.ConditionFactory.match;
+import static io.qdrant.client.ConditionFactory.matchExceptKeywords;
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ConditionFactory.matchKeywords;
+import static io.qdrant.client.ConditionFactory.matchText;
+import static io.qdrant.client.ConditionFactory.range;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.ContainsString;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+import io.qdrant.client.grpc.Points;
+
+/**
+ * Maps LangChain4j metadata {@link Filter}s to Qdrant {@link Points.Filter}s.
+ *
+ * <p>{@link IsIn} is mapped to a <code>match any</code> condition, which matches keyword array
+ * payloads if any of their elements matches and can be served by a keyword payload index.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class QdrantFilterMapper {
+    private QdrantFilterMapper() {}
+
+    /**
+     * Map the given {@link Filter} to a Qdrant {@link Points.Filter}.
+     *
+     * @param filter the filter to map
+     * @return the Qdrant filter
+     * @throws UnsupportedOperationException if the filter type is not supported
+     */
+    static Points.Filter map(Filter filter) {
+        return switch (filter) {
+            case And and ->
+                    Points.Filter.newBuilder()
+                            .addMust(filter(map(and.left())))
+                            .addMust(filter(map(and.right())))
+                            .build();
+            case Or or ->
+                    Points.Filter.newBuilder()
+                            .addShould(filter(map(or.left())))
+                            .addShould(filter(map(or.right())))
+                            .build();
+            case Not not ->
+                    Points.Filter.newBuilder().addMustNot(filter(map(not.expression()))).build();
+            case IsNotEqualTo isNotEqualTo ->
+                    Points.Filter.newBuilder()
+                            .addMustNot(
+                                    condition(isNotEqualTo.key(), isNotEqualTo.comparisonValue()))
+                            .build();
+            case IsNotIn isNotIn ->
+                    Points.Filter.newBuilder()
+                            .addMust(
+                                    matchExceptKeywords(
+                                            isNotIn.key(), toKeywords(isNotIn.comparisonValues())))
+                            .build();
+            default -> Points.Filter.newBuilder().addMust(condition(filter)).build();
+        };
+    }
+
+    private static Points.Condition condition(Filter filter) {
+        return switch (filter) {
+            case IsEqualTo isEqualTo -> condition(isEqualTo.key(), isEqualTo.comparisonValue());
+            case IsIn isIn -> matchKeywords(isIn.key(), toKeywords(isIn.comparisonValues()));
+            case ContainsString containsString ->
+                    matchText(containsString.key(), containsString.comparisonValue());
+            case IsGreaterThan gt ->
+                    range(
+                            gt.key(),
+                            Points.Range.newBuilder()
+                                    .setGt(toDouble(gt.comparisonValue()))
+                                    .build());
+            case IsGreaterThanOrEqualTo gte ->
+                    range(
+                            gte.key(),
+                            Points.Range.newBuilder()
+                                    .setGte(toDouble(gte.comparisonValue()))
+                                    .build());
+            case IsLessThan lt ->
+                    range(
+                            lt.key(),
+                            Points.Range.newBuilder()
+                                    .setLt(toDouble(lt.comparisonValue()))
+                                    .build());
+            case IsLessThanOrEqualTo lte ->
+                    range(
+                            lte.key(),
+                            Points.Range.newBuilder()
+                                    .setLte(toDouble(lte.comparisonValue()))
+                                    .build());
+            case And and -> filter(map(and));
+            case Or or -> filter(map(or));
+            case Not not -> filter(map(not));
+            case IsNotEqualTo isNotEqualTo -> filter(map(isNotEqualTo));
+            case IsNotIn isNotIn -> filter(map(isNotIn));
+            default ->
+                    throw new UnsupportedOperationException(
+                            "Unsupported filter type: " + filter.getClass().getName());
+        };
+    }
+
+    private static Points.Condition condition(String key, Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return match(key, ((Number) value).longValue());
+        }
+        if (value instanceof Number number) {
+            return range(
+                    key,
+                    Points.Range.newBuilder()
+                            .setGte(number.doubleValue())
+                            .setLte(number.doubleValue())
+                            .build());
+        }
+        return matchKeyword(key, value.toString());
+    }
+
+    private static List<String> toKeywords(Collection<?> values) {
+        List<String> keywords = new ArrayList<>(values.size());
+        for (Object value : values) {
+            keywords.add(value instanceof UUID uuid ? uuid.toString() : String.valueOf(value));
+        }
+        return keywords;
+    }
+
+    private static double toDouble(Comparable<?> value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new UnsupportedOperationException(
+                "Range filters are only supported for numeric values, got: " + value);
+    }
+}
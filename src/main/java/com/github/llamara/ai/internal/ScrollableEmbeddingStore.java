@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.Collection;
+import java.util.Map;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+/**
+ * {@link EmbeddingStore} that can fetch the stored {@link TextSegment}s matching a metadata filter
+ * or by their embedding IDs without a vector search.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public interface ScrollableEmbeddingStore extends EmbeddingStore<TextSegment> {
+    /**
+     * Fetch the text segments matching the given filter in a single request.
+     *
+     * @param filter the metadata filter
+     * @param limit the maximum number of segments to fetch
+     * @return the text segments by their embedding ID
+     */
+    Map<String, TextSegment> scroll(Filter filter, int limit);
+
+    /**
+     * Fetch the text segments with the given embedding IDs in a single request. Unknown IDs are
+     * skipped.
+     *
+     * @param ids the embedding IDs
+     * @return the text segments by their embedding ID
+     */
+    Map<String, TextSegment> getByIds(Collection<String> ids);
+}
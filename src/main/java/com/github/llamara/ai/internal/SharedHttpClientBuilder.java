@@ -0,0 +1,105 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * {@link HttpClient.Builder} that always builds the given shared {@link HttpClient}, so langchain4j
+ * HTTP clients built from it share its connection pool. All settings are ignored, as they are
+ * configured on the shared client; request timeouts are applied per request by langchain4j.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class SharedHttpClientBuilder implements HttpClient.Builder {
+    private final HttpClient client;
+
+    SharedHttpClientBuilder(HttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public HttpClient.Builder cookieHandler(CookieHandler cookieHandler) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder connectTimeout(Duration duration) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder sslContext(SSLContext sslContext) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder sslParameters(SSLParameters sslParameters) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder executor(Executor executor) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder followRedirects(HttpClient.Redirect policy) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder version(HttpClient.Version version) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder priority(int priority) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder proxy(ProxySelector proxySelector) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder authenticator(Authenticator authenticator) {
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder localAddress(InetAddress localAddr) {
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return client;
+    }
+}
@@ -24,6 +24,7 @@ import java.util.UUID;
 import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.Result;
 import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
 
 /**
@@ -53,6 +54,27 @@ You are LLAMARA, the Large Language Assistant for Model Augmented Retrieval and
 
     Result<String> chatWithoutSystemMessage(@MemoryId UUID sessionId, @UserMessage String prompt);
 
+    /**
+     * Streaming variant of {@link #chat(UUID, String)}. Retrieval happens when calling this method,
+     * the chat model is prompted when the stream is started.
+     *
+     * @param sessionId the session ID
+     * @param prompt the prompt
+     * @return the token stream, not yet started
+     */
+    @SystemMessage(SYSTEM_MESSAGE)
+    TokenStream chatStream(@MemoryId UUID sessionId, @UserMessage String prompt);
+
+    /**
+     * Streaming variant of {@link #chatWithoutSystemMessage(UUID, String)}.
+     *
+     * @param sessionId the session ID
+     * @param prompt the prompt
+     * @return the token stream, not yet started
+     */
+    TokenStream chatStreamWithoutSystemMessage(
+            @MemoryId UUID sessionId, @UserMessage String prompt);
+
     /**
      * Clean the given text by removing unnecessary noise and formatting it.
      *
@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.internal.chat.response.BatchPromptResultRecord;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.security.identity.CurrentIdentityAssociation;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Runs the prompts of a batch concurrently on virtual threads.
+ *
+ * <p>Retrieval builds its permission filter from the request-scoped {@link SecurityIdentity},
+ * which is not propagated to other threads. Each prompt therefore runs in a new request context
+ * that is associated with the identity of the caller of {@link #run(ChatModel, List, Set, int)}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+public class BatchPromptRunner {
+    private final CurrentIdentityAssociation identityAssociation;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Inject
+    BatchPromptRunner(CurrentIdentityAssociation identityAssociation) {
+        this.identityAssociation = identityAssociation;
+    }
+
+    /**
+     * Send the prompts that are not completed yet to the chat model. Must be called on the request
+     * thread, as it captures the identity of the caller.
+     *
+     * @param chatModel the chat model to send the prompts to
+     * @param prompts the prompts of the batch
+     * @param completed the indices of the prompts to skip
+     * @param concurrency the number of prompts to send concurrently
+     * @return the results in the order of completion
+     */
+    public Multi<BatchPromptResultRecord> run(
+            ChatModel chatModel, List<String> prompts, Set<Integer> completed, int concurrency) {
+        SecurityIdentity identity = identityAssociation.getIdentity();
+        return Multi.createFrom()
+                .range(0, prompts.size())
+                .select()
+                .where(index -> !completed.contains(index))
+                .onItem()
+                .transformToUni(
+                        index ->
+                                Uni.createFrom()
+                                        .item(
+                                                () ->
+                                                        chatBatchPrompt(
+                                                                chatModel,
+                                                                identity,
+                                                                index,
+                                                                prompts.get(index)))
+                                        .runSubscriptionOn(executor))
+                .merge(concurrency);
+    }
+
+    private BatchPromptResultRecord chatBatchPrompt(
+            ChatModel chatModel, SecurityIdentity identity, int index, String prompt) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        try {
+            identityAssociation.setIdentity(identity);
+            return chatModel.chatBatchPrompt(index, prompt);
+        } finally {
+            requestContext.terminate();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+}
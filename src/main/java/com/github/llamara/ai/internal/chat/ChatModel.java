@@ -21,38 +21,86 @@ package com.github.llamara.ai.internal.chat;
 
 import com.github.llamara.ai.config.chat.ChatModelConfig;
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.chat.history.ChatHistoryStore;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.response.BatchPromptResultRecord;
 import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+import com.github.llamara.ai.internal.chat.response.ChatStreamEvent;
 import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+import com.github.llamara.ai.internal.telemetry.StageTracer;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessageType;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.rag.content.ContentMetadata;
 import dev.langchain4j.service.Result;
+import dev.langchain4j.service.TokenStream;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
 
 /**
  * The {@link ChatModel} provides the interface to chat with the chat models. It takes care of
- * storing the chat history, if enabled, and applies the system prompt, if enabled.
+ * storing the chat history, if enabled, and applies the system prompt, if enabled. First-turn
+ * prompts are answered from the {@link ChatResponseCache}, if enabled. The AI service call is
+ * traced by the {@link StageTracer} and limited by the {@link ConcurrencyLimiter}.
  *
  * @author Florian Hotze - Initial contribution
  */
 public class ChatModel {
+    private static final int MAX_BATCH_OVERLOAD_RETRIES = 3;
+
     private final ChatModelConfig.ModelConfig config;
     private final AiService aiService;
     private final ChatHistoryStore historyStore;
+    private final ChatMemoryProvider chatMemoryProvider;
+    private final ChatResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+    private final StageTracer stageTracer;
+    private final ConcurrencyLimiter limiter;
+    private final boolean streamingSupported;
 
+    /**
+     * @param config the chat model config
+     * @param aiService the AI service of the chat model
+     * @param historyStore the chat history store
+     * @param chatMemoryProvider the chat memory provider
+     * @param responseCache the chat response cache
+     * @param coalescer the coalescer for identical concurrent requests
+     * @param stageTracer the tracer for the AI service call
+     * @param limiter the concurrency limiter for the AI service call
+     * @param streamingSupported whether the AI service has a streaming chat model
+     */
     public ChatModel(
             ChatModelConfig.ModelConfig config,
             AiService aiService,
-            ChatHistoryStore historyStore) {
+            ChatHistoryStore historyStore,
+            ChatMemoryProvider chatMemoryProvider,
+            ChatResponseCache responseCache,
+            RequestCoalescer coalescer,
+            StageTracer stageTracer,
+            ConcurrencyLimiter limiter,
+            boolean streamingSupported) {
         this.config = config;
         this.aiService = aiService;
         this.historyStore = historyStore;
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+        this.stageTracer = stageTracer;
+        this.limiter = limiter;
+        this.streamingSupported = streamingSupported;
     }
 
     /**
@@ -62,42 +110,458 @@ public class ChatModel {
      * @param history whether to save the conversation to the chat history
      * @param prompt the prompt to send to the chat model
      * @return the response from the chat model
+     * @throws ChatModelOverloadedException if the chat model is at its concurrency limit
      */
-    public ChatResponseRecord chat(UUID sessionId, boolean history, String prompt) {
+    public ChatResponseRecord chat(UUID sessionId, boolean history, String prompt)
+            throws ChatModelOverloadedException {
         Log.debugf("Received chat request for session '%s'.", sessionId);
 
+        ChatResponseCache.Lookup lookup = lookupCache(sessionId, prompt);
+        if (lookup != null && lookup.hit().isPresent()) {
+            if (history) {
+                storePrompt(sessionId, prompt);
+            }
+            return answerFromCache(sessionId, history, prompt, lookup.hit().get());
+        }
+
+        RequestCoalescer.Flight flight = joinFlight(sessionId, prompt);
+        if (flight != null && !flight.isLeader()) {
+            RequestCoalescer.Generation generation = flight.await();
+            if (generation != null) {
+                if (history) {
+                    storePrompt(sessionId, prompt);
+                }
+                return answerFromFlight(sessionId, history, prompt, generation);
+            }
+            flight = null; // the leader abandoned the flight, so answer the prompt on its own
+        }
+
+        // acquire before storing the prompt, so rejected prompts do not show up in the history
+        ConcurrencyLimiter.Permit permit = acquire(flight);
         if (history) {
             storePrompt(sessionId, prompt);
         }
 
         Result<String> result;
-        if (config.systemPromptEnabled()) {
-            result = aiService.chat(sessionId, prompt);
-        } else {
-            result = aiService.chatWithoutSystemMessage(sessionId, prompt);
+        try {
+            result = callAiService(sessionId, prompt);
+            permit.complete();
+        } catch (RuntimeException e) {
+            permit.fail();
+            if (flight != null) {
+                flight.fail(e);
+            }
+            throw e;
+        }
+        if (flight != null) {
+            flight.complete(new RequestCoalescer.Generation(result.content(), result.sources()));
         }
         ChatResponseRecord response =
-                new ChatResponseRecord(
-                        result.content(), getSourcesFromResult(result, result.content()));
+                complete(sessionId, history, lookup, result.sources(), result.content());
+        Log.infof("Answered chat request for session '%s'.", sessionId);
+        return response;
+    }
+
+    /**
+     * Call the AI service and trace the call.
+     *
+     * @param sessionId the session ID
+     * @param prompt the prompt
+     * @return the result of the AI service
+     */
+    private Result<String> callAiService(UUID sessionId, String prompt) {
+        return stageTracer.trace(
+                StageTracer.Stage.AI_SERVICE,
+                config.uid(),
+                () ->
+                        config.systemPromptEnabled()
+                                ? aiService.chat(sessionId, prompt)
+                                : aiService.chatWithoutSystemMessage(sessionId, prompt),
+                (span, r) -> {
+                    span.setAttribute(StageTracer.RESULT_COUNT, r.sources().size());
+                    TokenUsage tokenUsage = r.tokenUsage();
+                    if (tokenUsage != null && tokenUsage.inputTokenCount() != null) {
+                        span.setAttribute(StageTracer.TOKENS_INPUT, tokenUsage.inputTokenCount());
+                    }
+                    if (tokenUsage != null && tokenUsage.outputTokenCount() != null) {
+                        span.setAttribute(StageTracer.TOKENS_OUTPUT, tokenUsage.outputTokenCount());
+                    }
+                });
+    }
+
+    /**
+     * Send a prompt to a chat model and stream the response. Cached responses are looked up on the
+     * calling thread, everything else, i.e. joining an in-flight request, acquiring the concurrency
+     * permit and retrieval, happens once the returned {@link Multi} is subscribed to. This way, no
+     * permit or flight is left behind if the client disconnects before. The chat history is stored
+     * when the stream completes.
+     *
+     * <p>If the chat model does not support streaming, the whole response is sent as a single
+     * token.
+     *
+     * @param sessionId the session ID
+     * @param history whether to save the conversation to the chat history
+     * @param prompt the prompt to send to the chat model
+     * @return the tokens of the response followed by its sources
+     * @throws ChatModelOverloadedException if the chat model is at its concurrency limit
+     */
+    public Multi<ChatStreamEvent> chatStream(UUID sessionId, boolean history, String prompt)
+            throws ChatModelOverloadedException {
+        if (!streamingSupported) {
+            ChatResponseRecord response = chat(sessionId, history, prompt);
+            return Multi.createFrom()
+                    .items(
+                            new ChatStreamEvent.Token(response.response()),
+                            new ChatStreamEvent.Sources(response.sources()));
+        }
+
+        Log.debugf("Received streaming chat request for session '%s'.", sessionId);
+
+        ChatResponseCache.Lookup lookup = lookupCache(sessionId, prompt);
+        if (lookup != null && lookup.hit().isPresent()) {
+            if (history) {
+                storePrompt(sessionId, prompt);
+            }
+            ChatResponseRecord response =
+                    answerFromCache(sessionId, history, prompt, lookup.hit().get());
+            return Multi.createFrom()
+                    .items(
+                            new ChatStreamEvent.Token(response.response()),
+                            new ChatStreamEvent.Sources(response.sources()));
+        }
+
+        return Multi.createFrom()
+                .deferred(
+                        () -> {
+                            try {
+                                return streamResponse(sessionId, history, prompt, lookup);
+                            } catch (ChatModelOverloadedException e) {
+                                return Multi.createFrom().failure(e);
+                            }
+                        });
+    }
+
+    /**
+     * Stream the response to a prompt that has not been answered from the cache.
+     *
+     * @see #chatStream(UUID, boolean, String)
+     */
+    private Multi<ChatStreamEvent> streamResponse(
+            UUID sessionId, boolean history, String prompt, ChatResponseCache.Lookup lookup)
+            throws ChatModelOverloadedException {
+        RequestCoalescer.Flight joinedFlight = joinFlight(sessionId, prompt);
+        if (joinedFlight != null && !joinedFlight.isLeader()) {
+            // the response of the leader is only available once it is complete
+            RequestCoalescer.Generation generation = joinedFlight.await();
+            if (generation != null) {
+                if (history) {
+                    storePrompt(sessionId, prompt);
+                }
+                ChatResponseRecord response =
+                        answerFromFlight(sessionId, history, prompt, generation);
+                return Multi.createFrom()
+                        .items(
+                                new ChatStreamEvent.Token(response.response()),
+                                new ChatStreamEvent.Sources(response.sources()));
+            }
+            joinedFlight = null; // the leader abandoned the flight, so answer the prompt on its own
+        }
+        RequestCoalescer.Flight flight = joinedFlight;
+
+        // acquire before the response is streamed, so rejections fail the stream before any event
+        ConcurrencyLimiter.Permit permit = acquire(flight);
+        if (history) {
+            storePrompt(sessionId, prompt);
+        }
+
+        // retrieval uses request-scoped beans, so the AI service must be called on the subscribing
+        // thread, which still runs within the request
+        TokenStream tokenStream;
+        try {
+            tokenStream =
+                    stageTracer.trace(
+                            StageTracer.Stage.AI_SERVICE,
+                            config.uid(),
+                            () ->
+                                    config.systemPromptEnabled()
+                                            ? aiService.chatStream(sessionId, prompt)
+                                            : aiService.chatStreamWithoutSystemMessage(
+                                                    sessionId, prompt));
+        } catch (RuntimeException e) {
+            permit.fail();
+            if (flight != null) {
+                flight.fail(e);
+            }
+            throw e;
+        }
+
+        return Multi.createFrom()
+                .emitter(
+                        emitter -> {
+                            List<Content> sources = new ArrayList<>();
+                            tokenStream
+                                    .onRetrieved(sources::addAll)
+                                    .onPartialResponse(
+                                            token -> emitter.emit(new ChatStreamEvent.Token(token)))
+                                    .onCompleteResponse(
+                                            chatResponse -> {
+                                                ChatResponseRecord response =
+                                                        complete(
+                                                                sessionId,
+                                                                history,
+                                                                lookup,
+                                                                sources,
+                                                                chatResponse.aiMessage().text());
+                                                if (flight != null) {
+                                                    flight.complete(
+                                                            new RequestCoalescer.Generation(
+                                                                    chatResponse.aiMessage().text(),
+                                                                    sources));
+                                                }
+                                                emitter.emit(
+                                                        new ChatStreamEvent.Sources(
+                                                                response.sources()));
+                                                emitter.complete();
+                                                Log.infof(
+                                                        "Answered streaming chat request for"
+                                                                + " session '%s'.",
+                                                        sessionId);
+                                            })
+                                    .onError(emitter::fail)
+                                    .start();
+                        })
+                .onTermination()
+                .invoke(
+                        (failure, cancelled) -> {
+                            if (Boolean.TRUE.equals(cancelled)) {
+                                permit.cancel();
+                            } else if (failure != null) {
+                                permit.fail();
+                            } else {
+                                permit.complete();
+                            }
+                            if (flight != null) {
+                                // no-op if the flight was completed with the response
+                                if (failure != null) {
+                                    flight.fail(failure);
+                                } else {
+                                    flight.abandon();
+                                }
+                            }
+                        });
+    }
+
+    /**
+     * Send a single prompt of a batch to the chat model. The prompt is answered in a fresh chat
+     * memory, which is cleared afterward, and neither uses the chat history, the response cache
+     * nor coalescing, so each prompt reaches the chat model. If the chat model is at its
+     * concurrency limit, the prompt is retried after the requested delay.
+     *
+     * <p>Failures are reported in the result instead of being thrown, so a failed prompt does not
+     * abort the batch. Retrieval requires an active request context with the caller's identity,
+     * see {@link BatchPromptRunner}.
+     *
+     * @param index the index of the prompt in the batch
+     * @param prompt the prompt to send to the chat model
+     * @return the result with the latency and token usage
+     */
+    public BatchPromptResultRecord chatBatchPrompt(int index, String prompt) {
+        UUID memoryId = UUID.randomUUID();
+        long start = System.nanoTime();
+        try {
+            ConcurrencyLimiter.Permit permit = acquireForBatch();
+            Result<String> result;
+            try {
+                result = callAiService(memoryId, prompt);
+                permit.complete();
+            } catch (RuntimeException e) {
+                permit.fail();
+                throw e;
+            }
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            TokenUsage tokenUsage = result.tokenUsage();
+            return new BatchPromptResultRecord(
+                    index,
+                    result.content(),
+                    getSources(result.sources(), result.content()),
+                    latencyMillis,
+                    tokenUsage != null ? tokenUsage.inputTokenCount() : null,
+                    tokenUsage != null ? tokenUsage.outputTokenCount() : null,
+                    null);
+        } catch (ChatModelOverloadedException | RuntimeException e) {
+            Log.warnf("Failed to answer batch prompt %d: %s", index, e.getMessage());
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new BatchPromptResultRecord(
+                    index, null, null, latencyMillis, null, null, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BatchPromptResultRecord(index, null, null, 0, null, null, "Interrupted.");
+        } finally {
+            chatMemoryProvider.get(memoryId).clear();
+        }
+    }
+
+    /**
+     * Acquire a permit from the concurrency limiter for a batch prompt, waiting for the requested
+     * retry delay if the chat model is overloaded.
+     *
+     * @return the permit
+     * @throws ChatModelOverloadedException if the chat model is still overloaded after all retries
+     * @throws InterruptedException if interrupted while waiting for a retry
+     */
+    private ConcurrencyLimiter.Permit acquireForBatch()
+            throws ChatModelOverloadedException, InterruptedException {
+        for (int retries = 0; ; retries++) {
+            try {
+                return limiter.acquire();
+            } catch (ChatModelOverloadedException e) {
+                if (retries >= MAX_BATCH_OVERLOAD_RETRIES) {
+                    throw e;
+                }
+                TimeUnit.SECONDS.sleep(Math.max(1, e.getRetryAfterSeconds()));
+            }
+        }
+    }
+
+    /**
+     * Look up the prompt in the {@link ChatResponseCache}. Only first-turn prompts are cacheable,
+     * as later responses depend on the chat memory.
+     *
+     * @param sessionId the session ID
+     * @param prompt the prompt
+     * @return the lookup, <code>null</code> if the prompt is not cacheable
+     */
+    private ChatResponseCache.Lookup lookupCache(UUID sessionId, String prompt) {
+        if (!responseCache.isEnabled() || !isFirstTurn(sessionId)) {
+            return null;
+        }
+        return responseCache.lookup(config.uid(), prompt);
+    }
+
+    /**
+     * Join the in-flight request for an identical prompt through the {@link RequestCoalescer}.
+     * Like for the cache, only first-turn prompts are coalesced.
+     *
+     * @param sessionId the session ID
+     * @param prompt the prompt
+     * @return the flight, <code>null</code> if the prompt is not coalesced
+     */
+    private RequestCoalescer.Flight joinFlight(UUID sessionId, String prompt) {
+        if (!coalescer.isEnabled() || !isFirstTurn(sessionId)) {
+            return null;
+        }
+        return coalescer.join(config.uid(), prompt);
+    }
+
+    private boolean isFirstTurn(UUID sessionId) {
+        return chatMemoryProvider.get(sessionId).messages().isEmpty();
+    }
+
+    /**
+     * Acquire a permit from the concurrency limiter. If rejected, the rejection is passed on to the
+     * followers of the flight led by the request.
+     *
+     * @param flight the flight led by the request, <code>null</code> if not coalesced
+     * @return the permit
+     * @throws ChatModelOverloadedException if the chat model is at its concurrency limit
+     */
+    private ConcurrencyLimiter.Permit acquire(RequestCoalescer.Flight flight)
+            throws ChatModelOverloadedException {
+        try {
+            return limiter.acquire();
+        } catch (ChatModelOverloadedException e) {
+            if (flight != null) {
+                flight.fail(e);
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * Answer the prompt with the cached response.
+     *
+     * @param sessionId the session ID
+     * @param history whether to save the response to the chat history
+     * @param prompt the prompt
+     * @param response the cached response
+     * @return the cached response
+     */
+    private ChatResponseRecord answerFromCache(
+            UUID sessionId, boolean history, String prompt, ChatResponseRecord response) {
+        // Remember the exchange so that follow-up prompts have the context
+        ChatMemory memory = chatMemoryProvider.get(sessionId);
+        memory.add(UserMessage.from(prompt));
+        memory.add(AiMessage.from(response.response()));
         if (history) {
             storeResponse(sessionId, response);
         }
+        Log.infof("Answered chat request for session '%s' from cache.", sessionId);
+        return response;
+    }
 
-        Log.infof("Answered chat request for session '%s'.", sessionId);
+    /**
+     * Answer the prompt with the result of the leader of a coalesced request.
+     *
+     * @param sessionId the session ID
+     * @param history whether to save the response to the chat history
+     * @param prompt the prompt
+     * @param generation the result of the leader
+     * @return the response
+     */
+    private ChatResponseRecord answerFromFlight(
+            UUID sessionId,
+            boolean history,
+            String prompt,
+            RequestCoalescer.Generation generation) {
+        // Remember the exchange so that follow-up prompts have the context
+        ChatMemory memory = chatMemoryProvider.get(sessionId);
+        memory.add(UserMessage.from(prompt));
+        memory.add(AiMessage.from(generation.text()));
+        ChatResponseRecord response =
+                complete(sessionId, history, null, generation.contents(), generation.text());
+        Log.infof("Answered chat request for session '%s' with coalesced request.", sessionId);
+        return response;
+    }
+
+    /**
+     * Build the response from the response text and retrieved contents, put it into the cache and
+     * store it in the chat history.
+     *
+     * @param sessionId the session ID
+     * @param history whether to save the response to the chat history
+     * @param lookup the cache lookup, <code>null</code> if the prompt is not cacheable
+     * @param contents the retrieved contents
+     * @param text the text of the response
+     * @return the response
+     */
+    private ChatResponseRecord complete(
+            UUID sessionId,
+            boolean history,
+            ChatResponseCache.Lookup lookup,
+            List<Content> contents,
+            String text) {
+        ChatResponseRecord response = new ChatResponseRecord(text, getSources(contents, text));
+
+        if (lookup != null) {
+            responseCache.put(lookup, response, getKnowledgeIds(contents));
+        }
+
+        if (history) {
+            storeResponse(sessionId, response);
+        }
         return response;
     }
 
     /**
-     * Get the sources from the result. Filters out sources that were not used by the chat model to
-     * generate the response.
+     * Get the sources from the retrieved contents. Filters out sources that were not used by the
+     * chat model to generate the response.
      *
-     * @param result the {@link Result} from the chat model
+     * @param contents the retrieved contents
      * @param text the text of the response
      * @return the sources used by the chat model to generate the response
      */
-    private List<RagSourceRecord> getSourcesFromResult(Result<?> result, String text) {
-        return result.sources().stream()
+    private List<RagSourceRecord> getSources(List<Content> contents, String text) {
+        return contents.stream()
                 // filter out sources whose embedding ID is not in the response text
                 .filter(
                         c ->
@@ -121,6 +585,21 @@ public class ChatModel {
                 .toList();
     }
 
+    /**
+     * Get the IDs of all knowledge that was retrieved to generate the response, regardless of
+     * whether the chat model used it.
+     *
+     * @param contents the retrieved contents
+     * @return the knowledge IDs
+     */
+    private List<UUID> getKnowledgeIds(List<Content> contents) {
+        return contents.stream()
+                .map(c -> c.textSegment().metadata().getUUID(EmbeddingMetadataKeys.KNOWLEDGE_ID))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
     /**
      * Store the prompt in the chat history.
      *
@@ -138,7 +617,8 @@ public class ChatModel {
     }
 
     /**
-     * Store the response in the chat history.
+     * Store the response in the chat history. The sources are stored without their content, as it
+     * can be loaded from the embedding store.
      *
      * @param sessionId the session ID
      * @param response the response to store
@@ -148,11 +628,12 @@ public class ChatModel {
                 .addMessage(
                         sessionId,
                         new ChatMessageRecord(
-                                ChatMessageType.AI,
-                                response.response(),
-                                Instant.now(),
-                                response.sources(),
-                                config.uid()))
+                                        ChatMessageType.AI,
+                                        response.response(),
+                                        Instant.now(),
+                                        response.sources(),
+                                        config.uid())
+                                .withoutSourceContent())
                 .subscribe()
                 .with(item -> {}, failure -> {});
     }
@@ -0,0 +1,44 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+/**
+ * Exception signaling that a {@link ChatModel} has reached its concurrency limit and the request
+ * has been rejected.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public class ChatModelOverloadedException extends Exception {
+    private final long retryAfterSeconds;
+
+    ChatModelOverloadedException(String uid, long retryAfterSeconds) {
+        super(String.format("Chat model with uid '%s' is overloaded!", uid));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Get the number of seconds after which the request should be retried.
+     *
+     * @return retry delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
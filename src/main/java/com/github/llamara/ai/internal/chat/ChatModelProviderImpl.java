@@ -23,29 +23,46 @@ import static com.github.llamara.ai.internal.Utils.AZURE_OPENAI_API_VERSION;
 import static com.github.llamara.ai.internal.Utils.buildAzureOpenaiEndpoint;
 
 import com.github.llamara.ai.config.EnvironmentVariables;
+import com.github.llamara.ai.config.chat.ChatConcurrencyConfig;
 import com.github.llamara.ai.config.chat.ChatModelConfig;
+import com.github.llamara.ai.config.chat.ChatRoutingConfig;
+import com.github.llamara.ai.internal.HttpClientProvider;
 import com.github.llamara.ai.internal.StartupException;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.chat.history.ChatHistoryStore;
+import com.github.llamara.ai.internal.chat.memory.ChatMemorySummarizer;
+import com.github.llamara.ai.internal.retrieval.RetrievalAugmentorProvider;
+import com.github.llamara.ai.internal.telemetry.StageTracer;
 
-import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import dev.langchain4j.http.client.jdk.JdkHttpClient;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.mistralai.MistralAiChatModel;
+import dev.langchain4j.model.mistralai.MistralAiStreamingChatModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiChatRequestParameters;
-import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.service.AiServices;
 import io.quarkiverse.langchain4j.ai.runtime.gemini.AiGeminiChatLanguageModel;
 import io.quarkiverse.langchain4j.azure.openai.AzureOpenAiChatModel;
+import io.quarkiverse.langchain4j.azure.openai.AzureOpenAiStreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.Startup;
 
@@ -61,33 +78,64 @@ class ChatModelProviderImpl implements ChatModelProvider {
     private static final String INITIALIZATION_FAILURE_MESSAGE = "Failed to initialize chat models";
 
     private final ChatModelConfig chatModelConfig;
+    private final ChatConcurrencyConfig chatConcurrencyConfig;
+    private final ChatRoutingConfig chatRoutingConfig;
     private final EnvironmentVariables env;
+    private final HttpClientProvider httpClientProvider;
     private final ChatMemoryProvider chatMemoryProvider;
+    private final ChatMemorySummarizer chatMemorySummarizer;
     private final ChatHistoryStore chatHistoryStore;
-    private final RetrievalAugmentor retrievalAugmentor;
+    private final RetrievalAugmentorProvider retrievalAugmentorProvider;
+    private final ChatResponseCache chatResponseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final StageTracer stageTracer;
+    private final MeterRegistry meterRegistry;
 
     private final Map<String, ChatModelContainer> chatModels = new HashMap<>();
+    // shared by all routing chat models to send hedged requests
+    private final ExecutorService routingExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Inject
     ChatModelProviderImpl(
             ChatModelConfig chatModelConfig,
+            ChatConcurrencyConfig chatConcurrencyConfig,
+            ChatRoutingConfig chatRoutingConfig,
             EnvironmentVariables env,
+            HttpClientProvider httpClientProvider,
             ChatMemoryProvider chatMemoryProvider,
+            ChatMemorySummarizer chatMemorySummarizer,
             ChatHistoryStore chatHistoryStore,
-            RetrievalAugmentor retrievalAugmentor) {
+            RetrievalAugmentorProvider retrievalAugmentorProvider,
+            ChatResponseCache chatResponseCache,
+            RequestCoalescer requestCoalescer,
+            StageTracer stageTracer,
+            MeterRegistry meterRegistry) {
         this.chatModelConfig = chatModelConfig;
+        this.chatConcurrencyConfig = chatConcurrencyConfig;
+        this.chatRoutingConfig = chatRoutingConfig;
         this.env = env;
+        this.httpClientProvider = httpClientProvider;
         this.chatMemoryProvider = chatMemoryProvider;
+        this.chatMemorySummarizer = chatMemorySummarizer;
         this.chatHistoryStore = chatHistoryStore;
-        this.retrievalAugmentor = retrievalAugmentor;
+        this.retrievalAugmentorProvider = retrievalAugmentorProvider;
+        this.chatResponseCache = chatResponseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.stageTracer = stageTracer;
+        this.meterRegistry = meterRegistry;
         initializeChatModels();
     }
 
     private void initializeChatModels() {
+        // create all chat language models first, so they are available for query expansion and
+        // chat memory summarization
+        Map<String, ChatModelConfig.ModelConfig> configs = new LinkedHashMap<>();
+        Map<String, dev.langchain4j.model.chat.ChatModel> languageModels = new HashMap<>();
+        Map<String, EndpointPool> endpointPools = new HashMap<>();
         for (ChatModelConfig.ModelConfig // NOSONAR: we want to have more than a single "continue"
                 // statement
                 config : chatModelConfig.models()) {
-            if (chatModels.containsKey(config.uid())) {
+            if (configs.containsKey(config.uid())) {
                 Log.warnf("Duplicate uid %s, skipping chat model.", config.uid());
                 continue;
             }
@@ -100,17 +148,56 @@ class ChatModelProviderImpl implements ChatModelProvider {
                     "Creating chat model '%s' of provider '%s' ...",
                     config.uid(), config.provider());
 
-            dev.langchain4j.model.chat.ChatModel clm = produceChatLanguageModel(config);
+            configs.put(config.uid(), config);
+            if (config.endpoints().isEmpty() || config.endpoints().get().isEmpty()) {
+                languageModels.put(config.uid(), produceChatLanguageModel(config));
+            } else {
+                EndpointPool pool = produceEndpointPool(config);
+                endpointPools.put(config.uid(), pool);
+                languageModels.put(config.uid(), new RoutingChatModel(pool, routingExecutor));
+            }
+        }
+
+        chatMemorySummarizer.initialize(languageModels);
 
+        for (ChatModelConfig.ModelConfig config : configs.values()) {
+            AiServices<AiService> aiService =
+                    AiServices.builder(AiService.class)
+                            .chatModel(
+                                    new TracingChatModel(
+                                            languageModels.get(config.uid()),
+                                            stageTracer,
+                                            config.uid()))
+                            .chatMemoryProvider(chatMemoryProvider)
+                            .retrievalAugmentor(
+                                    retrievalAugmentorProvider.getRetrievalAugmentor(
+                                            config, languageModels));
+            EndpointPool pool = endpointPools.get(config.uid());
+            StreamingChatModel streamingModel;
+            if (pool == null) {
+                streamingModel = produceStreamingChatLanguageModel(config);
+            } else {
+                // streaming is only supported if the primary endpoint supports it
+                streamingModel =
+                        pool.getPrimary().streamingModel() != null
+                                ? new RoutingStreamingChatModel(pool)
+                                : null;
+            }
+            if (streamingModel != null) {
+                aiService.streamingChatModel(streamingModel);
+            }
             ChatModel model =
                     new ChatModel(
                             config,
-                            AiServices.builder(AiService.class)
-                                    .chatModel(clm)
-                                    .chatMemoryProvider(chatMemoryProvider)
-                                    .retrievalAugmentor(retrievalAugmentor)
-                                    .build(),
-                            chatHistoryStore);
+                            aiService.build(),
+                            chatHistoryStore,
+                            chatMemoryProvider,
+                            chatResponseCache,
+                            requestCoalescer,
+                            stageTracer,
+                            new ConcurrencyLimiter(
+                                    config.uid(), chatConcurrencyConfig, meterRegistry),
+                            streamingModel != null);
 
             ChatModelContainer cm =
                     new ChatModelContainer(
@@ -123,6 +210,40 @@ class ChatModelProviderImpl implements ChatModelProvider {
         }
     }
 
+    /**
+     * Produce the {@link EndpointPool} of a chat model with additional endpoints. The endpoint
+     * configured by the chat model config itself is the primary endpoint.
+     *
+     * @param config the chat model config
+     * @return the endpoint pool
+     */
+    private EndpointPool produceEndpointPool(ChatModelConfig.ModelConfig config) {
+        List<EndpointPool.Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(produceEndpoint(config));
+        for (ChatModelConfig.EndpointConfig endpoint : config.endpoints().orElseThrow()) {
+            Log.infof(
+                    "Adding endpoint of provider '%s' to chat model '%s' ...",
+                    endpoint.provider(), config.uid());
+            endpoints.add(produceEndpoint(new EndpointModelConfig(config, endpoint)));
+        }
+        return new EndpointPool(config.uid(), chatRoutingConfig, endpoints);
+    }
+
+    private EndpointPool.Endpoint produceEndpoint(ChatModelConfig.ModelConfig config) {
+        String name =
+                config.provider()
+                        + " "
+                        + config.model()
+                        + config.resourceName()
+                                .or(config::baseUrl)
+                                .map(location -> " at " + location)
+                                .orElse("");
+        return new EndpointPool.Endpoint(
+                name,
+                produceChatLanguageModel(config),
+                produceStreamingChatLanguageModel(config));
+    }
+
     private dev.langchain4j.model.chat.ChatModel produceChatLanguageModel(
             ChatModelConfig.ModelConfig config) {
         return switch (config.provider()) {
@@ -137,6 +258,7 @@ class ChatModelProviderImpl implements ChatModelProvider {
                         .endpoint(endpoint)
                         .apiKey(env.getAzureApiKey())
                         .apiVersion(AZURE_OPENAI_API_VERSION)
+                        .timeout(httpClientProvider.timeout(config.provider()))
                         .temperature(config.temperature())
                         .topP(config.topP().orElse(null))
                         .frequencyPenalty(config.frequencyPenalty().orElse(null))
@@ -148,6 +270,7 @@ class ChatModelProviderImpl implements ChatModelProvider {
                     AiGeminiChatLanguageModel.builder()
                             .baseUrl(config.baseUrl())
                             .key(env.getGoogleGeminiApiKey())
+                            .timeout(httpClientProvider.timeout(config.provider()))
                             .modelId(config.model())
                             .temperature(config.temperature())
                             .topP(config.topP().orElse(null))
@@ -157,7 +280,7 @@ class ChatModelProviderImpl implements ChatModelProvider {
                     MistralAiChatModel.builder()
                             .baseUrl(config.baseUrl().orElse(null))
                             .apiKey(env.getMistralApiKey())
-                            .timeout(Duration.ofSeconds(3))
+                            .timeout(httpClientProvider.timeout(config.provider()))
                             .modelName(config.model())
                             .temperature(config.temperature())
                             .topP(config.topP().orElse(null))
@@ -170,8 +293,10 @@ class ChatModelProviderImpl implements ChatModelProvider {
                             new IllegalArgumentException(
                                     "Base URL is required for Ollama chat model."));
                 }
+                httpClientProvider.prewarm(config.baseUrl().get()); // NOSONAR: checked for empty
                 yield OllamaChatModel.builder()
-                        .httpClientBuilder(JdkHttpClient.builder())
+                        .httpClientBuilder(
+                                httpClientProvider.jdkHttpClientBuilder(config.provider()))
                         .baseUrl(config.baseUrl().get()) // NOSONAR: we have checked for empty
                         .modelName(config.model())
                         .temperature(config.temperature())
@@ -183,6 +308,74 @@ class ChatModelProviderImpl implements ChatModelProvider {
                     OpenAiChatModel.builder()
                             .baseUrl(config.baseUrl().orElse(null))
                             .apiKey(env.getOpenaiApiKey())
+                            .timeout(httpClientProvider.timeout(config.provider()))
+                            .defaultRequestParameters(OpenAiChatRequestParameters.EMPTY)
+                            .modelName(config.model())
+                            .temperature(config.temperature())
+                            .topP(config.topP().orElse(null))
+                            .frequencyPenalty(config.frequencyPenalty().orElse(null))
+                            .presencePenalty(config.presencePenalty().orElse(null))
+                            .maxCompletionTokens(config.maxTokens().orElse(null))
+                            .build();
+        };
+    }
+
+    /**
+     * Produce the streaming variant of the chat model, configured like {@link
+     * #produceChatLanguageModel(ChatModelConfig.ModelConfig)}.
+     *
+     * @param config the chat model config
+     * @return the streaming chat model, <code>null</code> if the provider does not support
+     *     streaming
+     */
+    private StreamingChatModel produceStreamingChatLanguageModel(
+            ChatModelConfig.ModelConfig config) {
+        return switch (config.provider()) {
+            case AZURE -> {
+                String endpoint;
+                try {
+                    endpoint = buildAzureOpenaiEndpoint(config);
+                } catch (IllegalArgumentException e) {
+                    throw new StartupException(INITIALIZATION_FAILURE_MESSAGE, e);
+                }
+                yield AzureOpenAiStreamingChatModel.builder()
+                        .endpoint(endpoint)
+                        .apiKey(env.getAzureApiKey())
+                        .apiVersion(AZURE_OPENAI_API_VERSION)
+                        .timeout(httpClientProvider.timeout(config.provider()))
+                        .temperature(config.temperature())
+                        .topP(config.topP().orElse(null))
+                        .frequencyPenalty(config.frequencyPenalty().orElse(null))
+                        .presencePenalty(config.presencePenalty().orElse(null))
+                        .maxTokens(config.maxTokens().orElse(null))
+                        .build();
+            }
+            case GOOGLE_GEMINI -> null; // the Gemini integration has no streaming chat model
+            case MISTRAL ->
+                    MistralAiStreamingChatModel.builder()
+                            .baseUrl(config.baseUrl().orElse(null))
+                            .apiKey(env.getMistralApiKey())
+                            .timeout(httpClientProvider.timeout(config.provider()))
+                            .modelName(config.model())
+                            .temperature(config.temperature())
+                            .topP(config.topP().orElse(null))
+                            .maxTokens(config.maxTokens().orElse(null))
+                            .build();
+            case OLLAMA ->
+                    OllamaStreamingChatModel.builder()
+                            .httpClientBuilder(
+                                    httpClientProvider.jdkHttpClientBuilder(config.provider()))
+                            .baseUrl(config.baseUrl().orElseThrow()) // checked before
+                            .modelName(config.model())
+                            .temperature(config.temperature())
+                            .topP(config.topP().orElse(null))
+                            .repeatPenalty(config.frequencyPenalty().orElse(null))
+                            .build();
+            case OPENAI ->
+                    OpenAiStreamingChatModel.builder()
+                            .baseUrl(config.baseUrl().orElse(null))
+                            .apiKey(env.getOpenaiApiKey())
+                            .timeout(httpClientProvider.timeout(config.provider()))
                             .defaultRequestParameters(OpenAiChatRequestParameters.EMPTY)
                             .modelName(config.model())
                             .temperature(config.temperature())
@@ -207,4 +400,92 @@ class ChatModelProviderImpl implements ChatModelProvider {
         }
         return cm;
     }
+
+    @PreDestroy
+    void close() {
+        routingExecutor.shutdownNow();
+    }
+
+    /**
+     * {@link ChatModelConfig.ModelConfig} of an additional endpoint of a chat model, which uses
+     * the provider, location and model of the endpoint and the model parameters of the chat model.
+     */
+    private record EndpointModelConfig(
+            ChatModelConfig.ModelConfig config, ChatModelConfig.EndpointConfig endpoint)
+            implements ChatModelConfig.ModelConfig {
+        @Override
+        public String uid() {
+            return config.uid();
+        }
+
+        @Override
+        public ChatModelConfig.ChatModelProvider provider() {
+            return endpoint.provider();
+        }
+
+        @Override
+        public Optional<String> baseUrl() {
+            return endpoint.baseUrl();
+        }
+
+        @Override
+        public Optional<String> resourceName() {
+            return endpoint.resourceName();
+        }
+
+        @Override
+        public String model() {
+            return endpoint.model().orElse(config.model());
+        }
+
+        @Override
+        public Optional<String> label() {
+            return config.label();
+        }
+
+        @Override
+        public Optional<String> description() {
+            return config.description();
+        }
+
+        @Override
+        public boolean systemPromptEnabled() {
+            return config.systemPromptEnabled();
+        }
+
+        @Override
+        public Double temperature() {
+            return config.temperature();
+        }
+
+        @Override
+        public Optional<Double> topP() {
+            return config.topP();
+        }
+
+        @Override
+        public Optional<Double> frequencyPenalty() {
+            return config.frequencyPenalty();
+        }
+
+        @Override
+        public Optional<Double> presencePenalty() {
+            return config.presencePenalty();
+        }
+
+        @Override
+        public Optional<Integer> maxTokens() {
+            return config.maxTokens();
+        }
+
+        @Override
+        public Optional<Integer> contextTokenBudget() {
+            return config.contextTokenBudget();
+        }
+
+        @Override
+        public Optional<List<ChatModelConfig.EndpointConfig>> endpoints() {
+            return Optional.empty();
+        }
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatConcurrencyConfig;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+
+/**
+ * Adaptive concurrency limiter for the requests to a single {@link ChatModel}.
+ *
+ * <p>The limit follows an AIMD (additive increase, multiplicative decrease) scheme driven by the
+ * observed latency: It is multiplied with the backoff ratio when a request fails or its latency
+ * exceeds the long-term average latency by the configured tolerance, and is increased by one when
+ * a request succeeds while at least half of the limit is in use. Requests exceeding the limit wait
+ * in a short bounded queue and are rejected with a {@link ChatModelOverloadedException} if the
+ * queue is full or the queue timeout elapses.
+ *
+ * <p>Waiting uses a {@link ReentrantLock} instead of monitors, so waiting virtual threads do not
+ * pin their carrier thread.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class ConcurrencyLimiter {
+    private static final String METRIC_PREFIX = "llamara.chat.concurrency.";
+    private static final double LATENCY_SMOOTHING = 0.05;
+    private static final Permit NOOP_PERMIT = new Permit(null);
+
+    private final String modelUid;
+    private final ChatConcurrencyConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Counter rejections;
+
+    // guarded by lock, volatile to allow lock-free reads by the gauges
+    private volatile int limit;
+    private volatile int inFlight;
+    private volatile int queued;
+    private double averageLatencyNanos = Double.NaN;
+
+    /**
+     * @param modelUid the uid of the chat model
+     * @param config the concurrency config
+     * @param registry the registry to export the limit, in-flight and queued requests and the
+     *     rejections to
+     */
+    ConcurrencyLimiter(String modelUid, ChatConcurrencyConfig config, MeterRegistry registry) {
+        this.modelUid = modelUid;
+        this.config = config;
+        if (!config.enabled()) {
+            this.rejections = null;
+            return;
+        }
+        this.limit = Math.clamp(config.initialLimit(), config.minLimit(), config.maxLimit());
+        Gauge.builder(METRIC_PREFIX + "limit", this, l -> l.limit)
+                .description("Current concurrency limit of the chat model")
+                .tag("model", modelUid)
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "in-flight", this, l -> l.inFlight)
+                .description("Number of requests currently sent to the chat model")
+                .tag("model", modelUid)
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "queued", this, l -> l.queued)
+                .description("Number of requests waiting for the concurrency limit")
+                .tag("model", modelUid)
+                .register(registry);
+        this.rejections =
+                Counter.builder(METRIC_PREFIX + "rejected")
+                        .description("Number of requests rejected because of the concurrency limit")
+                        .tag("model", modelUid)
+                        .register(registry);
+    }
+
+    /**
+     * Acquire a permit to send a request to the chat model, waiting in the queue if the limit is
+     * reached. The permit has to be released once the request is finished.
+     *
+     * @return the permit
+     * @throws ChatModelOverloadedException if the queue is full or the queue timeout elapsed
+     */
+    Permit acquire() throws ChatModelOverloadedException {
+        if (!config.enabled()) {
+            return NOOP_PERMIT;
+        }
+        lock.lock();
+        try {
+            if (inFlight >= limit || queued > 0) {
+                await();
+            }
+            inFlight++;
+            return new Permit(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void await() throws ChatModelOverloadedException {
+        if (queued >= config.queueSize()) {
+            throw reject();
+        }
+        queued++;
+        try {
+            long remaining = config.queueTimeout().toNanos();
+            while (inFlight >= limit) {
+                if (remaining <= 0) {
+                    throw reject();
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            queued--;
+        }
+    }
+
+    private ChatModelOverloadedException reject() {
+        rejections.increment();
+        Log.debugf(
+                "Rejected request to chat model '%s' at concurrency limit %d.", modelUid, limit);
+        // a slot is expected to become free after about one average request
+        long retryAfter =
+                Double.isNaN(averageLatencyNanos)
+                        ? 1
+                        : Math.max(1, (long) Math.ceil(averageLatencyNanos / 1_000_000_000));
+        return new ChatModelOverloadedException(modelUid, retryAfter);
+    }
+
+    private void release(long latencyNanos, boolean sample, boolean success) {
+        lock.lock();
+        try {
+            int previousLimit = limit;
+            if (sample) {
+                adjustLimit(latencyNanos, success);
+            }
+            inFlight--;
+            if (limit > previousLimit) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustLimit(long latencyNanos, boolean success) {
+        if (Double.isNaN(averageLatencyNanos)) {
+            averageLatencyNanos = latencyNanos;
+        }
+        if (!success || latencyNanos > averageLatencyNanos * config.latencyTolerance()) {
+            int decreased = Math.min(limit - 1, (int) (limit * config.backoffRatio()));
+            limit = Math.max(config.minLimit(), decreased);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(config.maxLimit(), limit + 1);
+        }
+        averageLatencyNanos += (latencyNanos - averageLatencyNanos) * LATENCY_SMOOTHING;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Permit to send a single request to the chat model. Only the first call to any of its methods
+     * releases the permit.
+     */
+    static final class Permit {
+        private final ConcurrencyLimiter limiter;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(ConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        /** Release the permit after the request succeeded, its latency adjusts the limit. */
+        void complete() {
+            release(true, true);
+        }
+
+        /** Release the permit after the request failed, the limit is decreased. */
+        void fail() {
+            release(true, false);
+        }
+
+        /** Release the permit without adjusting the limit, e.g. if the request was cancelled. */
+        void cancel() {
+            release(false, false);
+        }
+
+        private void release(boolean sample, boolean success) {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start, sample, success);
+            }
+        }
+    }
+}
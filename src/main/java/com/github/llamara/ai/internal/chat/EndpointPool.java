@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatRoutingConfig;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.quarkus.logging.Log;
+
+/**
+ * Pool of the endpoints serving a single chat model.
+ *
+ * <p>The latency and error rate of each endpoint are tracked as EWMA, endpoints are ordered by
+ * their latency weighted by their error rate. After {@link ChatRoutingConfig#failureThreshold()}
+ * consecutive failures, the circuit breaker of an endpoint opens and takes it out of rotation for
+ * {@link ChatRoutingConfig#openDuration()}, afterwards a single probe request decides whether it
+ * closes again. Endpoints without observed latency are preferred, so every endpoint is probed.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class EndpointPool {
+    private static final double SMOOTHING = 0.2;
+    private static final int LATENCY_WINDOW_SIZE = 128;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final String modelUid;
+    private final ChatRoutingConfig config;
+    private final List<Endpoint> endpoints;
+
+    // recent response latencies for the hedging delay, guarded by this
+    private final long[] latencyWindow = new long[LATENCY_WINDOW_SIZE];
+    private long latencyCount;
+
+    /**
+     * @param modelUid the uid of the chat model
+     * @param config the routing config
+     * @param endpoints the endpoints, the first one is preferred on ties
+     */
+    EndpointPool(String modelUid, ChatRoutingConfig config, List<Endpoint> endpoints) {
+        this.modelUid = modelUid;
+        this.config = config;
+        this.endpoints = List.copyOf(endpoints);
+    }
+
+    /**
+     * Get the endpoints to try in order of preference. If the circuits of all endpoints are open,
+     * all endpoints are returned, as failing the request is no better than trying them anyway.
+     *
+     * @param streaming whether only endpoints with a streaming chat model should be returned
+     * @return the endpoints in order of preference
+     */
+    List<Endpoint> candidates(boolean streaming) {
+        long now = System.nanoTime();
+        List<Endpoint> supported =
+                endpoints.stream()
+                        .filter(endpoint -> !streaming || endpoint.streamingModel() != null)
+                        .sorted(Comparator.comparingDouble(Endpoint::score))
+                        .toList();
+        List<Endpoint> available =
+                supported.stream().filter(endpoint -> endpoint.isAvailable(now)).toList();
+        return available.isEmpty() ? supported : available;
+    }
+
+    /**
+     * Mark the start of a request to the given endpoint.
+     *
+     * @param endpoint the endpoint
+     */
+    void onAttempt(Endpoint endpoint) {
+        synchronized (endpoint) {
+            if (endpoint.open) {
+                endpoint.probing = true;
+            }
+        }
+    }
+
+    /**
+     * Record a successful request to the given endpoint.
+     *
+     * @param endpoint the endpoint
+     * @param latencyNanos the latency of the request
+     * @param hedgeable whether the latency should be considered for the hedging delay
+     */
+    void onSuccess(Endpoint endpoint, long latencyNanos, boolean hedgeable) {
+        synchronized (endpoint) {
+            if (endpoint.open) {
+                Log.infof(
+                        "Endpoint '%s' of chat model '%s' recovered.", endpoint.name(), modelUid);
+            }
+            endpoint.latencyNanos =
+                    Double.isNaN(endpoint.latencyNanos)
+                            ? latencyNanos
+                            : endpoint.latencyNanos
+                                    + (latencyNanos - endpoint.latencyNanos) * SMOOTHING;
+            endpoint.errorRate -= endpoint.errorRate * SMOOTHING;
+            endpoint.consecutiveFailures = 0;
+            endpoint.open = false;
+            endpoint.probing = false;
+        }
+        if (hedgeable) {
+            synchronized (this) {
+                latencyWindow[(int) (latencyCount++ % LATENCY_WINDOW_SIZE)] = latencyNanos;
+            }
+        }
+    }
+
+    /**
+     * Record a failed request to the given endpoint.
+     *
+     * @param endpoint the endpoint
+     * @param e the failure
+     */
+    void onFailure(Endpoint endpoint, Throwable e) {
+        synchronized (endpoint) {
+            endpoint.errorRate += (1 - endpoint.errorRate) * SMOOTHING;
+            endpoint.consecutiveFailures++;
+            endpoint.probing = false;
+            if (endpoint.consecutiveFailures >= config.failureThreshold()) {
+                endpoint.open = true;
+                endpoint.openUntil = System.nanoTime() + config.openDuration().toNanos();
+                Log.warnf(
+                        "Endpoint '%s' of chat model '%s' failed %d times, taking it out of"
+                                + " rotation: %s",
+                        endpoint.name(), modelUid, endpoint.consecutiveFailures, e.getMessage());
+            } else {
+                Log.debugf(
+                        "Endpoint '%s' of chat model '%s' failed: %s",
+                        endpoint.name(), modelUid, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the delay after which a hedged request should be sent.
+     *
+     * @return the delay in nanoseconds, empty if hedging is disabled or not enough latencies have
+     *     been observed
+     */
+    synchronized OptionalLong hedgeDelay() {
+        if (!config.hedgingEnabled() || latencyCount < MIN_HEDGE_SAMPLES) {
+            return OptionalLong.empty();
+        }
+        int size = (int) Math.min(latencyCount, LATENCY_WINDOW_SIZE);
+        long[] sorted = Arrays.copyOf(latencyWindow, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(config.hedgePercentile() * size) - 1;
+        return OptionalLong.of(sorted[Math.clamp(index, 0, size - 1)]);
+    }
+
+    String getModelUid() {
+        return modelUid;
+    }
+
+    /**
+     * Get the primary endpoint, i.e. the one configured first.
+     *
+     * @return the primary endpoint
+     */
+    Endpoint getPrimary() {
+        return endpoints.getFirst();
+    }
+
+    /** Endpoint serving the chat model, its state is guarded by its monitor. */
+    static final class Endpoint {
+        private final String name;
+        private final dev.langchain4j.model.chat.ChatModel model;
+        private final StreamingChatModel streamingModel;
+
+        private double latencyNanos = Double.NaN;
+        private double errorRate;
+        private int consecutiveFailures;
+        private boolean open;
+        private long openUntil;
+        private boolean probing;
+
+        /**
+         * @param name the name of the endpoint for logging
+         * @param model the chat model of the endpoint
+         * @param streamingModel the streaming chat model of the endpoint, <code>null</code> if
+         *     streaming is not supported
+         */
+        Endpoint(
+                String name,
+                dev.langchain4j.model.chat.ChatModel model,
+                StreamingChatModel streamingModel) {
+            this.name = name;
+            this.model = model;
+            this.streamingModel = streamingModel;
+        }
+
+        String name() {
+            return name;
+        }
+
+        dev.langchain4j.model.chat.ChatModel model() {
+            return model;
+        }
+
+        StreamingChatModel streamingModel() {
+            return streamingModel;
+        }
+
+        private synchronized double score() {
+            if (Double.isNaN(latencyNanos)) {
+                return 0;
+            }
+            return latencyNanos / Math.max(0.01, 1 - errorRate);
+        }
+
+        private synchronized boolean isAvailable(long now) {
+            return !open || (now - openUntil >= 0 && !probing);
+        }
+    }
+}
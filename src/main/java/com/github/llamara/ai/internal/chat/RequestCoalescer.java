@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatCoalescingConfig;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.rag.content.Content;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.security.identity.SecurityIdentity;
+
+/**
+ * Single-flight coalescing of identical concurrent chat requests. Requests are keyed by chat model,
+ * permission scope and normalized prompt. The first request for a key becomes the leader of a
+ * {@link Flight} and calls the chat model, later requests for the same key wait for the result of
+ * the leader instead of running their own retrieval and generation.
+ *
+ * <p>As the permission scope is part of the key, a follower only joins a leader that retrieves
+ * exactly the knowledge the follower may read.
+ *
+ * <p>Only prompts whose response does not depend on the caller's chat memory may be coalesced, see
+ * {@link ChatModel}. Requests with restricted retrieval are never coalesced.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class RequestCoalescer {
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    private static final String KEY_DELIMITER = "\n";
+
+    private final ChatCoalescingConfig config;
+    private final SecurityIdentity identity;
+    private final RetrievalScope retrievalScope;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Generation>> flights = new ConcurrentHashMap<>();
+
+    @Inject
+    RequestCoalescer(
+            ChatCoalescingConfig config,
+            SecurityIdentity identity,
+            RetrievalScope retrievalScope,
+            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.identity = identity;
+        this.retrievalScope = retrievalScope;
+        this.meterRegistry = meterRegistry;
+    }
+
+    boolean isEnabled() {
+        return config.enabled();
+    }
+
+    /**
+     * Join the in-flight request for the given prompt, or start a new flight led by the caller.
+     *
+     * @param modelUid the UID of the chat model
+     * @param prompt the prompt
+     * @return the flight, <code>null</code> if the request must not be coalesced
+     */
+    Flight join(String modelUid, String prompt) {
+        if (!config.enabled() || retrievalScope.isRestricted()) {
+            return null;
+        }
+        Collection<String> metadataQueries =
+                PermissionMetadataMapper.identityToMetadataQueries(identity);
+        String scope = String.join(",", new TreeSet<>(metadataQueries));
+        String normalizedPrompt =
+                WHITESPACE_PATTERN
+                        .matcher(prompt.strip())
+                        .replaceAll(" ")
+                        .toLowerCase(Locale.ROOT);
+        String key = modelUid + KEY_DELIMITER + scope + KEY_DELIMITER + normalizedPrompt;
+
+        CompletableFuture<Generation> created = new CompletableFuture<>();
+        CompletableFuture<Generation> existing = flights.putIfAbsent(key, created);
+        if (existing != null) {
+            meterRegistry.counter("llamara.chat.coalesced", "model", modelUid).increment();
+            return new Flight(key, existing, false);
+        }
+        return new Flight(key, created, true);
+    }
+
+    /**
+     * The result of the chat model call of a flight's leader.
+     *
+     * @param text the text of the response
+     * @param contents the retrieved contents
+     */
+    record Generation(String text, List<Content> contents) {}
+
+    /** A request taking part in a flight, either as leader or as follower. */
+    final class Flight {
+        private final String key;
+        private final CompletableFuture<Generation> result;
+        private final boolean leader;
+
+        private Flight(String key, CompletableFuture<Generation> result, boolean leader) {
+            this.key = key;
+            this.result = result;
+            this.leader = leader;
+        }
+
+        /**
+         * Whether this request leads the flight, i.e. has to call the chat model and publish the
+         * result through {@link #complete(Generation)}, {@link #fail(Throwable)} or {@link
+         * #abandon()}.
+         *
+         * @return whether this request is the leader
+         */
+        boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * Publish the result of the leader to the followers.
+         *
+         * @param generation the result
+         */
+        void complete(Generation generation) {
+            flights.remove(key, result);
+            result.complete(generation);
+        }
+
+        /**
+         * Publish the failure of the leader to the followers.
+         *
+         * @param failure the failure
+         */
+        void fail(Throwable failure) {
+            flights.remove(key, result);
+            result.completeExceptionally(failure);
+        }
+
+        /**
+         * Abandon the flight, e.g. because the leader's client disconnected. Followers then answer
+         * their requests on their own.
+         */
+        void abandon() {
+            flights.remove(key, result);
+            result.cancel(false);
+        }
+
+        /**
+         * Wait for the result of the leader, at most for the configured wait timeout.
+         *
+         * @return the result, <code>null</code> if the request has to be answered on its own, i.e.
+         *     if the leader abandoned the flight or the wait timed out
+         * @throws ChatModelOverloadedException if the leader was rejected by the concurrency limit
+         */
+        Generation await() throws ChatModelOverloadedException {
+            Generation generation;
+            try {
+                generation =
+                        result.get(config.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (CancellationException e) {
+                return null;
+            } catch (TimeoutException e) {
+                Log.debugf("Timed out waiting for coalesced request, answering on its own.");
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ChatModelOverloadedException overloaded) {
+                    throw overloaded;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.opentelemetry.context.Context;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link dev.langchain4j.model.chat.ChatModel} that routes each request to the best endpoint of an
+ * {@link EndpointPool} and fails over to the next best endpoint if the request fails.
+ *
+ * <p>If hedging is enabled and the response takes longer than the hedging delay, a hedged request
+ * is sent to the next best endpoint on the given executor and the first successful response is
+ * used.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class RoutingChatModel implements dev.langchain4j.model.chat.ChatModel {
+    private final EndpointPool pool;
+    private final ExecutorService executor;
+
+    /**
+     * @param pool the endpoints to route to
+     * @param executor the executor to send hedged requests on, owned by the caller
+     */
+    RoutingChatModel(EndpointPool pool, ExecutorService executor) {
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        List<EndpointPool.Endpoint> candidates = pool.candidates(false);
+        OptionalLong hedgeDelay = pool.hedgeDelay();
+        if (hedgeDelay.isPresent() && candidates.size() > 1) {
+            return chatHedged(chatRequest, candidates, hedgeDelay.getAsLong());
+        }
+
+        RuntimeException failure = null;
+        for (EndpointPool.Endpoint endpoint : candidates) {
+            try {
+                return call(endpoint, chatRequest, new AtomicBoolean());
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Send the request to the best endpoint, send a hedged request to the next best endpoint if
+     * there is no response after the hedging delay, and fail over to the remaining endpoints if
+     * all sent requests failed.
+     */
+    private ChatResponse chatHedged(
+            ChatRequest chatRequest, List<EndpointPool.Endpoint> candidates, long hedgeDelay) {
+        CompletionService<ChatResponse> completionService =
+                new ExecutorCompletionService<>(executor);
+        List<Future<ChatResponse>> futures = new ArrayList<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        Iterator<EndpointPool.Endpoint> iterator = candidates.iterator();
+        boolean hedged = false;
+        int pending = 0;
+        RuntimeException failure = null;
+        try {
+            futures.add(submit(completionService, iterator.next(), chatRequest, decided));
+            pending++;
+            while (pending > 0) {
+                Future<ChatResponse> done =
+                        hedged || !iterator.hasNext()
+                                ? completionService.take()
+                                : completionService.poll(hedgeDelay, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    hedged = true;
+                    EndpointPool.Endpoint endpoint = iterator.next();
+                    Log.debugf(
+                            "Sending hedged request to endpoint '%s' of chat model '%s'.",
+                            endpoint.name(), pool.getModelUid());
+                    futures.add(submit(completionService, endpoint, chatRequest, decided));
+                    pending++;
+                    continue;
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure =
+                            addFailure(
+                                    failure,
+                                    e.getCause() instanceof RuntimeException re
+                                            ? re
+                                            : new IllegalStateException(e.getCause()));
+                }
+                if (pending == 0 && iterator.hasNext()) {
+                    futures.add(submit(completionService, iterator.next(), chatRequest, decided));
+                    pending++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = addFailure(failure, new IllegalStateException(e));
+        } finally {
+            decided.set(true);
+            futures.forEach(future -> future.cancel(true));
+        }
+        throw failure;
+    }
+
+    private Future<ChatResponse> submit(
+            CompletionService<ChatResponse> completionService,
+            EndpointPool.Endpoint endpoint,
+            ChatRequest chatRequest,
+            AtomicBoolean decided) {
+        return completionService.submit(
+                Context.current().wrap(() -> call(endpoint, chatRequest, decided)));
+    }
+
+    /**
+     * Send the request to the endpoint and record the outcome.
+     *
+     * @param endpoint the endpoint
+     * @param chatRequest the request
+     * @param decided whether the request has already been answered by another endpoint, failures
+     *     of cancelled requests are not recorded
+     * @return the response
+     */
+    private ChatResponse call(
+            EndpointPool.Endpoint endpoint, ChatRequest chatRequest, AtomicBoolean decided) {
+        pool.onAttempt(endpoint);
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = endpoint.model().chat(chatRequest);
+            pool.onSuccess(endpoint, System.nanoTime() - start, true);
+            return response;
+        } catch (RuntimeException e) {
+            if (!decided.get()) {
+                pool.onFailure(endpoint, e);
+            }
+            throw e;
+        }
+    }
+
+    private static RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return pool.getPrimary().model().defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return pool.getPrimary().model().supportedCapabilities();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+/**
+ * {@link StreamingChatModel} that routes each request to the best endpoint of an {@link
+ * EndpointPool}. As partial responses cannot be taken back, the request only fails over to the
+ * next best endpoint if it fails before the first partial response.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class RoutingStreamingChatModel implements StreamingChatModel {
+    private final EndpointPool pool;
+
+    RoutingStreamingChatModel(EndpointPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        List<EndpointPool.Endpoint> candidates = pool.candidates(true);
+        chat(chatRequest, handler, candidates.iterator());
+    }
+
+    private void chat(
+            ChatRequest chatRequest,
+            StreamingChatResponseHandler handler,
+            Iterator<EndpointPool.Endpoint> candidates) {
+        EndpointPool.Endpoint endpoint = candidates.next();
+        pool.onAttempt(endpoint);
+        long start = System.nanoTime();
+        endpoint.streamingModel()
+                .chat(
+                        chatRequest,
+                        new StreamingChatResponseHandler() {
+                            private boolean started;
+
+                            @Override
+                            public void onPartialResponse(String partialResponse) {
+                                started = true;
+                                handler.onPartialResponse(partialResponse);
+                            }
+
+                            @Override
+                            public void onCompleteResponse(ChatResponse completeResponse) {
+                                pool.onSuccess(endpoint, System.nanoTime() - start, false);
+                                handler.onCompleteResponse(completeResponse);
+                            }
+
+                            @Override
+                            public void onError(Throwable error) {
+                                pool.onFailure(endpoint, error);
+                                if (!started && candidates.hasNext()) {
+                                    chat(chatRequest, handler, candidates);
+                                } else {
+                                    handler.onError(error);
+                                }
+                            }
+                        });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return pool.getPrimary().streamingModel().defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return pool.getPrimary().streamingModel().supportedCapabilities();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.internal.telemetry.StageTracer;
+
+import java.util.Set;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * {@link dev.langchain4j.model.chat.ChatModel} decorator that traces each request to the chat
+ * model as {@link StageTracer.Stage#LLM} stage, including its token usage.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class TracingChatModel implements dev.langchain4j.model.chat.ChatModel {
+    private final dev.langchain4j.model.chat.ChatModel delegate;
+    private final StageTracer stageTracer;
+    private final String modelUid;
+
+    TracingChatModel(
+            dev.langchain4j.model.chat.ChatModel delegate,
+            StageTracer stageTracer,
+            String modelUid) {
+        this.delegate = delegate;
+        this.stageTracer = stageTracer;
+        this.modelUid = modelUid;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        return stageTracer.trace(
+                StageTracer.Stage.LLM,
+                modelUid,
+                () -> delegate.chat(chatRequest),
+                (span, response) -> {
+                    TokenUsage tokenUsage = response.tokenUsage();
+                    if (tokenUsage == null) {
+                        return;
+                    }
+                    if (tokenUsage.inputTokenCount() != null) {
+                        span.setAttribute(StageTracer.TOKENS_INPUT, tokenUsage.inputTokenCount());
+                    }
+                    if (tokenUsage.outputTokenCount() != null) {
+                        span.setAttribute(StageTracer.TOKENS_OUTPUT, tokenUsage.outputTokenCount());
+                    }
+                });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.cache;
+
+import com.github.llamara.ai.config.chat.ChatCacheConfig;
+import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+import dev.langchain4j.data.embedding.Embedding;
+
+/**
+ * Interface specifying the API for the semantic chat response cache. Cached responses are scoped
+ * to the chat model and the permissions of the current user, and are looked up by the similarity
+ * of the prompt embeddings.
+ *
+ * <p>Implementations MUST only return responses that were generated from knowledge the current
+ * user is allowed to read, and MUST drop responses once the knowledge they were generated from
+ * changes. Responses that miss knowledge added or shared later are kept until they expire.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public interface ChatResponseCache {
+    /**
+     * Whether the cache is enabled through {@link ChatCacheConfig#enabled()}.
+     *
+     * @return whether the cache is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Look up a cached response for the given prompt to the given chat model in the permission
+     * scope of the current user.
+     *
+     * @param modelUid the UID of the chat model
+     * @param prompt the prompt
+     * @return the lookup, which has to be passed to {@link #put} on a cache miss
+     */
+    Lookup lookup(String modelUid, String prompt);
+
+    /**
+     * Cache the response for a previous {@link #lookup}.
+     *
+     * @param lookup the lookup that missed the cache
+     * @param response the response of the chat model
+     * @param knowledgeIds the IDs of all knowledge retrieved to generate the response
+     */
+    void put(Lookup lookup, ChatResponseRecord response, Collection<UUID> knowledgeIds);
+
+    /**
+     * Invalidate all cached responses that were generated from the given knowledge.
+     *
+     * <p>MUST be called whenever the embeddings or permissions of knowledge change.
+     *
+     * @param knowledgeId the ID of the changed knowledge
+     */
+    void invalidate(UUID knowledgeId);
+
+    /**
+     * Result of a cache lookup.
+     *
+     * @param modelUid the UID of the chat model
+     * @param scope the permission scope of the user
+     * @param embedding the embedding of the prompt, <code>null</code> if the cache is disabled
+     * @param response the cached response, <code>null</code> on a cache miss
+     */
+    record Lookup(String modelUid, String scope, Embedding embedding, ChatResponseRecord response) {
+        /**
+         * Get the cached response.
+         *
+         * @return the cached response, or empty on a cache miss
+         */
+        public Optional<ChatResponseRecord> hit() {
+            return Optional.ofNullable(response);
+        }
+    }
+}
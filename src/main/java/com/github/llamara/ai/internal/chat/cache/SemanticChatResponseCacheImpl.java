@@ -0,0 +1,220 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.cache;
+
+import com.github.llamara.ai.config.chat.ChatCacheConfig;
+import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+import com.github.llamara.ai.internal.retrieval.PromptEmbedding;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import io.quarkus.logging.Log;
+import io.quarkus.security.identity.SecurityIdentity;
+
+/**
+ * In-memory implementation of the {@link ChatResponseCache}. Entries are bucketed by chat model and
+ * permission scope, the permission scope being the sorted metadata queries from {@link
+ * PermissionMetadataMapper#identityToMetadataQueries}. A lookup compares the prompt embedding with
+ * all entries of its bucket and returns the most similar response above the configured threshold.
+ * The prompt embedding is handed to retrieval through the {@link PromptEmbedding}, so a cache miss
+ * does not embed the prompt twice.
+ *
+ * <p>Each entry records the knowledge it was generated from and is invalidated when any of it
+ * changes. All entries share the same time to live, so they expire in insertion order and expired
+ * entries are swept from the head of the insertion-ordered entries.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class SemanticChatResponseCacheImpl implements ChatResponseCache {
+    private static final String SCOPE_DELIMITER = ",";
+
+    private final ChatCacheConfig config;
+    private final EmbeddingModel embeddingModel;
+    private final SecurityIdentity identity;
+    private final RetrievalScope retrievalScope;
+    private final PromptEmbedding promptEmbedding;
+
+    private final Map<String, Map<Long, CacheEntry>> buckets = new HashMap<>();
+    private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>();
+    private long nextId;
+
+    @Inject
+    SemanticChatResponseCacheImpl(
+            ChatCacheConfig config,
+            EmbeddingModel embeddingModel,
+            SecurityIdentity identity,
+            RetrievalScope retrievalScope,
+            PromptEmbedding promptEmbedding) {
+        this.config = config;
+        this.embeddingModel = embeddingModel;
+        this.identity = identity;
+        this.retrievalScope = retrievalScope;
+        this.promptEmbedding = promptEmbedding;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return config.enabled();
+    }
+
+    @Override
+    public Lookup lookup(String modelUid, String prompt) {
+        Collection<String> metadataQueries =
+                PermissionMetadataMapper.identityToMetadataQueries(identity);
+        String scope = String.join(SCOPE_DELIMITER, new TreeSet<>(metadataQueries));
+        // responses to prompts with restricted retrieval are neither looked up nor cached
+        if (!config.enabled() || retrievalScope.isRestricted()) {
+            return new Lookup(modelUid, scope, null, null);
+        }
+
+        Embedding embedding = embeddingModel.embed(prompt).content();
+        promptEmbedding.set(prompt, embedding);
+        CacheEntry best = null;
+        double bestSimilarity = config.similarityThreshold();
+        synchronized (this) {
+            removeExpired(Instant.now());
+            Map<Long, CacheEntry> bucket = buckets.get(bucketKey(modelUid, scope));
+            if (bucket != null) {
+                for (CacheEntry entry : bucket.values()) {
+                    double similarity = CosineSimilarity.between(embedding, entry.embedding());
+                    if (similarity >= bestSimilarity) {
+                        best = entry;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+        }
+
+        if (best == null) {
+            return new Lookup(modelUid, scope, embedding, null);
+        }
+        Log.debugf(
+                "Semantic cache hit for chat model '%s' with similarity %.3f.",
+                modelUid, bestSimilarity);
+        return new Lookup(modelUid, scope, embedding, best.response());
+    }
+
+    @Override
+    public void put(Lookup lookup, ChatResponseRecord response, Collection<UUID> knowledgeIds) {
+        if (!config.enabled() || lookup.embedding() == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        synchronized (this) {
+            CacheEntry entry =
+                    new CacheEntry(
+                            nextId++,
+                            bucketKey(lookup.modelUid(), lookup.scope()),
+                            lookup.embedding(),
+                            response,
+                            Set.copyOf(knowledgeIds),
+                            now.plus(config.timeToLive()));
+            buckets.computeIfAbsent(entry.bucketKey(), k -> new HashMap<>()).put(entry.id(), entry);
+            entries.put(entry.id(), entry);
+            removeExpired(now);
+            Iterator<CacheEntry> it = entries.values().iterator();
+            while (entries.size() > config.maxEntries()) {
+                CacheEntry eldest = it.next();
+                it.remove();
+                removeFromBucket(eldest);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(UUID knowledgeId) {
+        if (!config.enabled()) {
+            return;
+        }
+        int removed = 0;
+        synchronized (this) {
+            Iterator<CacheEntry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                CacheEntry entry = it.next();
+                if (entry.knowledgeIds().contains(knowledgeId)) {
+                    it.remove();
+                    removeFromBucket(entry);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            Log.debugf(
+                    "Invalidated %d cached responses for knowledge '%s'.", removed, knowledgeId);
+        }
+    }
+
+    /**
+     * Remove the expired entries. As all entries share the same time to live, they expire in
+     * insertion order, so only the head of the entries has to be checked.
+     *
+     * @param now the current time
+     */
+    private void removeExpired(Instant now) {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next();
+            if (!entry.expiresAt().isBefore(now)) {
+                return;
+            }
+            it.remove();
+            removeFromBucket(entry);
+        }
+    }
+
+    private void removeFromBucket(CacheEntry entry) {
+        Map<Long, CacheEntry> bucket = buckets.get(entry.bucketKey());
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(entry.id());
+        if (bucket.isEmpty()) {
+            buckets.remove(entry.bucketKey());
+        }
+    }
+
+    private static String bucketKey(String modelUid, String scope) {
+        return modelUid + "/" + scope;
+    }
+
+    private record CacheEntry(
+            long id,
+            String bucketKey,
+            Embedding embedding,
+            ChatResponseRecord response,
+            Set<UUID> knowledgeIds,
+            Instant expiresAt) {}
+}
@@ -47,6 +47,17 @@ public interface ChatHistoryStore {
      */
     Uni<List<ChatMessageRecord>> getMessages(Object historyId);
 
+    /**
+     * Get a page of messages from the chat history for the given id, counting from the newest
+     * message. The messages of the page are in chronological order.
+     *
+     * @param historyId the history id to get the messages from
+     * @param offset the number of newest messages to skip
+     * @param count the maximum number of messages to get
+     * @return the messages of the page, or an empty list if there are no messages in the page
+     */
+    Uni<List<ChatMessageRecord>> getMessages(Object historyId, long offset, long count);
+
     /**
      * Add a message to the chat history for the given id.
      *
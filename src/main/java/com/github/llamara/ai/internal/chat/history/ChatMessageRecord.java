@@ -44,4 +44,22 @@ public record ChatMessageRecord(
         String text,
         Instant timestamp,
         @JsonInclude(JsonInclude.Include.NON_NULL) List<RagSourceRecord> sources,
-        @JsonInclude(JsonInclude.Include.NON_NULL) String modelUID) {}
+        @JsonInclude(JsonInclude.Include.NON_NULL) String modelUID) {
+
+    /**
+     * Get a lightweight copy of this message, whose sources do not include their content.
+     *
+     * @return the message with sources without content
+     */
+    public ChatMessageRecord withoutSourceContent() {
+        if (sources == null) {
+            return this;
+        }
+        return new ChatMessageRecord(
+                type,
+                text,
+                timestamp,
+                sources.stream().map(RagSourceRecord::withoutContent).toList(),
+                modelUID);
+    }
+}
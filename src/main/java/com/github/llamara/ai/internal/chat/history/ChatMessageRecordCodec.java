@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.history;
+
+import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import dev.langchain4j.data.message.ChatMessageType;
+import io.quarkus.redis.datasource.codecs.Codec;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+
+/**
+ * Compact binary Redis {@link Codec} for {@link ChatMessageRecord}s, replacing the default JSON
+ * codec to reduce the memory used by the chat history.
+ *
+ * <p>The encoded record starts with a version byte. Records previously stored as JSON, i.e.
+ * starting with <code>{</code>, are still decoded.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class ChatMessageRecordCodec implements Codec {
+    private static final byte VERSION = 1;
+    private static final byte JSON_START = '{';
+
+    @Override
+    public boolean canHandle(Type clazz) {
+        return clazz == ChatMessageRecord.class;
+    }
+
+    @Override
+    public byte[] encode(Object item) {
+        ChatMessageRecord message = (ChatMessageRecord) item;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            // the name, as the ordinals of the library enum may change
+            writeString(out, message.type().name());
+            writeString(out, message.text());
+            out.writeBoolean(message.timestamp() != null);
+            if (message.timestamp() != null) {
+                out.writeLong(message.timestamp().getEpochSecond());
+                out.writeInt(message.timestamp().getNano());
+            }
+            writeString(out, message.modelUID());
+            out.writeInt(message.sources() == null ? -1 : message.sources().size());
+            if (message.sources() != null) {
+                for (RagSourceRecord source : message.sources()) {
+                    writeUuid(out, source.knowledgeId());
+                    writeUuid(out, source.embeddingId());
+                    out.writeBoolean(source.page() != null);
+                    if (source.page() != null) {
+                        out.writeInt(source.page());
+                    }
+                    writeString(out, source.content());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] item) {
+        if (item.length > 0 && item[0] == JSON_START) {
+            return Json.decodeValue(Buffer.buffer(item), ChatMessageRecord.class);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(item))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown chat message version " + version);
+            }
+            ChatMessageType type = ChatMessageType.valueOf(readString(in));
+            String text = readString(in);
+            Instant timestamp =
+                    in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+            String modelUID = readString(in);
+            int sourceCount = in.readInt();
+            List<RagSourceRecord> sources = null;
+            if (sourceCount >= 0) {
+                sources = new ArrayList<>(sourceCount);
+                for (int i = 0; i < sourceCount; i++) {
+                    UUID knowledgeId = readUuid(in);
+                    UUID embeddingId = readUuid(in);
+                    Integer page = in.readBoolean() ? in.readInt() : null;
+                    String content = readString(in);
+                    sources.add(new RagSourceRecord(knowledgeId, embeddingId, page, content));
+                }
+            }
+            return new ChatMessageRecord(type, text, timestamp, sources, modelUID);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Write a nullable string as length-prefixed UTF-8, as the chat message may exceed 64 KB. */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.history;
+
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.logging.Log;
+
+/**
+ * Loads the content of the {@link RagSourceRecord}s of {@link ChatMessageRecord}s from the {@link
+ * EmbeddingStore}, as the chat history only stores references to the sources.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+public class RagSourceContentLoader {
+    private final EmbeddingStore<TextSegment> store;
+
+    @Inject
+    RagSourceContentLoader(EmbeddingStore<TextSegment> store) {
+        this.store = store;
+    }
+
+    /**
+     * Load the content of all sources without content of the given messages in one batched lookup.
+     * Sources whose embedding has been removed meanwhile keep no content. Blocks while querying the
+     * embedding store.
+     *
+     * @param messages the messages
+     * @return the messages with the content of their sources
+     */
+    public List<ChatMessageRecord> loadSourceContent(List<ChatMessageRecord> messages) {
+        Set<String> embeddingIds =
+                messages.stream()
+                        .map(ChatMessageRecord::sources)
+                        .filter(Objects::nonNull)
+                        .flatMap(List::stream)
+                        .filter(source -> source.content() == null)
+                        .map(source -> source.embeddingId().toString())
+                        .collect(Collectors.toSet());
+        if (embeddingIds.isEmpty()) {
+            return messages;
+        }
+        // the injected store is a client proxy only implementing the produced bean type
+        if (!(ClientProxy.unwrap(store) instanceof ScrollableEmbeddingStore scrollableStore)) {
+            Log.warn("Embedding store does not support lookups by ID, source content is omitted.");
+            return messages;
+        }
+        Map<String, TextSegment> segments = scrollableStore.getByIds(embeddingIds);
+        return messages.stream().map(message -> withSourceContent(message, segments)).toList();
+    }
+
+    private static ChatMessageRecord withSourceContent(
+            ChatMessageRecord message, Map<String, TextSegment> segments) {
+        if (message.sources() == null) {
+            return message;
+        }
+        List<RagSourceRecord> sources =
+                message.sources().stream()
+                        .map(
+                                source -> {
+                                    TextSegment segment =
+                                            segments.get(source.embeddingId().toString());
+                                    if (source.content() != null || segment == null) {
+                                        return source;
+                                    }
+                                    return new RagSourceRecord(
+                                            source.knowledgeId(),
+                                            source.embeddingId(),
+                                            source.page(),
+                                            segment.text());
+                                })
+                        .toList();
+        return new ChatMessageRecord(
+                message.type(), message.text(), message.timestamp(), sources, message.modelUID());
+    }
+}
@@ -22,8 +22,18 @@ package com.github.llamara.ai.internal.chat.history;
 import com.github.llamara.ai.config.chat.ChatHistoryConfig;
 import com.github.llamara.ai.internal.StartupException;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
@@ -34,24 +44,47 @@ import io.quarkus.redis.datasource.keys.ReactiveKeyCommands;
 import io.quarkus.redis.datasource.list.ReactiveListCommands;
 import io.quarkus.runtime.Startup;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Request;
 
 /**
  * Implementation of {@link ChatHistoryStore} using <a href="https://redis.io/json/">Redis</a>.
  *
+ * <p>Messages are added write-behind: Only one batch of writes is sent to Redis at a time, writes
+ * arriving meanwhile, possibly for different sessions, are coalesced into the next batch. Each
+ * batch is sent as a single pipeline, in which the <code>RPUSH</code> and <code>LTRIM</code> of
+ * each write are wrapped in <code>MULTI</code>/<code>EXEC</code>, so readers never see a history
+ * exceeding the maximum size. A single write costs one round trip and batches under load amortize
+ * it. Pending writes are flushed on shutdown.
+ *
+ * <p>Messages are stored with the compact {@link ChatMessageRecordCodec}.
+ *
  * @author Florian Hotze - Initial contribution
  */
 @Startup // initialize at startup to check connection
 @ApplicationScoped
 class RedisChatHistoryStore implements ChatHistoryStore {
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
     private final ChatHistoryConfig config;
+    private final ReactiveRedisDataSource redis;
+    private final ChatMessageRecordCodec codec;
     private final ReactiveKeyCommands<String> keyCommands;
     private final ReactiveListCommands<String, ChatMessageRecord> listCommands;
 
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile List<PendingWrite> currentBatch = List.of();
+
     @Inject
     RedisChatHistoryStore(
             ChatHistoryConfig config,
-            @RedisClientName("chat-history") ReactiveRedisDataSource redis) {
+            @RedisClientName("chat-history") ReactiveRedisDataSource redis,
+            ChatMessageRecordCodec codec) {
         this.config = config;
+        this.redis = redis;
+        this.codec = codec;
         this.keyCommands = redis.key(String.class);
         this.listCommands = redis.list(ChatMessageRecord.class);
 
@@ -68,15 +101,30 @@ class RedisChatHistoryStore implements ChatHistoryStore {
         return listCommands.lrange(historyId.toString(), 0, -1);
     }
 
+    @Override
+    public Uni<List<ChatMessageRecord>> getMessages(Object historyId, long offset, long count) {
+        if (count <= 0) {
+            return Uni.createFrom().item(List.of());
+        }
+        // negative indices count from the newest message, Redis clamps the start to the oldest
+        return listCommands.lrange(historyId.toString(), -(offset + count), -(offset + 1));
+    }
+
     @Override
     public Uni<Void> addMessage(Object historyId, ChatMessageRecord message) {
         Log.debugf("Adding message to history for session '%s'.", historyId);
-        return listCommands
-                .rpush(historyId.toString(), message)
-                .chain(
-                        () ->
-                                listCommands.ltrim(
-                                        historyId.toString(), -1 * (long) config.maxMessages(), -1))
+        return Uni.createFrom()
+                .completionStage(
+                        () -> {
+                            PendingWrite write =
+                                    new PendingWrite(
+                                            historyId.toString(),
+                                            message,
+                                            new CompletableFuture<>());
+                            pendingWrites.add(write);
+                            flush();
+                            return write.result();
+                        })
                 .onFailure()
                 .invoke(
                         failure ->
@@ -85,9 +133,93 @@ class RedisChatHistoryStore implements ChatHistoryStore {
                                         historyId, failure));
     }
 
+    /**
+     * Send the next batch of pending writes to Redis, unless a batch is already being sent. Once a
+     * batch completes, the next batch is sent.
+     */
+    private void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite write;
+        while (batch.size() < config.maxBatchSize() && (write = pendingWrites.poll()) != null) {
+            batch.add(write);
+        }
+        if (batch.isEmpty()) {
+            flushing.set(false);
+            // a write might have been queued after polling, but before the flag was reset
+            if (!pendingWrites.isEmpty()) {
+                flush();
+            }
+            return;
+        }
+        currentBatch = batch;
+
+        List<Request> requests = new ArrayList<>(batch.size() * 4);
+        for (PendingWrite pendingWrite : batch) {
+            requests.add(Request.cmd(Command.MULTI));
+            requests.add(
+                    Request.cmd(Command.RPUSH)
+                            .arg(pendingWrite.key())
+                            .arg(Buffer.buffer(codec.encode(pendingWrite.message()))));
+            requests.add(
+                    Request.cmd(Command.LTRIM)
+                            .arg(pendingWrite.key())
+                            .arg(-1 * (long) config.maxMessages())
+                            .arg(-1));
+            requests.add(Request.cmd(Command.EXEC));
+        }
+        Log.debugf("Writing batch of %d history messages.", batch.size());
+        redis.getRedis()
+                .batch(requests)
+                .subscribe()
+                .with(
+                        responses -> {
+                            batch.forEach(w -> w.result().complete(null));
+                            onBatchCompleted();
+                        },
+                        failure -> {
+                            batch.forEach(w -> w.result().completeExceptionally(failure));
+                            onBatchCompleted();
+                        });
+    }
+
+    private void onBatchCompleted() {
+        currentBatch = List.of();
+        flushing.set(false);
+        flush();
+    }
+
+    /** Wait for the pending writes to be written before shutdown. */
+    @PreDestroy
+    void close() {
+        List<PendingWrite> remaining = new ArrayList<>(currentBatch);
+        remaining.addAll(pendingWrites);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        Log.infof("Flushing %d pending history messages.", remaining.size());
+        flush();
+        try {
+            CompletableFuture.allOf(
+                            remaining.stream()
+                                    .map(PendingWrite::result)
+                                    .toArray(CompletableFuture[]::new))
+                    .get(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.warn("Failed to flush pending history messages.", e);
+        }
+    }
+
     @Override
     public Uni<Void> deleteMessages(Object memoryId) {
         Log.debugf("Deleting history for session '%s'.", memoryId);
         return keyCommands.del(memoryId.toString()).replaceWithVoid();
     }
+
+    private record PendingWrite(
+            String key, ChatMessageRecord message, CompletableFuture<Void> result) {}
 }
@@ -32,7 +32,6 @@ import jakarta.inject.Inject;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
-import dev.langchain4j.memory.chat.TokenWindowChatMemory;
 import dev.langchain4j.model.TokenCountEstimator;
 import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
@@ -47,6 +46,11 @@ import io.quarkus.runtime.Startup;
  * href="https://docs.langchain4j.dev/tutorials/chat-memory/#memory-vs-history">Memory vs
  * History</a> for more information.
  *
+ * <p>For the token window, a single tokenizer is shared by all memories and the token count of
+ * each message is stored in the {@link TokenCountStore}, see {@link TokenCountingChatMemory}. For
+ * the summary window, evicted messages are folded into a running summary, see {@link
+ * SummarizingChatMemory}.
+ *
  * @author Florian Hotze - Initial contribution
  */
 @Startup // initialize at startup to check connection and validate config
@@ -57,7 +61,12 @@ class ChatMemoryProviderImpl implements ChatMemoryProvider {
     private final ChatMemoryProvider delegate;
 
     @Inject
-    ChatMemoryProviderImpl(ChatMemoryConfig config, ChatMemoryStore store) {
+    ChatMemoryProviderImpl(
+            ChatMemoryConfig config,
+            TokenCountingChatMemoryStore store,
+            TokenCountStore tokenCountStore,
+            ChatMemorySummaryStore summaryStore,
+            ChatMemorySummarizer summarizer) {
         // Check connection
         try {
             store.getMessages(UUID.randomUUID());
@@ -65,6 +74,9 @@ class ChatMemoryProviderImpl implements ChatMemoryProvider {
             throw new StartupException("Failed to connect to Redis chat memory DB", e.getCause());
         }
 
+        // the tokenizer is thread-safe, so a single instance is shared by all memories
+        TokenCountEstimator tokenizer = config.tokenizer().map(this::produceTokenizer).orElse(null);
+
         this.delegate =
                 switch (config.window()) {
                     case MESSAGE ->
@@ -91,13 +103,28 @@ class ChatMemoryProviderImpl implements ChatMemoryProvider {
                                                     "maxTokens and tokenizer config must be set for"
                                                             + " token window"));
                                 }
-                                return TokenWindowChatMemory.builder()
-                                        .id(memoryId)
-                                        .maxTokens(
-                                                config.maxTokens().get(),
-                                                produceTokenizer(config.tokenizer().get()))
-                                        .chatMemoryStore(store)
-                                        .build();
+                                return new TokenCountingChatMemory(
+                                        memoryId,
+                                        config.maxTokens().get(),
+                                        tokenizer,
+                                        store,
+                                        tokenCountStore);
+                            };
+                    case SUMMARY ->
+                            memoryId -> {
+                                if (config.maxMessages().isEmpty()) {
+                                    throw new StartupException(
+                                            INITIALIZATION_FAILURE_MESSAGE,
+                                            new IllegalStateException(
+                                                    "maxMessages config must be set for summary"
+                                                            + " window"));
+                                }
+                                return new SummarizingChatMemory(
+                                        memoryId,
+                                        config.maxMessages().get(),
+                                        store,
+                                        summaryStore,
+                                        summarizer);
                             };
                 };
     }
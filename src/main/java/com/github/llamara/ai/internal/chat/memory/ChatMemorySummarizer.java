@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import com.github.llamara.ai.config.chat.ChatMemoryConfig;
+import com.github.llamara.ai.internal.StartupException;
+import com.github.llamara.ai.internal.retrieval.CompiledPromptTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.quarkus.logging.Log;
+
+/**
+ * Folds the messages evicted from a {@link SummarizingChatMemory} into the running summary of the
+ * memory, using the chat model configured by {@link ChatMemoryConfig.SummaryConfig#modelUid()}.
+ *
+ * <p>Summaries are produced on virtual threads off the request path. Summarizations of the same
+ * memory run one after another, so no evicted messages are lost from the summary. If the chat model
+ * call fails, the evicted messages are dropped from the summary.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+public class ChatMemorySummarizer {
+    private final ChatMemoryConfig config;
+    private final ChatMemoryStore memoryStore;
+    private final ChatMemorySummaryStore summaryStore;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Object, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    private volatile ChatModel model;
+    private volatile CompiledPromptTemplate promptTemplate;
+
+    @Inject
+    ChatMemorySummarizer(
+            ChatMemoryConfig config,
+            ChatMemoryStore memoryStore,
+            ChatMemorySummaryStore summaryStore) {
+        this.config = config;
+        this.memoryStore = memoryStore;
+        this.summaryStore = summaryStore;
+    }
+
+    /**
+     * Resolve the summary chat model from the configured chat models and compile the configured
+     * prompt template. Only required for the {@link ChatMemoryConfig.ChatMemoryWindowType#SUMMARY}
+     * window.
+     *
+     * @param chatModels the configured chat models by their UID
+     * @throws StartupException if the summary window is used and the summary model is not
+     *     configured
+     */
+    public void initialize(Map<String, ChatModel> chatModels) {
+        if (config.window() != ChatMemoryConfig.ChatMemoryWindowType.SUMMARY) {
+            return;
+        }
+        model = config.summary().modelUid().map(chatModels::get).orElse(null);
+        if (model == null) {
+            throw new StartupException(
+                    "Chat memory window of type summary requires the uid of a configured chat"
+                            + " model.");
+        }
+        promptTemplate = CompiledPromptTemplate.from(config.summary().promptTemplate());
+    }
+
+    /**
+     * Fold the given evicted messages into the summary of the given memory asynchronously.
+     *
+     * @param memoryId the memory id
+     * @param evicted the messages evicted from the memory
+     * @return a future completing once the summary has been updated
+     */
+    CompletableFuture<Void> summarize(Object memoryId, List<ChatMessage> evicted) {
+        CompletableFuture<Void> task =
+                pending.compute(
+                        memoryId,
+                        (id, previous) ->
+                                (previous != null
+                                                ? previous
+                                                : CompletableFuture.<Void>completedFuture(null))
+                                        .thenRunAsync(() -> fold(id, evicted), executor));
+        task.whenComplete((result, failure) -> pending.remove(memoryId, task));
+        return task;
+    }
+
+    private void fold(Object memoryId, List<ChatMessage> evicted) {
+        String transcript =
+                evicted.stream()
+                        .map(ChatMemorySummarizer::toTranscriptLine)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.joining("\n"));
+        if (transcript.isEmpty() || model == null || promptTemplate == null) {
+            return;
+        }
+        try {
+            String summary = summaryStore.getSummary(memoryId).orElse("");
+            String updated =
+                    model.chat(
+                            promptTemplate.apply(
+                                    Map.of(
+                                            "maxWords",
+                                            String.valueOf(config.summary().maxWords()),
+                                            "summary",
+                                            summary,
+                                            "messages",
+                                            transcript)));
+            // do not recreate the summary of a memory that was cleared meanwhile
+            if (memoryStore.getMessages(memoryId).isEmpty()) {
+                return;
+            }
+            summaryStore.updateSummary(memoryId, updated.strip());
+        } catch (RuntimeException e) {
+            Log.warnf(e, "Failed to summarize evicted messages of chat memory '%s'.", memoryId);
+        }
+    }
+
+    private static String toTranscriptLine(ChatMessage message) {
+        return switch (message) {
+            case UserMessage userMessage when userMessage.hasSingleText() ->
+                    "User: " + userMessage.singleText();
+            case AiMessage aiMessage when aiMessage.text() != null ->
+                    "Assistant: " + aiMessage.text();
+            default -> null; // system messages are never evicted, tool messages are skipped
+        };
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            Log.warn("Pending chat memory summarizations did not finish before shutdown.");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.Optional;
+
+/**
+ * Interface defining the API for storing the running summary of the messages evicted from a chat
+ * memory.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public interface ChatMemorySummaryStore {
+
+    /**
+     * Get the summary of the chat memory for the given id.
+     *
+     * @param memoryId the memory id to get the summary from
+     * @return the summary, or an empty optional if no messages have been summarized yet
+     */
+    Optional<String> getSummary(Object memoryId);
+
+    /**
+     * Replace the summary of the chat memory for the given id.
+     *
+     * @param memoryId the memory id to update the summary for
+     * @param summary the new summary
+     */
+    void updateSummary(Object memoryId, String summary);
+
+    /**
+     * Delete the summary for the given id. If no summary is present for the given id, do nothing.
+     *
+     * @param memoryId the memory id to delete the summary from
+     */
+    void deleteSummary(Object memoryId);
+}
@@ -0,0 +1,430 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import com.github.llamara.ai.config.chat.ChatMemoryConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.client.RedisClientName;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.keys.KeyCommands;
+import io.quarkus.redis.datasource.list.ListCommands;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
+import io.quarkus.redis.datasource.transactions.OptimisticLockingTransactionResult;
+import io.quarkus.redis.datasource.transactions.TransactionalRedisDataSource;
+import io.quarkus.redis.datasource.value.ValueCommands;
+
+/**
+ * Implementation of {@link ChatMemoryStore} using a <a href="https://redis.io/">Redis</a> list per
+ * chat memory with a local near-cache.
+ *
+ * <p>As chat memories mostly change by appending messages and evicting the oldest messages, {@link
+ * #updateMessages(Object, List)} compares the new messages with the current ones and only appends
+ * the new messages and trims the evicted messages, instead of rewriting the whole memory. The
+ * system message at the start of the memory is kept in place. Other changes rewrite the memory.
+ * The token counts of the {@link RedisTokenCountStore} are written the same way in the same
+ * transaction, see {@link #updateMessages(Object, List, List)}, and their sum is updated with them,
+ * so a single appended message only requires <code>INCRBY</code>, see {@link #appendMessage}. The
+ * memory is watched while it is compared, so concurrent writes are retried instead of corrupting
+ * the memory.
+ *
+ * <p>If enabled, chat memories are cached locally and written through to Redis. Each write is
+ * published to the other instances, which invalidate their cached copy. A cached copy is only
+ * compared against if its size matches the length of the list in Redis.
+ *
+ * <p>Chat memories stored by the previous Redis chat memory store, i.e. as JSON string under the
+ * bare memory ID, are migrated to the list on first read.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class RedisChatMemoryStore implements TokenCountingChatMemoryStore {
+    private static final String KEY_PREFIX = "chat-memory:";
+    private static final String INVALIDATION_CHANNEL = "chat-memory:invalidations";
+    private static final String INVALIDATION_DELIMITER = " ";
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final RedisDataSource redis;
+    private final KeyCommands<String> keyCommands;
+    private final ListCommands<String, String> listCommands;
+    private final ValueCommands<String, String> valueCommands;
+    private final PubSubCommands<String> pubSubCommands;
+    private final PubSubCommands.RedisSubscriber subscriber;
+    private final Cache<String, List<ChatMessage>> nearCache;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Inject
+    RedisChatMemoryStore(
+            ChatMemoryConfig config,
+            @RedisClientName("chat-memory") RedisDataSource redis,
+            MeterRegistry registry) {
+        this.redis = redis;
+        this.keyCommands = redis.key(String.class);
+        this.listCommands = redis.list(String.class);
+        this.valueCommands = redis.value(String.class);
+
+        ChatMemoryConfig.NearCacheConfig nearCacheConfig = config.nearCache();
+        if (!nearCacheConfig.enabled()) {
+            this.pubSubCommands = null;
+            this.subscriber = null;
+            this.nearCache = null;
+            return;
+        }
+        this.nearCache =
+                Caffeine.newBuilder()
+                        .maximumSize(nearCacheConfig.maxEntries())
+                        .expireAfterAccess(nearCacheConfig.expireAfterAccess())
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(registry, nearCache, "chat-memory");
+        this.pubSubCommands = redis.pubsub(String.class);
+        this.subscriber = pubSubCommands.subscribe(INVALIDATION_CHANNEL, this::onInvalidation);
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        if (subscriber != null) {
+            subscriber.unsubscribe();
+        }
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        String key = key(memoryId);
+        if (nearCache == null) {
+            return load(key);
+        }
+        return new ArrayList<>(nearCache.get(key, this::load));
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        updateMessages(memoryId, messages, null);
+    }
+
+    @Override
+    public void updateMessages(
+            Object memoryId, List<ChatMessage> messages, List<Integer> tokenCounts) {
+        String key = key(memoryId);
+        List<ChatMessage> cached = nearCache != null ? nearCache.getIfPresent(key) : null;
+        try {
+            write(memoryId, cached, messages, tokenCounts);
+        } catch (RuntimeException e) {
+            invalidate(key);
+            throw e;
+        }
+        updateNearCache(key, messages);
+    }
+
+    @Override
+    public boolean appendMessage(Object memoryId, List<ChatMessage> messages, int tokenCount) {
+        String key = key(memoryId);
+        List<ChatMessage> cached = nearCache != null ? nearCache.getIfPresent(key) : null;
+        List<ChatMessage> previous = messages.subList(0, messages.size() - 1);
+        String message = ChatMessageSerializer.messageToJson(messages.getLast());
+        String tokenCountsKey = RedisTokenCountStore.key(memoryId);
+        String tokenTotalKey = RedisTokenCountStore.totalKey(memoryId);
+        OptimisticLockingTransactionResult<Boolean> result;
+        try {
+            result =
+                    redis.withTransaction(
+                            ds -> previous.equals(current(ds, key, cached)),
+                            (matches, tx) -> {
+                                if (matches) {
+                                    tx.list(String.class).rpush(key, message);
+                                    tx.list(Integer.class).rpush(tokenCountsKey, tokenCount);
+                                    tx.value(Integer.class).incrby(tokenTotalKey, tokenCount);
+                                }
+                            },
+                            key);
+        } catch (RuntimeException e) {
+            invalidate(key);
+            throw e;
+        }
+        if (result.discarded() || !result.getPreTransactionResult()) {
+            return false;
+        }
+        updateNearCache(key, messages);
+        return true;
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String key = key(memoryId);
+        keyCommands.del(key, legacyKey(key));
+        invalidate(key);
+    }
+
+    /**
+     * Write the difference between the current and the new messages to Redis. The memory is
+     * watched while the current messages are read, and the write is retried if it changes before
+     * the transaction is executed.
+     *
+     * @param memoryId the memory id
+     * @param cached the cached messages, <code>null</code> if not cached
+     * @param messages the new messages
+     * @param tokenCounts the token counts of the new messages, <code>null</code> if not counted
+     * @throws IllegalStateException if the memory is concurrently modified on every attempt
+     */
+    private void write(
+            Object memoryId,
+            List<ChatMessage> cached,
+            List<ChatMessage> messages,
+            List<Integer> tokenCounts) {
+        String key = key(memoryId);
+        List<ChatMessage> expected = cached;
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+            List<ChatMessage> compared = expected;
+            OptimisticLockingTransactionResult<List<ChatMessage>> result =
+                    redis.withTransaction(
+                            ds -> current(ds, key, compared),
+                            (current, tx) -> write(tx, memoryId, current, messages, tokenCounts),
+                            key);
+            if (!result.discarded()) {
+                return;
+            }
+            Log.debugf("Chat memory '%s' changed concurrently, retrying write.", key);
+            expected = null;
+        }
+        throw new IllegalStateException(
+                String.format("Chat memory '%s' was concurrently modified.", key));
+    }
+
+    /**
+     * Get the messages currently stored. The cached messages are only used if their size matches
+     * the length of the list in Redis, otherwise the messages are loaded.
+     *
+     * @param ds the data source of the transaction, watching the memory
+     * @param key the key of the chat memory
+     * @param cached the cached messages, <code>null</code> if not cached
+     * @return the current messages
+     */
+    private static List<ChatMessage> current(
+            RedisDataSource ds, String key, List<ChatMessage> cached) {
+        ListCommands<String, String> list = ds.list(String.class);
+        if (cached != null && list.llen(key) == cached.size()) {
+            return cached;
+        }
+        return load(list, key);
+    }
+
+    /**
+     * Queue the difference between the current and the new messages in the given transaction. The
+     * sum of the token counts is set to the sum of the new token counts.
+     *
+     * @param tx the transaction
+     * @param memoryId the memory id
+     * @param current the messages currently stored
+     * @param messages the new messages
+     * @param tokenCounts the token counts of the new messages, <code>null</code> if not counted
+     */
+    private static void write(
+            TransactionalRedisDataSource tx,
+            Object memoryId,
+            List<ChatMessage> current,
+            List<ChatMessage> messages,
+            List<Integer> tokenCounts) {
+        String key = key(memoryId);
+        String tokenCountsKey = RedisTokenCountStore.key(memoryId);
+        String tokenTotalKey = RedisTokenCountStore.totalKey(memoryId);
+        if (messages.isEmpty()) {
+            if (tokenCounts != null) {
+                tx.key(String.class).del(key, tokenCountsKey, tokenTotalKey);
+            } else {
+                tx.key(String.class).del(key);
+            }
+            return;
+        }
+        // keep the system message at the start in place
+        int head =
+                !current.isEmpty()
+                                && current.getFirst() instanceof SystemMessage
+                                && current.getFirst().equals(messages.getFirst())
+                        ? 1
+                        : 0;
+        int evicted = countEvicted(current, messages, head);
+        if (evicted < 0) {
+            Log.debugf("Rewriting chat memory '%s'.", key);
+            tx.key(String.class).del(key);
+            tx.list(String.class).rpush(key, toJson(messages));
+            if (tokenCounts != null) {
+                tx.key(String.class).del(tokenCountsKey);
+                tx.list(Integer.class).rpush(tokenCountsKey, tokenCounts.toArray(Integer[]::new));
+                tx.value(Integer.class).set(tokenTotalKey, RedisTokenCountStore.sum(tokenCounts));
+            }
+            return;
+        }
+
+        int kept = current.size() - evicted;
+        List<ChatMessage> appended = messages.subList(kept, messages.size());
+        if (evicted > 0) {
+            tx.list(String.class).ltrim(key, head + (long) evicted, -1);
+            if (head > 0) {
+                tx.list(String.class)
+                        .lpush(key, ChatMessageSerializer.messageToJson(messages.getFirst()));
+            }
+        }
+        if (!appended.isEmpty()) {
+            tx.list(String.class).rpush(key, toJson(appended));
+        }
+        if (tokenCounts == null) {
+            return;
+        }
+        if (evicted > 0) {
+            tx.list(Integer.class).ltrim(tokenCountsKey, head + (long) evicted, -1);
+            if (head > 0) {
+                tx.list(Integer.class).lpush(tokenCountsKey, tokenCounts.getFirst());
+            }
+        }
+        if (!appended.isEmpty()) {
+            tx.list(Integer.class)
+                    .rpush(
+                            tokenCountsKey,
+                            tokenCounts.subList(kept, tokenCounts.size()).toArray(Integer[]::new));
+        }
+        tx.value(Integer.class).set(tokenTotalKey, RedisTokenCountStore.sum(tokenCounts));
+    }
+
+    /**
+     * Count the messages evicted from the current messages, assuming that the new messages are the
+     * current messages after the head, without the evicted messages, followed by appended messages.
+     *
+     * @param current the current messages
+     * @param messages the new messages
+     * @param head the number of messages at the start that are kept in place
+     * @return the number of evicted messages, <code>-1</code> if the new messages do not match
+     */
+    private static int countEvicted(
+            List<ChatMessage> current, List<ChatMessage> messages, int head) {
+        for (int evicted = 0; evicted <= current.size() - head; evicted++) {
+            int kept = current.size() - head - evicted;
+            if (kept <= messages.size() - head
+                    && current.subList(head + evicted, current.size())
+                            .equals(messages.subList(head, head + kept))) {
+                return evicted;
+            }
+        }
+        return -1;
+    }
+
+    private List<ChatMessage> load(String key) {
+        List<ChatMessage> messages = load(listCommands, key);
+        if (!messages.isEmpty()) {
+            return messages;
+        }
+        return migrateLegacy(key);
+    }
+
+    private static List<ChatMessage> load(ListCommands<String, String> list, String key) {
+        return list.lrange(key, 0, -1).stream()
+                .map(ChatMessageDeserializer::messageFromJson)
+                .toList();
+    }
+
+    /**
+     * Migrate the chat memory stored by the previous Redis chat memory store as JSON string under
+     * the bare memory ID to the list. The legacy key is watched, so concurrent migrations only
+     * write the list once.
+     *
+     * @param key the key of the chat memory
+     * @return the migrated messages, empty if there is no legacy chat memory
+     */
+    private List<ChatMessage> migrateLegacy(String key) {
+        String legacyKey = legacyKey(key);
+        if (valueCommands.get(legacyKey) == null) {
+            return List.of();
+        }
+        OptimisticLockingTransactionResult<List<ChatMessage>> result =
+                redis.withTransaction(
+                        ds -> {
+                            String json = ds.value(String.class).get(legacyKey);
+                            return json != null
+                                    ? ChatMessageDeserializer.messagesFromJson(json)
+                                    : List.<ChatMessage>of();
+                        },
+                        (messages, tx) -> {
+                            if (!messages.isEmpty()) {
+                                tx.list(String.class).rpush(key, toJson(messages));
+                            }
+                            tx.key(String.class).del(legacyKey);
+                        },
+                        legacyKey);
+        if (result.discarded()) {
+            // migrated concurrently
+            return load(listCommands, key);
+        }
+        Log.infof("Migrated legacy chat memory '%s'.", legacyKey);
+        return result.getPreTransactionResult();
+    }
+
+    private static String[] toJson(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessageSerializer::messageToJson).toArray(String[]::new);
+    }
+
+    private void updateNearCache(String key, List<ChatMessage> messages) {
+        if (nearCache != null) {
+            nearCache.put(key, List.copyOf(messages));
+            publishInvalidation(key);
+        }
+    }
+
+    private void invalidate(String key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+            publishInvalidation(key);
+        }
+    }
+
+    private void publishInvalidation(String key) {
+        pubSubCommands.publish(INVALIDATION_CHANNEL, instanceId + INVALIDATION_DELIMITER + key);
+    }
+
+    private void onInvalidation(String message) {
+        int index = message.indexOf(INVALIDATION_DELIMITER);
+        if (index < 0 || message.substring(0, index).equals(instanceId)) {
+            return;
+        }
+        nearCache.invalidate(message.substring(index + 1));
+    }
+
+    static String key(Object memoryId) {
+        return KEY_PREFIX + memoryId;
+    }
+
+    private static String legacyKey(String key) {
+        return key.substring(KEY_PREFIX.length());
+    }
+}
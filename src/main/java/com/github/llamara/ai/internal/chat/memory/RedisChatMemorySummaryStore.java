@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.Optional;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.quarkus.redis.client.RedisClientName;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.keys.KeyCommands;
+import io.quarkus.redis.datasource.value.ValueCommands;
+
+/**
+ * Implementation of {@link ChatMemorySummaryStore} using a <a href="https://redis.io/">Redis</a>
+ * string next to the chat memory in the chat memory DB, under the key {@code
+ * chat-memory:<id>:summary}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class RedisChatMemorySummaryStore implements ChatMemorySummaryStore {
+    private static final String KEY_SUFFIX = ":summary";
+
+    private final KeyCommands<String> keyCommands;
+    private final ValueCommands<String, String> valueCommands;
+
+    @Inject
+    RedisChatMemorySummaryStore(@RedisClientName("chat-memory") RedisDataSource redis) {
+        this.keyCommands = redis.key(String.class);
+        this.valueCommands = redis.value(String.class);
+    }
+
+    @Override
+    public Optional<String> getSummary(Object memoryId) {
+        return Optional.ofNullable(valueCommands.get(key(memoryId)));
+    }
+
+    @Override
+    public void updateSummary(Object memoryId, String summary) {
+        valueCommands.set(key(memoryId), summary);
+    }
+
+    @Override
+    public void deleteSummary(Object memoryId) {
+        keyCommands.del(key(memoryId));
+    }
+
+    private static String key(Object memoryId) {
+        return RedisChatMemoryStore.key(memoryId) + KEY_SUFFIX;
+    }
+}
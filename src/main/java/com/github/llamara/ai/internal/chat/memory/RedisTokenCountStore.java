@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.List;
+import java.util.Optional;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.quarkus.redis.client.RedisClientName;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.keys.KeyCommands;
+import io.quarkus.redis.datasource.list.ListCommands;
+import io.quarkus.redis.datasource.transactions.TransactionResult;
+
+/**
+ * Implementation of {@link TokenCountStore} using a <a href="https://redis.io/">Redis</a> list
+ * next to the chat memory in the chat memory DB, under the key {@code
+ * chat-memory:<id>:token-counts}, and their sum under the key {@code chat-memory:<id>:token-total}.
+ * The {@link RedisChatMemoryStore} appends and trims the list together with the messages and
+ * updates the sum in the same transaction.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class RedisTokenCountStore implements TokenCountStore {
+    private static final String KEY_SUFFIX = ":token-counts";
+    private static final String TOTAL_KEY_SUFFIX = ":token-total";
+
+    private final RedisDataSource redis;
+    private final KeyCommands<String> keyCommands;
+    private final ListCommands<String, Integer> listCommands;
+
+    @Inject
+    RedisTokenCountStore(@RedisClientName("chat-memory") RedisDataSource redis) {
+        this.redis = redis;
+        this.keyCommands = redis.key(String.class);
+        this.listCommands = redis.list(Integer.class);
+    }
+
+    @Override
+    public List<Integer> getTokenCounts(Object memoryId) {
+        return listCommands.lrange(key(memoryId), 0, -1);
+    }
+
+    @Override
+    public Optional<TokenTotal> getTokenTotal(Object memoryId) {
+        TransactionResult result =
+                redis.withTransaction(
+                        tx -> {
+                            tx.list(Integer.class).llen(key(memoryId));
+                            tx.value(Integer.class).get(totalKey(memoryId));
+                        });
+        long count = result.get(0);
+        Integer sum = result.get(1);
+        if (sum == null) {
+            return count == 0 ? Optional.of(new TokenTotal(0, 0)) : Optional.empty();
+        }
+        return Optional.of(new TokenTotal((int) count, sum));
+    }
+
+    @Override
+    public void updateTokenCounts(Object memoryId, List<Integer> tokenCounts) {
+        String key = key(memoryId);
+        String totalKey = totalKey(memoryId);
+        redis.withTransaction(
+                tx -> {
+                    tx.key(String.class).del(key, totalKey);
+                    if (!tokenCounts.isEmpty()) {
+                        tx.list(Integer.class).rpush(key, tokenCounts.toArray(Integer[]::new));
+                        tx.value(Integer.class).set(totalKey, sum(tokenCounts));
+                    }
+                });
+    }
+
+    @Override
+    public void deleteTokenCounts(Object memoryId) {
+        keyCommands.del(key(memoryId), totalKey(memoryId));
+    }
+
+    static String key(Object memoryId) {
+        return RedisChatMemoryStore.key(memoryId) + KEY_SUFFIX;
+    }
+
+    static String totalKey(Object memoryId) {
+        return RedisChatMemoryStore.key(memoryId) + TOTAL_KEY_SUFFIX;
+    }
+
+    static int sum(List<Integer> tokenCounts) {
+        return tokenCounts.stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+/**
+ * {@link ChatMemory} that retains the most recent messages like {@link
+ * dev.langchain4j.memory.chat.MessageWindowChatMemory}, but folds evicted messages into a running
+ * summary instead of dropping them.
+ *
+ * <p>Evicted messages are summarized asynchronously by the {@link ChatMemorySummarizer} and the
+ * summary is kept in the {@link ChatMemorySummaryStore}. The summary is presented to the chat model
+ * as part of the system message, so the input tokens per turn stay bounded while long-range context
+ * is kept. The stored system message itself is kept unchanged.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class SummarizingChatMemory implements ChatMemory {
+    static final String SUMMARY_HEADER = "Summary of the earlier conversation:\n";
+
+    private final Object id;
+    private final int maxMessages;
+    private final ChatMemoryStore store;
+    private final ChatMemorySummaryStore summaryStore;
+    private final ChatMemorySummarizer summarizer;
+
+    /**
+     * @param id the memory id
+     * @param maxMessages the maximum number of messages to retain
+     * @param store the store for the messages
+     * @param summaryStore the store for the summary of the evicted messages
+     * @param summarizer the summarizer to fold evicted messages into the summary with
+     */
+    SummarizingChatMemory(
+            Object id,
+            int maxMessages,
+            ChatMemoryStore store,
+            ChatMemorySummaryStore summaryStore,
+            ChatMemorySummarizer summarizer) {
+        this.id = id;
+        this.maxMessages = maxMessages;
+        this.store = store;
+        this.summaryStore = summaryStore;
+        this.summarizer = summarizer;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        if (message instanceof SystemMessage) {
+            int index = indexOfSystemMessage(messages);
+            if (index >= 0) {
+                if (messages.get(index).equals(message)) {
+                    return; // do not add the same system message
+                }
+                messages.remove(index);
+            }
+        }
+        messages.add(message);
+
+        List<ChatMessage> evicted = ensureCapacity(messages);
+        store.updateMessages(id, messages);
+        if (!evicted.isEmpty()) {
+            summarizer.summarize(id, evicted);
+        }
+    }
+
+    /**
+     * Evict the oldest messages except for the system message until the messages fit into the
+     * window. Tool execution results of an evicted AI message are evicted as well, as they are
+     * invalid without the tool execution request.
+     *
+     * @return the evicted messages
+     */
+    private List<ChatMessage> ensureCapacity(List<ChatMessage> messages) {
+        List<ChatMessage> evicted = new ArrayList<>();
+        while (messages.size() > maxMessages) {
+            int index = messages.getFirst() instanceof SystemMessage ? 1 : 0;
+            if (index >= messages.size()) {
+                break;
+            }
+            ChatMessage message = messages.remove(index);
+            evicted.add(message);
+            if (message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                while (index < messages.size()
+                        && messages.get(index) instanceof ToolExecutionResultMessage) {
+                    evicted.add(messages.remove(index));
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private static int indexOfSystemMessage(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        // the window is enforced when adding messages, so no messages have to be evicted here
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        Optional<String> summary = summaryStore.getSummary(id);
+        if (summary.isEmpty()) {
+            return messages;
+        }
+        if (!messages.isEmpty() && messages.getFirst() instanceof SystemMessage systemMessage) {
+            messages.set(
+                    0,
+                    SystemMessage.from(
+                            systemMessage.text() + "\n\n" + SUMMARY_HEADER + summary.get()));
+        } else {
+            messages.addFirst(SystemMessage.from(SUMMARY_HEADER + summary.get()));
+        }
+        return messages;
+    }
+
+    @Override
+    public void clear() {
+        store.deleteMessages(id);
+        summaryStore.deleteSummary(id);
+    }
+}
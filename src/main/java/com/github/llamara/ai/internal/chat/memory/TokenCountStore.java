@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interface defining the API for storing the token counts of the messages in chat memory, so that
+ * each message is tokenized only once when it is added to the memory. The sum of the token counts
+ * is kept next to them, so it can be read without reading all token counts.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public interface TokenCountStore {
+
+    /**
+     * Get the token counts of the messages in the chat memory for the given id, in the order of the
+     * messages. If there are no token counts for the given id, an empty list is returned.
+     *
+     * @param memoryId the memory id to get the token counts from
+     * @return the token counts, or an empty list if there are no token counts for the given id
+     */
+    List<Integer> getTokenCounts(Object memoryId);
+
+    /**
+     * Get the number of token counts and their sum for the given id, without reading the token
+     * counts. If there are no token counts for the given id, a total of zero is returned.
+     *
+     * @param memoryId the memory id to get the token total for
+     * @return the token total, or empty if the token counts are stored without their sum
+     */
+    Optional<TokenTotal> getTokenTotal(Object memoryId);
+
+    /**
+     * Replace the token counts of the messages in the chat memory for the given id.
+     *
+     * @param memoryId the memory id to update the token counts for
+     * @param tokenCounts the token counts, in the order of the messages
+     */
+    void updateTokenCounts(Object memoryId, List<Integer> tokenCounts);
+
+    /**
+     * Delete the token counts for the given id. If no token counts are present for the given id,
+     * do nothing.
+     *
+     * @param memoryId the memory id to delete the token counts from
+     */
+    void deleteTokenCounts(Object memoryId);
+
+    /**
+     * Number of token counts and their sum.
+     *
+     * @param count the number of token counts, i.e. of messages
+     * @param sum the sum of the token counts
+     */
+    record TokenTotal(int count, int sum) {}
+}
@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+
+/**
+ * {@link ChatMemory} that retains as many of the most recent messages as fit into a token window,
+ * like {@link dev.langchain4j.memory.chat.TokenWindowChatMemory}.
+ *
+ * <p>Unlike {@link dev.langchain4j.memory.chat.TokenWindowChatMemory}, which re-tokenizes all
+ * messages on every access, the token count of each message is estimated once when it is added and
+ * kept in the {@link TokenCountStore}. Eviction works on the stored token counts, so only the new
+ * message is tokenized per turn. If the new message fits into the window, only the sum of the
+ * token counts is read and the message is appended, the token counts are only read for eviction.
+ * Token counts are recomputed only if they are missing or out of sync with the messages, e.g. for
+ * memories created before token counts were stored.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class TokenCountingChatMemory implements ChatMemory {
+    private final Object id;
+    private final int maxTokens;
+    private final TokenCountEstimator tokenizer;
+    private final TokenCountingChatMemoryStore store;
+    private final TokenCountStore tokenCountStore;
+
+    /**
+     * @param id the memory id
+     * @param maxTokens the maximum number of tokens to retain
+     * @param tokenizer the tokenizer to estimate the token count of messages with
+     * @param store the store for the messages
+     * @param tokenCountStore the store for the token counts of the messages
+     */
+    TokenCountingChatMemory(
+            Object id,
+            int maxTokens,
+            TokenCountEstimator tokenizer,
+            TokenCountingChatMemoryStore store,
+            TokenCountStore tokenCountStore) {
+        this.id = id;
+        this.maxTokens = maxTokens;
+        this.tokenizer = tokenizer;
+        this.store = store;
+        this.tokenCountStore = tokenCountStore;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        int tokenCount = tokenizer.estimateTokenCountInMessage(message);
+        if (!(message instanceof SystemMessage) && fits(messages, tokenCount)) {
+            messages.add(message);
+            if (store.appendMessage(id, messages, tokenCount)) {
+                return;
+            }
+            // the stored messages changed, fall back to comparing the token counts
+            messages.removeLast();
+        }
+
+        List<Integer> tokenCounts = new ArrayList<>(tokenCountStore.getTokenCounts(id));
+        if (tokenCounts.size() != messages.size()) {
+            tokenCounts.clear();
+            messages.forEach(m -> tokenCounts.add(tokenizer.estimateTokenCountInMessage(m)));
+            // the store updates the token counts like the messages, so they must match first
+            tokenCountStore.updateTokenCounts(id, tokenCounts);
+        }
+
+        if (message instanceof SystemMessage) {
+            int index = indexOfSystemMessage(messages);
+            if (index >= 0) {
+                if (messages.get(index).equals(message)) {
+                    return; // do not add the same system message
+                }
+                messages.remove(index);
+                tokenCounts.remove(index);
+            }
+        }
+        messages.add(message);
+        tokenCounts.add(tokenCount);
+
+        ensureCapacity(messages, tokenCounts);
+        store.updateMessages(id, messages, tokenCounts);
+    }
+
+    /**
+     * Check whether a message with the given token count fits into the window without evicting
+     * messages, using the sum of the stored token counts.
+     *
+     * @param messages the current messages
+     * @param tokenCount the token count of the new message
+     * @return whether the message fits, <code>false</code> if the token counts are out of sync
+     */
+    private boolean fits(List<ChatMessage> messages, int tokenCount) {
+        return tokenCountStore
+                .getTokenTotal(id)
+                .filter(total -> total.count() == messages.size())
+                .map(total -> total.sum() + tokenCount <= maxTokens)
+                .orElse(false);
+    }
+
+    /**
+     * Evict the oldest messages except for the system message until the token counts fit into the
+     * window. Tool execution results of an evicted AI message are evicted as well, as they are
+     * invalid without the tool execution request.
+     */
+    private void ensureCapacity(List<ChatMessage> messages, List<Integer> tokenCounts) {
+        int total = tokenCounts.stream().mapToInt(Integer::intValue).sum();
+        while (total > maxTokens) {
+            int index = messages.getFirst() instanceof SystemMessage ? 1 : 0;
+            if (index >= messages.size()) {
+                return;
+            }
+            ChatMessage evicted = messages.remove(index);
+            total -= tokenCounts.remove(index);
+            if (evicted instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                while (index < messages.size()
+                        && messages.get(index) instanceof ToolExecutionResultMessage) {
+                    messages.remove(index);
+                    total -= tokenCounts.remove(index);
+                }
+            }
+        }
+    }
+
+    private static int indexOfSystemMessage(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        // the window is enforced when adding messages, so no messages have to be evicted here
+        return new ArrayList<>(store.getMessages(id));
+    }
+
+    @Override
+    public void clear() {
+        store.deleteMessages(id);
+        tokenCountStore.deleteTokenCounts(id);
+    }
+}
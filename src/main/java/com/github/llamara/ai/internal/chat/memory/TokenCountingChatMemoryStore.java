@@ -0,0 +1,56 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.List;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+/**
+ * {@link ChatMemoryStore} that updates the token counts of the {@link TokenCountStore} together
+ * with the messages, so both stay in sync.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+interface TokenCountingChatMemoryStore extends ChatMemoryStore {
+    /**
+     * Update the messages and their token counts in a single transaction. The stored token counts
+     * must match the stored messages, as the token counts are updated in the same way as the
+     * messages, e.g. by appending and trimming.
+     *
+     * @param memoryId the memory id to update
+     * @param messages the new messages
+     * @param tokenCounts the token counts of the new messages, in the order of the messages
+     */
+    void updateMessages(Object memoryId, List<ChatMessage> messages, List<Integer> tokenCounts);
+
+    /**
+     * Append the last of the given messages, its token count and add the token count to the sum of
+     * the token counts in a single transaction, without reading the token counts. Only succeeds if
+     * the stored messages are the given messages without the last one.
+     *
+     * @param memoryId the memory id to update
+     * @param messages the new messages, ending with the appended message
+     * @param tokenCount the token count of the appended message
+     * @return whether the message was appended, <code>false</code> if the stored messages differ
+     */
+    boolean appendMessage(Object memoryId, List<ChatMessage> messages, int tokenCount);
+}
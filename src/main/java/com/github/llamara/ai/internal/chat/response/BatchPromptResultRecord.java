@@ -0,0 +1,47 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Record for the result of a single prompt of a batch.
+ *
+ * @param index the index of the prompt in the batch
+ * @param response the response from the chat model, <code>null</code> if the prompt failed
+ * @param sources the sources used by the chat model to generate the response, <code>null</code>
+ *     if the prompt failed
+ * @param latencyMillis the time it took to answer the prompt, including retrieval
+ * @param inputTokens the number of input tokens, if reported by the chat model
+ * @param outputTokens the number of output tokens, if reported by the chat model
+ * @param error the error message, <code>null</code> if the prompt succeeded
+ * @author Florian Hotze - Initial contribution
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchPromptResultRecord(
+        int index,
+        String response,
+        List<RagSourceRecord> sources,
+        long latencyMillis,
+        Integer inputTokens,
+        Integer outputTokens,
+        String error) {}
@@ -0,0 +1,44 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.response;
+
+import java.util.List;
+
+/**
+ * Event of a streamed chat response. The response is streamed as {@link Token}s, followed by a
+ * single final {@link Sources} event.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public sealed interface ChatStreamEvent {
+    /**
+     * A part of the response text.
+     *
+     * @param text the text
+     */
+    record Token(String text) implements ChatStreamEvent {}
+
+    /**
+     * The sources used by the chat model to generate the response, sent after the last token.
+     *
+     * @param sources the sources
+     */
+    record Sources(List<RagSourceRecord> sources) implements ChatStreamEvent {}
+}
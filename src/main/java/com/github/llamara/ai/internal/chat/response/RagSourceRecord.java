@@ -29,11 +29,21 @@ import com.fasterxml.jackson.annotation.JsonInclude;
  * @param knowledgeId the knowledge ID the source belongs to
  * @param embeddingId the embedding ID of the source
  * @param page the page within the source
- * @param content the content of the source
+ * @param content the content of the source, <code>null</code> if omitted
  * @author Florian Hotze - Initial contribution
  */
 public record RagSourceRecord(
         UUID knowledgeId,
         UUID embeddingId,
         @JsonInclude(JsonInclude.Include.NON_NULL) Integer page,
-        String content) {}
+        @JsonInclude(JsonInclude.Include.NON_NULL) String content) {
+
+    /**
+     * Get a lightweight copy of this source without its content.
+     *
+     * @return the source without content
+     */
+    public RagSourceRecord withoutContent() {
+        return new RagSourceRecord(knowledgeId, embeddingId, page, null);
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+import com.github.llamara.ai.internal.StartupException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.logging.Log;
+
+/**
+ * In-process {@link dev.langchain4j.store.embedding.EmbeddingStore} for single-node installations
+ * without an external vector database.
+ *
+ * <ul>
+ *   <li>Vectors are normalized and kept off-heap in a memory-mapped {@link VectorStorage}.
+ *   <li>Searches use an {@link HnswGraph}. If a filter matches only few embeddings, they are
+ *       scanned exactly instead, as a graph search would visit more nodes.
+ *   <li>Segments and metadata are kept on-heap. Filters are evaluated with the {@link
+ *       MetadataFilterMatcher}, which supports the filters on knowledge ID, permission, tags and
+ *       content type used by the application.
+ *   <li>Changes are durable through the {@link WriteAheadLog}. The segments and the graph are
+ *       written to a snapshot every {@link EmbeddingStoreConfig.EmbeddedConfig#snapshotInterval()}
+ *       changes and on close. Slots of removed embeddings are reclaimed on startup.
+ * </ul>
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public final class EmbeddedEmbeddingStore implements ScrollableEmbeddingStore, Closeable {
+    private static final int MAGIC = 0x4C4C4D41; // LLMA
+    private static final int VERSION = 2;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String WAL_FILE = "wal.bin";
+    private static final int DEFAULT_EF = 64;
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final Comparator<HnswGraph.SearchHit> BY_SIMILARITY =
+            Comparator.comparingDouble(HnswGraph.SearchHit::similarity);
+
+    private final Path directory;
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final int ef;
+    private final boolean exact;
+    private final int snapshotInterval;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The points by slot, <code>null</code> if the slot has been removed. */
+    private final List<StoredPoint> points = new ArrayList<>();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private int generation;
+    private VectorStorage vectors;
+    private HnswGraph graph;
+    private WriteAheadLog wal;
+    private int walEntries;
+
+    /**
+     * Open the store, recovering its state from the last snapshot and the write-ahead log.
+     *
+     * @param config the embedding store config
+     * @throws StartupException if the store cannot be opened
+     */
+    public EmbeddedEmbeddingStore(EmbeddingStoreConfig config) {
+        this.directory = Path.of(config.embedded().path());
+        this.dimension = config.vectorSize();
+        this.m = config.hnsw().m();
+        this.efConstruction = config.hnsw().efConstruct();
+        this.ef = config.hnsw().ef().orElse(DEFAULT_EF);
+        this.exact = config.hnsw().exact();
+        this.snapshotInterval = config.embedded().snapshotInterval();
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new StartupException(
+                    String.format("Failed to open embedded embedding store in '%s'.", directory),
+                    e);
+        }
+    }
+
+    private Path vectorFile(int gen) {
+        return directory.resolve("vectors-" + gen + ".bin");
+    }
+
+    private void load() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long snapshotSequence = 0;
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Unsupported snapshot format.");
+                }
+                int snapshotDimension = in.readInt();
+                if (snapshotDimension != dimension) {
+                    throw new IOException(
+                            String.format(
+                                    "Store has vector size %d, but %d is configured.",
+                                    snapshotDimension, dimension));
+                }
+                generation = in.readInt();
+                snapshotSequence = in.readLong();
+                openVectors();
+                int size = in.readInt();
+                for (int slot = 0; slot < size; slot++) {
+                    StoredPoint point = in.readBoolean() ? StoredPoint.read(in) : null;
+                    points.add(point);
+                    if (point != null) {
+                        slots.put(point.id(), slot);
+                        live.set(slot);
+                    }
+                }
+                graph.read(in);
+            }
+        } else {
+            openVectors();
+        }
+
+        Path walFile = directory.resolve(WAL_FILE);
+        WriteAheadLog.Replay replay = WriteAheadLog.replay(walFile, snapshotSequence, this::apply);
+        int replayed = replay.entries();
+        wal = new WriteAheadLog(walFile, replay.lastSequence());
+        Log.infof(
+                "Loaded %d embeddings from embedded embedding store, replayed %d changes.",
+                live.cardinality(), replayed);
+
+        if (points.size() - live.cardinality() > points.size() * COMPACTION_THRESHOLD) {
+            compact();
+        } else if (replayed > 0) {
+            snapshot();
+        }
+    }
+
+    private void openVectors() throws IOException {
+        vectors = new VectorStorage(vectorFile(generation), dimension);
+        graph = new HnswGraph(vectors, m, efConstruction);
+    }
+
+    /** Apply a logged change during recovery, the vectors of added points are already stored. */
+    private void apply(WriteAheadLog.Entry entry) {
+        switch (entry) {
+            case WriteAheadLog.Add add -> {
+                while (points.size() <= add.slot()) {
+                    points.add(null);
+                }
+                points.set(add.slot(), add.point());
+                slots.put(add.point().id(), add.slot());
+                live.set(add.slot());
+                graph.insert(add.slot());
+            }
+            case WriteAheadLog.Remove remove -> removeFromIndex(remove.id());
+            case WriteAheadLog.Update update -> {
+                Integer slot = slots.get(update.point().id());
+                if (slot != null) {
+                    points.set(slot, update.point());
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the vectors of all live points to a new vector file without gaps and rebuild the graph.
+     */
+    private void compact() throws IOException {
+        Log.infof(
+                "Compacting embedded embedding store, reclaiming %d removed slots ...",
+                points.size() - live.cardinality());
+        VectorStorage oldVectors = vectors;
+        List<StoredPoint> oldPoints = new ArrayList<>(points);
+        int oldGeneration = generation;
+
+        generation++;
+        Files.deleteIfExists(vectorFile(generation));
+        openVectors();
+        points.clear();
+        slots.clear();
+        BitSet oldLive = (BitSet) live.clone();
+        live.clear();
+        for (int oldSlot = oldLive.nextSetBit(0);
+                oldSlot >= 0;
+                oldSlot = oldLive.nextSetBit(oldSlot + 1)) {
+            int slot = points.size();
+            vectors.set(slot, oldVectors.get(oldSlot));
+            StoredPoint point = oldPoints.get(oldSlot);
+            points.add(point);
+            slots.put(point.id(), slot);
+            live.set(slot);
+            graph.insert(slot);
+        }
+        snapshot();
+        oldVectors.close();
+        Files.deleteIfExists(vectorFile(oldGeneration));
+    }
+
+    /** Write the points and the graph to a new snapshot and truncate the write-ahead log. */
+    private void snapshot() throws IOException {
+        vectors.force();
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(dimension);
+            out.writeInt(generation);
+            // the log batches up to this sequence number are contained in the snapshot
+            out.writeLong(wal.lastSequence());
+            out.writeInt(points.size());
+            for (StoredPoint point : points) {
+                out.writeBoolean(point != null);
+                if (point != null) {
+                    point.write(out);
+                }
+            }
+            graph.write(out);
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(
+                tmp,
+                directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        wal.truncate();
+        walEntries = 0;
+        Log.debugf("Wrote snapshot of embedded embedding store with %d slots.", points.size());
+    }
+
+    /** Log the given changes and write a snapshot if the snapshot interval is reached. */
+    private void log(List<WriteAheadLog.Entry> entries) throws IOException {
+        wal.append(entries);
+        walEntries += entries.size();
+        if (walEntries >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    private void removeFromIndex(String id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            points.set(slot, null);
+            live.clear(slot);
+        }
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = embeddings.stream().map(e -> UUID.randomUUID().toString()).toList();
+        addAll(ids, embeddings, textSegments);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            List<WriteAheadLog.Entry> entries = new ArrayList<>(embeddings.size());
+            for (int i = 0; i < embeddings.size(); i++) {
+                String id = ids.get(i);
+                if (slots.containsKey(id)) {
+                    // upsert: replace the existing embedding
+                    removeFromIndex(id);
+                    entries.add(new WriteAheadLog.Remove(id));
+                }
+                int slot = points.size();
+                vectors.set(slot, VectorStorage.normalize(embeddings.get(i).vector()));
+                StoredPoint point = StoredPoint.of(id, segments == null ? null : segments.get(i));
+                points.add(point);
+                slots.put(id, slot);
+                live.set(slot);
+                graph.insert(slot);
+                entries.add(new WriteAheadLog.Add(slot, point));
+            }
+            // vectors must be durable before the log references their slots
+            vectors.force();
+            log(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            List<WriteAheadLog.Entry> entries = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                if (slots.containsKey(id)) {
+                    removeFromIndex(id);
+                    entries.add(new WriteAheadLog.Remove(id));
+                }
+            }
+            log(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        removeAll(List.of(id));
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        removeAll(scroll(filter, Integer.MAX_VALUE).keySet());
+    }
+
+    @Override
+    public void removeAll() {
+        List<String> ids;
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            ids = List.copyOf(slots.keySet());
+        } finally {
+            readLock.unlock();
+        }
+        removeAll(ids);
+    }
+
+    /**
+     * Add or replace the given metadata entries of all embeddings matching the given filter.
+     *
+     * @param filter the filter
+     * @param entries the metadata entries
+     */
+    public void updateMetadata(Filter filter, Map<String, Object> entries) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            List<WriteAheadLog.Entry> updates = new ArrayList<>();
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                StoredPoint point = points.get(slot);
+                if (MetadataFilterMatcher.matches(filter, point.metadata())) {
+                    StoredPoint updated = point.withMetadata(entries);
+                    points.set(slot, updated);
+                    updates.add(new WriteAheadLog.Update(updated));
+                }
+            }
+            log(updates);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, TextSegment> scroll(Filter filter, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<String, TextSegment> result = new LinkedHashMap<>();
+            for (int slot = live.nextSetBit(0);
+                    slot >= 0 && result.size() < limit;
+                    slot = live.nextSetBit(slot + 1)) {
+                StoredPoint point = points.get(slot);
+                if (MetadataFilterMatcher.matches(filter, point.metadata())) {
+                    result.put(point.id(), point.toTextSegment());
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, TextSegment> getByIds(Collection<String> ids) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<String, TextSegment> result = new LinkedHashMap<>();
+            for (String id : ids) {
+                Integer slot = slots.get(id);
+                if (slot != null && live.get(slot)) {
+                    result.put(id, points.get(slot).toTextSegment());
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        float[] query = VectorStorage.normalize(request.queryEmbedding().vector());
+        int k = request.maxResults();
+        int searchEf = Math.max(ef, k);
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            BitSet accepted = live;
+            if (request.filter() != null) {
+                accepted = new BitSet(points.size());
+                for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                    Map<String, Object> metadata = points.get(slot).metadata();
+                    if (MetadataFilterMatcher.matches(request.filter(), metadata)) {
+                        accepted.set(slot);
+                    }
+                }
+            }
+
+            List<HnswGraph.SearchHit> hits;
+            // a graph search computes about ef * 2m similarities, scanning fewer points is cheaper
+            if (exact || accepted.cardinality() <= searchEf * 2 * m) {
+                hits = scan(query, k, accepted);
+            } else {
+                hits = graph.search(query, k, searchEf, accepted::get);
+            }
+
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(hits.size());
+            for (HnswGraph.SearchHit hit : hits) {
+                double score = RelevanceScore.fromCosineSimilarity(hit.similarity());
+                if (score < request.minScore()) {
+                    continue;
+                }
+                StoredPoint point = points.get(hit.slot());
+                matches.add(new EmbeddingMatch<>(score, point.id(), null, point.toTextSegment()));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private List<HnswGraph.SearchHit> scan(float[] query, int k, BitSet accepted) {
+        PriorityQueue<HnswGraph.SearchHit> top = new PriorityQueue<>(BY_SIMILARITY);
+        for (int slot = accepted.nextSetBit(0); slot >= 0; slot = accepted.nextSetBit(slot + 1)) {
+            float similarity = vectors.similarity(slot, query);
+            if (top.size() < k) {
+                top.add(new HnswGraph.SearchHit(slot, similarity));
+            } else if (similarity > top.peek().similarity()) {
+                top.poll();
+                top.add(new HnswGraph.SearchHit(slot, similarity));
+            }
+        }
+        List<HnswGraph.SearchHit> sorted = new ArrayList<>(top);
+        sorted.sort(BY_SIMILARITY.reversed());
+        return sorted;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (walEntries > 0) {
+                snapshot();
+            }
+            wal.close();
+            vectors.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
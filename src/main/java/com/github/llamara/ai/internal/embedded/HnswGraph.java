@@ -0,0 +1,340 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over the vectors of a {@link VectorStorage}, see <a
+ * href="https://arxiv.org/abs/1603.09320">Malkov &amp; Yashunin: Efficient and robust approximate
+ * nearest neighbor search using Hierarchical Navigable Small World graphs</a>.
+ *
+ * <p>Nodes are identified by their vector slot. Removed nodes are kept in the graph to preserve
+ * its connectivity and excluded from results by the search filter.
+ *
+ * <p>Not thread-safe, callers have to synchronize inserts with searches.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class HnswGraph {
+    private static final Comparator<Candidate> BY_SIMILARITY =
+            Comparator.comparingDouble(Candidate::similarity);
+
+    private final VectorStorage vectors;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    /** The neighbours of each node per level, <code>null</code> if the slot is not a node. */
+    private final List<int[][]> nodes = new ArrayList<>();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param vectors the vectors of the nodes
+     * @param m the number of neighbours per node and level, twice that number on level 0
+     * @param efConstruction the number of candidates to consider when inserting a node
+     */
+    HnswGraph(VectorStorage vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(Math.max(2, m));
+    }
+
+    private record Candidate(int node, float similarity) {}
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int[] neighbours(int node, int level) {
+        int[][] levels = nodes.get(node);
+        return level < levels.length ? levels[level] : new int[0];
+    }
+
+    /**
+     * Insert the vector of the given slot into the graph.
+     *
+     * @param node the slot of the vector
+     */
+    void insert(int node) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        while (nodes.size() <= node) {
+            nodes.add(null);
+        }
+        int[][] levels = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            levels[l] = new int[0];
+        }
+        nodes.set(node, levels);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectors.get(node);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(query, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(query, current, efConstruction, l, null);
+            int[] selected = selectNeighbours(candidates, maxConnections(l));
+            levels[l] = selected;
+            for (int neighbour : selected) {
+                connect(neighbour, node, l);
+            }
+            current = candidates.get(0).node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Add an edge from the given node to the given new neighbour, pruning the neighbours of the
+     * node if it exceeds the maximum number of connections.
+     */
+    private void connect(int node, int neighbour, int level) {
+        int[] current = neighbours(node, level);
+        int[] extended = new int[current.length + 1];
+        System.arraycopy(current, 0, extended, 0, current.length);
+        extended[current.length] = neighbour;
+        if (extended.length > maxConnections(level)) {
+            float[] vector = vectors.get(node);
+            List<Candidate> candidates = new ArrayList<>(extended.length);
+            for (int n : extended) {
+                candidates.add(new Candidate(n, vectors.similarity(n, vector)));
+            }
+            candidates.sort(BY_SIMILARITY.reversed());
+            extended = selectNeighbours(candidates, maxConnections(level));
+        }
+        nodes.get(node)[level] = extended;
+    }
+
+    /**
+     * Select up to the given number of neighbours from the candidates using the heuristic of the
+     * paper: A candidate is preferred if it is closer to the query than to every already selected
+     * neighbour, which keeps edges to distinct regions of the graph.
+     *
+     * @param candidates the candidates sorted by descending similarity to the query
+     * @param count the maximum number of neighbours
+     * @return the selected neighbours
+     */
+    private int[] selectNeighbours(List<Candidate> candidates, int count) {
+        List<Candidate> selected = new ArrayList<>(count);
+        List<Candidate> discarded = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            float[] vector = vectors.get(candidate.node());
+            boolean diverse = true;
+            for (Candidate s : selected) {
+                if (vectors.similarity(s.node(), vector) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                discarded.add(candidate);
+            }
+        }
+        // keep pruned connections to fill up the neighbours
+        for (int i = 0; i < discarded.size() && selected.size() < count; i++) {
+            selected.add(discarded.get(i));
+        }
+        return selected.stream().mapToInt(Candidate::node).toArray();
+    }
+
+    private int greedySearch(float[] query, int start, int level) {
+        int current = start;
+        float similarity = vectors.similarity(current, query);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int neighbour : neighbours(current, level)) {
+                float s = vectors.similarity(neighbour, query);
+                if (s > similarity) {
+                    similarity = s;
+                    current = neighbour;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Search the given level of the graph for the nodes most similar to the query. Nodes rejected
+     * by the filter are traversed, but not returned.
+     *
+     * @param query the normalized query vector
+     * @param start the node to start from
+     * @param ef the number of results to keep during the search
+     * @param level the level to search
+     * @param filter the nodes to return, <code>null</code> to return all nodes
+     * @return the found nodes sorted by descending similarity
+     */
+    private List<Candidate> searchLayer(
+            float[] query, int start, int ef, int level, IntPredicate filter) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BY_SIMILARITY.reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(BY_SIMILARITY);
+
+        Candidate first = new Candidate(start, vectors.similarity(start, query));
+        visited.set(start);
+        candidates.add(first);
+        if (filter == null || filter.test(start)) {
+            results.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            for (int neighbour : neighbours(candidate.node(), level)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float similarity = vectors.similarity(neighbour, query);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate c = new Candidate(neighbour, similarity);
+                    candidates.add(c);
+                    if (filter == null || filter.test(neighbour)) {
+                        results.add(c);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SIMILARITY.reversed());
+        if (sorted.isEmpty()) {
+            // the start node is always a valid entry point for the next level
+            sorted.add(first);
+        }
+        return sorted;
+    }
+
+    /**
+     * Search the nodes most similar to the given query.
+     *
+     * @param query the normalized query vector
+     * @param k the number of results
+     * @param ef the number of candidates to consider, at least <code>k</code>
+     * @param filter the nodes to return
+     * @return the slots of the found nodes and their similarity, most similar first
+     */
+    List<SearchHit> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedySearch(query, current, l);
+        }
+        return searchLayer(query, current, Math.max(ef, k), 0, filter).stream()
+                .filter(c -> filter.test(c.node()))
+                .limit(k)
+                .map(c -> new SearchHit(c.node(), c.similarity()))
+                .toList();
+    }
+
+    /**
+     * A search result.
+     *
+     * @param slot the vector slot
+     * @param similarity the cosine similarity to the query
+     */
+    record SearchHit(int slot, float similarity) {}
+
+    /**
+     * Write the graph to the given output.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeInt(nodes.size());
+        for (int[][] levels : nodes) {
+            if (levels == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(levels.length);
+            for (int[] neighbours : levels) {
+                out.writeInt(neighbours.length);
+                for (int neighbour : neighbours) {
+                    out.writeInt(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the graph with the one read from the given input.
+     *
+     * @param in the input
+     * @throws IOException if reading fails
+     */
+    void read(DataInput in) throws IOException {
+        entryPoint = in.readInt();
+        maxLevel = in.readInt();
+        int size = in.readInt();
+        nodes.clear();
+        for (int i = 0; i < size; i++) {
+            int levelCount = in.readInt();
+            if (levelCount < 0) {
+                nodes.add(null);
+                continue;
+            }
+            int[][] levels = new int[levelCount][];
+            for (int l = 0; l < levelCount; l++) {
+                levels[l] = new int[in.readInt()];
+                for (int n = 0; n < levels[l].length; n++) {
+                    levels[l][n] = in.readInt();
+                }
+            }
+            nodes.add(levels);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import com.github.llamara.ai.internal.MetadataArrayMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+
+/**
+ * Evaluates LangChain4j metadata {@link Filter}s against the metadata of stored segments.
+ *
+ * <p>Matches the semantics of the Qdrant filter mapping: Metadata entries of {@link
+ * MetadataArrayMapper#KEYS} are treated as arrays, and {@link IsEqualTo} and {@link IsIn} match if
+ * any of their values matches. Values are compared by their string representation, so {@link
+ * java.util.UUID} comparison values match UUIDs stored as strings.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class MetadataFilterMatcher {
+    private MetadataFilterMatcher() {}
+
+    /**
+     * Check whether the given metadata matches the given filter.
+     *
+     * @param filter the filter
+     * @param metadata the metadata entries
+     * @return whether the metadata matches
+     */
+    static boolean matches(Filter filter, Map<String, Object> metadata) {
+        return switch (filter) {
+            case And and -> matches(and.left(), metadata) && matches(and.right(), metadata);
+            case Or or -> matches(or.left(), metadata) || matches(or.right(), metadata);
+            case Not not -> !matches(not.expression(), metadata);
+            case IsEqualTo isEqualTo ->
+                    values(metadata, isEqualTo.key())
+                            .contains(String.valueOf(isEqualTo.comparisonValue()));
+            case IsNotEqualTo isNotEqualTo ->
+                    !values(metadata, isNotEqualTo.key())
+                            .contains(String.valueOf(isNotEqualTo.comparisonValue()));
+            case IsIn isIn -> containsAny(values(metadata, isIn.key()), isIn.comparisonValues());
+            case IsNotIn isNotIn ->
+                    !containsAny(values(metadata, isNotIn.key()), isNotIn.comparisonValues());
+            default -> filter.test(Metadata.from(metadata));
+        };
+    }
+
+    private static List<String> values(Map<String, Object> metadata, String key) {
+        Object value = metadata.get(key);
+        if (value == null) {
+            return List.of();
+        }
+        if (MetadataArrayMapper.KEYS.contains(key)) {
+            return MetadataArrayMapper.metadataEntryToValues(value.toString());
+        }
+        return List.of(value.toString());
+    }
+
+    private static boolean containsAny(List<String> values, Collection<?> comparisonValues) {
+        for (Object comparisonValue : comparisonValues) {
+            if (values.contains(String.valueOf(comparisonValue))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * An embedding stored in the {@link EmbeddedEmbeddingStore}, without its vector.
+ *
+ * @param id the embedding ID
+ * @param text the text of the segment, <code>null</code> if the embedding has no segment
+ * @param metadata the metadata of the segment
+ * @author Florian Hotze - Initial contribution
+ */
+record StoredPoint(String id, String text, Map<String, Object> metadata) {
+    private static final byte STRING = 'S';
+    private static final byte UUID_TYPE = 'U';
+    private static final byte INTEGER = 'I';
+    private static final byte LONG = 'L';
+    private static final byte FLOAT = 'F';
+    private static final byte DOUBLE = 'D';
+
+    static StoredPoint of(String id, TextSegment segment) {
+        if (segment == null) {
+            return new StoredPoint(id, null, Map.of());
+        }
+        return new StoredPoint(id, segment.text(), Map.copyOf(segment.metadata().toMap()));
+    }
+
+    /**
+     * Create a copy of this point with the given metadata entries added or replaced.
+     *
+     * @param entries the metadata entries
+     * @return the updated point
+     */
+    StoredPoint withMetadata(Map<String, Object> entries) {
+        Map<String, Object> updated = new HashMap<>(metadata);
+        updated.putAll(entries);
+        return new StoredPoint(id, text, Map.copyOf(updated));
+    }
+
+    TextSegment toTextSegment() {
+        return text == null ? null : TextSegment.from(text, Metadata.from(metadata));
+    }
+
+    void write(DataOutput out) throws IOException {
+        writeString(out, id);
+        out.writeBoolean(text != null);
+        if (text != null) {
+            writeString(out, text);
+        }
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            switch (entry.getValue()) {
+                case UUID uuid -> {
+                    out.writeByte(UUID_TYPE);
+                    writeString(out, uuid.toString());
+                }
+                case Integer i -> {
+                    out.writeByte(INTEGER);
+                    out.writeInt(i);
+                }
+                case Long l -> {
+                    out.writeByte(LONG);
+                    out.writeLong(l);
+                }
+                case Float f -> {
+                    out.writeByte(FLOAT);
+                    out.writeFloat(f);
+                }
+                case Double d -> {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(d);
+                }
+                default -> {
+                    out.writeByte(STRING);
+                    writeString(out, entry.getValue().toString());
+                }
+            }
+        }
+    }
+
+    static StoredPoint read(DataInput in) throws IOException {
+        String id = readString(in);
+        String text = in.readBoolean() ? readString(in) : null;
+        int size = in.readInt();
+        Map<String, Object> metadata = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte type = in.readByte();
+            Object value =
+                    switch (type) {
+                        case UUID_TYPE -> UUID.fromString(readString(in));
+                        case INTEGER -> in.readInt();
+                        case LONG -> in.readLong();
+                        case FLOAT -> in.readFloat();
+                        case DOUBLE -> in.readDouble();
+                        case STRING -> readString(in);
+                        default -> throw new IOException("Unknown metadata value type " + type);
+                    };
+            metadata.put(key, value);
+        }
+        return new StoredPoint(id, text, Map.copyOf(metadata));
+    }
+
+    /** Write a string of arbitrary length, {@link DataOutput#writeUTF} is limited to 64 KiB. */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
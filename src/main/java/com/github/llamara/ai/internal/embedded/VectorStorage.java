@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size slots of unit-length float vectors, kept off-heap in a memory-mapped file. The file
+ * is mapped in chunks, so it can grow beyond the 2 GiB limit of a single mapping without remapping
+ * existing chunks.
+ *
+ * <p>Not thread-safe, callers have to synchronize writes with reads.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class VectorStorage implements Closeable {
+    private static final long CHUNK_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int dimension;
+    private final int slotsPerChunk;
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+    private final List<FloatBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Open or create the vector file.
+     *
+     * @param file the file
+     * @param dimension the dimension of the vectors
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    VectorStorage(Path file, int dimension) throws IOException {
+        this.channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        this.dimension = dimension;
+        this.slotsPerChunk = (int) Math.max(1, CHUNK_BYTES / ((long) dimension * Float.BYTES));
+        long chunkBytes = chunkBytes();
+        long size = channel.size();
+        for (long offset = 0; offset < size; offset += chunkBytes) {
+            map();
+        }
+    }
+
+    private long chunkBytes() {
+        return (long) slotsPerChunk * dimension * Float.BYTES;
+    }
+
+    private void map() throws IOException {
+        // mapping beyond the end of the file grows the file
+        MappedByteBuffer mapping =
+                channel.map(
+                        FileChannel.MapMode.READ_WRITE, chunks.size() * chunkBytes(), chunkBytes());
+        mapping.order(ByteOrder.nativeOrder());
+        mappings.add(mapping);
+        chunks.add(mapping.asFloatBuffer());
+    }
+
+    /**
+     * Normalize the given vector to unit length, so the dot product equals the cosine similarity.
+     *
+     * @param vector the vector
+     * @return a normalized copy of the vector
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float factor = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= factor;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Write the given normalized vector to the given slot.
+     *
+     * @param slot the slot
+     * @param vector the normalized vector
+     * @throws IOException if the file cannot be grown
+     */
+    void set(int slot, float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Expected vector of dimension " + dimension + ", got " + vector.length);
+        }
+        while (slot / slotsPerChunk >= chunks.size()) {
+            map();
+        }
+        chunks.get(slot / slotsPerChunk).put(offset(slot), vector);
+    }
+
+    /**
+     * Read the vector of the given slot.
+     *
+     * @param slot the slot
+     * @return the normalized vector
+     */
+    float[] get(int slot) {
+        float[] vector = new float[dimension];
+        chunks.get(slot / slotsPerChunk).get(offset(slot), vector);
+        return vector;
+    }
+
+    /**
+     * Compute the cosine similarity of the vector of the given slot with the given query.
+     *
+     * @param slot the slot
+     * @param query the normalized query vector
+     * @return the similarity between -1 and 1
+     */
+    float similarity(int slot, float[] query) {
+        FloatBuffer chunk = chunks.get(slot / slotsPerChunk);
+        int offset = offset(slot);
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += chunk.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    private int offset(int slot) {
+        return (slot % slotsPerChunk) * dimension;
+    }
+
+    /**
+     * Flush the written vectors to the storage device.
+     *
+     * @throws IOException if flushing fails
+     */
+    void force() throws IOException {
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Write-ahead log of the changes to the {@link EmbeddedEmbeddingStore} since its last snapshot.
+ *
+ * <p>Changes are appended in batches, each framed by its length and CRC-32 checksum and forced to
+ * the storage device before {@link #append(List)} returns. A batch torn by a crash is detected by
+ * its checksum and discarded on {@link #replay(Path, long, Consumer)}.
+ *
+ * <p>Each batch is stamped with a sequence number, which is recorded in the snapshot. Batches that
+ * are already contained in the snapshot are skipped on replay, so a crash between writing the
+ * snapshot and truncating the log does not apply changes twice.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class WriteAheadLog implements Closeable {
+    private static final byte ADD = 'A';
+    private static final byte REMOVE = 'R';
+    private static final byte UPDATE = 'U';
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private long sequence;
+
+    /** A logged change. */
+    sealed interface Entry permits Add, Remove, Update {}
+
+    /**
+     * An added embedding, whose vector has been written to the given slot before logging.
+     *
+     * @param slot the vector slot
+     * @param point the point
+     */
+    record Add(int slot, StoredPoint point) implements Entry {}
+
+    /**
+     * A removed embedding.
+     *
+     * @param id the embedding ID
+     */
+    record Remove(String id) implements Entry {}
+
+    /**
+     * An embedding with changed metadata.
+     *
+     * @param point the updated point
+     */
+    record Update(StoredPoint point) implements Entry {}
+
+    /**
+     * Result of a {@link #replay(Path, long, Consumer)}.
+     *
+     * @param entries the number of replayed changes
+     * @param lastSequence the sequence number of the last batch in the log, or the given sequence
+     *     number if the log has no newer batches
+     */
+    record Replay(int entries, long lastSequence) {}
+
+    /**
+     * Open the log for appending.
+     *
+     * @param file the log file
+     * @param lastSequence the sequence number of the last batch, the next batch gets the next one
+     * @throws IOException if the file cannot be opened
+     */
+    WriteAheadLog(Path file, long lastSequence) throws IOException {
+        this.sequence = lastSequence;
+        this.channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Replay the valid batches of the given log file newer than the given sequence number and
+     * truncate a torn batch at its end.
+     *
+     * @param file the log file
+     * @param afterSequence the sequence number of the last batch contained in the snapshot
+     * @param consumer the consumer of the logged changes
+     * @return the number of replayed changes and the last sequence number
+     * @throws IOException if reading fails
+     */
+    static Replay replay(Path file, long afterSequence, Consumer<Entry> consumer)
+            throws IOException {
+        if (!Files.exists(file)) {
+            return new Replay(0, afterSequence);
+        }
+        int count = 0;
+        long lastSequence = afterSequence;
+        try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                long checksum = Integer.toUnsignedLong(header.getInt());
+                if (length < 0 || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                crc.update(payload.array());
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+                long batchSequence = in.readLong();
+                position += HEADER_BYTES + length;
+                if (batchSequence <= afterSequence) {
+                    continue; // already contained in the snapshot
+                }
+                int entries = in.readInt();
+                for (int i = 0; i < entries; i++) {
+                    consumer.accept(readEntry(in));
+                }
+                count += entries;
+                lastSequence = batchSequence;
+            }
+            if (position < size) {
+                Log.warnf(
+                        "Discarding %d bytes of incomplete write-ahead log '%s'.",
+                        size - position, file);
+                channel.truncate(position);
+            }
+        }
+        return new Replay(count, lastSequence);
+    }
+
+    /**
+     * Append the given changes as one batch and force them to the storage device.
+     *
+     * @param entries the changes
+     * @throws IOException if writing fails
+     */
+    void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(sequence + 1);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            writeEntry(out, entry);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer batch = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        batch.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        channel.force(false);
+        sequence++;
+    }
+
+    /**
+     * Get the sequence number of the last appended batch.
+     *
+     * @return the sequence number
+     */
+    long lastSequence() {
+        return sequence;
+    }
+
+    /**
+     * Discard all logged changes, e.g. after they have been written to a snapshot.
+     *
+     * @throws IOException if truncating fails
+     */
+    void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        switch (entry) {
+            case Add add -> {
+                out.writeByte(ADD);
+                out.writeInt(add.slot());
+                add.point().write(out);
+            }
+            case Remove remove -> {
+                out.writeByte(REMOVE);
+                out.writeUTF(remove.id());
+            }
+            case Update update -> {
+                out.writeByte(UPDATE);
+                update.point().write(out);
+            }
+        }
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case ADD -> new Add(in.readInt(), StoredPoint.read(in));
+            case REMOVE -> new Remove(in.readUTF());
+            case UPDATE -> new Update(StoredPoint.read(in));
+            default -> throw new IOException("Unknown write-ahead log entry type " + type);
+        };
+    }
+}
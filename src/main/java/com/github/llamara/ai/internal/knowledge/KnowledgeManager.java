@@ -187,8 +187,10 @@ public interface KnowledgeManager {
      * @param id persistent unique id of knowledge
      * @param tag the tag to add
      * @throws KnowledgeNotFoundException if no knowledge with the given id was found
+     * @throws IllegalTagException if the tag is blank or contains the delimiter of the tag
+     *     metadata
      */
-    void addTag(UUID id, String tag) throws KnowledgeNotFoundException;
+    void addTag(UUID id, String tag) throws KnowledgeNotFoundException, IllegalTagException;
 
     /**
      * Remove a tag from a knowledge specified by its id.
@@ -23,8 +23,10 @@ import static com.github.llamara.ai.internal.Utils.generateChecksum;
 
 import com.github.llamara.ai.internal.CommonMetadataKeys;
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.MetadataArrayMapper;
 import com.github.llamara.ai.internal.StartupException;
 import com.github.llamara.ai.internal.Utils;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.ingestion.DocumentIngestor;
 import com.github.llamara.ai.internal.ingestion.IngestionStatus;
 import com.github.llamara.ai.internal.ingestion.parser.PdfDocumentParser;
@@ -94,6 +96,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
     private final KnowledgeRepository repository;
     private final FileStorage fileStorage;
     private final EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager;
+    private final ChatResponseCache chatResponseCache;
 
     @Inject
     KnowledgeManagerImpl(
@@ -101,12 +104,14 @@ class KnowledgeManagerImpl implements KnowledgeManager {
             DocumentIngestor ingestor,
             EmbeddingStore<TextSegment> embeddingStore,
             FileStorage fileStorage,
-            EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager) {
+            EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager,
+            ChatResponseCache chatResponseCache) {
         this.repository = repository;
         this.ingestor = ingestor;
         this.embeddingStore = embeddingStore;
         this.fileStorage = fileStorage;
         this.embeddingStorePermissionMetadataManager = embeddingStorePermissionMetadataManager;
+        this.chatResponseCache = chatResponseCache;
     }
 
     @PostConstruct
@@ -150,6 +155,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         Knowledge knowledge = getKnowledge(id);
         QuarkusTransaction.begin();
         deleteEmbeddings(knowledge.getId());
+        chatResponseCache.invalidate(knowledge.getId());
         if (repository.countChecksum(knowledge.getChecksum()) == 1
                 && knowledge instanceof FileKnowledge) {
             // Only source file if no other knowledge has the same source
@@ -168,6 +174,10 @@ class KnowledgeManagerImpl implements KnowledgeManager {
     @Override
     public void setKnowledgeIngestionMetadata(UUID id, IngestionStatus status, Integer tokenCount) {
         repository.setIngestionMetadata(id, status, tokenCount);
+        if (status == IngestionStatus.SUCCEEDED) {
+            // responses generated from the previous embeddings are outdated
+            chatResponseCache.invalidate(id);
+        }
     }
 
     private Knowledge addSourceInternal(Path file, String fileName, String contentType)
@@ -269,6 +279,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         // org.hibernate.LazyInitializationException
         Map<String, String> metadata = createEmbeddingMetadata(fileKnowledge);
         Optional<String> ownerUsername = getOwnerUsername(fileKnowledge);
+        chatResponseCache.invalidate(id);
         // Commit transaction
         QuarkusTransaction.commit();
         // Dispatch ingestion
@@ -310,6 +321,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         knowledge.setPermission(user, permission);
         repository.persist(knowledge);
         embeddingStorePermissionMetadataManager.updatePermissionMetadata(knowledge);
+        chatResponseCache.invalidate(knowledge.getId());
     }
 
     @Transactional
@@ -330,14 +342,22 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         knowledge.removePermission(user);
         repository.persist(knowledge);
         embeddingStorePermissionMetadataManager.updatePermissionMetadata(knowledge);
+        chatResponseCache.invalidate(knowledge.getId());
     }
 
     @Transactional
     @Override
-    public void addTag(UUID id, String tag) throws KnowledgeNotFoundException {
+    public void addTag(UUID id, String tag)
+            throws KnowledgeNotFoundException, IllegalTagException {
+        // tags are stored as delimited array in the embedding metadata
+        if (tag == null || tag.isBlank() || tag.contains(MetadataArrayMapper.DELIMITER)) {
+            throw new IllegalTagException(
+                    "Tag must not be blank or contain '" + MetadataArrayMapper.DELIMITER + "'");
+        }
         Knowledge knowledge = getKnowledge(id);
         knowledge.addTag(tag);
         repository.persist(knowledge);
+        embeddingStorePermissionMetadataManager.updateTagMetadata(knowledge);
     }
 
     @Transactional
@@ -346,6 +366,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         Knowledge knowledge = getKnowledge(id);
         knowledge.removeTag(tag);
         repository.persist(knowledge);
+        embeddingStorePermissionMetadataManager.updateTagMetadata(knowledge);
     }
 
     @Transactional
@@ -354,6 +375,7 @@ class KnowledgeManagerImpl implements KnowledgeManager {
         Knowledge knowledge = getKnowledge(id);
         knowledge.setLabel(label);
         repository.persist(knowledge);
+        embeddingStorePermissionMetadataManager.updateTagMetadata(knowledge);
     }
 
     @Override
@@ -422,7 +444,11 @@ class KnowledgeManagerImpl implements KnowledgeManager {
                 CommonMetadataKeys.CONTENT_TYPE,
                 knowledge.getContentType(),
                 EmbeddingMetadataKeys.PERMISSION,
-                PermissionMetadataMapper.permissionsToMetadataEntry(knowledge.getPermissions()));
+                PermissionMetadataMapper.permissionsToMetadataEntry(knowledge.getPermissions()),
+                EmbeddingMetadataKeys.TAGS,
+                MetadataArrayMapper.valuesToMetadataEntry(knowledge.getTags()),
+                EmbeddingMetadataKeys.LABEL,
+                knowledge.getLabel().orElse(""));
     }
 
     /**
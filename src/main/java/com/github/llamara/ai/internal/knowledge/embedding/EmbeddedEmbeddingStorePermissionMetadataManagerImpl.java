@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.knowledge.embedding;
+
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.MetadataArrayMapper;
+import com.github.llamara.ai.internal.embedded.EmbeddedEmbeddingStore;
+import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+
+import java.util.Map;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.logging.Log;
+
+/**
+ * Implementation of {@link EmbeddingStorePermissionMetadataManager} for the {@link
+ * EmbeddedEmbeddingStore}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@Typed(EmbeddedEmbeddingStorePermissionMetadataManagerImpl.class)
+@ApplicationScoped
+class EmbeddedEmbeddingStorePermissionMetadataManagerImpl
+        implements EmbeddingStorePermissionMetadataManager {
+    private final EmbeddedEmbeddingStore store;
+
+    @Inject
+    EmbeddedEmbeddingStorePermissionMetadataManagerImpl(EmbeddingStore<TextSegment> store) {
+        // the injected store is a client proxy only implementing the produced bean type
+        this.store = (EmbeddedEmbeddingStore) ClientProxy.unwrap(store);
+    }
+
+    @Override
+    public void checkConnectionAndInit() {
+        // the store is opened and recovered when it is produced, there is nothing to initialize
+        Log.info("Using embedded embedding store.");
+    }
+
+    @Override
+    public void updatePermissionMetadata(Knowledge knowledge) {
+        store.updateMetadata(
+                knowledgeIdFilter(knowledge),
+                Map.of(
+                        EmbeddingMetadataKeys.PERMISSION,
+                        PermissionMetadataMapper.permissionsToMetadataEntry(
+                                knowledge.getPermissions())));
+        Log.infof("Updated permission metadata for knowledge '%s'.", knowledge.getId());
+    }
+
+    @Override
+    public void updateTagMetadata(Knowledge knowledge) {
+        store.updateMetadata(
+                knowledgeIdFilter(knowledge),
+                Map.of(
+                        EmbeddingMetadataKeys.TAGS,
+                        MetadataArrayMapper.valuesToMetadataEntry(knowledge.getTags()),
+                        EmbeddingMetadataKeys.LABEL,
+                        knowledge.getLabel().orElse("")));
+        Log.infof("Updated tag metadata for knowledge '%s'.", knowledge.getId());
+    }
+
+    private static Filter knowledgeIdFilter(Knowledge knowledge) {
+        return new IsEqualTo(EmbeddingMetadataKeys.KNOWLEDGE_ID, knowledge.getId().toString());
+    }
+}
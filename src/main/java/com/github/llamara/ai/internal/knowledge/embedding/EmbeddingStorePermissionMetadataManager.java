@@ -25,8 +25,8 @@ import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
 import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
 
 /**
- * Interface defining the API for managing {@link EmbeddingMetadataKeys#PERMISSION} metadata of
- * embeddings.
+ * Interface defining the API for managing {@link EmbeddingMetadataKeys#PERMISSION} metadata and
+ * other knowledge metadata that can change after ingestion, e.g. tags, of embeddings.
  *
  * @author Florian Hotze - Initial contribution
  */
@@ -43,6 +43,17 @@ public interface EmbeddingStorePermissionMetadataManager {
      */
     void checkConnectionAndInit() throws StartupException;
 
+    /**
+     * Whether embeddings may still store the {@link EmbeddingMetadataKeys#PERMISSION} metadata as
+     * delimited string, e.g. while it is migrated to a keyword array. Retrieval then has to match
+     * both formats.
+     *
+     * @return whether the legacy permission metadata format may be present
+     */
+    default boolean hasLegacyPermissionMetadata() {
+        return false;
+    }
+
     /**
      * Update the {@link EmbeddingMetadataKeys#PERMISSION} metadata of the embeddings of the given
      * knowledge.
@@ -53,4 +64,12 @@ public interface EmbeddingStorePermissionMetadataManager {
      * @param knowledge the knowledge to update the permission metadata for
      */
     void updatePermissionMetadata(Knowledge knowledge);
+
+    /**
+     * Update the {@link EmbeddingMetadataKeys#TAGS} and {@link EmbeddingMetadataKeys#LABEL}
+     * metadata of the embeddings of the given knowledge.
+     *
+     * @param knowledge the knowledge to update the tag metadata for
+     */
+    void updateTagMetadata(Knowledge knowledge);
 }
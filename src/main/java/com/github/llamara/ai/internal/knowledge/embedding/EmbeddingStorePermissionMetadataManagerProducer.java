@@ -23,6 +23,7 @@ import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Default;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Produces;
 
@@ -37,17 +38,29 @@ import io.quarkus.runtime.Startup;
 @ApplicationScoped
 class EmbeddingStorePermissionMetadataManagerProducer {
     private final EmbeddingStoreConfig config;
-    private final QdrantEmbeddingStorePermissionMetadataManagerImpl
+    private final Instance<QdrantEmbeddingStorePermissionMetadataManagerImpl>
             qdrantEmbeddingStorePermissionMetadataManager;
+    private final Instance<EmbeddedEmbeddingStorePermissionMetadataManagerImpl>
+            embeddedEmbeddingStorePermissionMetadataManager;
+    private final Instance<PgVectorEmbeddingStorePermissionMetadataManagerImpl>
+            pgVectorEmbeddingStorePermissionMetadataManager;
 
     @Inject
     EmbeddingStorePermissionMetadataManagerProducer(
             EmbeddingStoreConfig config,
-            QdrantEmbeddingStorePermissionMetadataManagerImpl
-                    qdrantEmbeddingStorePermissionMetadataManager) {
+            Instance<QdrantEmbeddingStorePermissionMetadataManagerImpl>
+                    qdrantEmbeddingStorePermissionMetadataManager,
+            Instance<EmbeddedEmbeddingStorePermissionMetadataManagerImpl>
+                    embeddedEmbeddingStorePermissionMetadataManager,
+            Instance<PgVectorEmbeddingStorePermissionMetadataManagerImpl>
+                    pgVectorEmbeddingStorePermissionMetadataManager) {
         this.config = config;
         this.qdrantEmbeddingStorePermissionMetadataManager =
                 qdrantEmbeddingStorePermissionMetadataManager;
+        this.embeddedEmbeddingStorePermissionMetadataManager =
+                embeddedEmbeddingStorePermissionMetadataManager;
+        this.pgVectorEmbeddingStorePermissionMetadataManager =
+                pgVectorEmbeddingStorePermissionMetadataManager;
     }
 
     @Startup // create bean at startup to check connection
@@ -55,8 +68,14 @@ class EmbeddingStorePermissionMetadataManagerProducer {
     @Default
     @ApplicationScoped
     EmbeddingStorePermissionMetadataManager produceEmbeddingStorePermissionMetadataManager() {
-        return switch (config.type()) {
-            case QDRANT -> qdrantEmbeddingStorePermissionMetadataManager;
-        };
+        // only the manager of the configured store is created, so no other store is contacted
+        EmbeddingStorePermissionMetadataManager manager =
+                switch (config.type()) {
+                    case QDRANT -> qdrantEmbeddingStorePermissionMetadataManager.get();
+                    case EMBEDDED -> embeddedEmbeddingStorePermissionMetadataManager.get();
+                    case PGVECTOR -> pgVectorEmbeddingStorePermissionMetadataManager.get();
+                };
+        manager.checkConnectionAndInit();
+        return manager;
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.knowledge.embedding;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.PgVectorSchema;
+import com.github.llamara.ai.internal.StartupException;
+import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import javax.sql.DataSource;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Implementation of {@link EmbeddingStorePermissionMetadataManager} for pgvector.
+ *
+ * <p>The {@link EmbeddingMetadataKeys#PERMISSION} and {@link EmbeddingMetadataKeys#TAGS} are
+ * stored as GIN-indexed text array columns. As the default datasource is used, updates take part
+ * in the caller's transaction, so they commit or roll back together with the knowledge.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@Typed(PgVectorEmbeddingStorePermissionMetadataManagerImpl.class)
+@ApplicationScoped
+class PgVectorEmbeddingStorePermissionMetadataManagerImpl
+        implements EmbeddingStorePermissionMetadataManager {
+    private final DataSource dataSource;
+    private final PgVectorSchema schema;
+
+    @Inject
+    PgVectorEmbeddingStorePermissionMetadataManagerImpl(
+            EmbeddingStoreConfig config, DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.schema = new PgVectorSchema(config);
+    }
+
+    @Override
+    public void checkConnectionAndInit() {
+        Log.infof("Creating missing pgvector table '%s' and indexes ...", schema.table());
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            for (String sql : schema.createStatements()) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new StartupException(
+                    String.format("Failed to initialize pgvector table '%s'.", schema.table()), e);
+        }
+    }
+
+    @Override
+    public void updatePermissionMetadata(Knowledge knowledge) {
+        String sql =
+                String.format(
+                        "UPDATE %s SET %s = ? WHERE %s = ?::uuid",
+                        schema.table(),
+                        EmbeddingMetadataKeys.PERMISSION,
+                        EmbeddingMetadataKeys.KNOWLEDGE_ID);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(
+                    1,
+                    connection.createArrayOf(
+                            "text",
+                            PermissionMetadataMapper.permissionsToMetadataValues(
+                                            knowledge.getPermissions())
+                                    .toArray()));
+            statement.setString(2, knowledge.getId().toString());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e); // NOSONAR: we want to fail the operation
+        }
+        Log.infof("Updated permission metadata for knowledge '%s'.", knowledge.getId());
+    }
+
+    @Override
+    public void updateTagMetadata(Knowledge knowledge) {
+        String sql =
+                String.format(
+                        "UPDATE %s SET %s = ?, %s = jsonb_set(%s, '{%s}', to_jsonb(?::text))"
+                                + " WHERE %s = ?::uuid",
+                        schema.table(),
+                        EmbeddingMetadataKeys.TAGS,
+                        PgVectorSchema.METADATA,
+                        PgVectorSchema.METADATA,
+                        EmbeddingMetadataKeys.LABEL,
+                        EmbeddingMetadataKeys.KNOWLEDGE_ID);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("text", knowledge.getTags().toArray()));
+            statement.setString(2, knowledge.getLabel().orElse(""));
+            statement.setString(3, knowledge.getId().toString());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e); // NOSONAR: we want to fail the operation
+        }
+        Log.infof("Updated tag metadata for knowledge '%s'.", knowledge.getId());
+    }
+}
@@ -21,11 +21,15 @@ package com.github.llamara.ai.internal.knowledge.embedding;
 
 import com.github.llamara.ai.config.EnvironmentVariables;
 import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.internal.CommonMetadataKeys;
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
 import com.github.llamara.ai.internal.StartupException;
 import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
 import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -34,44 +38,72 @@ import jakarta.enterprise.inject.Typed;
 import jakarta.inject.Inject;
 
 import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ValueFactory.list;
 import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.WithPayloadSelectorFactory.include;
 
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.ValueFactory;
 import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.JsonWithInt;
 import io.qdrant.client.grpc.Points;
 import io.quarkus.logging.Log;
-import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 
 /**
  * Implementation of {@link EmbeddingStorePermissionMetadataManager} for Qdrant.
  *
+ * <p>The {@link EmbeddingMetadataKeys#PERMISSION} payload is stored as keyword array with a keyword
+ * payload index, which is marked as tenant index as nearly every search filters by permission.
+ * Collections created before that store the permission as delimited string, they are migrated in
+ * the background on startup. Until migration finished, {@link #hasLegacyPermissionMetadata()}
+ * tells retrieval to also match the delimited string.
+ *
  * @author Florian Hotze - Initial contribution
  */
 @Typed(QdrantEmbeddingStorePermissionMetadataManagerImpl.class)
 @ApplicationScoped
 class QdrantEmbeddingStorePermissionMetadataManagerImpl
         implements EmbeddingStorePermissionMetadataManager {
+    private static final int MIGRATION_BATCH_SIZE = 256;
+    private static final Collections.PayloadIndexParams PERMISSION_INDEX_PARAMS =
+            Collections.PayloadIndexParams.newBuilder()
+                    .setKeywordIndexParams(
+                            Collections.KeywordIndexParams.newBuilder().setIsTenant(true))
+                    .build();
+
     private final EmbeddingStoreConfig config;
     private final QdrantClient client;
     private final String collectionName;
 
+    private volatile boolean legacyPermissionMetadata;
+
     @Inject
     QdrantEmbeddingStorePermissionMetadataManagerImpl(
             EmbeddingStoreConfig config, EnvironmentVariables env) {
+        this(config, createClient(config, env));
+    }
+
+    QdrantEmbeddingStorePermissionMetadataManagerImpl(
+            EmbeddingStoreConfig config, QdrantClient client) {
         this.config = config;
+        this.client = client;
+        this.collectionName = config.collectionName();
+    }
 
+    private static QdrantClient createClient(
+            EmbeddingStoreConfig config, EnvironmentVariables env) {
         QdrantGrpcClient.Builder grpcClientBuilder =
                 QdrantGrpcClient.newBuilder(config.host(), config.port(), config.tls());
 
         Optional<String> apiKey = env.getQdrantApiKey();
         apiKey.ifPresent(grpcClientBuilder::withApiKey);
 
-        this.client = new QdrantClient(grpcClientBuilder.build());
-        this.collectionName = config.collectionName();
+        return new QdrantClient(grpcClientBuilder.build());
     }
 
-    @Startup
     @Override
     public void checkConnectionAndInit() {
         boolean collectionExists;
@@ -85,25 +117,14 @@ class QdrantEmbeddingStorePermissionMetadataManagerImpl
         if (!collectionExists) {
             try {
                 Log.infof("Creating missing Qdrant collection '%s' ...", collectionName);
-                client.createCollectionAsync(
-                                collectionName,
-                                Collections.VectorParams.newBuilder()
-                                        .setSize(config.vectorSize())
-                                        .setDistance(Collections.Distance.Cosine)
-                                        .build())
-                        .get();
-                Log.infof(
-                        "Enabling %s payload index for Qdrant collection '%s' ...",
-                        EmbeddingMetadataKeys.KNOWLEDGE_ID, collectionName);
-                client.createPayloadIndexAsync(
-                                collectionName,
-                                EmbeddingMetadataKeys.KNOWLEDGE_ID,
-                                Collections.PayloadSchemaType.Uuid,
-                                null,
-                                null,
-                                null,
-                                null)
-                        .get();
+                client.createCollectionAsync(buildCreateCollection()).get();
+                createPayloadIndex(
+                        EmbeddingMetadataKeys.KNOWLEDGE_ID, Collections.PayloadSchemaType.Uuid);
+                createPermissionPayloadIndex();
+                createPayloadIndex(
+                        EmbeddingMetadataKeys.TAGS, Collections.PayloadSchemaType.Keyword);
+                createPayloadIndex(
+                        CommonMetadataKeys.CONTENT_TYPE, Collections.PayloadSchemaType.Keyword);
             } catch (InterruptedException // NOSONAR
                     | ExecutionException // NOSONAR
                             e) { // we don't want to re-interrupt or rethrow as we abort startup
@@ -112,29 +133,269 @@ class QdrantEmbeddingStorePermissionMetadataManagerImpl
                                 "Failed to create missing Qdrant collection '%s'.",
                                 collectionName));
             }
+        } else {
+            initExistingCollection();
+        }
+    }
+
+    private void initExistingCollection() {
+        Map<String, Collections.PayloadSchemaInfo> schema;
+        try {
+            if (config.updateExisting()) {
+                Log.infof("Updating settings of Qdrant collection '%s' ...", collectionName);
+                client.updateCollectionAsync(buildUpdateCollection()).get();
+            }
+            schema = client.getCollectionInfoAsync(collectionName).get().getPayloadSchemaMap();
+            for (String key :
+                    List.of(EmbeddingMetadataKeys.TAGS, CommonMetadataKeys.CONTENT_TYPE)) {
+                if (!schema.containsKey(key)) {
+                    createPayloadIndex(key, Collections.PayloadSchemaType.Keyword);
+                }
+            }
+        } catch (InterruptedException // NOSONAR
+                | ExecutionException // NOSONAR
+                        e) { // we don't want to re-interrupt or rethrow as we abort startup
+            throw new StartupException(
+                    String.format(
+                            "Failed to initialize existing Qdrant collection '%s'.",
+                            collectionName),
+                    e);
+        }
+
+        Collections.PayloadSchemaInfo permissionSchema =
+                schema.get(EmbeddingMetadataKeys.PERMISSION);
+        if (permissionSchema == null
+                || permissionSchema.getDataType() != Collections.PayloadSchemaType.Keyword) {
+            legacyPermissionMetadata = true;
+            Uni.createFrom()
+                    .item(
+                            () -> {
+                                migratePermissionPayload();
+                                return null;
+                            })
+                    .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                    .subscribe()
+                    .with(
+                            ignored -> {},
+                            e ->
+                                    Log.errorf(
+                                            e,
+                                            "Failed to migrate %s payload of collection '%s'.",
+                                            EmbeddingMetadataKeys.PERMISSION,
+                                            collectionName));
+        }
+    }
+
+    private Collections.CreateCollection buildCreateCollection() {
+        Collections.CreateCollection.Builder builder =
+                Collections.CreateCollection.newBuilder()
+                        .setCollectionName(collectionName)
+                        .setVectorsConfig(
+                                Collections.VectorsConfig.newBuilder()
+                                        .setParams(
+                                                Collections.VectorParams.newBuilder()
+                                                        .setSize(config.vectorSize())
+                                                        .setDistance(Collections.Distance.Cosine)
+                                                        .setOnDisk(config.onDisk())))
+                        .setHnswConfig(buildHnswConfig())
+                        .setOnDiskPayload(config.onDiskPayload());
+        switch (config.quantization().type()) {
+            case SCALAR ->
+                    builder.setQuantizationConfig(
+                            Collections.QuantizationConfig.newBuilder()
+                                    .setScalar(buildScalarQuantization()));
+            case BINARY ->
+                    builder.setQuantizationConfig(
+                            Collections.QuantizationConfig.newBuilder()
+                                    .setBinary(buildBinaryQuantization()));
+            case NONE -> {
+                // no quantization
+            }
+        }
+        return builder.build();
+    }
+
+    private Collections.UpdateCollection buildUpdateCollection() {
+        Collections.QuantizationConfigDiff.Builder quantization =
+                Collections.QuantizationConfigDiff.newBuilder();
+        switch (config.quantization().type()) {
+            case SCALAR -> quantization.setScalar(buildScalarQuantization());
+            case BINARY -> quantization.setBinary(buildBinaryQuantization());
+            case NONE -> quantization.setDisabled(Collections.Disabled.getDefaultInstance());
+        }
+        return Collections.UpdateCollection.newBuilder()
+                .setCollectionName(collectionName)
+                .setVectorsConfig(
+                        Collections.VectorsConfigDiff.newBuilder()
+                                .setParams(
+                                        Collections.VectorParamsDiff.newBuilder()
+                                                .setOnDisk(config.onDisk())))
+                .setHnswConfig(buildHnswConfig())
+                .setParams(
+                        Collections.CollectionParamsDiff.newBuilder()
+                                .setOnDiskPayload(config.onDiskPayload()))
+                .setQuantizationConfig(quantization)
+                .build();
+    }
+
+    private Collections.HnswConfigDiff buildHnswConfig() {
+        return Collections.HnswConfigDiff.newBuilder()
+                .setM(config.hnsw().m())
+                .setEfConstruct(config.hnsw().efConstruct())
+                .build();
+    }
+
+    private Collections.ScalarQuantization buildScalarQuantization() {
+        return Collections.ScalarQuantization.newBuilder()
+                .setType(Collections.QuantizationType.Int8)
+                .setAlwaysRam(config.quantization().alwaysRam())
+                .build();
+    }
+
+    private Collections.BinaryQuantization buildBinaryQuantization() {
+        return Collections.BinaryQuantization.newBuilder()
+                .setAlwaysRam(config.quantization().alwaysRam())
+                .build();
+    }
+
+    private void createPayloadIndex(String key, Collections.PayloadSchemaType type)
+            throws InterruptedException, ExecutionException {
+        createPayloadIndex(key, type, null);
+    }
+
+    private void createPermissionPayloadIndex() throws InterruptedException, ExecutionException {
+        createPayloadIndex(
+                EmbeddingMetadataKeys.PERMISSION,
+                Collections.PayloadSchemaType.Keyword,
+                PERMISSION_INDEX_PARAMS);
+    }
+
+    private void createPayloadIndex(
+            String key,
+            Collections.PayloadSchemaType type,
+            Collections.PayloadIndexParams params)
+            throws InterruptedException, ExecutionException {
+        Log.infof("Enabling %s payload index for Qdrant collection '%s' ...", key, collectionName);
+        client.createPayloadIndexAsync(collectionName, key, type, params, null, null, null).get();
+    }
+
+    /**
+     * Migrate {@link EmbeddingMetadataKeys#PERMISSION} payloads stored as delimited string to
+     * keyword arrays and create the keyword payload index afterward. Points are updated in batches
+     * grouped by their permission, so knowledge with many embeddings requires only a few requests.
+     * Once all points and the index have been migrated, retrieval stops matching the delimited
+     * string.
+     */
+    private void migratePermissionPayload() {
+        Log.infof(
+                "Migrating %s payload of Qdrant collection '%s' to keyword array ...",
+                EmbeddingMetadataKeys.PERMISSION, collectionName);
+        int migrated = 0;
+        try {
+            Points.PointId offset = null;
+            do {
+                Points.ScrollPoints.Builder request =
+                        Points.ScrollPoints.newBuilder()
+                                .setCollectionName(collectionName)
+                                .setLimit(MIGRATION_BATCH_SIZE)
+                                .setWithPayload(include(List.of(EmbeddingMetadataKeys.PERMISSION)));
+                if (offset != null) {
+                    request.setOffset(offset);
+                }
+                Points.ScrollResponse response = client.scrollAsync(request.build()).get();
+
+                Map<String, List<Points.PointId>> idsByMetadataEntry = new HashMap<>();
+                for (Points.RetrievedPoint point : response.getResultList()) {
+                    JsonWithInt.Value permission =
+                            point.getPayloadMap().get(EmbeddingMetadataKeys.PERMISSION);
+                    if (permission != null
+                            && permission.getKindCase()
+                                    == JsonWithInt.Value.KindCase.STRING_VALUE) {
+                        idsByMetadataEntry
+                                .computeIfAbsent(
+                                        permission.getStringValue(), k -> new ArrayList<>())
+                                .add(point.getId());
+                    }
+                }
+                for (Map.Entry<String, List<Points.PointId>> entry :
+                        idsByMetadataEntry.entrySet()) {
+                    client.setPayloadAsync(
+                                    collectionName,
+                                    Map.of(
+                                            EmbeddingMetadataKeys.PERMISSION,
+                                            toPayloadValue(
+                                                    PermissionMetadataMapper
+                                                            .metadataEntryToMetadataValues(
+                                                                    entry.getKey()))),
+                                    entry.getValue(),
+                                    null,
+                                    null,
+                                    null)
+                            .get();
+                    migrated += entry.getValue().size();
+                }
+
+                offset = response.hasNextPageOffset() ? response.getNextPageOffset() : null;
+            } while (offset != null);
+            createPermissionPayloadIndex();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
+        legacyPermissionMetadata = false;
+        Log.infof(
+                "Migrated %s payload of %d points in Qdrant collection '%s'.",
+                EmbeddingMetadataKeys.PERMISSION, migrated, collectionName);
+    }
+
+    private static JsonWithInt.Value toPayloadValue(List<String> usernames) {
+        return list(usernames.stream().map(ValueFactory::value).toList());
+    }
+
+    @Override
+    public boolean hasLegacyPermissionMetadata() {
+        return legacyPermissionMetadata;
     }
 
     @Override
     public void updatePermissionMetadata(Knowledge knowledge) {
-        Points.Filter filter =
-                Points.Filter.newBuilder()
-                        .addMust(
-                                matchKeyword(
-                                        EmbeddingMetadataKeys.KNOWLEDGE_ID,
-                                        knowledge.getId().toString()))
-                        .build();
         client.setPayloadAsync(
                 collectionName,
                 Map.of(
                         EmbeddingMetadataKeys.PERMISSION,
-                        value(
-                                PermissionMetadataMapper.permissionsToMetadataEntry(
+                        toPayloadValue(
+                                PermissionMetadataMapper.permissionsToMetadataValues(
                                         knowledge.getPermissions()))),
-                filter,
+                knowledgeIdFilter(knowledge),
                 null,
                 null,
                 null);
         Log.infof("Updated permission metadata for knowledge '%s'.", knowledge.getId());
     }
+
+    @Override
+    public void updateTagMetadata(Knowledge knowledge) {
+        client.setPayloadAsync(
+                collectionName,
+                Map.of(
+                        EmbeddingMetadataKeys.TAGS,
+                        toPayloadValue(List.copyOf(knowledge.getTags())),
+                        EmbeddingMetadataKeys.LABEL,
+                        value(knowledge.getLabel().orElse(""))),
+                knowledgeIdFilter(knowledge),
+                null,
+                null,
+                null);
+        Log.infof("Updated tag metadata for knowledge '%s'.", knowledge.getId());
+    }
+
+    private static Points.Filter knowledgeIdFilter(Knowledge knowledge) {
+        return Points.Filter.newBuilder()
+                .addMust(
+                        matchKeyword(
+                                EmbeddingMetadataKeys.KNOWLEDGE_ID, knowledge.getId().toString()))
+                .build();
+    }
 }
@@ -19,6 +19,7 @@
  */
 package com.github.llamara.ai.internal.knowledge.persistence;
 
+import com.github.llamara.ai.internal.MetadataArrayMapper;
 import com.github.llamara.ai.internal.ingestion.IngestionStatus;
 import com.github.llamara.ai.internal.knowledge.storage.FileStorage;
 import com.github.llamara.ai.internal.security.Permission;
@@ -316,8 +317,14 @@ public abstract class Knowledge {
      * Add a user-provided tag.
      *
      * @param tag
+     * @throws IllegalArgumentException if the tag contains the {@link
+     *     MetadataArrayMapper#DELIMITER}
      */
     public void addTag(String tag) {
+        if (tag.contains(MetadataArrayMapper.DELIMITER)) {
+            throw new IllegalArgumentException(
+                    "Tag must not contain '" + MetadataArrayMapper.DELIMITER + "'");
+        }
         tags.add(tag);
     }
 
@@ -19,12 +19,20 @@
  */
 package com.github.llamara.ai.internal.rest;
 
+import com.github.llamara.ai.config.chat.ChatBatchConfig;
+import com.github.llamara.ai.internal.chat.BatchPromptRunner;
 import com.github.llamara.ai.internal.chat.ChatModel;
 import com.github.llamara.ai.internal.chat.ChatModelContainer;
 import com.github.llamara.ai.internal.chat.ChatModelNotFoundException;
+import com.github.llamara.ai.internal.chat.ChatModelOverloadedException;
 import com.github.llamara.ai.internal.chat.ChatModelProvider;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.history.RagSourceContentLoader;
+import com.github.llamara.ai.internal.chat.response.BatchPromptResultRecord;
 import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+import com.github.llamara.ai.internal.chat.response.ChatStreamEvent;
+import com.github.llamara.ai.internal.rest.dto.BatchPromptRequest;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
 import com.github.llamara.ai.internal.security.Roles;
 import com.github.llamara.ai.internal.security.session.Session;
 import com.github.llamara.ai.internal.security.session.SessionManager;
@@ -32,11 +40,14 @@ import com.github.llamara.ai.internal.security.session.SessionNotFoundException;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
@@ -44,12 +55,18 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 
 import io.quarkus.security.identity.SecurityIdentity;
 import io.smallrye.common.annotation.Blocking;
 import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -57,10 +74,16 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.jboss.resteasy.reactive.ResponseStatus;
+import org.jboss.resteasy.reactive.RestMediaType;
+import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 /**
  * REST resource for the chat endpoint.
  *
+ * <p>Prompts run on virtual threads, as they mostly wait for the embedding store and the chat
+ * model. The number of concurrent prompts is therefore not limited by the worker pool size.
+ *
  * @author Florian Hotze - Initial contribution
  */
 @RolesAllowed({Roles.ADMIN, Roles.USER, Roles.ANONYMOUS_USER})
@@ -71,18 +94,34 @@ import org.jboss.resteasy.reactive.ResponseStatus;
                 "Bad Request, usually returned when an operation is requested before the user has"
                         + " logged in.")
 class ChatResource {
+    static final String TOKEN_EVENT = "token";
+    static final String SOURCES_EVENT = "sources";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final SessionManager sessionManager;
     private final ChatModelProvider chatModelProvider;
     private final SecurityIdentity identity;
+    private final RetrievalScope retrievalScope;
+    private final RagSourceContentLoader sourceContentLoader;
+    private final ChatBatchConfig batchConfig;
+    private final BatchPromptRunner batchPromptRunner;
 
     @Inject
     ChatResource(
             SessionManager sessionManager,
             ChatModelProvider chatModelProvider,
-            SecurityIdentity identity) {
+            SecurityIdentity identity,
+            RetrievalScope retrievalScope,
+            RagSourceContentLoader sourceContentLoader,
+            ChatBatchConfig batchConfig,
+            BatchPromptRunner batchPromptRunner) {
         this.sessionManager = sessionManager;
         this.chatModelProvider = chatModelProvider;
         this.identity = identity;
+        this.retrievalScope = retrievalScope;
+        this.sourceContentLoader = sourceContentLoader;
+        this.batchConfig = batchConfig;
+        this.batchPromptRunner = batchPromptRunner;
     }
 
     @NonBlocking
@@ -103,7 +142,7 @@ class ChatResource {
         return chatModelProvider.getModels();
     }
 
-    @Blocking
+    @RunOnVirtualThread
     @POST
     @Path("/prompt")
     @Consumes(MediaType.TEXT_PLAIN)
@@ -116,6 +155,9 @@ class ChatResource {
     @APIResponse(
             responseCode = "404",
             description = "No chat model or no session with given ID found.")
+    @APIResponse(
+            responseCode = "429",
+            description = "Chat model overloaded, retry after the given number of seconds.")
     public ChatResponseRecord prompt(
             @QueryParam("uid")
                     @Parameter(
@@ -129,11 +171,180 @@ class ChatResource {
                             description = "ID of the session to use",
                             required = true)
                     UUID sessionId,
+            @QueryParam("tag")
+                    @Parameter(
+                            name = "tag",
+                            description = "Only retrieve from knowledge with any of these tags")
+                    List<String> tags,
+            @QueryParam("knowledgeId")
+                    @Parameter(
+                            name = "knowledgeId",
+                            description = "Only retrieve from knowledge with any of these IDs")
+                    List<UUID> knowledgeIds,
+            @QueryParam("contentType")
+                    @Parameter(
+                            name = "contentType",
+                            description =
+                                    "Only retrieve from knowledge with any of these content types")
+                    List<String> contentTypes,
+            String prompt)
+            throws ChatModelNotFoundException,
+                    SessionNotFoundException,
+                    ChatModelOverloadedException {
+        return prepareChat(uid, sessionId, tags, knowledgeIds, contentTypes)
+                .chat(sessionId, !identity.isAnonymous(), prompt);
+    }
+
+    @RunOnVirtualThread
+    @POST
+    @Path("/prompt/stream")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(
+            operationId = "promptStream",
+            summary = "Send a prompt to the given chat model and stream the response.",
+            description =
+                    "Streams the response as server-sent events: `"
+                            + TOKEN_EVENT
+                            + "` events contain parts of the response text, a final `"
+                            + SOURCES_EVENT
+                            + "` event contains the used sources as JSON array.")
+    @APIResponse(responseCode = "200", description = "OK")
+    @APIResponse(
+            responseCode = "404",
+            description = "No chat model or no session with given ID found.")
+    @APIResponse(
+            responseCode = "429",
+            description = "Chat model overloaded, retry after the given number of seconds.")
+    public Multi<OutboundSseEvent> promptStream(
+            @QueryParam("uid")
+                    @Parameter(
+                            name = "uid",
+                            description = "UID of the chat model to use",
+                            required = true)
+                    String uid,
+            @QueryParam("sessionId")
+                    @Parameter(
+                            name = "sessionId",
+                            description = "ID of the session to use",
+                            required = true)
+                    UUID sessionId,
+            @QueryParam("tag")
+                    @Parameter(
+                            name = "tag",
+                            description = "Only retrieve from knowledge with any of these tags")
+                    List<String> tags,
+            @QueryParam("knowledgeId")
+                    @Parameter(
+                            name = "knowledgeId",
+                            description = "Only retrieve from knowledge with any of these IDs")
+                    List<UUID> knowledgeIds,
+            @QueryParam("contentType")
+                    @Parameter(
+                            name = "contentType",
+                            description =
+                                    "Only retrieve from knowledge with any of these content types")
+                    List<String> contentTypes,
+            @Context Sse sse,
             String prompt)
+            throws ChatModelNotFoundException,
+                    SessionNotFoundException,
+                    ChatModelOverloadedException {
+        return prepareChat(uid, sessionId, tags, knowledgeIds, contentTypes)
+                .chatStream(sessionId, !identity.isAnonymous(), prompt)
+                .map(
+                        event ->
+                                switch (event) {
+                                    case ChatStreamEvent.Token token ->
+                                            sse.newEventBuilder()
+                                                    .name(TOKEN_EVENT)
+                                                    .data(token.text())
+                                                    .build();
+                                    case ChatStreamEvent.Sources sources ->
+                                            sse.newEventBuilder()
+                                                    .name(SOURCES_EVENT)
+                                                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                                                    .data(sources.sources())
+                                                    .build();
+                                });
+    }
+
+    @RolesAllowed(Roles.ADMIN)
+    @NonBlocking
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "promptBatch",
+            summary = "Send a batch of prompts to the given chat model and stream the results.",
+            description =
+                    "Each prompt is answered without chat history or memory of the other prompts,"
+                            + " e.g. to evaluate a chat model. Results are streamed as"
+                            + " newline-delimited JSON in the order of completion and contain the"
+                            + " index of the prompt, the latency and the token usage. To resume"
+                            + " an interrupted batch, send it again with the indices of the"
+                            + " received results as completed.")
+    @APIResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(schema = @Schema(implementation = BatchPromptResultRecord.class)))
+    @APIResponse(
+            responseCode = "400",
+            description = "No prompts, too many prompts or invalid concurrency.")
+    @APIResponse(responseCode = "404", description = "No chat model with given UID found.")
+    public Multi<BatchPromptResultRecord> promptBatch(
+            @QueryParam("uid")
+                    @Parameter(
+                            name = "uid",
+                            description = "UID of the chat model to use",
+                            required = true)
+                    String uid,
+            @QueryParam("concurrency")
+                    @DefaultValue("4")
+                    @Parameter(
+                            name = "concurrency",
+                            description =
+                                    "Number of prompts to send concurrently, capped by the"
+                                            + " configured maximum")
+                    int concurrency,
+            BatchPromptRequest request)
+            throws ChatModelNotFoundException {
+        if (request == null || request.prompts() == null || request.prompts().isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one prompt.");
+        }
+        if (request.prompts().size() > batchConfig.maxPrompts()) {
+            throw new BadRequestException(
+                    "Batch must not contain more than " + batchConfig.maxPrompts() + " prompts.");
+        }
+        if (concurrency < 1) {
+            throw new BadRequestException("Concurrency must be at least 1.");
+        }
+        ChatModel chatModel = chatModelProvider.getModel(uid).model();
+        List<String> prompts = request.prompts();
+        Set<Integer> completed = request.completed() != null ? request.completed() : Set.of();
+
+        return batchPromptRunner.run(
+                chatModel, prompts, completed, Math.min(concurrency, batchConfig.maxConcurrency()));
+    }
+
+    /**
+     * Validate the session, get the chat model and restrict retrieval for the current request.
+     *
+     * @return the chat model
+     */
+    private ChatModel prepareChat(
+            String uid,
+            UUID sessionId,
+            List<String> tags,
+            List<UUID> knowledgeIds,
+            List<String> contentTypes)
             throws ChatModelNotFoundException, SessionNotFoundException {
         sessionManager.enforceSessionValid(sessionId);
         ChatModel chatModel = chatModelProvider.getModel(uid).model();
-        return chatModel.chat(sessionId, !identity.isAnonymous(), prompt);
+        retrievalScope.restrict(tags, knowledgeIds, contentTypes);
+        return chatModel;
     }
 
     @Blocking
@@ -186,7 +397,13 @@ class ChatResource {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(
             operationId = "getHistory",
-            summary = "Get the chat history for the given session id.")
+            summary = "Get the chat history for the given session id.",
+            description =
+                    "Pages are returned newest first, the messages within a page are in"
+                            + " chronological order. If there are older messages, the cursor for"
+                            + " the next page is returned in the "
+                            + NEXT_CURSOR_HEADER
+                            + " header.")
     @APIResponse(
             responseCode = "200",
             description = "OK",
@@ -197,15 +414,68 @@ class ChatResource {
                                             type = SchemaType.ARRAY,
                                             implementation = ChatMessageRecord.class)))
     @APIResponse(responseCode = "404", description = "No session with the given ID found.")
-    public Uni<List<ChatMessageRecord>> getHistory(
+    public Uni<RestResponse<List<ChatMessageRecord>>> getHistory(
             @PathParam("sessionId")
                     @Parameter(
                             name = "sessionId",
                             description = "UID of the chat history to get",
                             required = true)
-                    UUID sessionId)
+                    UUID sessionId,
+            @QueryParam("cursor")
+                    @DefaultValue("0")
+                    @Parameter(
+                            name = "cursor",
+                            description =
+                                    "Number of newest messages to skip, as returned in the "
+                                            + NEXT_CURSOR_HEADER
+                                            + " header")
+                    long cursor,
+            @QueryParam("limit")
+                    @Parameter(
+                            name = "limit",
+                            description =
+                                    "Maximum number of messages to return, all if not specified")
+                    Integer limit,
+            @QueryParam("sourceContent")
+                    @DefaultValue("false")
+                    @Parameter(
+                            name = "sourceContent",
+                            description =
+                                    "Whether to include the content of the RAG sources, which is"
+                                            + " loaded from the embedding store")
+                    boolean sourceContent)
             throws SessionNotFoundException {
-        return sessionManager.getChatHistory(sessionId);
+        if (cursor < 0) {
+            throw new BadRequestException("Cursor must not be negative.");
+        }
+        if (limit != null && limit < 1) {
+            throw new BadRequestException("Limit must be at least 1.");
+        }
+        long count = limit != null ? limit : Integer.MAX_VALUE;
+        // fetch one more message than requested to detect whether there are older messages
+        Uni<List<ChatMessageRecord>> history =
+                sessionManager.getChatHistory(sessionId, cursor, count + 1);
+        if (sourceContent) {
+            // loading the source content is blocking I/O
+            history = history.emitOn(Infrastructure.getDefaultWorkerPool());
+        }
+        return history.map(
+                messages -> {
+                    boolean hasMore = messages.size() > count;
+                    List<ChatMessageRecord> page =
+                            hasMore ? messages.subList(1, messages.size()) : messages;
+                    if (sourceContent) {
+                        page = sourceContentLoader.loadSourceContent(page);
+                    } else {
+                        page = page.stream().map(ChatMessageRecord::withoutSourceContent).toList();
+                    }
+                    RestResponse.ResponseBuilder<List<ChatMessageRecord>> response =
+                            RestResponse.ResponseBuilder.ok(page);
+                    if (hasMore) {
+                        response.header(NEXT_CURSOR_HEADER, cursor + count);
+                    }
+                    return response.build();
+                });
     }
 
     @Blocking
@@ -20,8 +20,10 @@
 package com.github.llamara.ai.internal.rest;
 
 import com.github.llamara.ai.internal.chat.ChatModelNotFoundException;
+import com.github.llamara.ai.internal.chat.ChatModelOverloadedException;
 import com.github.llamara.ai.internal.knowledge.EmptyFileException;
 import com.github.llamara.ai.internal.knowledge.IllegalPermissionModificationException;
+import com.github.llamara.ai.internal.knowledge.IllegalTagException;
 import com.github.llamara.ai.internal.knowledge.KnowledgeNotFoundException;
 import com.github.llamara.ai.internal.security.session.SessionNotFoundException;
 import com.github.llamara.ai.internal.security.user.UserNotFoundException;
@@ -29,6 +31,7 @@ import com.github.llamara.ai.internal.security.user.UserNotRegisteredException;
 
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 
 import io.quarkus.logging.Log;
@@ -47,6 +50,15 @@ class ExceptionMappers {
                 .build();
     }
 
+    @ServerExceptionMapper
+    Response handleChatModelOverloadedException(ChatModelOverloadedException e) {
+        return Response.status(
+                        Response.Status.TOO_MANY_REQUESTS.getStatusCode(),
+                        "Chat model overloaded.")
+                .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                .build();
+    }
+
     @ServerExceptionMapper
     Response handleKnowledgeNotFoundException(KnowledgeNotFoundException e) {
         return Response.status(Response.Status.NOT_FOUND.getStatusCode(), "Knowledge not found.")
@@ -85,6 +97,12 @@ class ExceptionMappers {
                 .build();
     }
 
+    @ServerExceptionMapper
+    Response handleIllegalTagException(IllegalTagException e) {
+        return Response.status(Response.Status.BAD_REQUEST.getStatusCode(), e.getMessage())
+                .build();
+    }
+
     /**
      * Restore default handling of {@link WebApplicationException}s like {@link NotFoundException}
      * and {@link jakarta.ws.rs.BadRequestException}.
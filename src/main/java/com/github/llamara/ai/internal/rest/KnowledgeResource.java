@@ -20,6 +20,7 @@
 package com.github.llamara.ai.internal.rest;
 
 import com.github.llamara.ai.internal.knowledge.IllegalPermissionModificationException;
+import com.github.llamara.ai.internal.knowledge.IllegalTagException;
 import com.github.llamara.ai.internal.knowledge.KnowledgeManager;
 import com.github.llamara.ai.internal.knowledge.KnowledgeNotFoundException;
 import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
@@ -391,6 +392,7 @@ class KnowledgeResource {
             operationId = "addKnowledgeTag",
             summary = "Add a tag to a single knowledge identified by its ID.")
     @APIResponse(responseCode = "200", description = "OK")
+    @APIResponse(responseCode = "400", description = "Tag is blank or contains '|'.")
     @APIResponse(responseCode = "404", description = "No knowledge with the given id found.")
     public void addKnowledgeTag(
             @PathParam("id")
@@ -401,7 +403,7 @@ class KnowledgeResource {
                     UUID id,
             @QueryParam("tag") @Parameter(name = "tag", description = "tag to add", required = true)
                     String tag)
-            throws KnowledgeNotFoundException {
+            throws KnowledgeNotFoundException, IllegalTagException {
         knowledgeManager.addTag(id, tag);
     }
 
@@ -0,0 +1,33 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.rest.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DTO record for a batch of prompts.
+ *
+ * @param prompts the prompts to send to the chat model
+ * @param completed the indices of prompts that are skipped, as their results have already been
+ *     received, e.g. to resume an interrupted batch
+ * @author Florian Hotze - Initial contribution
+ */
+public record BatchPromptRequest(List<String> prompts, Set<Integer> completed) {}
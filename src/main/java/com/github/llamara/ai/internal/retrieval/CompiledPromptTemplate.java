@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prompt template with <code>{{variable}}</code> placeholders that is parsed once and applied by
+ * concatenation. In contrast to {@link dev.langchain4j.model.input.PromptTemplate}, applying it
+ * does not run a regex replacement for each variable on every request, and variable values
+ * containing placeholders are not substituted again.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public final class CompiledPromptTemplate {
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{\\s*(.+?)\\s*}}");
+
+    /** Literal text parts, a variable is between each two consecutive parts. */
+    private final List<String> literals;
+
+    private final List<String> variables;
+    private final int literalsLength;
+
+    private CompiledPromptTemplate(List<String> literals, List<String> variables) {
+        this.literals = literals;
+        this.variables = variables;
+        this.literalsLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Parse the given template.
+     *
+     * @param template the template
+     * @return the compiled template
+     */
+    public static CompiledPromptTemplate from(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(start, matcher.start()));
+            variables.add(matcher.group(1));
+            start = matcher.end();
+        }
+        literals.add(template.substring(start));
+        return new CompiledPromptTemplate(List.copyOf(literals), List.copyOf(variables));
+    }
+
+    /**
+     * Apply the given variable values to the template.
+     *
+     * @param values the values of the variables
+     * @return the resulting text
+     * @throws IllegalArgumentException if a value for a variable of the template is missing
+     */
+    public String apply(Map<String, String> values) {
+        int length = literalsLength;
+        for (String variable : variables) {
+            String value = values.get(variable);
+            if (value == null) {
+                throw new IllegalArgumentException(
+                        String.format("Value for the variable '%s' is missing", variable));
+            }
+            length += value.length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < variables.size(); i++) {
+            sb.append(literals.get(i)).append(values.get(variables.get(i)));
+        }
+        return sb.append(literals.get(variables.size())).toString();
+    }
+}
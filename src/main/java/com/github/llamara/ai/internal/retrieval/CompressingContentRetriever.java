@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.config.RetrievalConfig;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link ContentRetriever} that compresses the results of its delegate to the sentences most
+ * relevant to the query. Each segment is split into sentences, which are scored against the query
+ * either lexically or using embeddings. The top sentences and their neighbours are kept in their
+ * original order. The metadata of the contents, e.g. the embedding ID used for citations, is kept.
+ *
+ * <p>The embedding scorer sends all sentences of the retrieved segments to the embedding model in
+ * an additional request per retrieval, which adds its latency and cost to every prompt. The query
+ * embedding is reused if it is carried by an {@link EmbeddedQuery}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class CompressingContentRetriever implements ContentRetriever {
+    private static final Pattern TERM_PATTERN = Pattern.compile("[\\p{L}\\p{N}]{3,}");
+
+    private final ContentRetriever delegate;
+    private final RetrievalConfig.Compression config;
+    private final EmbeddingModel embeddingModel;
+
+    /**
+     * @param delegate the retriever to compress the results of
+     * @param config the compression config
+     * @param embeddingModel the embedding model, only used by the embedding scorer
+     */
+    CompressingContentRetriever(
+            ContentRetriever delegate,
+            RetrievalConfig.Compression config,
+            EmbeddingModel embeddingModel) {
+        this.delegate = delegate;
+        this.config = config;
+        this.embeddingModel = embeddingModel;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        List<Content> contents = delegate.retrieve(query);
+        if (contents.isEmpty()) {
+            return contents;
+        }
+
+        List<List<String>> sentences = contents.stream().map(c -> split(c.textSegment())).toList();
+        List<double[]> scores =
+                switch (config.scorer()) {
+                    case LEXICAL -> scoreLexically(query.text(), sentences);
+                    case EMBEDDING -> scoreByEmbedding(query, sentences);
+                };
+
+        List<Content> result = new ArrayList<>(contents.size());
+        int originalLength = 0;
+        int compressedLength = 0;
+        for (int i = 0; i < contents.size(); i++) {
+            Content content = contents.get(i);
+            String text =
+                    select(
+                            sentences.get(i),
+                            scores.get(i),
+                            config.maxSentences(),
+                            config.neighbours());
+            originalLength += content.textSegment().text().length();
+            compressedLength += text.length();
+            result.add(
+                    Content.from(
+                            TextSegment.from(text, content.textSegment().metadata()),
+                            content.metadata()));
+        }
+        Log.debugf(
+                "Compressed retrieved contents from %d to %d characters.",
+                originalLength, compressedLength);
+        return result;
+    }
+
+    /**
+     * Split the text of the given segment into sentences.
+     *
+     * @param segment the segment
+     * @return the sentences, including their trailing whitespace
+     */
+    static List<String> split(TextSegment segment) {
+        String text = segment.text();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+        iterator.setText(text);
+        List<String> sentences = new ArrayList<>();
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; end = iterator.next()) {
+            sentences.add(text.substring(start, end));
+            start = end;
+        }
+        return sentences;
+    }
+
+    /**
+     * Select the highest scored sentences and their neighbours, keeping their original order.
+     *
+     * @param sentences the sentences of a segment
+     * @param scores the scores of the sentences
+     * @param maxSentences the number of highest scored sentences to select
+     * @param neighbours the number of neighbours to select before and after each sentence
+     * @return the text of the selected sentences
+     */
+    static String select(
+            List<String> sentences, double[] scores, int maxSentences, int neighbours) {
+        if (sentences.size() <= maxSentences) {
+            return String.join("", sentences);
+        }
+        boolean[] selected = new boolean[sentences.size()];
+        IntStream.range(0, sentences.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(maxSentences)
+                .forEach(
+                        i -> {
+                            int from = Math.max(0, i - neighbours);
+                            int to = Math.min(sentences.size() - 1, i + neighbours);
+                            Arrays.fill(selected, from, to + 1, true);
+                        });
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sentences.size(); i++) {
+            if (selected[i]) {
+                sb.append(sentences.get(i));
+            } else if (i > 0 && selected[i - 1]) {
+                // mark omitted sentences, so the model does not assume continuous text
+                sb.append("[...] ");
+            }
+        }
+        return sb.toString().strip();
+    }
+
+    /**
+     * Score the sentences by the number of query terms they contain, normalized by the logarithm
+     * of their number of terms, so long sentences are not preferred.
+     */
+    static List<double[]> scoreLexically(String query, List<List<String>> sentences) {
+        Set<String> queryTerms = terms(query);
+        List<double[]> scores = new ArrayList<>(sentences.size());
+        for (List<String> segmentSentences : sentences) {
+            double[] segmentScores = new double[segmentSentences.size()];
+            for (int i = 0; i < segmentSentences.size(); i++) {
+                Set<String> sentenceTerms = terms(segmentSentences.get(i));
+                long matches = sentenceTerms.stream().filter(queryTerms::contains).count();
+                segmentScores[i] = matches / Math.log(2 + sentenceTerms.size());
+            }
+            scores.add(segmentScores);
+        }
+        return scores;
+    }
+
+    /**
+     * Score the sentences by the cosine similarity of their embeddings with the query embedding.
+     * All sentences are embedded in a single request, together with the query if its embedding
+     * is not carried by an {@link EmbeddedQuery}.
+     */
+    private List<double[]> scoreByEmbedding(Query query, List<List<String>> sentences) {
+        Embedding queryEmbedding = query instanceof EmbeddedQuery e ? e.embedding() : null;
+        List<TextSegment> segments = new ArrayList<>();
+        if (queryEmbedding == null) {
+            segments.add(TextSegment.from(query.text()));
+        }
+        sentences.forEach(s -> s.forEach(sentence -> segments.add(TextSegment.from(sentence))));
+        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+
+        int offset = 0;
+        if (queryEmbedding == null) {
+            queryEmbedding = embeddings.get(0);
+            offset = 1;
+        }
+        List<double[]> scores = new ArrayList<>(sentences.size());
+        for (List<String> segmentSentences : sentences) {
+            double[] segmentScores = new double[segmentSentences.size()];
+            for (int i = 0; i < segmentSentences.size(); i++) {
+                segmentScores[i] =
+                        CosineSimilarity.between(queryEmbedding, embeddings.get(offset + i));
+            }
+            offset += segmentSentences.size();
+            scores.add(segmentScores);
+        }
+        return scores;
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        Matcher matcher = TERM_PATTERN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            terms.add(matcher.group());
+        }
+        return terms;
+    }
+}
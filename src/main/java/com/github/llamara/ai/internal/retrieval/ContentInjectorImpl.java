@@ -21,23 +21,18 @@ package com.github.llamara.ai.internal.retrieval;
 
 import com.github.llamara.ai.config.RetrievalConfig;
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.telemetry.StageTracer;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.inject.Inject;
 
 import static dev.langchain4j.internal.Utils.isNotNullOrBlank;
 import static dev.langchain4j.internal.Utils.isNullOrEmpty;
-import static java.util.stream.Collectors.joining;
 
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.input.Prompt;
-import dev.langchain4j.model.input.PromptTemplate;
 import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.rag.content.ContentMetadata;
 import dev.langchain4j.rag.content.injector.ContentInjector;
@@ -48,24 +43,49 @@ import dev.langchain4j.rag.content.injector.ContentInjector;
  * href="https://docs.langchain4j.dev/tutorials/rag/#content-injector">LangChain4j Docs: RAG:
  * Content Injector</a>. <br>
  * <br>
+ * The retrieved contents are packed by the {@link ContextPacker} into the token budget of the chat
+ * model the injector is created for. Prompt assembly is traced by the {@link StageTracer}. <br>
+ * <br>
  * Implementation is based on <a
  * href="https://github.com/langchain4j/langchain4j/blob/f1a41b23818edac7af7bf34a17af19a654f1d67b/langchain4j-core/src/main/java/dev/langchain4j/rag/content/injector/DefaultContentInjector.java">
  * <code>dev.langchain4j.rag.content.injector.DefaultContentInjector</code></a>.
  *
  * @author Florian Hotze - Initial contribution
  */
-@ApplicationScoped
 class ContentInjectorImpl implements ContentInjector {
-    private final PromptTemplate promptTemplate;
-    private final PromptTemplate noContentsPromptTemplate;
+    private static final String CONTENTS_SEPARATOR = "\n\n";
+
+    private final CompiledPromptTemplate promptTemplate;
+    private final CompiledPromptTemplate noContentsPromptTemplate;
+    private final ContextPacker contextPacker;
+    private final int tokenBudget;
+    private final StageTracer stageTracer;
+    private final String modelUid;
     private final List<String> textSegmentMetadataToInclude;
     private final List<ContentMetadata> contentMetadataToInclude;
 
-    @Inject
-    ContentInjectorImpl(RetrievalConfig config) {
-        this.promptTemplate = PromptTemplate.from(config.promptTemplate());
-        this.noContentsPromptTemplate =
-                PromptTemplate.from(config.missingKnowledgePromptTemplate());
+    /**
+     * @param promptTemplate the compiled {@link RetrievalConfig#promptTemplate()}
+     * @param noContentsPromptTemplate the compiled {@link
+     *     RetrievalConfig#missingKnowledgePromptTemplate()}
+     * @param contextPacker the context packer
+     * @param tokenBudget the maximum number of tokens of the injected contents
+     * @param stageTracer the tracer for prompt assembly
+     * @param modelUid the uid of the chat model the injector is created for
+     */
+    ContentInjectorImpl(
+            CompiledPromptTemplate promptTemplate,
+            CompiledPromptTemplate noContentsPromptTemplate,
+            ContextPacker contextPacker,
+            int tokenBudget,
+            StageTracer stageTracer,
+            String modelUid) {
+        this.promptTemplate = promptTemplate;
+        this.noContentsPromptTemplate = noContentsPromptTemplate;
+        this.contextPacker = contextPacker;
+        this.tokenBudget = tokenBudget;
+        this.stageTracer = stageTracer;
+        this.modelUid = modelUid;
         this.textSegmentMetadataToInclude = List.of(EmbeddingMetadataKeys.KNOWLEDGE_ID);
         this.contentMetadataToInclude = List.of(ContentMetadata.EMBEDDING_ID);
     }
@@ -76,47 +96,69 @@ class ContentInjectorImpl implements ContentInjector {
             return chatMessage;
         }
 
-        Prompt prompt = createPrompt(userMessage, contents);
+        String prompt =
+                stageTracer
+                        .trace(
+                                StageTracer.Stage.PROMPT_ASSEMBLY,
+                                modelUid,
+                                () -> createPrompt(userMessage, contents),
+                                (span, result) -> {
+                                    span.setAttribute(StageTracer.RESULT_COUNT, contents.size());
+                                    span.setAttribute(
+                                            StageTracer.TOKENS_INJECTED, result.injectedTokens());
+                                })
+                        .text();
         if (isNotNullOrBlank(userMessage.name())) {
-            return prompt.toUserMessage(userMessage.name());
+            return UserMessage.from(userMessage.name(), prompt);
         }
 
-        return prompt.toUserMessage();
+        return UserMessage.from(prompt);
     }
 
     /**
      * Combines the original {@link UserMessage} and the retrieved {@link Content}s into the
-     * resulting {@link UserMessage} based on the {@link PromptTemplate}s. <br>
+     * resulting {@link UserMessage} based on the {@link CompiledPromptTemplate}s. <br>
      * <br>
-     * It appends all given {@link Content}s to the end of the given {@link UserMessage} in their
-     * order of iteration. It optionally includes a list of {@link TextSegment} and {@link Content}
-     * metadata with each {@link Content} respective {@link Content#textSegment()}.
+     * It appends the given {@link Content}s packed by the {@link ContextPacker} to the end of the
+     * given {@link UserMessage} in their order of iteration. It optionally includes a list of
+     * {@link TextSegment} and {@link Content} metadata with each {@link Content} respective {@link
+     * Content#textSegment()}.
      *
      * @param userMessage
      * @param contents
      * @return
      */
     private Prompt createPrompt(UserMessage userMessage, List<Content> contents) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("userMessage", userMessage.singleText());
-
-        if (contents.isEmpty()) {
-            return noContentsPromptTemplate.apply(variables);
+        List<String> formattedContents =
+                contextPacker.fill(
+                        contextPacker.merge(contents).stream().map(this::format).toList(),
+                        CONTENTS_SEPARATOR,
+                        tokenBudget);
+
+        if (formattedContents.isEmpty()) {
+            String prompt =
+                    noContentsPromptTemplate.apply(Map.of("userMessage", userMessage.singleText()));
+            return new Prompt(prompt, 0);
         }
 
-        variables.put("contents", format(contents));
-        return promptTemplate.apply(variables);
+        String joinedContents = String.join(CONTENTS_SEPARATOR, formattedContents);
+        String prompt =
+                promptTemplate.apply(
+                        Map.of(
+                                "userMessage",
+                                userMessage.singleText(),
+                                "contents",
+                                joinedContents));
+        return new Prompt(prompt, contextPacker.countTokens(joinedContents));
     }
 
     /**
-     * Formats the given list of {@link Content}s in their order of iteration.
+     * A created prompt.
      *
-     * @param contents
-     * @return
+     * @param text the text of the prompt
+     * @param injectedTokens the number of tokens of the injected contents
      */
-    private String format(List<Content> contents) {
-        return contents.stream().map(this::format).collect(joining("\n\n"));
-    }
+    private record Prompt(String text, int injectedTokens) {}
 
     /**
      * Formats the given {@link Content} and includes the specified {@link TextSegment} and {@link
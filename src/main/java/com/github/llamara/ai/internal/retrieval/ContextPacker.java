@@ -0,0 +1,269 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+
+/**
+ * Packs retrieved {@link Content}s into the context of a prompt.
+ *
+ * <p>Contents of the same knowledge that are adjacent, overlap (see {@link
+ * com.github.llamara.ai.config.ingestion.DocumentSplitterConfig#maxOverlapSize()}) or contain each
+ * other are merged, so shared text is sent only once. The embedding IDs of merged contents are
+ * kept, so every merged segment can still be cited. The formatted contents are then filled into a
+ * token budget in order of relevance.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class ContextPacker {
+    /** Minimum number of characters two segments must share to be merged as overlapping. */
+    static final int MIN_OVERLAP = 20;
+
+    static final String EMBEDDING_ID_DELIMITER = ", ";
+
+    private final ToIntFunction<String> tokenCounter;
+    private final int maxOverlap;
+
+    /**
+     * @param tokenCounter counts the tokens of a text, must be thread-safe
+     * @param maxOverlap the maximum number of characters two adjacent segments share
+     */
+    ContextPacker(ToIntFunction<String> tokenCounter, int maxOverlap) {
+        this.tokenCounter = tokenCounter;
+        this.maxOverlap = maxOverlap;
+    }
+
+    /**
+     * Count the tokens of the given text.
+     *
+     * @param text the text
+     * @return the number of tokens
+     */
+    int countTokens(String text) {
+        return tokenCounter.applyAsInt(text);
+    }
+
+    /**
+     * Merge adjacent, overlapping and duplicate contents of the same knowledge. The order of the
+     * given contents is kept, a merged content takes the position of its most relevant part.
+     *
+     * @param contents the contents sorted by relevance
+     * @return the merged contents
+     */
+    List<Content> merge(List<Content> contents) {
+        List<Part> parts = new ArrayList<>(contents.size());
+        for (Content content : contents) {
+            Part part = Part.of(content);
+            int position = parts.size();
+            int i = 0;
+            while (i < parts.size()) {
+                Part combined = parts.get(i).combine(part, maxOverlap);
+                if (combined == null) {
+                    i++;
+                    continue;
+                }
+                // the combined part may now be adjacent to parts checked before, so start over
+                parts.remove(i);
+                position = Math.min(position, i);
+                part = combined;
+                i = 0;
+            }
+            parts.add(Math.min(position, parts.size()), part);
+        }
+        return parts.stream().map(Part::toContent).toList();
+    }
+
+    /**
+     * Fill the given formatted contents into the token budget in their order. Contents that do not
+     * fit are skipped, smaller contents after them may still fit.
+     *
+     * @param formattedContents the formatted contents sorted by relevance
+     * @param separator the separator between two contents
+     * @param tokenBudget the maximum number of tokens
+     * @return the contents that fit into the budget
+     */
+    List<String> fill(List<String> formattedContents, String separator, int tokenBudget) {
+        if (tokenBudget == Integer.MAX_VALUE) {
+            return formattedContents;
+        }
+        int separatorTokens = tokenCounter.applyAsInt(separator);
+        int remaining = tokenBudget;
+        List<String> result = new ArrayList<>(formattedContents.size());
+        for (String formatted : formattedContents) {
+            int tokens = tokenCounter.applyAsInt(formatted);
+            if (!result.isEmpty()) {
+                tokens += separatorTokens;
+            }
+            if (tokens <= remaining) {
+                result.add(formatted);
+                remaining -= tokens;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A continuous part of a knowledge document, built from one or more contents.
+     *
+     * @param first the most relevant content of the part
+     * @param text the text of the part
+     * @param firstIndex the index of the first segment, <code>null</code> if unknown
+     * @param lastIndex the index of the last segment, <code>null</code> if unknown
+     * @param embeddingIds the embedding IDs of the segments
+     */
+    private record Part(
+            Content first,
+            String text,
+            Integer firstIndex,
+            Integer lastIndex,
+            List<Object> embeddingIds) {
+        static Part of(Content content) {
+            Integer index = index(content.textSegment());
+            List<Object> embeddingIds = new ArrayList<>(1);
+            Object embeddingId = content.metadata().get(ContentMetadata.EMBEDDING_ID);
+            if (embeddingId != null) {
+                embeddingIds.add(embeddingId);
+            }
+            return new Part(content, content.textSegment().text(), index, index, embeddingIds);
+        }
+
+        /**
+         * Combine this part with the given other part if they belong to the same knowledge and are
+         * adjacent, overlap or contain each other.
+         *
+         * @param other the other, less relevant part
+         * @param maxOverlap the maximum number of characters two adjacent segments share
+         * @return the combined part, or <code>null</code> if they cannot be combined
+         */
+        Part combine(Part other, int maxOverlap) {
+            if (!Objects.equals(knowledgeId(), other.knowledgeId())) {
+                return null;
+            }
+            String combined;
+            if (text.contains(other.text)) {
+                combined = text;
+            } else if (other.text.contains(text)) {
+                combined = other.text;
+            } else if (isAdjacentBefore(other, maxOverlap)) {
+                combined = join(text, other.text, maxOverlap);
+            } else if (other.isAdjacentBefore(this, maxOverlap)) {
+                combined = join(other.text, text, maxOverlap);
+            } else {
+                return null;
+            }
+            List<Object> ids = new ArrayList<>(embeddingIds);
+            other.embeddingIds.stream().filter(id -> !ids.contains(id)).forEach(ids::add);
+            return new Part(
+                    first,
+                    combined,
+                    min(firstIndex, other.firstIndex),
+                    max(lastIndex, other.lastIndex),
+                    ids);
+        }
+
+        private boolean isAdjacentBefore(Part other, int maxOverlap) {
+            if (lastIndex != null && other.firstIndex != null) {
+                return lastIndex + 1 == other.firstIndex;
+            }
+            return overlap(text, other.text, maxOverlap) >= MIN_OVERLAP;
+        }
+
+        private String knowledgeId() {
+            return first.textSegment().metadata().getString(EmbeddingMetadataKeys.KNOWLEDGE_ID);
+        }
+
+        Content toContent() {
+            if (embeddingIds.size() <= 1 && text.equals(first.textSegment().text())) {
+                return first;
+            }
+            Map<ContentMetadata, Object> metadata = new HashMap<>(first.metadata());
+            metadata.put(
+                    ContentMetadata.EMBEDDING_ID,
+                    String.join(
+                            EMBEDDING_ID_DELIMITER,
+                            embeddingIds.stream().map(Object::toString).toList()));
+            return Content.from(TextSegment.from(text, first.textSegment().metadata()), metadata);
+        }
+    }
+
+    /**
+     * Join two adjacent texts, removing the overlap of the end of the first text and the start of
+     * the second text.
+     */
+    private static String join(String a, String b, int maxOverlap) {
+        int overlap = overlap(a, b, maxOverlap);
+        if (overlap >= MIN_OVERLAP) {
+            return a + b.substring(overlap);
+        }
+        return a + "\n" + b;
+    }
+
+    /**
+     * Get the length of the longest suffix of the first text that is a prefix of the second text,
+     * up to the given maximum.
+     */
+    static int overlap(String a, String b, int maxOverlap) {
+        int longest = Math.min(maxOverlap, Math.min(a.length(), b.length()));
+        for (int length = longest; length > 0; length--) {
+            if (a.regionMatches(a.length() - length, b, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the {@link EmbeddingMetadataKeys#INDEX} of the given segment.
+     *
+     * @param segment the segment
+     * @return the index, or <code>null</code> if unknown
+     */
+    static Integer index(TextSegment segment) {
+        // index is stored as string by the splitters, but may be numeric in other stores
+        Object index = segment.metadata().toMap().get(EmbeddingMetadataKeys.INDEX);
+        if (index == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(index.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer min(Integer a, Integer b) {
+        return a == null || b == null ? null : Math.min(a, b);
+    }
+
+    private static Integer max(Integer a, Integer b) {
+        return a == null || b == null ? null : Math.max(a, b);
+    }
+}
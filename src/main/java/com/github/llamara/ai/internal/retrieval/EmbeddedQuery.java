@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+
+/**
+ * {@link Query} carrying the embedding of its text through the {@link ContentRetriever} chain, so
+ * the text is embedded at most once per retrieval. If the embedding is not known when the query is
+ * created, the first retriever that embeds the text sets it for the later ones.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+final class EmbeddedQuery extends Query {
+    private volatile Embedding embedding;
+
+    private EmbeddedQuery(Query query, Embedding embedding) {
+        super(query.text(), query.metadata());
+        this.embedding = embedding;
+    }
+
+    private EmbeddedQuery(String text, Embedding embedding) {
+        super(text);
+        this.embedding = embedding;
+    }
+
+    /**
+     * Create an {@link EmbeddedQuery} for the given query.
+     *
+     * @param query the query
+     * @param embedding the embedding of the query text, <code>null</code> if not known yet
+     * @return the embedded query
+     */
+    static EmbeddedQuery from(Query query, Embedding embedding) {
+        return query.metadata() != null
+                ? new EmbeddedQuery(query, embedding)
+                : new EmbeddedQuery(query.text(), embedding);
+    }
+
+    /**
+     * Get the embedding of the query text.
+     *
+     * @return the embedding, <code>null</code> if not known yet
+     */
+    Embedding embedding() {
+        return embedding;
+    }
+
+    /**
+     * Set the embedding of the query text, once a retriever has embedded it.
+     *
+     * @param embedding the embedding
+     */
+    void embedding(Embedding embedding) {
+        this.embedding = embedding;
+    }
+}
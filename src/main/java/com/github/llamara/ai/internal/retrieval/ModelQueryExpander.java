@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import dev.langchain4j.model.chat.ChatModel;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link QueryExpander} generating query variants with a chat model. Generated variants are kept
+ * in a least-recently-used cache, so repeated queries do not call the model again. If the model
+ * call fails, only the original query is used.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class ModelQueryExpander implements QueryExpander {
+    private static final String PROMPT_TEMPLATE =
+            """
+Generate %d different versions of the search query delimited by <query> and </query>.
+The versions are used to retrieve relevant documents from a vector database,
+so vary the wording and perspective, but keep the meaning and the language of the query.
+Answer ONLY with the versions, one per line, without numbering or explanation.
+
+<query>%s</query>
+""";
+    private static final Pattern LIST_MARKER_PATTERN =
+            Pattern.compile("^\\s*(?:\\d+[.)]|[-*•])\\s*");
+
+    private final ChatModel model;
+    private final int maxQueries;
+    private final Map<String, List<String>> cache;
+
+    /**
+     * @param model the chat model to generate the variants with
+     * @param maxQueries the maximum number of queries including the original query
+     * @param cache the shared cache of generated variants, must be thread-safe
+     */
+    ModelQueryExpander(ChatModel model, int maxQueries, Map<String, List<String>> cache) {
+        this.model = model;
+        this.maxQueries = maxQueries;
+        this.cache = cache;
+    }
+
+    /**
+     * Create a thread-safe least-recently-used cache for generated variants.
+     *
+     * @param maxEntries the maximum number of entries
+     * @return the cache
+     */
+    static Map<String, List<String>> createCache(int maxEntries) {
+        return Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                        return size() > maxEntries;
+                    }
+                });
+    }
+
+    @Override
+    public List<String> expand(String query) {
+        if (maxQueries <= 1) {
+            return List.of(query);
+        }
+        List<String> variants = cache.get(query);
+        if (variants == null) {
+            try {
+                variants = generate(query);
+            } catch (RuntimeException e) {
+                Log.warnf(e, "Failed to generate query variants, using original query only.");
+                return List.of(query);
+            }
+            cache.put(query, variants);
+        }
+        return variants;
+    }
+
+    private List<String> generate(String query) {
+        String answer = model.chat(String.format(PROMPT_TEMPLATE, maxQueries - 1, query));
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(query);
+        answer.lines()
+                .map(line -> LIST_MARKER_PATTERN.matcher(line).replaceFirst("").strip())
+                .filter(line -> !line.isEmpty())
+                .forEach(variants::add);
+        return variants.stream().limit(maxQueries).toList();
+    }
+}
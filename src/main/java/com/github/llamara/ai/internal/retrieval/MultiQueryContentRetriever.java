@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.telemetry.StageTracer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link ContentRetriever} that searches the {@link EmbeddingStore} with several variants of the
+ * query and merges the results. All variants are embedded in a single batch and searched
+ * concurrently, so retrieval latency stays close to that of a single search. The embedding of the
+ * original query is reused if it is carried by an {@link EmbeddedQuery}.
+ *
+ * <p>The filter is resolved on the calling thread, as it may depend on request-scoped beans, which
+ * are not available on the search threads. Query expansion, embedding and the whole search are
+ * traced as separate stages by the {@link StageTracer}. With a single query and a direct executor,
+ * it behaves like {@link dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class MultiQueryContentRetriever implements ContentRetriever {
+    private final EmbeddingStore<TextSegment> store;
+    private final EmbeddingModel model;
+    private final QueryExpander expander;
+    private final Function<Query, Filter> filter;
+    private final Executor executor;
+    private final int maxResults;
+    private final double minScore;
+    private final StageTracer stageTracer;
+
+    /**
+     * @param store the embedding store to search
+     * @param model the embedding model to embed the queries with
+     * @param expander the expander to produce the query variants
+     * @param filter the filter to apply to all searches, resolved on the calling thread
+     * @param executor the executor to run the searches on
+     * @param maxResults the maximum number of results per search and in total
+     * @param minScore the minimum score of results
+     * @param stageTracer the tracer for the retrieval stages
+     */
+    MultiQueryContentRetriever(
+            EmbeddingStore<TextSegment> store,
+            EmbeddingModel model,
+            QueryExpander expander,
+            Function<Query, Filter> filter,
+            Executor executor,
+            int maxResults,
+            double minScore,
+            StageTracer stageTracer) {
+        this.store = store;
+        this.model = model;
+        this.expander = expander;
+        this.filter = filter;
+        this.executor = executor;
+        this.maxResults = maxResults;
+        this.minScore = minScore;
+        this.stageTracer = stageTracer;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        Filter resolvedFilter = filter.apply(query);
+        List<String> queries =
+                stageTracer.trace(
+                        StageTracer.Stage.QUERY_EXPANSION,
+                        null,
+                        () -> expander.expand(query.text()),
+                        (span, result) ->
+                                span.setAttribute(StageTracer.RESULT_COUNT, result.size()));
+        Log.debugf("Searching with %d query variants: %s", queries.size(), queries);
+        List<Embedding> embeddings = embedAll(query, queries);
+
+        Map<String, EmbeddingMatch<TextSegment>> matches =
+                stageTracer.trace(
+                        StageTracer.Stage.SEARCH,
+                        null,
+                        () -> searchAll(embeddings, resolvedFilter),
+                        (span, result) ->
+                                span.setAttribute(StageTracer.RESULT_COUNT, result.size()));
+
+        return matches.values().stream()
+                .sorted(Comparator.comparingDouble(EmbeddingMatch<TextSegment>::score).reversed())
+                .limit(maxResults)
+                .map(
+                        match ->
+                                Content.from(
+                                        match.embedded(),
+                                        Map.of(
+                                                ContentMetadata.SCORE,
+                                                match.score(),
+                                                ContentMetadata.EMBEDDING_ID,
+                                                match.embeddingId())))
+                .toList();
+    }
+
+    /**
+     * Embed all query variants in a single batch. The embedding of the original query is reused if
+     * it is carried by an {@link EmbeddedQuery}, otherwise it is set on it.
+     *
+     * @param query the original query
+     * @param queries the query variants, starting with the original query
+     * @return the embeddings of the query variants
+     */
+    private List<Embedding> embedAll(Query query, List<String> queries) {
+        EmbeddedQuery embeddedQuery = query instanceof EmbeddedQuery e ? e : null;
+        Embedding known = embeddedQuery != null ? embeddedQuery.embedding() : null;
+        List<String> missing = known != null ? queries.subList(1, queries.size()) : queries;
+        List<Embedding> embeddings = new ArrayList<>(queries.size());
+        if (known != null) {
+            embeddings.add(known);
+        }
+        if (!missing.isEmpty()) {
+            embeddings.addAll(
+                    stageTracer.trace(
+                            StageTracer.Stage.EMBEDDING,
+                            null,
+                            () ->
+                                    model.embedAll(missing.stream().map(TextSegment::from).toList())
+                                            .content()));
+        }
+        if (embeddedQuery != null && known == null) {
+            embeddedQuery.embedding(embeddings.get(0));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Search with all embeddings concurrently and merge the results, keeping the highest score of
+     * each match.
+     */
+    private Map<String, EmbeddingMatch<TextSegment>> searchAll(
+            List<Embedding> embeddings, Filter filter) {
+        List<CompletableFuture<List<EmbeddingMatch<TextSegment>>>> searches =
+                embeddings.stream()
+                        .map(
+                                embedding ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> search(embedding, filter), executor))
+                        .toList();
+
+        Map<String, EmbeddingMatch<TextSegment>> matches = new HashMap<>();
+        for (CompletableFuture<List<EmbeddingMatch<TextSegment>>> search : searches) {
+            List<EmbeddingMatch<TextSegment>> result;
+            try {
+                result = search.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+            for (EmbeddingMatch<TextSegment> match : result) {
+                matches.merge(
+                        match.embeddingId(),
+                        match,
+                        (a, b) -> a.score() >= b.score() ? a : b);
+            }
+        }
+        return matches;
+    }
+
+    private List<EmbeddingMatch<TextSegment>> search(Embedding embedding, Filter filter) {
+        return store.search(
+                        EmbeddingSearchRequest.builder()
+                                .queryEmbedding(embedding)
+                                .maxResults(maxResults)
+                                .minScore(minScore)
+                                .filter(filter)
+                                .build())
+                .matches();
+    }
+}
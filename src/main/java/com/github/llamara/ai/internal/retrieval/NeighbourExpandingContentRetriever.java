@@ -0,0 +1,201 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link ContentRetriever} that adds the neighbouring segments of the same knowledge to the top
+ * results of its delegate, using the {@link EmbeddingMetadataKeys#INDEX} metadata written by the
+ * splitters. The neighbours of all expanded results are fetched with a single filtered {@link
+ * ScrollableEmbeddingStore#scroll(Filter, int)}, so no additional vector search is needed.
+ *
+ * <p>Neighbours are placed directly after the result they belong to and take over its score, so the
+ * {@link ContextPacker} merges them into a contiguous passage before injection.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class NeighbourExpandingContentRetriever implements ContentRetriever {
+    private final ContentRetriever delegate;
+    private final ScrollableEmbeddingStore store;
+    private final Function<Query, Filter> filter;
+    private final int neighbours;
+    private final int maxHits;
+
+    /**
+     * @param delegate the retriever to expand the results of
+     * @param store the embedding store to fetch the neighbours from
+     * @param filter the filter the neighbours must match, resolved on the calling thread
+     * @param neighbours the number of neighbours to add before and after each result
+     * @param maxHits the number of top results to expand
+     */
+    NeighbourExpandingContentRetriever(
+            ContentRetriever delegate,
+            ScrollableEmbeddingStore store,
+            Function<Query, Filter> filter,
+            int neighbours,
+            int maxHits) {
+        this.delegate = delegate;
+        this.store = store;
+        this.filter = filter;
+        this.neighbours = neighbours;
+        this.maxHits = maxHits;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        List<Content> contents = delegate.retrieve(query);
+        if (contents.isEmpty() || neighbours <= 0) {
+            return contents;
+        }
+
+        Set<Position> retrieved = new HashSet<>();
+        for (Content content : contents) {
+            Position position = Position.of(content.textSegment());
+            if (position != null) {
+                retrieved.add(position);
+            }
+        }
+        Map<String, Set<Integer>> missing = new LinkedHashMap<>();
+        for (Content hit : contents.subList(0, Math.min(maxHits, contents.size()))) {
+            Position position = Position.of(hit.textSegment());
+            if (position == null) {
+                continue;
+            }
+            for (Position neighbour : position.neighbours(neighbours)) {
+                if (!retrieved.contains(neighbour)) {
+                    missing.computeIfAbsent(neighbour.knowledgeId(), k -> new TreeSet<>())
+                            .add(neighbour.index());
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return contents;
+        }
+
+        Map<Position, Map.Entry<String, TextSegment>> fetched = fetch(query, missing);
+        Log.debugf("Fetched %d neighbouring segments.", fetched.size());
+
+        List<Content> result = new ArrayList<>(contents.size() + fetched.size());
+        for (Content content : contents) {
+            result.add(content);
+            Position position = Position.of(content.textSegment());
+            if (position == null) {
+                continue;
+            }
+            for (Position neighbour : position.neighbours(neighbours)) {
+                Map.Entry<String, TextSegment> segment = fetched.remove(neighbour);
+                if (segment != null) {
+                    result.add(toContent(segment.getKey(), segment.getValue(), content));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<Position, Map.Entry<String, TextSegment>> fetch(
+            Query query, Map<String, Set<Integer>> missing) {
+        Filter neighbourFilter =
+                missing.entrySet().stream()
+                        .map(entry -> positionFilter(entry.getKey(), entry.getValue()))
+                        .reduce(Filter::or)
+                        .orElseThrow();
+        int limit = missing.values().stream().mapToInt(Set::size).sum();
+
+        Map<Position, Map.Entry<String, TextSegment>> fetched = new HashMap<>();
+        for (Map.Entry<String, TextSegment> entry :
+                store.scroll(filter.apply(query).and(neighbourFilter), limit).entrySet()) {
+            Position position = Position.of(entry.getValue());
+            if (position != null) {
+                fetched.put(position, entry);
+            }
+        }
+        return fetched;
+    }
+
+    private static Filter positionFilter(String knowledgeId, Set<Integer> indices) {
+        // index is stored as string by the splitters
+        return metadataKey(EmbeddingMetadataKeys.KNOWLEDGE_ID)
+                .isEqualTo(knowledgeId)
+                .and(
+                        metadataKey(EmbeddingMetadataKeys.INDEX)
+                                .isIn(indices.stream().map(String::valueOf).toList()));
+    }
+
+    private static Content toContent(String embeddingId, TextSegment segment, Content hit) {
+        Map<ContentMetadata, Object> metadata = new HashMap<>();
+        metadata.put(ContentMetadata.EMBEDDING_ID, embeddingId);
+        Object score = hit.metadata().get(ContentMetadata.SCORE);
+        if (score != null) {
+            metadata.put(ContentMetadata.SCORE, score);
+        }
+        return Content.from(segment, metadata);
+    }
+
+    /**
+     * The position of a segment within a knowledge document.
+     *
+     * @param knowledgeId the knowledge ID
+     * @param index the index of the segment
+     */
+    private record Position(String knowledgeId, int index) {
+        static Position of(TextSegment segment) {
+            String knowledgeId = segment.metadata().getString(EmbeddingMetadataKeys.KNOWLEDGE_ID);
+            Integer index = ContextPacker.index(segment);
+            if (knowledgeId == null || index == null) {
+                return null;
+            }
+            return new Position(knowledgeId, index);
+        }
+
+        /** Get the positions before and after this position, nearest first. */
+        List<Position> neighbours(int count) {
+            List<Position> positions = new ArrayList<>(2 * count);
+            for (int distance = 1; distance <= count; distance++) {
+                if (index - distance >= 0) {
+                    positions.add(new Position(knowledgeId, index - distance));
+                }
+                positions.add(new Position(knowledgeId, index + distance));
+            }
+            return positions;
+        }
+    }
+}
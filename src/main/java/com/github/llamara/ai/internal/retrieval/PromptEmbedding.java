@@ -0,0 +1,59 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import jakarta.enterprise.context.RequestScoped;
+
+import dev.langchain4j.data.embedding.Embedding;
+
+/**
+ * Request-scoped embedding of the prompt, computed before retrieval, e.g. by the semantic chat
+ * response cache. Retrieval reuses it instead of embedding the prompt again, see {@link
+ * EmbeddedQuery}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@RequestScoped
+public class PromptEmbedding {
+    private String prompt;
+    private Embedding embedding;
+
+    /**
+     * Set the embedding of the given prompt.
+     *
+     * @param prompt the prompt
+     * @param embedding the embedding of the prompt
+     */
+    public void set(String prompt, Embedding embedding) {
+        this.prompt = prompt;
+        this.embedding = embedding;
+    }
+
+    /**
+     * Get the embedding of the given text, if it is the prompt.
+     *
+     * @param text the text
+     * @return the embedding, <code>null</code> if the text is not the prompt or it has not been
+     *     embedded
+     */
+    Embedding get(String text) {
+        return text != null && text.equals(prompt) ? embedding : null;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.config.chat.ChatModelConfig;
+
+import java.util.Map;
+
+import dev.langchain4j.rag.RetrievalAugmentor;
+
+/**
+ * Interface specifying a provider for {@link RetrievalAugmentor}s, which augment the user message
+ * with the knowledge from the {@link dev.langchain4j.store.embedding.EmbeddingStore}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public interface RetrievalAugmentorProvider {
+    /**
+     * Get the {@link RetrievalAugmentor} for the given chat model, which respects the model's
+     * {@link ChatModelConfig.ModelConfig#contextTokenBudget()}.
+     *
+     * @param config the config of the chat model
+     * @param chatModels the available chat models by uid, e.g. for query expansion
+     * @return the retrieval augmentor
+     */
+    RetrievalAugmentor getRetrievalAugmentor(
+            ChatModelConfig.ModelConfig config,
+            Map<String, dev.langchain4j.model.chat.ChatModel> chatModels);
+}
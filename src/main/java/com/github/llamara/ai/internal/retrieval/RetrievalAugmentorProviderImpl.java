@@ -0,0 +1,346 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.config.RetrievalConfig;
+import com.github.llamara.ai.config.chat.ChatMemoryConfig;
+import com.github.llamara.ai.config.chat.ChatModelConfig;
+import com.github.llamara.ai.config.ingestion.DocumentSplitterConfig;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+import com.github.llamara.ai.internal.StartupException;
+import com.github.llamara.ai.internal.chat.memory.TokenCountStore;
+import com.github.llamara.ai.internal.knowledge.embedding.EmbeddingStorePermissionMetadataManager;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+import com.github.llamara.ai.internal.telemetry.StageTracer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToIntFunction;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
+import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Metadata;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.logging.Log;
+import io.quarkus.security.identity.SecurityIdentity;
+
+/**
+ * Implementation of the {@link RetrievalAugmentorProvider} using the {@link EmbeddingStore} and
+ * {@link EmbeddingModel} CDI beans. The provided {@link RetrievalAugmentor}s augment the user
+ * message with the knowledge from the {@link EmbeddingStore}. See <a
+ * href="https://docs.langchain4j.dev/tutorials/rag/#retrieval-augmentor">LangChain4j Docs: RAG:
+ * Retrieval Augmentor</a>.
+ *
+ * <p>The content retriever, prompt templates and tokenizer are shared between all chat models,
+ * only the {@link ContentInjectorImpl} is specific to the chat model's token budget, which the chat
+ * memory of the request takes precedence over. If query
+ * expansion is enabled, searches run on a bounded thread pool shared between all chat models.
+ * Filter construction, query expansion, embedding, search and prompt assembly are traced by the
+ * {@link StageTracer}. The prompt embedding computed before retrieval, see {@link
+ * PromptEmbedding}, is passed through the retriever chain as {@link EmbeddedQuery}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+class RetrievalAugmentorProviderImpl implements RetrievalAugmentorProvider {
+    private final EmbeddingStore<TextSegment> store;
+    private final EmbeddingModel model;
+    private final SecurityIdentity identity;
+    private final RetrievalScope scope;
+    private final PromptEmbedding promptEmbedding;
+    private final EmbeddingStorePermissionMetadataManager permissionMetadataManager;
+    private final RetrievalConfig config;
+    private final StageTracer stageTracer;
+    private final TokenCountStore tokenCountStore;
+    private final CompiledPromptTemplate promptTemplate;
+    private final CompiledPromptTemplate noContentsPromptTemplate;
+    private final ContextPacker contextPacker;
+    private final ExecutorService searchExecutor;
+    private final Map<String, List<String>> queryExpansionCache;
+
+    private ContentRetriever contentRetriever;
+
+    @Inject
+    RetrievalAugmentorProviderImpl(
+            EmbeddingStore<TextSegment> store,
+            EmbeddingModel model,
+            SecurityIdentity identity,
+            RetrievalScope scope,
+            PromptEmbedding promptEmbedding,
+            EmbeddingStorePermissionMetadataManager permissionMetadataManager,
+            RetrievalConfig config,
+            ChatMemoryConfig chatMemoryConfig,
+            DocumentSplitterConfig documentSplitterConfig,
+            StageTracer stageTracer,
+            TokenCountStore tokenCountStore) {
+        this.store = store;
+        this.model = model;
+        this.identity = identity;
+        this.scope = scope;
+        this.promptEmbedding = promptEmbedding;
+        this.permissionMetadataManager = permissionMetadataManager;
+        this.config = config;
+        this.stageTracer = stageTracer;
+        this.tokenCountStore = tokenCountStore;
+        this.promptTemplate = CompiledPromptTemplate.from(config.promptTemplate());
+        this.noContentsPromptTemplate =
+                CompiledPromptTemplate.from(config.missingKnowledgePromptTemplate());
+        this.contextPacker =
+                new ContextPacker(
+                        produceTokenCounter(chatMemoryConfig),
+                        documentSplitterConfig.maxOverlapSize());
+        RetrievalConfig.QueryExpansion queryExpansion = config.queryExpansion();
+        if (queryExpansion.enabled()) {
+            this.searchExecutor = Executors.newFixedThreadPool(queryExpansion.parallelism());
+            this.queryExpansionCache = ModelQueryExpander.createCache(queryExpansion.cacheSize());
+        } else {
+            this.searchExecutor = null;
+            this.queryExpansionCache = null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (searchExecutor != null) {
+            searchExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Produce the token counter for the context budget. The tokenizer is created once, as creating
+     * it loads its encoding. Without a configured tokenizer, tokens are estimated as four
+     * characters each.
+     */
+    private static ToIntFunction<String> produceTokenCounter(ChatMemoryConfig config) {
+        if (config.tokenizer().isEmpty()) {
+            return text -> (text.length() + 3) / 4;
+        }
+        ChatMemoryConfig.TokenizerConfig tokenizerConfig = config.tokenizer().get();
+        return switch (tokenizerConfig.provider()) {
+            case OPENAI ->
+                    new OpenAiTokenCountEstimator(tokenizerConfig.model())
+                            ::estimateTokenCountInText;
+        };
+    }
+
+    /**
+     * Build the filter for the given query. Must be called on the request thread, as it uses the
+     * request-scoped {@link SecurityIdentity} and {@link RetrievalScope}.
+     *
+     * @param query the query
+     * @return the filter
+     */
+    private Filter buildFilter(Query query) {
+        return stageTracer.trace(StageTracer.Stage.FILTER, null, this::createFilter);
+    }
+
+    private Filter createFilter() {
+        // Note: Admins can manage all knowledge, but can only access knowledge with explicit
+        // permission for retrieval
+        // permission is stored as indexed keyword array, so a match-any filter can be served by the
+        // payload index
+        Collection<String> metadataQueries =
+                PermissionMetadataMapper.identityToMetadataQueries(identity);
+        Filter permissionFilter =
+                metadataKey(EmbeddingMetadataKeys.PERMISSION).isIn(metadataQueries);
+        if (permissionMetadataManager.hasLegacyPermissionMetadata()) {
+            // not yet migrated embeddings store the permission as delimited string
+            for (String metadataQuery : metadataQueries) {
+                permissionFilter =
+                        permissionFilter.or(
+                                metadataKey(EmbeddingMetadataKeys.PERMISSION)
+                                        .containsString(
+                                                PermissionMetadataMapper
+                                                        .metadataValuesToMetadataEntry(
+                                                                List.of(metadataQuery))));
+            }
+        }
+        // user-provided scope further narrows the search
+        Filter filter = scope.toFilter().map(permissionFilter::and).orElse(permissionFilter);
+        Log.tracef("Dynamic filter for query: %s", filter);
+        return filter;
+    }
+
+    private ContentRetriever buildContentRetriever(
+            Map<String, dev.langchain4j.model.chat.ChatModel> chatModels) {
+        // Adaptive top-k over-fetches candidates and cuts them at the score gap
+        boolean adaptive = config.adaptive().enabled();
+        int maxResults = adaptive ? config.adaptive().maxCandidates() : config.maxResults();
+        // the multi-query retriever is also used without expansion, so all stages are traced
+        boolean expansion = config.queryExpansion().enabled();
+        ContentRetriever retriever =
+                new MultiQueryContentRetriever(
+                        store,
+                        model,
+                        expansion ? buildQueryExpander(chatModels) : List::of,
+                        this::buildFilter,
+                        expansion ? searchExecutor : Runnable::run,
+                        maxResults,
+                        config.minScore(),
+                        stageTracer);
+        if (adaptive) {
+            retriever = new ScoreGapContentRetriever(retriever, config.adaptive().minResults());
+        }
+        if (config.neighbourExpansion().enabled()) {
+            // the injected store is a client proxy only implementing the produced bean type
+            if (ClientProxy.unwrap(store) instanceof ScrollableEmbeddingStore scrollableStore) {
+                retriever =
+                        new NeighbourExpandingContentRetriever(
+                                retriever,
+                                scrollableStore,
+                                this::buildFilter,
+                                config.neighbourExpansion().neighbours(),
+                                config.neighbourExpansion().maxHits());
+            } else {
+                Log.warn("Embedding store does not support scrolling, neighbour expansion is off.");
+            }
+        }
+        if (config.compression().enabled()) {
+            retriever = new CompressingContentRetriever(retriever, config.compression(), model);
+        }
+        return retriever;
+    }
+
+    private QueryExpander buildQueryExpander(
+            Map<String, dev.langchain4j.model.chat.ChatModel> chatModels) {
+        RetrievalConfig.QueryExpansion queryExpansion = config.queryExpansion();
+        return switch (queryExpansion.type()) {
+            case RULES -> new RuleBasedQueryExpander(queryExpansion.maxQueries());
+            case MODEL -> {
+                dev.langchain4j.model.chat.ChatModel chatModel =
+                        queryExpansion.modelUid().map(chatModels::get).orElse(null);
+                if (chatModel == null) {
+                    throw new StartupException(
+                            "Query expansion of type model requires the uid of a configured chat"
+                                    + " model.");
+                }
+                yield new ModelQueryExpander(
+                        chatModel, queryExpansion.maxQueries(), queryExpansionCache);
+            }
+        };
+    }
+
+    @Override
+    public synchronized RetrievalAugmentor getRetrievalAugmentor(
+            ChatModelConfig.ModelConfig config,
+            Map<String, dev.langchain4j.model.chat.ChatModel> chatModels) {
+        if (contentRetriever == null) {
+            contentRetriever = buildContentRetriever(chatModels);
+        }
+        if (config.contextTokenBudget().isEmpty()) {
+            return buildRetrievalAugmentor(config, Integer.MAX_VALUE);
+        }
+        int contextTokenBudget = config.contextTokenBudget().get();
+        // the chat memory is sent along with the injected contents, so it uses up the budget first
+        return request ->
+                buildRetrievalAugmentor(
+                                config,
+                                Math.max(
+                                        0,
+                                        contextTokenBudget
+                                                - countChatMemoryTokens(request.metadata())))
+                        .augment(request);
+    }
+
+    private RetrievalAugmentor buildRetrievalAugmentor(
+            ChatModelConfig.ModelConfig config, int tokenBudget) {
+        return DefaultRetrievalAugmentor.builder()
+                .queryTransformer(this::embedQuery)
+                .contentRetriever(contentRetriever)
+                .contentInjector(
+                        new ContentInjectorImpl(
+                                promptTemplate,
+                                noContentsPromptTemplate,
+                                contextPacker,
+                                tokenBudget,
+                                stageTracer,
+                                config.uid()))
+                .build();
+    }
+
+    /**
+     * Carry the prompt embedding through the retriever chain, if it has already been computed.
+     * Must be called on the request thread, as it uses the request-scoped {@link PromptEmbedding}.
+     *
+     * @param query the query
+     * @return the query as {@link EmbeddedQuery}
+     */
+    private Collection<Query> embedQuery(Query query) {
+        return List.of(EmbeddedQuery.from(query, promptEmbedding.get(query.text())));
+    }
+
+    /**
+     * Count the tokens of the chat memory the prompt is sent with. The sum of the token counts
+     * stored by the token window memory is used if their number matches the memory, otherwise the
+     * messages are counted with the shared tokenizer.
+     *
+     * @param metadata the metadata of the augmentation request, may be <code>null</code>
+     * @return the number of tokens
+     */
+    private int countChatMemoryTokens(Metadata metadata) {
+        if (metadata == null || metadata.chatMemory() == null) {
+            return 0;
+        }
+        List<ChatMessage> messages = metadata.chatMemory();
+        if (metadata.chatMemoryId() != null) {
+            Optional<TokenCountStore.TokenTotal> total =
+                    tokenCountStore
+                            .getTokenTotal(metadata.chatMemoryId())
+                            .filter(t -> t.count() > 0 && t.count() == messages.size());
+            if (total.isPresent()) {
+                return total.get().sum();
+            }
+        }
+        return messages.stream().map(this::text).mapToInt(contextPacker::countTokens).sum();
+    }
+
+    private String text(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage systemMessage -> systemMessage.text();
+            case UserMessage userMessage when userMessage.hasSingleText() ->
+                    userMessage.singleText();
+            case AiMessage aiMessage when aiMessage.text() != null -> aiMessage.text();
+            case ToolExecutionResultMessage toolMessage -> toolMessage.text();
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.CommonMetadataKeys;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import jakarta.enterprise.context.RequestScoped;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+
+/**
+ * Request-scoped, user-provided restriction of the knowledge to retrieve from, e.g. "only search
+ * the HR handbook". Each non-empty criterion must match, inside a criterion any value may match.
+ * The resulting filter is ANDed with the permission filter by {@link
+ * RetrievalAugmentorProviderImpl}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@RequestScoped
+public class RetrievalScope {
+    private Collection<String> tags = List.of();
+    private Collection<UUID> knowledgeIds = List.of();
+    private Collection<String> contentTypes = List.of();
+
+    /**
+     * Restrict retrieval to knowledge with any of the given tags, knowledge ids and content types.
+     * <code>null</code> or empty collections do not restrict retrieval.
+     *
+     * @param tags the tags
+     * @param knowledgeIds the knowledge ids
+     * @param contentTypes the content types
+     */
+    public void restrict(
+            Collection<String> tags,
+            Collection<UUID> knowledgeIds,
+            Collection<String> contentTypes) {
+        this.tags = tags != null ? List.copyOf(tags) : List.of();
+        this.knowledgeIds = knowledgeIds != null ? List.copyOf(knowledgeIds) : List.of();
+        this.contentTypes = contentTypes != null ? List.copyOf(contentTypes) : List.of();
+    }
+
+    /**
+     * Whether retrieval is restricted.
+     *
+     * @return whether any criterion is set
+     */
+    public boolean isRestricted() {
+        return !tags.isEmpty() || !knowledgeIds.isEmpty() || !contentTypes.isEmpty();
+    }
+
+    /**
+     * Get the {@link Filter} for the restriction.
+     *
+     * @return the filter, empty if not restricted
+     */
+    Optional<Filter> toFilter() {
+        List<Filter> filters = new ArrayList<>(3);
+        if (!tags.isEmpty()) {
+            filters.add(metadataKey(EmbeddingMetadataKeys.TAGS).isIn(tags));
+        }
+        if (!knowledgeIds.isEmpty()) {
+            filters.add(
+                    metadataKey(EmbeddingMetadataKeys.KNOWLEDGE_ID)
+                            .isIn(knowledgeIds.stream().map(UUID::toString).toList()));
+        }
+        if (!contentTypes.isEmpty()) {
+            filters.add(metadataKey(CommonMetadataKeys.CONTENT_TYPE).isIn(contentTypes));
+        }
+        return filters.stream().reduce(Filter::and);
+    }
+}
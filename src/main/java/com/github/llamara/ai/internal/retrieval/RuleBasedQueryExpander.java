@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QueryExpander} using rule-based rewrites without a model call:
+ *
+ * <ul>
+ *   <li>a keyword-only variant without question and filler words, and
+ *   <li>one variant per part of a compound question, e.g. "What is X and how does Y work?".
+ * </ul>
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class RuleBasedQueryExpander implements QueryExpander {
+    private static final Pattern WORD_SPLIT_PATTERN = Pattern.compile("[^\\p{L}\\p{N}-]+");
+    private static final Pattern COMPOUND_SPLIT_PATTERN =
+            Pattern.compile("\\s*(?:;|\\?\\s+|\\s(?:and|und)\\s)\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> FILLER_WORDS =
+            Set.of(
+                    // English
+                    "a", "an", "the", "is", "are", "was", "were", "be", "do", "does", "did", "can",
+                    "could", "should", "would", "will", "i", "me", "my", "we", "our", "you", "your",
+                    "it", "of", "to", "in", "on", "for", "and", "or", "what", "which", "who",
+                    "whom", "how", "when", "where", "why", "please", "tell", "about", "there",
+                    // German
+                    "der", "die", "das", "ein", "eine", "einen", "ist", "sind", "war", "kann",
+                    "können", "soll", "wird", "ich", "mir", "mein", "wir", "du", "sie", "es",
+                    "von", "zu", "im", "in", "auf", "für", "und", "oder", "was", "welche",
+                    "welcher", "wer", "wie", "wann", "wo", "warum", "bitte", "über");
+    private static final int MIN_PART_LENGTH = 10;
+
+    private final int maxQueries;
+
+    RuleBasedQueryExpander(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    public List<String> expand(String query) {
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(query);
+
+        String keywords =
+                WORD_SPLIT_PATTERN
+                        .splitAsStream(query)
+                        .filter(word -> !word.isEmpty())
+                        .filter(word -> !FILLER_WORDS.contains(word.toLowerCase(Locale.ROOT)))
+                        .collect(Collectors.joining(" "));
+        if (!keywords.isBlank()) {
+            variants.add(keywords);
+        }
+
+        List<String> parts =
+                COMPOUND_SPLIT_PATTERN
+                        .splitAsStream(query.strip())
+                        .filter(part -> part.length() >= MIN_PART_LENGTH)
+                        .toList();
+        if (parts.size() > 1) {
+            variants.addAll(parts);
+        }
+
+        return variants.stream().limit(maxQueries).toList();
+    }
+}
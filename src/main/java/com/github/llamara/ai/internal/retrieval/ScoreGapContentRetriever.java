@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.List;
+
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import io.quarkus.logging.Log;
+
+/**
+ * {@link ContentRetriever} that cuts the results of its delegate at the largest gap between the
+ * scores of two consecutive contents. The delegate is expected to over-fetch candidates sorted by
+ * descending score.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class ScoreGapContentRetriever implements ContentRetriever {
+    private final ContentRetriever delegate;
+    private final int minResults;
+
+    ScoreGapContentRetriever(ContentRetriever delegate, int minResults) {
+        this.delegate = delegate;
+        this.minResults = minResults;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        List<Content> candidates = delegate.retrieve(query);
+        List<Content> contents = cutAtLargestScoreGap(candidates, minResults);
+        Log.debugf("Kept %d of %d retrieved candidates.", contents.size(), candidates.size());
+        return contents;
+    }
+
+    /**
+     * Cut the given contents at the largest gap between the scores of two consecutive contents,
+     * keeping at least the given number of contents.
+     *
+     * @param contents the contents sorted by descending score
+     * @param minResults the minimum number of contents to keep
+     * @return the contents before the largest score gap
+     */
+    static List<Content> cutAtLargestScoreGap(List<Content> contents, int minResults) {
+        if (contents.size() <= minResults) {
+            return contents;
+        }
+        int cut = contents.size();
+        double largestGap = 0;
+        for (int i = Math.max(minResults, 1); i < contents.size(); i++) {
+            double gap = score(contents.get(i - 1)) - score(contents.get(i));
+            if (gap > largestGap) {
+                largestGap = gap;
+                cut = i;
+            }
+        }
+        return contents.subList(0, cut);
+    }
+
+    private static double score(Content content) {
+        Object score = content.metadata().get(ContentMetadata.SCORE);
+        return score instanceof Number number ? number.doubleValue() : 0;
+    }
+}
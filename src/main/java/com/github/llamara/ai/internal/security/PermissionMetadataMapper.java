@@ -20,13 +20,13 @@
 package com.github.llamara.ai.internal.security;
 
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.MetadataArrayMapper;
 import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
 import com.github.llamara.ai.internal.security.user.User;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import io.quarkus.security.identity.SecurityIdentity;
 
@@ -34,10 +34,14 @@ import io.quarkus.security.identity.SecurityIdentity;
  * Mapper for converting between {@link Knowledge} permissions, {@link
  * EmbeddingMetadataKeys#PERMISSION} metadata and usernames of users with read permission.
  *
+ * <p>Inside {@link dev.langchain4j.data.segment.TextSegment} metadata, the permission is a string
+ * of delimited usernames, as metadata does not support arrays. Embedding stores store it as an
+ * indexed keyword array of usernames, which is queried with a match-any filter.
+ *
  * @author Florian Hotze - Initial contribution
  */
 public final class PermissionMetadataMapper {
-    public static final String DELIMITER = "|";
+    public static final String DELIMITER = MetadataArrayMapper.DELIMITER;
 
     private PermissionMetadataMapper() {}
 
@@ -49,31 +53,58 @@ public final class PermissionMetadataMapper {
      * @return the metadata entry
      */
     public static String permissionsToMetadataEntry(Map<User, Permission> permissions) {
-        String inner =
-                permissions.entrySet().stream()
-                        .filter(entry -> entry.getValue() != Permission.NONE)
-                        .map(Map.Entry::getKey)
-                        .map(User::getUsername)
-                        .collect(Collectors.joining(DELIMITER));
-        if (inner.isEmpty()) {
-            return "";
-        }
-        return DELIMITER + inner + DELIMITER;
+        return MetadataArrayMapper.valuesToMetadataEntry(permissionsToMetadataValues(permissions));
+    }
+
+    /**
+     * Convert {@link Knowledge} permissions to the values of the {@link
+     * EmbeddingMetadataKeys#PERMISSION} keyword array in the embedding store, i.e. the usernames of
+     * all users that are allowed to read the knowledge.
+     *
+     * @param permissions the permissions to convert
+     * @return the usernames
+     */
+    public static List<String> permissionsToMetadataValues(Map<User, Permission> permissions) {
+        return permissions.entrySet().stream()
+                .filter(entry -> entry.getValue() != Permission.NONE)
+                .map(Map.Entry::getKey)
+                .map(User::getUsername)
+                .toList();
+    }
+
+    /**
+     * Convert a {@link EmbeddingMetadataKeys#PERMISSION} metadata entry to the values of the
+     * keyword array in the embedding store.
+     *
+     * @param metadataEntry the metadata entry to convert
+     * @return the usernames
+     */
+    public static List<String> metadataEntryToMetadataValues(String metadataEntry) {
+        return MetadataArrayMapper.metadataEntryToValues(metadataEntry);
+    }
+
+    /**
+     * Convert the values of the {@link EmbeddingMetadataKeys#PERMISSION} keyword array in the
+     * embedding store to the metadata entry.
+     *
+     * @param metadataValues the usernames to convert
+     * @return the metadata entry
+     */
+    public static String metadataValuesToMetadataEntry(Collection<String> metadataValues) {
+        return MetadataArrayMapper.valuesToMetadataEntry(metadataValues);
     }
 
     /**
-     * Convert a {@link SecurityIdentity} to the query strings to check the {@link
-     * EmbeddingMetadataKeys#PERMISSION} metadata entry for.
+     * Convert a {@link SecurityIdentity} to the values to match the {@link
+     * EmbeddingMetadataKeys#PERMISSION} keyword array against, any of them has to match.
      *
      * @param identity the identity to convert
-     * @return the query strings
+     * @return the query values
      */
     public static Collection<String> identityToMetadataQueries(SecurityIdentity identity) {
-        String anyQuery = DELIMITER + Users.ANY_USERNAME + DELIMITER;
         if (identity.isAnonymous()) {
-            return List.of(anyQuery);
+            return List.of(Users.ANY_USERNAME);
         }
-        String userQuery = DELIMITER + identity.getPrincipal().getName() + DELIMITER;
-        return List.of(userQuery, anyQuery);
+        return List.of(identity.getPrincipal().getName(), Users.ANY_USERNAME);
     }
 }
@@ -22,6 +22,7 @@ package com.github.llamara.ai.internal.security.knowledge;
 import com.github.llamara.ai.config.SecurityConfig;
 import com.github.llamara.ai.internal.Utils;
 import com.github.llamara.ai.internal.knowledge.IllegalPermissionModificationException;
+import com.github.llamara.ai.internal.knowledge.IllegalTagException;
 import com.github.llamara.ai.internal.knowledge.KnowledgeManager;
 import com.github.llamara.ai.internal.knowledge.KnowledgeNotFoundException;
 import com.github.llamara.ai.internal.knowledge.persistence.Knowledge;
@@ -217,7 +218,8 @@ public class UserKnowledgeManagerImpl implements UserKnowledgeManager {
     }
 
     @Override
-    public void addTag(UUID id, String tag) throws KnowledgeNotFoundException {
+    public void addTag(UUID id, String tag)
+            throws KnowledgeNotFoundException, IllegalTagException {
         enforceKnowledgeEditable(id);
         delegate.addTag(id, tag);
     }
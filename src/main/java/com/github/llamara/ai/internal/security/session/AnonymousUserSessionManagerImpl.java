@@ -21,6 +21,8 @@ package com.github.llamara.ai.internal.security.session;
 
 import com.github.llamara.ai.config.SecurityConfig;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.memory.ChatMemorySummaryStore;
+import com.github.llamara.ai.internal.chat.memory.TokenCountStore;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -55,6 +57,8 @@ import io.smallrye.mutiny.Uni;
 public class AnonymousUserSessionManagerImpl implements SessionManager {
     private final SecurityConfig config;
     private final ChatMemoryStore chatMemoryStore;
+    private final TokenCountStore tokenCountStore;
+    private final ChatMemorySummaryStore chatMemorySummaryStore;
 
     private final Set<UUID> anonymousSessions = Collections.synchronizedSet(new HashSet<>());
     private final ScheduledExecutorService deletionScheduler = Executors.newScheduledThreadPool(1);
@@ -62,9 +66,15 @@ public class AnonymousUserSessionManagerImpl implements SessionManager {
             Collections.synchronizedMap(new HashMap<>());
 
     @Inject
-    public AnonymousUserSessionManagerImpl(SecurityConfig config, ChatMemoryStore chatMemoryStore) {
+    public AnonymousUserSessionManagerImpl(
+            SecurityConfig config,
+            ChatMemoryStore chatMemoryStore,
+            TokenCountStore tokenCountStore,
+            ChatMemorySummaryStore chatMemorySummaryStore) {
         this.config = config;
         this.chatMemoryStore = chatMemoryStore;
+        this.tokenCountStore = tokenCountStore;
+        this.chatMemorySummaryStore = chatMemorySummaryStore;
     }
 
     @Shutdown
@@ -103,6 +113,8 @@ public class AnonymousUserSessionManagerImpl implements SessionManager {
                         () -> {
                             Log.debugf("Cleaning up expired anonymous session '%s'.", sessionId);
                             chatMemoryStore.deleteMessages(sessionId);
+                            tokenCountStore.deleteTokenCounts(sessionId);
+                            chatMemorySummaryStore.deleteSummary(sessionId);
                             anonymousSessions.remove(sessionId);
                             scheduledDeletions.remove(sessionId);
                         },
@@ -133,6 +145,8 @@ public class AnonymousUserSessionManagerImpl implements SessionManager {
         scheduledDeletions.get(sessionId).cancel(false);
         scheduledDeletions.remove(sessionId);
         chatMemoryStore.deleteMessages(sessionId);
+        tokenCountStore.deleteTokenCounts(sessionId);
+        chatMemorySummaryStore.deleteSummary(sessionId);
         anonymousSessions.remove(sessionId);
         Log.debugf("Deleted anonymous session '%s'.", sessionId);
     }
@@ -142,6 +156,11 @@ public class AnonymousUserSessionManagerImpl implements SessionManager {
         return Uni.createFrom().item(Collections::emptyList);
     }
 
+    @Override
+    public Uni<List<ChatMessageRecord>> getChatHistory(UUID sessionId, long offset, long count) {
+        return Uni.createFrom().item(Collections::emptyList);
+    }
+
     @Override
     public void setSessionLabel(UUID sessionId, String label) {
         // do nothing
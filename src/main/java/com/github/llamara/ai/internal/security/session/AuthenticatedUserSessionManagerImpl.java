@@ -21,6 +21,8 @@ package com.github.llamara.ai.internal.security.session;
 
 import com.github.llamara.ai.internal.chat.history.ChatHistoryStore;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.memory.ChatMemorySummaryStore;
+import com.github.llamara.ai.internal.chat.memory.TokenCountStore;
 import com.github.llamara.ai.internal.security.user.User;
 import com.github.llamara.ai.internal.security.user.UserNotRegisteredException;
 import com.github.llamara.ai.internal.security.user.UserRepository;
@@ -53,6 +55,8 @@ public class AuthenticatedUserSessionManagerImpl implements SessionManager {
     private final UserRepository userRepository;
     private final UserAwareSessionRepository userAwareSessionRepository;
     private final ChatMemoryStore chatMemoryStore;
+    private final TokenCountStore tokenCountStore;
+    private final ChatMemorySummaryStore chatMemorySummaryStore;
     private final ChatHistoryStore chatHistoryStore;
 
     private final SecurityIdentity identity;
@@ -62,11 +66,15 @@ public class AuthenticatedUserSessionManagerImpl implements SessionManager {
             UserRepository userRepository,
             UserAwareSessionRepository userAwareSessionRepository,
             ChatMemoryStore chatMemoryStore,
+            TokenCountStore tokenCountStore,
+            ChatMemorySummaryStore chatMemorySummaryStore,
             ChatHistoryStore chatHistoryStore,
             SecurityIdentity identity) {
         this.userRepository = userRepository;
         this.userAwareSessionRepository = userAwareSessionRepository;
         this.chatMemoryStore = chatMemoryStore;
+        this.tokenCountStore = tokenCountStore;
+        this.chatMemorySummaryStore = chatMemorySummaryStore;
         this.chatHistoryStore = chatHistoryStore;
         this.identity = identity;
     }
@@ -114,6 +122,8 @@ public class AuthenticatedUserSessionManagerImpl implements SessionManager {
     public void deleteSession(UUID sessionId) throws SessionNotFoundException {
         userAwareSessionRepository.deleteById(sessionId);
         chatMemoryStore.deleteMessages(sessionId);
+        tokenCountStore.deleteTokenCounts(sessionId);
+        chatMemorySummaryStore.deleteSummary(sessionId);
         chatHistoryStore.deleteMessages(sessionId).subscribe().with(item -> {}, failure -> {});
         Log.debugf(
                 "Deleted session '%s' for user '%s'.",
@@ -127,6 +137,13 @@ public class AuthenticatedUserSessionManagerImpl implements SessionManager {
         return chatHistoryStore.getMessages(sessionId);
     }
 
+    @Override
+    public Uni<List<ChatMessageRecord>> getChatHistory(UUID sessionId, long offset, long count)
+            throws SessionNotFoundException {
+        enforceSessionValid(sessionId);
+        return chatHistoryStore.getMessages(sessionId, offset, count);
+    }
+
     @Transactional
     @Override
     public void setSessionLabel(UUID sessionId, String label) throws SessionNotFoundException {
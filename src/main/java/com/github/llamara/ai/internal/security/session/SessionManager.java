@@ -84,6 +84,19 @@ public interface SessionManager {
      */
     Uni<List<ChatMessageRecord>> getChatHistory(UUID sessionId) throws SessionNotFoundException;
 
+    /**
+     * Get a page of the chat history for the given session, counting from the newest message.
+     *
+     * @param sessionId the ID of the session
+     * @param offset the number of newest messages to skip
+     * @param count the maximum number of messages to get
+     * @return the messages of the page in chronological order
+     * @throws SessionNotFoundException if no session with the given ID was found for the current
+     *     user
+     */
+    Uni<List<ChatMessageRecord>> getChatHistory(UUID sessionId, long offset, long count)
+            throws SessionNotFoundException;
+
     /**
      * Sets the label of the given session.
      *
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.telemetry;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Request-scoped latency breakdown, summing up the durations of the {@link StageTracer.Stage}s
+ * traced while handling the request.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@RequestScoped
+class LatencyBreakdown {
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    /**
+     * Add the duration of a stage. Durations of a stage that runs several times are summed up.
+     *
+     * @param stage the stage
+     * @param nanos the duration in nanoseconds
+     */
+    synchronized void add(StageTracer.Stage stage, long nanos) {
+        durations.merge(stage.label(), nanos, Long::sum);
+    }
+
+    synchronized boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * Format the breakdown as value of the <code>Server-Timing</code> header, with durations in
+     * milliseconds, e.g. <code>embedding;dur=12.3, search;dur=4.5</code>.
+     *
+     * @return the header value
+     */
+    synchronized String toServerTiming() {
+        return durations.entrySet().stream()
+                .map(
+                        entry ->
+                                String.format(
+                                        Locale.ROOT,
+                                        "%s;dur=%.1f",
+                                        entry.getKey(),
+                                        entry.getValue() / 1_000_000.0))
+                .collect(Collectors.joining(", "));
+    }
+}
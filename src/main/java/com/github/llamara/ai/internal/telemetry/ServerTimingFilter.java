@@ -0,0 +1,60 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.telemetry;
+
+import com.github.llamara.ai.config.TelemetryConfig;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+/**
+ * Returns the {@link LatencyBreakdown} of a request in the <code>Server-Timing</code> response
+ * header, if enabled through {@link TelemetryConfig#serverTimingEnabled()} and requested through
+ * the <code>X-Debug-Timing</code> request header.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+class ServerTimingFilter {
+    static final String REQUEST_HEADER = "X-Debug-Timing";
+    static final String RESPONSE_HEADER = "Server-Timing";
+
+    private final TelemetryConfig config;
+    private final LatencyBreakdown breakdown;
+
+    @Inject
+    ServerTimingFilter(TelemetryConfig config, LatencyBreakdown breakdown) {
+        this.config = config;
+        this.breakdown = breakdown;
+    }
+
+    @ServerResponseFilter
+    public void addServerTiming(
+            ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!config.serverTimingEnabled()
+                || requestContext.getHeaderString(REQUEST_HEADER) == null
+                || breakdown.isEmpty()) {
+            return;
+        }
+        responseContext.getHeaders().add(RESPONSE_HEADER, breakdown.toServerTiming());
+    }
+}
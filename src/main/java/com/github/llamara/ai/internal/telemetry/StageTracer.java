@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.telemetry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.quarkus.arc.Arc;
+
+/**
+ * Traces the stages of answering a prompt. Each stage is recorded as OpenTelemetry span, as
+ * Micrometer timer tagged with the stage and the chat model, and in the {@link LatencyBreakdown} of
+ * the current request.
+ *
+ * <p>Stages running on threads without an active request context, e.g. inside a thread pool, are
+ * only recorded as span and timer.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@ApplicationScoped
+public class StageTracer {
+    public static final String MODEL_UID = "llamara.model.uid";
+    public static final String RESULT_COUNT = "llamara.result.count";
+    public static final String TOKENS_INJECTED = "llamara.tokens.injected";
+    public static final String TOKENS_INPUT = "llamara.tokens.input";
+    public static final String TOKENS_OUTPUT = "llamara.tokens.output";
+
+    private static final String TIMER_NAME = "llamara.chat.stage";
+    private static final String NO_MODEL = "none";
+
+    /** The traced stages of answering a prompt. */
+    public enum Stage {
+        /** Building the metadata filter for retrieval. */
+        FILTER("filter"),
+        /** Expanding the query into several variants. */
+        QUERY_EXPANSION("query_expansion"),
+        /** Embedding the query variants. */
+        EMBEDDING("embedding"),
+        /** Searching the embedding store. */
+        SEARCH("search"),
+        /** Packing the retrieved contents into the prompt. */
+        PROMPT_ASSEMBLY("prompt_assembly"),
+        /** A single request to the chat model. */
+        LLM("llm"),
+        /** The whole AI service call, including retrieval and all chat model requests. */
+        AI_SERVICE("ai_service");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final Tracer tracer;
+    private final MeterRegistry registry;
+    private final LatencyBreakdown breakdown;
+
+    @Inject
+    StageTracer(Tracer tracer, MeterRegistry registry, LatencyBreakdown breakdown) {
+        this.tracer = tracer;
+        this.registry = registry;
+        this.breakdown = breakdown;
+    }
+
+    /**
+     * Trace the given stage.
+     *
+     * @param stage the stage
+     * @param modelUid the uid of the chat model, <code>null</code> if the stage is shared between
+     *     all chat models
+     * @param action the action performing the stage
+     * @param attributes sets attributes derived from the result on the span
+     * @return the result of the action
+     * @param <T> the type of the result
+     */
+    public <T> T trace(
+            Stage stage, String modelUid, Supplier<T> action, BiConsumer<Span, T> attributes) {
+        Span span = tracer.spanBuilder("llamara." + stage.label()).startSpan();
+        if (modelUid != null) {
+            span.setAttribute(MODEL_UID, modelUid);
+        }
+        long start = System.nanoTime();
+        try (Scope ignored = span.makeCurrent()) {
+            T result = action.get();
+            attributes.accept(span, result);
+            return result;
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            span.end();
+            Timer.builder(TIMER_NAME)
+                    .description("Duration of the stages of answering a prompt")
+                    .tag("stage", stage.label())
+                    .tag("model", modelUid != null ? modelUid : NO_MODEL)
+                    .register(registry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+            if (Arc.container().requestContext().isActive()) {
+                breakdown.add(stage, duration);
+            }
+        }
+    }
+
+    /**
+     * Trace the given stage without setting result attributes.
+     *
+     * @see #trace(Stage, String, Supplier, BiConsumer)
+     */
+    public <T> T trace(Stage stage, String modelUid, Supplier<T> action) {
+        return trace(stage, modelUid, action, (span, result) -> {});
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.HttpClientConfig;
+import com.github.llamara.ai.config.chat.ChatModelConfig;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link HttpClientProvider}. */
+@QuarkusTest
+class HttpClientProviderTest {
+    private HttpClientConfig config;
+    private HttpClientProvider httpClientProvider;
+
+    @BeforeEach
+    void setup() {
+        config = mock(HttpClientConfig.class);
+        HttpClientConfig.PrewarmConfig prewarmConfig = mock(HttpClientConfig.PrewarmConfig.class);
+        when(config.http2Enabled()).thenReturn(true);
+        when(config.connectTimeout()).thenReturn(Duration.ofSeconds(10));
+        when(config.timeout()).thenReturn(Duration.ofSeconds(60));
+        when(config.providerTimeouts())
+                .thenReturn(Map.of("google-gemini", Duration.ofSeconds(30)));
+        when(config.prewarm()).thenReturn(prewarmConfig);
+        when(prewarmConfig.enabled()).thenReturn(false);
+
+        httpClientProvider = new HttpClientProvider(config, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void teardown() throws InterruptedException {
+        httpClientProvider.close();
+    }
+
+    @Test
+    void timeoutUsesProviderTimeoutIfConfigured() {
+        assertEquals(
+                Duration.ofSeconds(30),
+                httpClientProvider.timeout(ChatModelConfig.ChatModelProvider.GOOGLE_GEMINI));
+    }
+
+    @Test
+    void timeoutFallsBackToDefaultTimeout() {
+        assertEquals(
+                Duration.ofSeconds(60),
+                httpClientProvider.timeout(ChatModelConfig.ChatModelProvider.OLLAMA));
+    }
+
+    @Test
+    void sharedHttpClientBuilderAlwaysBuildsSharedClient() {
+        // given
+        HttpClient client = HttpClient.newHttpClient();
+        HttpClient.Builder builder = new SharedHttpClientBuilder(client);
+
+        // test
+        assertSame(client, builder.connectTimeout(Duration.ofSeconds(1)).build());
+        assertSame(client, builder.version(HttpClient.Version.HTTP_1_1).build());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.UUID;
+import jakarta.inject.Inject;
+import javax.sql.DataSource;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PgVectorEmbeddingStoreImpl} against a PostgreSQL Dev Services container with
+ * the pgvector extension.
+ */
+@QuarkusTest
+@TestProfile(PgVectorEmbeddingStoreImplTest.PgVectorTestProfile.class)
+class PgVectorEmbeddingStoreImplTest {
+    private static final int DIMENSION = 8;
+    private static final String TABLE = "embedding_test";
+    private static final UUID KNOWLEDGE_ID = UUID.randomUUID();
+
+    /** Replaces the Dev Services PostgreSQL image with one that ships pgvector. */
+    public static class PgVectorTestProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.devservices.image-name",
+                    "docker.io/pgvector/pgvector:0.8.0-pg17");
+        }
+    }
+
+    @Inject DataSource dataSource;
+
+    private EmbeddingStoreConfig config;
+    private PgVectorEmbeddingStoreImpl store;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        config = mock(EmbeddingStoreConfig.class, RETURNS_DEEP_STUBS);
+        when(config.vectorSize()).thenReturn(DIMENSION);
+        when(config.pgvector().table()).thenReturn(TABLE);
+        when(config.pgvector().index())
+                .thenReturn(EmbeddingStoreConfig.PgVectorConfig.PgVectorIndexType.HNSW);
+        when(config.pgvector().iterativeScan()).thenReturn(true);
+        when(config.hnsw().m()).thenReturn(4);
+        when(config.hnsw().efConstruct()).thenReturn(32);
+        // few candidates per scan, so selective filters need the iterative scan
+        when(config.hnsw().ef()).thenReturn(OptionalInt.of(10));
+        when(config.hnsw().exact()).thenReturn(false);
+
+        execute(new PgVectorSchema(config).createStatements());
+        store = new PgVectorEmbeddingStoreImpl(config, dataSource);
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+        execute(List.of("DROP TABLE IF EXISTS " + TABLE));
+    }
+
+    private void execute(List<String> statements) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static List<Embedding> randomEmbeddings(int count) {
+        Random random = new Random(1);
+        List<Embedding> embeddings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            embeddings.add(Embedding.from(vector));
+        }
+        return embeddings;
+    }
+
+    private static TextSegment segment(int i, String permission) {
+        return TextSegment.from(
+                "segment " + i,
+                Metadata.from(
+                        Map.of(
+                                EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                                KNOWLEDGE_ID.toString(),
+                                EmbeddingMetadataKeys.PERMISSION,
+                                permission,
+                                EmbeddingMetadataKeys.TAGS,
+                                "|tag|")));
+    }
+
+    private List<EmbeddingMatch<TextSegment>> search(
+            Embedding query, int maxResults, Filter filter) {
+        return store.search(
+                        EmbeddingSearchRequest.builder()
+                                .queryEmbedding(query)
+                                .maxResults(maxResults)
+                                .filter(filter)
+                                .build())
+                .matches();
+    }
+
+    @Test
+    void addAllCopiesEmbeddingsWithMetadata() {
+        // given
+        List<Embedding> embeddings = randomEmbeddings(3);
+        List<String> ids =
+                store.addAll(
+                        embeddings,
+                        List.of(segment(0, "|alice|"), segment(1, "|bob|"), segment(2, "|bob|")));
+
+        // test
+        List<EmbeddingMatch<TextSegment>> matches = search(embeddings.get(0), 3, null);
+        assertEquals(3, matches.size());
+        assertEquals(ids.get(0), matches.get(0).embeddingId());
+        assertEquals(1.0, matches.get(0).score(), 1e-5);
+        Metadata metadata = matches.get(0).embedded().metadata();
+        assertEquals("segment 0", matches.get(0).embedded().text());
+        assertEquals(KNOWLEDGE_ID, metadata.getUUID(EmbeddingMetadataKeys.KNOWLEDGE_ID));
+        assertEquals("|alice|", metadata.getString(EmbeddingMetadataKeys.PERMISSION));
+        assertEquals("|tag|", metadata.getString(EmbeddingMetadataKeys.TAGS));
+    }
+
+    @Test
+    void selectiveFilterReturnsRequestedNumberOfResultsInOrder() {
+        // given
+        int count = 2000;
+        List<Embedding> embeddings = randomEmbeddings(count);
+        List<TextSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // only 1% of the embeddings are readable by alice
+            segments.add(segment(i, i % 100 == 0 ? "|alice|" : "|bob|"));
+        }
+        List<String> ids = store.addAll(embeddings, segments);
+
+        // test
+        List<EmbeddingMatch<TextSegment>> matches =
+                search(
+                        embeddings.get(0),
+                        10,
+                        metadataKey(EmbeddingMetadataKeys.PERMISSION).isIn("alice"));
+        assertEquals(10, matches.size());
+        assertEquals(ids.get(0), matches.get(0).embeddingId());
+        for (int i = 0; i < matches.size(); i++) {
+            Metadata metadata = matches.get(i).embedded().metadata();
+            assertEquals("|alice|", metadata.getString(EmbeddingMetadataKeys.PERMISSION));
+            if (i > 0) {
+                assertTrue(matches.get(i - 1).score() >= matches.get(i).score());
+            }
+        }
+    }
+
+    @Test
+    void removeAllRollsBackWithTransaction() {
+        // given
+        List<Embedding> embeddings = randomEmbeddings(2);
+        List<String> ids =
+                store.addAll(embeddings, List.of(segment(0, "|alice|"), segment(1, "|bob|")));
+
+        // test
+        QuarkusTransaction.requiringNew()
+                .run(
+                        () -> {
+                            store.removeAll(
+                                    metadataKey(EmbeddingMetadataKeys.KNOWLEDGE_ID)
+                                            .isEqualTo(KNOWLEDGE_ID));
+                            QuarkusTransaction.setRollbackOnly();
+                        });
+        assertEquals(2, store.getByIds(ids).size());
+
+        QuarkusTransaction.requiringNew().run(() -> store.removeAll(List.of(ids.get(0))));
+        assertEquals(List.of(ids.get(1)), List.copyOf(store.getByIds(ids).keySet()));
+    }
+}
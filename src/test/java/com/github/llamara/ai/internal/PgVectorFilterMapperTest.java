@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.List;
+import java.util.UUID;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link PgVectorFilterMapper}. */
+@QuarkusTest
+class PgVectorFilterMapperTest {
+
+    @Test
+    void mapUsesContainsOperatorForEqualToOnArrayKey() {
+        PgVectorFilterMapper.SqlFilter filter =
+                PgVectorFilterMapper.map(metadataKey(EmbeddingMetadataKeys.TAGS).isEqualTo("a"));
+
+        assertEquals("tags @> ?::text[]", filter.sql());
+        assertEquals(1, filter.parameters().size());
+        assertArrayEquals(new String[] {"a"}, (String[]) filter.parameters().getFirst());
+    }
+
+    @Test
+    void mapUsesOverlapOperatorForInOnArrayKey() {
+        PgVectorFilterMapper.SqlFilter filter =
+                PgVectorFilterMapper.map(
+                        metadataKey(EmbeddingMetadataKeys.PERMISSION).isIn("user", "*"));
+
+        assertEquals("permission && ?::text[]", filter.sql());
+        assertArrayEquals(new String[] {"user", "*"}, (String[]) filter.parameters().getFirst());
+    }
+
+    @Test
+    void mapUsesUuidColumnForKnowledgeId() {
+        String id = UUID.randomUUID().toString();
+        PgVectorFilterMapper.SqlFilter filter =
+                PgVectorFilterMapper.map(
+                        metadataKey(EmbeddingMetadataKeys.KNOWLEDGE_ID).isEqualTo(id));
+
+        assertEquals("knowledge_id = ?::uuid", filter.sql());
+        assertEquals(List.of(id), filter.parameters());
+    }
+
+    @Test
+    void mapInlinesEscapedKeyForOtherMetadata() {
+        PgVectorFilterMapper.SqlFilter filter =
+                PgVectorFilterMapper.map(metadataKey("it's").isEqualTo("value"));
+
+        assertEquals("(metadata ->> 'it''s') = ?", filter.sql());
+        assertEquals(List.of("value"), filter.parameters());
+    }
+
+    @Test
+    void mapCombinesLogicalFiltersWithParametersInOrder() {
+        Filter filter =
+                metadataKey(EmbeddingMetadataKeys.LABEL)
+                        .isEqualTo("label")
+                        .and(
+                                metadataKey(EmbeddingMetadataKeys.PAGE)
+                                        .isGreaterThan(2)
+                                        .or(metadataKey(EmbeddingMetadataKeys.TAGS).isNotIn("x")));
+
+        PgVectorFilterMapper.SqlFilter sqlFilter = PgVectorFilterMapper.map(filter);
+
+        assertEquals(
+                "((metadata ->> 'label') = ? AND ((metadata ->> 'page')::float8 > ?"
+                        + " OR NOT coalesce(tags && ?::text[], false)))",
+                sqlFilter.sql());
+        assertEquals(3, sqlFilter.parameters().size());
+        assertEquals("label", sqlFilter.parameters().get(0));
+        assertEquals(2.0, sqlFilter.parameters().get(1));
+        assertArrayEquals(new String[] {"x"}, (String[]) sqlFilter.parameters().get(2));
+    }
+
+    @Test
+    void mapThrowsForNonNumericRangeFilter() {
+        Filter filter = metadataKey(EmbeddingMetadataKeys.LABEL).isGreaterThan("a");
+
+        assertThrows(UnsupportedOperationException.class, () -> PgVectorFilterMapper.map(filter));
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.VectorsFactory.vectors;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmark for Qdrant collection settings, reporting recall@k against exact search and search
+ * latency per setting. It creates temporary collections with random vectors on a running Qdrant
+ * instance.
+ *
+ * <p>Not run by default, run it with: <code>
+ * ./mvnw test -Dtest=QdrantCollectionBenchmark -Dbenchmark.qdrant.host=localhost</code>. Use
+ * <code>benchmark.qdrant.port</code>, <code>benchmark.points</code>, <code>benchmark.vector-size
+ * </code> and <code>benchmark.queries</code> to adjust the benchmark.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@EnabledIfSystemProperty(named = "benchmark.qdrant.host", matches = ".+")
+class QdrantCollectionBenchmark {
+    private static final int K = 10;
+    private static final int BATCH_SIZE = 500;
+
+    private record Setting(
+            String name,
+            boolean onDisk,
+            Collections.QuantizationConfig quantization,
+            Points.SearchParams searchParams) {}
+
+    @Test
+    void benchmark() throws InterruptedException, ExecutionException {
+        String host = System.getProperty("benchmark.qdrant.host");
+        int port = Integer.getInteger("benchmark.qdrant.port", 6334);
+        int points = Integer.getInteger("benchmark.points", 20_000);
+        int vectorSize = Integer.getInteger("benchmark.vector-size", 1536);
+        int queries = Integer.getInteger("benchmark.queries", 200);
+
+        Collections.QuantizationConfig scalar =
+                Collections.QuantizationConfig.newBuilder()
+                        .setScalar(
+                                Collections.ScalarQuantization.newBuilder()
+                                        .setType(Collections.QuantizationType.Int8)
+                                        .setAlwaysRam(true))
+                        .build();
+        Collections.QuantizationConfig binary =
+                Collections.QuantizationConfig.newBuilder()
+                        .setBinary(Collections.BinaryQuantization.newBuilder().setAlwaysRam(true))
+                        .build();
+        Points.SearchParams rescore =
+                Points.SearchParams.newBuilder()
+                        .setQuantization(
+                                Points.QuantizationSearchParams.newBuilder()
+                                        .setRescore(true)
+                                        .setOversampling(2.0))
+                        .build();
+        Points.SearchParams noRescore =
+                Points.SearchParams.newBuilder()
+                        .setQuantization(
+                                Points.QuantizationSearchParams.newBuilder().setRescore(false))
+                        .build();
+        List<Setting> settings =
+                List.of(
+                        new Setting("hnsw", false, null, Points.SearchParams.getDefaultInstance()),
+                        new Setting(
+                                "hnsw ef=256",
+                                false,
+                                null,
+                                Points.SearchParams.newBuilder().setHnswEf(256).build()),
+                        new Setting("scalar", false, scalar, noRescore),
+                        new Setting("scalar rescore", false, scalar, rescore),
+                        new Setting("scalar rescore on-disk", true, scalar, rescore),
+                        new Setting("binary", false, binary, noRescore),
+                        new Setting("binary rescore", false, binary, rescore),
+                        new Setting("binary rescore on-disk", true, binary, rescore));
+
+        Random random = new Random(42);
+        List<List<Float>> data = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            data.add(randomVector(random, vectorSize));
+        }
+        List<List<Float>> queryVectors = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            queryVectors.add(randomVector(random, vectorSize));
+        }
+
+        QdrantClient client =
+                new QdrantClient(QdrantGrpcClient.newBuilder(host, port, false).build());
+        try {
+            System.out.printf(
+                    "%d points, %d dimensions, %d queries, recall@%d%n",
+                    points, vectorSize, queries, K);
+            System.out.printf(
+                    "%-24s %8s %10s %10s%n", "setting", "recall", "p50 [ms]", "p95 [ms]");
+            for (Setting setting : settings) {
+                run(client, setting, data, queryVectors, vectorSize);
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    private void run(
+            QdrantClient client,
+            Setting setting,
+            List<List<Float>> data,
+            List<List<Float>> queryVectors,
+            int vectorSize)
+            throws InterruptedException, ExecutionException {
+        String collectionName = "benchmark-" + setting.name().replace(' ', '-');
+        Collections.CreateCollection.Builder create =
+                Collections.CreateCollection.newBuilder()
+                        .setCollectionName(collectionName)
+                        .setVectorsConfig(
+                                Collections.VectorsConfig.newBuilder()
+                                        .setParams(
+                                                Collections.VectorParams.newBuilder()
+                                                        .setSize(vectorSize)
+                                                        .setDistance(Collections.Distance.Cosine)
+                                                        .setOnDisk(setting.onDisk())));
+        if (setting.quantization() != null) {
+            create.setQuantizationConfig(setting.quantization());
+        }
+        client.createCollectionAsync(create.build()).get();
+        try {
+            for (int from = 0; from < data.size(); from += BATCH_SIZE) {
+                List<Points.PointStruct> batch = new ArrayList<>(BATCH_SIZE);
+                for (int i = from; i < Math.min(from + BATCH_SIZE, data.size()); i++) {
+                    batch.add(
+                            Points.PointStruct.newBuilder()
+                                    .setId(id(i))
+                                    .setVectors(vectors(data.get(i)))
+                                    .build());
+                }
+                client.upsertAsync(collectionName, batch).get();
+            }
+            while (client.getCollectionInfoAsync(collectionName).get().getStatus()
+                    != Collections.CollectionStatus.Green) {
+                Thread.sleep(500);
+            }
+
+            double recall = 0;
+            long[] latencies = new long[queryVectors.size()];
+            for (int q = 0; q < queryVectors.size(); q++) {
+                Set<Long> expected =
+                        ids(
+                                search(
+                                        client,
+                                        collectionName,
+                                        queryVectors.get(q),
+                                        Points.SearchParams.newBuilder().setExact(true).build()));
+                long start = System.nanoTime();
+                List<Points.ScoredPoint> result =
+                        search(client, collectionName, queryVectors.get(q), setting.searchParams());
+                latencies[q] = System.nanoTime() - start;
+                Set<Long> actual = ids(result);
+                actual.retainAll(expected);
+                recall += (double) actual.size() / K;
+            }
+            Arrays.sort(latencies);
+            System.out.printf(
+                    "%-24s %8.3f %10.2f %10.2f%n",
+                    setting.name(),
+                    recall / queryVectors.size(),
+                    latencies[latencies.length / 2] / 1e6,
+                    latencies[(int) (latencies.length * 0.95)] / 1e6);
+        } finally {
+            client.deleteCollectionAsync(collectionName).get();
+        }
+    }
+
+    private static List<Points.ScoredPoint> search(
+            QdrantClient client,
+            String collectionName,
+            List<Float> vector,
+            Points.SearchParams params)
+            throws InterruptedException, ExecutionException {
+        return client.searchAsync(
+                        Points.SearchPoints.newBuilder()
+                                .setCollectionName(collectionName)
+                                .addAllVector(vector)
+                                .setLimit(K)
+                                .setParams(params)
+                                .build())
+                .get();
+    }
+
+    private static Set<Long> ids(List<Points.ScoredPoint> points) {
+        Set<Long> ids = new HashSet<>();
+        for (Points.ScoredPoint point : points) {
+            ids.add(point.getId().getNum());
+        }
+        return ids;
+    }
+
+    private static List<Float> randomVector(Random random, int size) {
+        List<Float> vector = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vector.add((float) random.nextGaussian());
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal;
+
+import java.util.List;
+import java.util.UUID;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.qdrant.client.grpc.Points;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link QdrantFilterMapper}. */
+@QuarkusTest
+class QdrantFilterMapperTest {
+
+    private static Points.FieldCondition singleFieldCondition(Points.Filter filter) {
+        assertEquals(1, filter.getMustCount());
+        return filter.getMust(0).getField();
+    }
+
+    @Test
+    void mapUsesMatchAnyKeywordsForIn() {
+        Points.FieldCondition condition =
+                singleFieldCondition(
+                        QdrantFilterMapper.map(
+                                metadataKey(EmbeddingMetadataKeys.PERMISSION).isIn("user", "*")));
+
+        assertEquals(EmbeddingMetadataKeys.PERMISSION, condition.getKey());
+        assertEquals(
+                Points.Match.MatchValueCase.KEYWORDS, condition.getMatch().getMatchValueCase());
+        assertEquals(List.of("user", "*"), condition.getMatch().getKeywords().getStringsList());
+    }
+
+    @Test
+    void mapConvertsUuidsToKeywordsForIn() {
+        UUID id = UUID.randomUUID();
+        Points.FieldCondition condition =
+                singleFieldCondition(
+                        QdrantFilterMapper.map(
+                                metadataKey(EmbeddingMetadataKeys.KNOWLEDGE_ID)
+                                        .isIn(List.of(id))));
+
+        assertEquals(List.of(id.toString()), condition.getMatch().getKeywords().getStringsList());
+    }
+
+    @Test
+    void mapUsesMatchExceptKeywordsForNotIn() {
+        Points.FieldCondition condition =
+                singleFieldCondition(
+                        QdrantFilterMapper.map(
+                                metadataKey(EmbeddingMetadataKeys.TAGS).isNotIn("a", "b")));
+
+        assertEquals(
+                Points.Match.MatchValueCase.EXCEPT_KEYWORDS,
+                condition.getMatch().getMatchValueCase());
+        assertEquals(List.of("a", "b"), condition.getMatch().getExceptKeywords().getStringsList());
+    }
+
+    @Test
+    void mapUsesKeywordMatchForEqualToString() {
+        Points.FieldCondition condition =
+                singleFieldCondition(
+                        QdrantFilterMapper.map(
+                                metadataKey(EmbeddingMetadataKeys.TAGS).isEqualTo("a")));
+
+        assertEquals(EmbeddingMetadataKeys.TAGS, condition.getKey());
+        assertEquals(Points.Match.MatchValueCase.KEYWORD, condition.getMatch().getMatchValueCase());
+        assertEquals("a", condition.getMatch().getKeyword());
+    }
+
+    @Test
+    void mapUsesIntegerMatchForEqualToInteger() {
+        Points.FieldCondition condition =
+                singleFieldCondition(QdrantFilterMapper.map(metadataKey("page").isEqualTo(3)));
+
+        assertEquals(Points.Match.MatchValueCase.INTEGER, condition.getMatch().getMatchValueCase());
+        assertEquals(3, condition.getMatch().getInteger());
+    }
+
+    @Test
+    void mapUsesMustNotForNotEqualTo() {
+        Points.Filter filter =
+                QdrantFilterMapper.map(metadataKey(EmbeddingMetadataKeys.TAGS).isNotEqualTo("a"));
+
+        assertEquals(0, filter.getMustCount());
+        assertEquals(1, filter.getMustNotCount());
+        assertEquals("a", filter.getMustNot(0).getField().getMatch().getKeyword());
+    }
+
+    @Test
+    void mapNestsLogicalFilters() {
+        Filter filter =
+                metadataKey(EmbeddingMetadataKeys.PERMISSION)
+                        .isIn("user", "*")
+                        .and(metadataKey(EmbeddingMetadataKeys.TAGS).isEqualTo("a"));
+
+        Points.Filter mapped = QdrantFilterMapper.map(filter);
+
+        assertEquals(2, mapped.getMustCount());
+        assertEquals(
+                List.of("user", "*"),
+                singleFieldCondition(mapped.getMust(0).getFilter())
+                        .getMatch()
+                        .getKeywords()
+                        .getStringsList());
+        assertEquals(
+                "a", singleFieldCondition(mapped.getMust(1).getFilter()).getMatch().getKeyword());
+    }
+
+    @Test
+    void mapRejectsRangeOnNonNumericValue() {
+        Filter filter = metadataKey("label").isGreaterThan("a");
+
+        assertThrows(UnsupportedOperationException.class, () -> QdrantFilterMapper.map(filter));
+    }
+}
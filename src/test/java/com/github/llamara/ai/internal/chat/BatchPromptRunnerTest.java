@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.internal.chat.response.BatchPromptResultRecord;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+import com.github.llamara.ai.internal.security.Roles;
+import com.github.llamara.ai.internal.security.Users;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.security.identity.CurrentIdentityAssociation;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link BatchPromptRunner}. */
+@QuarkusTest
+class BatchPromptRunnerTest {
+    @Inject BatchPromptRunner runner;
+    @Inject CurrentIdentityAssociation identityAssociation;
+
+    @Test
+    void promptsRetrieveWithPermissionFilterOfCaller() {
+        // given
+        ChatModel chatModel = mock(ChatModel.class);
+        Map<Integer, Collection<String>> permissionQueries = new ConcurrentHashMap<>();
+        Map<Integer, Boolean> virtualThreads = new ConcurrentHashMap<>();
+        when(chatModel.chatBatchPrompt(anyInt(), anyString()))
+                .thenAnswer(
+                        invocation -> {
+                            int index = invocation.getArgument(0);
+                            // resolved like the permission filter of retrieval
+                            SecurityIdentity identity =
+                                    Arc.container().instance(SecurityIdentity.class).get();
+                            permissionQueries.put(
+                                    index,
+                                    PermissionMetadataMapper.identityToMetadataQueries(identity));
+                            virtualThreads.put(index, Thread.currentThread().isVirtual());
+                            return new BatchPromptResultRecord(
+                                    index, "response", List.of(), 0, null, null, null);
+                        });
+
+        // when
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        Multi<BatchPromptResultRecord> batch;
+        try {
+            identityAssociation.setIdentity(
+                    QuarkusSecurityIdentity.builder()
+                            .setAnonymous(false)
+                            .setPrincipal(() -> "alice")
+                            .addRole(Roles.ADMIN)
+                            .build());
+            batch = runner.run(chatModel, List.of("a", "b", "c", "d"), Set.of(1), 2);
+        } finally {
+            requestContext.terminate();
+        }
+        List<BatchPromptResultRecord> results = batch.collect().asList().await().indefinitely();
+
+        // then
+        assertEquals(3, results.size());
+        assertEquals(Set.of(0, 2, 3), permissionQueries.keySet());
+        permissionQueries
+                .values()
+                .forEach(queries -> assertEquals(List.of("alice", Users.ANY_USERNAME), queries));
+        virtualThreads.values().forEach(virtual -> assertTrue(virtual));
+    }
+}
@@ -19,24 +19,43 @@
  */
 package com.github.llamara.ai.internal.chat;
 
+import com.github.llamara.ai.config.chat.ChatCoalescingConfig;
+import com.github.llamara.ai.config.chat.ChatConcurrencyConfig;
 import com.github.llamara.ai.config.chat.ChatModelConfig;
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.chat.history.ChatHistoryStore;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.response.BatchPromptResultRecord;
 import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+import com.github.llamara.ai.internal.chat.response.ChatStreamEvent;
 import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
+import com.github.llamara.ai.internal.telemetry.StageTracer;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -44,14 +63,23 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessageType;
 import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.rag.content.ContentMetadata;
 import dev.langchain4j.rag.content.DefaultContent;
 import dev.langchain4j.service.Result;
+import dev.langchain4j.service.TokenStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.security.identity.SecurityIdentity;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectSpy;
+import io.smallrye.mutiny.Multi;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -64,7 +92,15 @@ public class ChatModelTest {
 
     ChatModelConfig.ModelConfig modelConfig = mock(ChatModelConfig.ModelConfig.class);
     AiService aiService = mock(AiService.class);
+    ChatMemoryProvider chatMemoryProvider = mock(ChatMemoryProvider.class);
+    ChatMemory chatMemory = mock(ChatMemory.class);
+    ChatResponseCache chatResponseCache = mock(ChatResponseCache.class);
+    RequestCoalescer coalescer = mock(RequestCoalescer.class);
     @InjectSpy ChatHistoryStore chatHistoryStore;
+    @Inject StageTracer stageTracer;
+    ConcurrencyLimiter limiter =
+            new ConcurrencyLimiter(
+                    MODEL_UID, mock(ChatConcurrencyConfig.class), new SimpleMeterRegistry());
 
     ChatModel model;
     UUID sessionId;
@@ -73,8 +109,19 @@ public class ChatModelTest {
     void setup() {
         when(modelConfig.uid()).thenReturn(MODEL_UID);
 
-        model = new ChatModel(modelConfig, aiService, chatHistoryStore);
+        model =
+                new ChatModel(
+                        modelConfig,
+                        aiService,
+                        chatHistoryStore,
+                        chatMemoryProvider,
+                        chatResponseCache,
+                        coalescer,
+                        stageTracer,
+                        limiter,
+                        true);
         sessionId = UUID.randomUUID();
+        when(chatMemoryProvider.get(sessionId)).thenReturn(chatMemory);
 
         clearInvocations(chatHistoryStore);
     }
@@ -104,7 +151,8 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatDelegatesToAiServiceAndUsesSystemPromptIfEnabled() {
+        void chatDelegatesToAiServiceAndUsesSystemPromptIfEnabled()
+                throws ChatModelOverloadedException {
             // given
             when(modelConfig.systemPromptEnabled()).thenReturn(true);
 
@@ -118,7 +166,8 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatDelegatesToAiServiceAndDoesNotUseSystemPromptIfDisabled() {
+        void chatDelegatesToAiServiceAndDoesNotUseSystemPromptIfDisabled()
+                throws ChatModelOverloadedException {
             // given
             when(modelConfig.systemPromptEnabled()).thenReturn(false);
 
@@ -132,7 +181,7 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatDoesNotProvideSources() {
+        void chatDoesNotProvideSources() throws ChatModelOverloadedException {
             // when
             ChatResponseRecord response = model.chat(sessionId, true, PROMPT);
 
@@ -141,7 +190,59 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatStoresPromptAndResponseToHistoryIfEnabled() {
+        void chatUsesResultOfIdenticalInFlightRequest() throws Exception {
+            // given
+            ChatCoalescingConfig coalescingConfig = mock(ChatCoalescingConfig.class);
+            when(coalescingConfig.enabled()).thenReturn(true);
+            when(coalescingConfig.waitTimeout()).thenReturn(Duration.ofSeconds(10));
+            SecurityIdentity identity = mock(SecurityIdentity.class);
+            when(identity.isAnonymous()).thenReturn(true);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            // the coalesced counter is registered once the follower has joined the flight
+            CountDownLatch joined = new CountDownLatch(1);
+            meterRegistry.config().onMeterAdded(meter -> joined.countDown());
+            RequestCoalescer realCoalescer =
+                    new RequestCoalescer(
+                            coalescingConfig,
+                            identity,
+                            mock(RetrievalScope.class),
+                            meterRegistry);
+            ChatModel coalescingModel =
+                    new ChatModel(
+                            modelConfig,
+                            aiService,
+                            chatHistoryStore,
+                            chatMemoryProvider,
+                            chatResponseCache,
+                            realCoalescer,
+                            stageTracer,
+                            limiter,
+                            true);
+            RequestCoalescer.Flight leader = realCoalescer.join(MODEL_UID, PROMPT);
+            String samePrompt = " hello  WORLD! ";
+            CompletableFuture<ChatResponseRecord> follower =
+                    CompletableFuture.supplyAsync(
+                            () -> {
+                                try {
+                                    return coalescingModel.chat(sessionId, false, samePrompt);
+                                } catch (ChatModelOverloadedException e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            });
+            assertTrue(joined.await(10, TimeUnit.SECONDS));
+
+            // when
+            leader.complete(new RequestCoalescer.Generation(RESPONSE, List.of()));
+
+            // then
+            assertEquals(RESPONSE, follower.get(10, TimeUnit.SECONDS).response());
+            verify(aiService, never()).chat(any(), any());
+            verify(aiService, never()).chatWithoutSystemMessage(any(), any());
+            verify(chatMemory, times(2)).add(any());
+        }
+
+        @Test
+        void chatStoresPromptAndResponseToHistoryIfEnabled() throws ChatModelOverloadedException {
             // when
             model.chat(sessionId, true, PROMPT);
 
@@ -159,13 +260,200 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatDoesNotStorePromptAndResponseToHistoryIfDisabled() {
+        void chatDoesNotStorePromptAndResponseToHistoryIfDisabled()
+                throws ChatModelOverloadedException {
             // when
             model.chat(sessionId, false, PROMPT);
 
             // then
             verify(chatHistoryStore, never()).addMessage(any(), any());
         }
+
+        @Test
+        void chatDoesNotUseCacheIfDisabled() throws ChatModelOverloadedException {
+            // given
+            when(chatResponseCache.isEnabled()).thenReturn(false);
+
+            // when
+            model.chat(sessionId, false, PROMPT);
+
+            // then
+            verify(chatResponseCache, never()).lookup(any(), any());
+            verify(chatResponseCache, never()).put(any(), any(), any());
+        }
+
+        @Test
+        void chatRejectsPromptWithoutStoringItIfOverloaded() throws ChatModelOverloadedException {
+            // given
+            ConcurrencyLimiter overloadedLimiter = mock(ConcurrencyLimiter.class);
+            when(overloadedLimiter.acquire())
+                    .thenThrow(new ChatModelOverloadedException(MODEL_UID, 1));
+            ChatModel overloadedModel =
+                    new ChatModel(
+                            modelConfig,
+                            aiService,
+                            chatHistoryStore,
+                            chatMemoryProvider,
+                            chatResponseCache,
+                            coalescer,
+                            stageTracer,
+                            overloadedLimiter,
+                            true);
+
+            // then
+            assertThrows(
+                    ChatModelOverloadedException.class,
+                    () -> overloadedModel.chat(sessionId, true, PROMPT));
+            Multi<ChatStreamEvent> stream = overloadedModel.chatStream(sessionId, true, PROMPT);
+            CompletionException failure =
+                    assertThrows(
+                            CompletionException.class,
+                            () -> stream.collect().asList().await().indefinitely());
+            assertInstanceOf(ChatModelOverloadedException.class, failure.getCause());
+            verify(aiService, never()).chat(any(), any());
+            verify(aiService, never()).chatStream(any(), any());
+            verify(chatHistoryStore, never()).addMessage(any(), any());
+        }
+
+        @Test
+        void chatStreamDoesNotAcquirePermitBeforeSubscription()
+                throws ChatModelOverloadedException {
+            // given
+            ConcurrencyLimiter mockedLimiter = mock(ConcurrencyLimiter.class);
+            ChatModel limitedModel =
+                    new ChatModel(
+                            modelConfig,
+                            aiService,
+                            chatHistoryStore,
+                            chatMemoryProvider,
+                            chatResponseCache,
+                            coalescer,
+                            stageTracer,
+                            mockedLimiter,
+                            true);
+
+            // when
+            limitedModel.chatStream(sessionId, true, PROMPT);
+
+            // then
+            verify(mockedLimiter, never()).acquire();
+            verify(aiService, never()).chatStream(any(), any());
+            verify(chatHistoryStore, never()).addMessage(any(), any());
+        }
+
+        @Test
+        void chatBatchPromptReportsTokenUsageWithoutHistoryAndClearsMemory() {
+            // given
+            when(modelConfig.systemPromptEnabled()).thenReturn(true);
+            when(chatMemoryProvider.get(any())).thenReturn(chatMemory);
+            when(aiService.chat(any(), eq(PROMPT)))
+                    .thenReturn(
+                            Result.<String>builder()
+                                    .content(RESPONSE)
+                                    .sources(Collections.emptyList())
+                                    .tokenUsage(new TokenUsage(10, 2))
+                                    .build());
+
+            // when
+            BatchPromptResultRecord result = model.chatBatchPrompt(7, PROMPT);
+
+            // then
+            assertEquals(7, result.index());
+            assertEquals(RESPONSE, result.response());
+            assertEquals(10, result.inputTokens());
+            assertEquals(2, result.outputTokens());
+            assertNull(result.error());
+            verify(aiService, never()).chat(eq(sessionId), any());
+            verify(chatHistoryStore, never()).addMessage(any(), any());
+            verify(chatResponseCache, never()).lookup(any(), any());
+            verify(chatMemory).clear();
+        }
+
+        @Test
+        void chatBatchPromptReportsFailureInsteadOfThrowing() {
+            // given
+            when(modelConfig.systemPromptEnabled()).thenReturn(true);
+            when(chatMemoryProvider.get(any())).thenReturn(chatMemory);
+            when(aiService.chat(any(), eq(PROMPT))).thenThrow(new RuntimeException("failure"));
+
+            // when
+            BatchPromptResultRecord result = model.chatBatchPrompt(0, PROMPT);
+
+            // then
+            assertEquals("failure", result.error());
+            assertNull(result.response());
+            verify(chatMemory).clear();
+        }
+
+        @Test
+        void chatStreamSendsWholeResponseIfStreamingIsNotSupported()
+                throws ChatModelOverloadedException {
+            // given
+            when(modelConfig.systemPromptEnabled()).thenReturn(true);
+            ChatModel nonStreamingModel =
+                    new ChatModel(
+                            modelConfig,
+                            aiService,
+                            chatHistoryStore,
+                            chatMemoryProvider,
+                            chatResponseCache,
+                            coalescer,
+                            stageTracer,
+                            limiter,
+                            false);
+
+            // when
+            List<ChatStreamEvent> events =
+                    nonStreamingModel
+                            .chatStream(sessionId, false, PROMPT)
+                            .collect()
+                            .asList()
+                            .await()
+                            .indefinitely();
+
+            // then
+            assertEquals(
+                    List.of(
+                            new ChatStreamEvent.Token(RESPONSE),
+                            new ChatStreamEvent.Sources(List.of())),
+                    events);
+            verify(aiService, never()).chatStream(any(), any());
+        }
+
+        @Test
+        void chatReturnsCachedResponseForFirstTurnPrompt() throws ChatModelOverloadedException {
+            // given
+            ChatResponseRecord cached = new ChatResponseRecord("Cached!", List.of());
+            when(chatResponseCache.isEnabled()).thenReturn(true);
+            when(chatMemory.messages()).thenReturn(List.of());
+            when(chatResponseCache.lookup(MODEL_UID, PROMPT))
+                    .thenReturn(new ChatResponseCache.Lookup(MODEL_UID, "", null, cached));
+
+            // when
+            ChatResponseRecord response = model.chat(sessionId, false, PROMPT);
+
+            // then
+            assertEquals(cached, response);
+            verify(aiService, never()).chat(any(), any());
+            verify(aiService, never()).chatWithoutSystemMessage(any(), any());
+            verify(chatMemory, times(2)).add(any());
+        }
+
+        @Test
+        void chatCachesResponseForFirstTurnPromptOnCacheMiss() throws ChatModelOverloadedException {
+            // given
+            ChatResponseCache.Lookup lookup =
+                    new ChatResponseCache.Lookup(MODEL_UID, "", null, null);
+            when(chatResponseCache.isEnabled()).thenReturn(true);
+            when(chatMemory.messages()).thenReturn(List.of());
+            when(chatResponseCache.lookup(MODEL_UID, PROMPT)).thenReturn(lookup);
+
+            // when
+            model.chat(sessionId, false, PROMPT);
+
+            // then
+            verify(chatResponseCache).put(eq(lookup), any(), any());
+        }
     }
 
     @Nested
@@ -216,7 +504,8 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatProvidesOnlySourcesWhoseEmbeddingIdIsInResponse() {
+        void chatProvidesOnlySourcesWhoseEmbeddingIdIsInResponse()
+                throws ChatModelOverloadedException {
             // when
             ChatResponseRecord response = model.chat(sessionId, true, PROMPT);
 
@@ -236,7 +525,8 @@ public class ChatModelTest {
         }
 
         @Test
-        void chatProvidesOnlySourcesWhoseKnowledgeIdIsInResponse() {
+        void chatProvidesOnlySourcesWhoseKnowledgeIdIsInResponse()
+                throws ChatModelOverloadedException {
             // when
             ChatResponseRecord response = model.chat(sessionId, true, PROMPT);
 
@@ -247,5 +537,65 @@ public class ChatModelTest {
                             .findFirst()
                             .isEmpty());
         }
+
+        @Test
+        void chatStreamSendsTokensFollowedByUsedSources() throws ChatModelOverloadedException {
+            // given
+            TokenStream tokenStream = mock(TokenStream.class);
+            AtomicReference<Consumer<List<Content>>> onRetrieved = new AtomicReference<>();
+            AtomicReference<Consumer<String>> onPartialResponse = new AtomicReference<>();
+            AtomicReference<Consumer<ChatResponse>> onCompleteResponse = new AtomicReference<>();
+            when(tokenStream.onRetrieved(any()))
+                    .thenAnswer(
+                            invocation -> {
+                                onRetrieved.set(invocation.getArgument(0));
+                                return tokenStream;
+                            });
+            when(tokenStream.onPartialResponse(any()))
+                    .thenAnswer(
+                            invocation -> {
+                                onPartialResponse.set(invocation.getArgument(0));
+                                return tokenStream;
+                            });
+            when(tokenStream.onCompleteResponse(any()))
+                    .thenAnswer(
+                            invocation -> {
+                                onCompleteResponse.set(invocation.getArgument(0));
+                                return tokenStream;
+                            });
+            when(tokenStream.onError(any())).thenReturn(tokenStream);
+            doAnswer(
+                            invocation -> {
+                                onRetrieved.get().accept(List.of(USED_CONTENT, UNUSED_CONTENT));
+                                onPartialResponse.get().accept(RESPONSE);
+                                onCompleteResponse
+                                        .get()
+                                        .accept(
+                                                ChatResponse.builder()
+                                                        .aiMessage(AiMessage.from(RESPONSE))
+                                                        .build());
+                                return null;
+                            })
+                    .when(tokenStream)
+                    .start();
+            when(modelConfig.systemPromptEnabled()).thenReturn(true);
+            when(aiService.chatStream(sessionId, PROMPT)).thenReturn(tokenStream);
+
+            // when
+            List<ChatStreamEvent> events =
+                    model.chatStream(sessionId, false, PROMPT)
+                            .collect()
+                            .asList()
+                            .await()
+                            .indefinitely();
+
+            // then
+            assertEquals(2, events.size());
+            assertEquals(new ChatStreamEvent.Token(RESPONSE), events.get(0));
+            ChatStreamEvent.Sources sources = (ChatStreamEvent.Sources) events.get(1);
+            assertEquals(
+                    List.of(USED_EMBEDDING_ID),
+                    sources.sources().stream().map(RagSourceRecord::embeddingId).toList());
+        }
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatConcurrencyConfig;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ConcurrencyLimiter}. */
+@QuarkusTest
+class ConcurrencyLimiterTest {
+    private static final String MODEL_UID = "gpt-4o";
+
+    ChatConcurrencyConfig config = mock(ChatConcurrencyConfig.class);
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setup() {
+        when(config.enabled()).thenReturn(true);
+        when(config.initialLimit()).thenReturn(2);
+        when(config.minLimit()).thenReturn(1);
+        when(config.maxLimit()).thenReturn(4);
+        when(config.queueSize()).thenReturn(1);
+        when(config.queueTimeout()).thenReturn(Duration.ofMillis(50));
+        when(config.latencyTolerance()).thenReturn(2.0);
+        when(config.backoffRatio()).thenReturn(0.5);
+    }
+
+    @Test
+    void acquireRejectsAfterQueueTimeoutIfLimitIsReached() throws ChatModelOverloadedException {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+        limiter.acquire();
+        limiter.acquire();
+
+        // test
+        ChatModelOverloadedException e =
+                assertThrows(ChatModelOverloadedException.class, limiter::acquire);
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(1, registry.get("llamara.chat.concurrency.rejected").counter().count());
+        assertEquals(0, registry.get("llamara.chat.concurrency.queued").gauge().value());
+    }
+
+    @Test
+    void acquireRejectsImmediatelyIfQueueIsFull() throws ChatModelOverloadedException {
+        // given
+        when(config.queueSize()).thenReturn(0);
+        when(config.queueTimeout()).thenReturn(Duration.ofMinutes(1));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+        limiter.acquire();
+        limiter.acquire();
+
+        // test
+        assertThrows(ChatModelOverloadedException.class, limiter::acquire);
+    }
+
+    @Test
+    void acquireWaitsForReleasedPermit() throws Exception {
+        // given
+        when(config.queueTimeout()).thenReturn(Duration.ofMinutes(1));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+        limiter.acquire();
+        ConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        // test
+        Thread waiter =
+                Thread.ofVirtual()
+                        .start(
+                                () -> {
+                                    try {
+                                        limiter.acquire();
+                                    } catch (ChatModelOverloadedException e) {
+                                        throw new IllegalStateException(e);
+                                    }
+                                });
+        while (registry.get("llamara.chat.concurrency.queued").gauge().value() == 0) {
+            Thread.onSpinWait();
+        }
+        permit.cancel();
+        waiter.join(Duration.ofSeconds(5));
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void failedRequestDecreasesLimit() throws ChatModelOverloadedException {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+
+        // test
+        limiter.acquire().fail();
+        assertEquals(1, limiter.getLimit());
+        limiter.acquire().fail();
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void successfulRequestUnderLoadIncreasesLimitUpToMaximum()
+            throws ChatModelOverloadedException {
+        // given
+        when(config.latencyTolerance()).thenReturn(Double.MAX_VALUE);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+        limiter.acquire();
+
+        // test
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire().complete();
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() throws ChatModelOverloadedException {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+        ConcurrencyLimiter.Permit permit = limiter.acquire();
+        limiter.acquire();
+
+        // test
+        permit.complete();
+        permit.fail();
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void acquireNeverRejectsIfDisabled() throws ChatModelOverloadedException {
+        // given
+        when(config.enabled()).thenReturn(false);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MODEL_UID, config, registry);
+
+        // test
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatCoalescingConfig;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RequestCoalescer}. */
+@QuarkusTest
+class RequestCoalescerTest {
+    private static final String MODEL_UID = "gpt-4o";
+    private static final String PROMPT = "Hello world!";
+
+    private ChatCoalescingConfig config;
+    private SecurityIdentity identity;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        config = mock(ChatCoalescingConfig.class);
+        when(config.enabled()).thenReturn(true);
+        when(config.waitTimeout()).thenReturn(Duration.ofSeconds(10));
+        identity = mock(SecurityIdentity.class);
+        setupIdentity("bob");
+        coalescer =
+                new RequestCoalescer(
+                        config, identity, mock(RetrievalScope.class), new SimpleMeterRegistry());
+    }
+
+    private void setupIdentity(String username) {
+        when(identity.isAnonymous()).thenReturn(false);
+        when(identity.getPrincipal()).thenReturn(() -> username);
+    }
+
+    @Test
+    void followerWithSameScopeUsesResultOfLeader() throws Exception {
+        // given
+        RequestCoalescer.Flight leader = coalescer.join(MODEL_UID, PROMPT);
+        RequestCoalescer.Flight follower = coalescer.join(MODEL_UID, "  hello   WORLD! ");
+        RequestCoalescer.Generation generation =
+                new RequestCoalescer.Generation("response", List.of());
+
+        // when
+        leader.complete(generation);
+
+        // then
+        assertTrue(leader.isLeader());
+        assertFalse(follower.isLeader());
+        assertEquals(generation, follower.await());
+    }
+
+    @Test
+    void requestWithOtherScopeLeadsOwnFlight() {
+        // given
+        RequestCoalescer.Flight bob = coalescer.join(MODEL_UID, PROMPT);
+
+        // when
+        setupIdentity("alice");
+        RequestCoalescer.Flight alice = coalescer.join(MODEL_UID, PROMPT);
+
+        // then
+        assertTrue(bob.isLeader());
+        assertTrue(alice.isLeader());
+    }
+
+    @Test
+    void leaderFailureIsPublishedToFollowersWithSameScopeOnly() throws Exception {
+        // given
+        RequestCoalescer.Flight bob = coalescer.join(MODEL_UID, PROMPT);
+        RequestCoalescer.Flight bobFollower = coalescer.join(MODEL_UID, PROMPT);
+        setupIdentity("alice");
+        RequestCoalescer.Flight alice = coalescer.join(MODEL_UID, PROMPT);
+        RequestCoalescer.Flight aliceFollower = coalescer.join(MODEL_UID, PROMPT);
+        RequestCoalescer.Generation generation =
+                new RequestCoalescer.Generation("response", List.of());
+
+        // when
+        bob.fail(new ChatModelOverloadedException(MODEL_UID, 1));
+        alice.complete(generation);
+
+        // then
+        assertThrows(ChatModelOverloadedException.class, bobFollower::await);
+        assertEquals(generation, aliceFollower.await());
+    }
+
+    @Test
+    void followerAnswersOnItsOwnIfLeaderDoesNotFinishInTime() throws Exception {
+        // given
+        when(config.waitTimeout()).thenReturn(Duration.ofMillis(10));
+        coalescer.join(MODEL_UID, PROMPT);
+        RequestCoalescer.Flight follower = coalescer.join(MODEL_UID, PROMPT);
+
+        // test
+        assertNull(follower.await());
+    }
+}
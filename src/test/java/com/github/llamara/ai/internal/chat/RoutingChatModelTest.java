@@ -0,0 +1,163 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat;
+
+import com.github.llamara.ai.config.chat.ChatRoutingConfig;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RoutingChatModel} and {@link EndpointPool}. */
+@QuarkusTest
+class RoutingChatModelTest {
+    private static final ChatRequest REQUEST =
+            ChatRequest.builder().messages(UserMessage.from("Hello world!")).build();
+    private static final ChatResponse RESPONSE =
+            ChatResponse.builder().aiMessage(AiMessage.from("Hi!")).build();
+
+    ChatRoutingConfig config = mock(ChatRoutingConfig.class);
+    dev.langchain4j.model.chat.ChatModel primaryModel =
+            mock(dev.langchain4j.model.chat.ChatModel.class);
+    dev.langchain4j.model.chat.ChatModel secondaryModel =
+            mock(dev.langchain4j.model.chat.ChatModel.class);
+
+    EndpointPool.Endpoint primary;
+    EndpointPool.Endpoint secondary;
+    EndpointPool pool;
+    ExecutorService executor;
+    RoutingChatModel model;
+
+    @BeforeEach
+    void setup() {
+        when(config.failureThreshold()).thenReturn(2);
+        when(config.openDuration()).thenReturn(Duration.ofMinutes(1));
+        when(config.hedgePercentile()).thenReturn(0.95);
+
+        primary = new EndpointPool.Endpoint("primary", primaryModel, null);
+        secondary = new EndpointPool.Endpoint("secondary", secondaryModel, null);
+        pool = new EndpointPool("gpt-4o", config, List.of(primary, secondary));
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        model = new RoutingChatModel(pool, executor);
+    }
+
+    @AfterEach
+    void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void chatPrefersFasterEndpoint() {
+        // given
+        pool.onSuccess(primary, 2_000, false);
+        pool.onSuccess(secondary, 1_000, false);
+        when(secondaryModel.chat(REQUEST)).thenReturn(RESPONSE);
+
+        // test
+        assertSame(RESPONSE, model.chat(REQUEST));
+        verify(primaryModel, never()).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void chatFailsOverToNextEndpoint() {
+        // given
+        when(primaryModel.chat(REQUEST)).thenThrow(new IllegalStateException("throttled"));
+        when(secondaryModel.chat(REQUEST)).thenReturn(RESPONSE);
+
+        // test
+        assertSame(RESPONSE, model.chat(REQUEST));
+    }
+
+    @Test
+    void chatThrowsIfAllEndpointsFail() {
+        // given
+        when(primaryModel.chat(REQUEST)).thenThrow(new IllegalStateException("throttled"));
+        when(secondaryModel.chat(REQUEST)).thenThrow(new IllegalStateException("down"));
+
+        // test
+        IllegalStateException e =
+                assertThrows(IllegalStateException.class, () -> model.chat(REQUEST));
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void candidatesExcludeEndpointWithOpenCircuit() {
+        // given
+        pool.onSuccess(secondary, 1_000, false);
+        pool.onSuccess(primary, 1_000, false);
+
+        // test
+        pool.onFailure(primary, new IllegalStateException("throttled"));
+        assertEquals(List.of(secondary, primary), pool.candidates(false));
+        pool.onFailure(primary, new IllegalStateException("throttled"));
+        assertEquals(List.of(secondary), pool.candidates(false));
+    }
+
+    @Test
+    void candidatesIncludeAllEndpointsIfAllCircuitsAreOpen() {
+        // given
+        for (int i = 0; i < 2; i++) {
+            pool.onFailure(primary, new IllegalStateException("throttled"));
+            pool.onFailure(secondary, new IllegalStateException("down"));
+        }
+
+        // test
+        assertEquals(2, pool.candidates(false).size());
+    }
+
+    @Test
+    void chatSendsHedgedRequestIfResponseIsSlow() {
+        // given
+        when(config.hedgingEnabled()).thenReturn(true);
+        for (int i = 0; i < 20; i++) {
+            pool.onSuccess(primary, Duration.ofMillis(10).toNanos(), true);
+        }
+        pool.onSuccess(secondary, Duration.ofMillis(20).toNanos(), false);
+        when(primaryModel.chat(REQUEST))
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(Duration.ofSeconds(10));
+                            return ChatResponse.builder().aiMessage(AiMessage.from("Late")).build();
+                        });
+        when(secondaryModel.chat(REQUEST)).thenReturn(RESPONSE);
+
+        // test
+        assertSame(RESPONSE, model.chat(REQUEST));
+    }
+}
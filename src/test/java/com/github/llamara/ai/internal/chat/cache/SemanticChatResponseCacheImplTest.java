@@ -0,0 +1,215 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.cache;
+
+import com.github.llamara.ai.config.chat.ChatCacheConfig;
+import com.github.llamara.ai.internal.chat.response.ChatResponseRecord;
+import com.github.llamara.ai.internal.retrieval.PromptEmbedding;
+import com.github.llamara.ai.internal.retrieval.RetrievalScope;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link SemanticChatResponseCacheImpl}. */
+@QuarkusTest
+class SemanticChatResponseCacheImplTest {
+    private static final String MODEL_UID = "gpt-4o";
+    private static final String PROMPT = "What is LLAMARA?";
+    private static final String SIMILAR_PROMPT = "What's LLAMARA?";
+    private static final String OTHER_PROMPT = "How do I upload knowledge?";
+    private static final Embedding EMBEDDING = Embedding.from(new float[] {1f, 0f});
+    // cosine similarity of 0.99 to EMBEDDING
+    private static final Embedding SIMILAR_EMBEDDING = Embedding.from(new float[] {0.99f, 0.141f});
+    // cosine similarity of 0.8 to EMBEDDING
+    private static final Embedding OTHER_EMBEDDING = Embedding.from(new float[] {0.8f, 0.6f});
+    private static final ChatResponseRecord RESPONSE =
+            new ChatResponseRecord("LLAMARA is a RAG application.", List.of());
+    private static final UUID KNOWLEDGE_ID = UUID.randomUUID();
+
+    private ChatCacheConfig config;
+    private SecurityIdentity identity;
+    private RetrievalScope retrievalScope;
+    private PromptEmbedding promptEmbedding;
+    private SemanticChatResponseCacheImpl cache;
+
+    @BeforeEach
+    void setup() {
+        config = mock(ChatCacheConfig.class);
+        when(config.enabled()).thenReturn(true);
+        when(config.similarityThreshold()).thenReturn(0.95);
+        when(config.maxEntries()).thenReturn(1000);
+        when(config.timeToLive()).thenReturn(Duration.ofHours(1));
+
+        EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+        when(embeddingModel.embed(PROMPT)).thenReturn(Response.from(EMBEDDING));
+        when(embeddingModel.embed(SIMILAR_PROMPT)).thenReturn(Response.from(SIMILAR_EMBEDDING));
+        when(embeddingModel.embed(OTHER_PROMPT)).thenReturn(Response.from(OTHER_EMBEDDING));
+
+        identity = mock(SecurityIdentity.class);
+        setupIdentity("bob");
+        retrievalScope = mock(RetrievalScope.class);
+        promptEmbedding = mock(PromptEmbedding.class);
+        cache =
+                new SemanticChatResponseCacheImpl(
+                        config, embeddingModel, identity, retrievalScope, promptEmbedding);
+    }
+
+    private void setupIdentity(String username) {
+        when(identity.isAnonymous()).thenReturn(false);
+        when(identity.getPrincipal()).thenReturn(() -> username);
+    }
+
+    private void putResponse(String modelUid, String prompt, UUID... knowledgeIds) {
+        ChatResponseCache.Lookup lookup = cache.lookup(modelUid, prompt);
+        cache.put(lookup, RESPONSE, List.of(knowledgeIds));
+    }
+
+    @Test
+    void lookupHandsPromptEmbeddingToRetrieval() {
+        // when
+        cache.lookup(MODEL_UID, PROMPT);
+
+        // then
+        verify(promptEmbedding).set(PROMPT, EMBEDDING);
+    }
+
+    @Test
+    void lookupReturnsResponseForSimilarPrompt() {
+        // given
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        ChatResponseCache.Lookup lookup = cache.lookup(MODEL_UID, SIMILAR_PROMPT);
+
+        // then
+        assertEquals(RESPONSE, lookup.hit().orElseThrow());
+    }
+
+    @Test
+    void lookupMissesForPromptBelowSimilarityThreshold() {
+        // given
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        ChatResponseCache.Lookup lookup = cache.lookup(MODEL_UID, OTHER_PROMPT);
+
+        // then
+        assertTrue(lookup.hit().isEmpty());
+        assertEquals(OTHER_EMBEDDING, lookup.embedding());
+    }
+
+    @Test
+    void lookupMissesForExpiredResponse() throws InterruptedException {
+        // given
+        when(config.timeToLive()).thenReturn(Duration.ofMillis(10));
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        Thread.sleep(50);
+        ChatResponseCache.Lookup lookup = cache.lookup(MODEL_UID, PROMPT);
+
+        // then
+        assertTrue(lookup.hit().isEmpty());
+    }
+
+    @Test
+    void lookupMissesForOtherChatModel() {
+        // given
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        ChatResponseCache.Lookup lookup = cache.lookup("llama3", PROMPT);
+
+        // then
+        assertTrue(lookup.hit().isEmpty());
+    }
+
+    @Test
+    void lookupMissesForOtherPermissionScope() {
+        // given
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        setupIdentity("alice");
+        ChatResponseCache.Lookup lookup = cache.lookup(MODEL_UID, PROMPT);
+
+        // then
+        assertTrue(lookup.hit().isEmpty());
+    }
+
+    @Test
+    void lookupSkipsCacheForRestrictedRetrieval() {
+        // given
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+        when(retrievalScope.isRestricted()).thenReturn(true);
+
+        // when
+        ChatResponseCache.Lookup lookup = cache.lookup(MODEL_UID, PROMPT);
+
+        // then
+        assertTrue(lookup.hit().isEmpty());
+        assertNull(lookup.embedding());
+    }
+
+    @Test
+    void invalidateRemovesResponsesGeneratedFromKnowledge() {
+        // given
+        UUID otherKnowledgeId = UUID.randomUUID();
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID, otherKnowledgeId);
+        putResponse("llama3", PROMPT, otherKnowledgeId);
+
+        // when
+        cache.invalidate(KNOWLEDGE_ID);
+
+        // then
+        assertTrue(cache.lookup(MODEL_UID, PROMPT).hit().isEmpty());
+        assertEquals(RESPONSE, cache.lookup("llama3", PROMPT).hit().orElseThrow());
+    }
+
+    @Test
+    void putEvictsEldestResponseWhenFull() {
+        // given
+        when(config.maxEntries()).thenReturn(1);
+        putResponse(MODEL_UID, PROMPT, KNOWLEDGE_ID);
+
+        // when
+        putResponse("llama3", PROMPT, KNOWLEDGE_ID);
+
+        // then
+        assertTrue(cache.lookup(MODEL_UID, PROMPT).hit().isEmpty());
+        assertEquals(RESPONSE, cache.lookup("llama3", PROMPT).hit().orElseThrow());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.history;
+
+import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.langchain4j.data.message.ChatMessageType;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.json.Json;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ChatMessageRecordCodec}. */
+@QuarkusTest
+class ChatMessageRecordCodecTest {
+    private static final ChatMessageRecord AI_MESSAGE =
+            new ChatMessageRecord(
+                    ChatMessageType.AI,
+                    "Hello world!",
+                    Instant.parse("2025-01-01T12:00:00.123456789Z"),
+                    List.of(
+                            new RagSourceRecord(UUID.randomUUID(), UUID.randomUUID(), 1, null),
+                            new RagSourceRecord(
+                                    UUID.randomUUID(), UUID.randomUUID(), null, "content")),
+                    "model");
+    private static final ChatMessageRecord USER_MESSAGE =
+            new ChatMessageRecord(ChatMessageType.USER, "Hi!", Instant.now(), null, null);
+
+    private final ChatMessageRecordCodec codec = new ChatMessageRecordCodec();
+
+    @Test
+    void decodeRestoresEncodedMessage() {
+        assertEquals(AI_MESSAGE, codec.decode(codec.encode(AI_MESSAGE)));
+        assertEquals(USER_MESSAGE, codec.decode(codec.encode(USER_MESSAGE)));
+    }
+
+    @Test
+    void encodeIsSmallerThanJson() {
+        byte[] json = Json.encode(AI_MESSAGE).getBytes(StandardCharsets.UTF_8);
+        assertTrue(codec.encode(AI_MESSAGE).length < json.length);
+    }
+
+    @Test
+    void decodeReadsMessageStoredAsJson() {
+        byte[] json = Json.encode(AI_MESSAGE).getBytes(StandardCharsets.UTF_8);
+        ChatMessageRecord message = (ChatMessageRecord) codec.decode(json);
+        assertEquals(AI_MESSAGE.text(), message.text());
+        assertEquals(
+                AI_MESSAGE.sources().getFirst().embeddingId(),
+                message.sources().getFirst().embeddingId());
+    }
+}
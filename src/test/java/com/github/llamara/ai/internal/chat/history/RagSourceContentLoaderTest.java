@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.history;
+
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+import com.github.llamara.ai.internal.chat.response.RagSourceRecord;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.ChatMessageType;
+import dev.langchain4j.data.segment.TextSegment;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RagSourceContentLoader}. */
+@QuarkusTest
+class RagSourceContentLoaderTest {
+    private static final UUID KNOWLEDGE_ID = UUID.randomUUID();
+    private static final UUID EMBEDDING_ID = UUID.randomUUID();
+    private static final UUID REMOVED_EMBEDDING_ID = UUID.randomUUID();
+
+    private ScrollableEmbeddingStore store;
+    private RagSourceContentLoader loader;
+
+    @BeforeEach
+    void setup() {
+        store = mock(ScrollableEmbeddingStore.class);
+        loader = new RagSourceContentLoader(store);
+    }
+
+    private static ChatMessageRecord message(RagSourceRecord... sources) {
+        return new ChatMessageRecord(
+                ChatMessageType.AI, "response", Instant.now(), List.of(sources), "model");
+    }
+
+    @Test
+    void loadSourceContentLoadsAllSourcesInOneLookup() {
+        // given
+        when(store.getByIds(any()))
+                .thenReturn(Map.of(EMBEDDING_ID.toString(), TextSegment.from("content")));
+        List<ChatMessageRecord> messages =
+                List.of(
+                        message(new RagSourceRecord(KNOWLEDGE_ID, EMBEDDING_ID, 1, null)),
+                        message(new RagSourceRecord(KNOWLEDGE_ID, REMOVED_EMBEDDING_ID, 2, null)));
+
+        // test
+        List<ChatMessageRecord> loaded = loader.loadSourceContent(messages);
+        verify(store, times(1))
+                .getByIds(Set.of(EMBEDDING_ID.toString(), REMOVED_EMBEDDING_ID.toString()));
+        assertEquals("content", loaded.get(0).sources().getFirst().content());
+        assertEquals(1, loaded.get(0).sources().getFirst().page());
+        assertNull(loaded.get(1).sources().getFirst().content());
+    }
+
+    @Test
+    void loadSourceContentSkipsLookupIfContentIsPresent() {
+        // given
+        List<ChatMessageRecord> messages =
+                List.of(message(new RagSourceRecord(KNOWLEDGE_ID, EMBEDDING_ID, 1, "stored")));
+
+        // test
+        assertEquals(messages, loader.loadSourceContent(messages));
+        verify(store, never()).getByIds(any());
+    }
+}
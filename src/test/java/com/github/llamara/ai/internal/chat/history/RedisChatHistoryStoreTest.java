@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.history;
+
+import com.github.llamara.ai.config.chat.ChatHistoryConfig;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.langchain4j.data.message.ChatMessageType;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RedisChatHistoryStore}. */
+@QuarkusTest
+class RedisChatHistoryStoreTest {
+    @Inject RedisChatHistoryStore store;
+    @Inject ChatHistoryConfig config;
+
+    UUID historyId;
+    UUID otherHistoryId;
+
+    @BeforeEach
+    void setup() {
+        historyId = UUID.randomUUID();
+        otherHistoryId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void destroy() {
+        store.deleteMessages(historyId).await().indefinitely();
+        store.deleteMessages(otherHistoryId).await().indefinitely();
+    }
+
+    private static ChatMessageRecord message(int i) {
+        return new ChatMessageRecord(
+                ChatMessageType.USER, "message " + i, Instant.now(), null, null);
+    }
+
+    private List<String> texts(List<ChatMessageRecord> messages) {
+        return messages.stream().map(ChatMessageRecord::text).toList();
+    }
+
+    @Test
+    void addMessageWritesConcurrentMessagesInOrder() {
+        // when
+        Uni.join()
+                .all(
+                        IntStream.range(0, 10)
+                                .mapToObj(
+                                        i ->
+                                                store.addMessage(
+                                                        i % 2 == 0 ? historyId : otherHistoryId,
+                                                        message(i)))
+                                .toList())
+                .andFailFast()
+                .await()
+                .indefinitely();
+
+        // then
+        assertEquals(
+                List.of("message 0", "message 2", "message 4", "message 6", "message 8"),
+                texts(store.getMessages(historyId).await().indefinitely()));
+        assertEquals(
+                List.of("message 1", "message 3", "message 5", "message 7", "message 9"),
+                texts(store.getMessages(otherHistoryId).await().indefinitely()));
+    }
+
+    @Test
+    void addMessageTrimsHistoryToMaxMessages() {
+        // given
+        int count = config.maxMessages() + 5;
+
+        // when
+        for (int i = 0; i < count; i++) {
+            store.addMessage(historyId, message(i)).await().indefinitely();
+        }
+
+        // then
+        List<ChatMessageRecord> messages = store.getMessages(historyId).await().indefinitely();
+        assertEquals(config.maxMessages(), messages.size());
+        assertEquals("message 5", messages.getFirst().text());
+        assertEquals("message " + (count - 1), messages.getLast().text());
+    }
+
+    @Test
+    void getMessagesReturnsPageCountingFromNewestMessage() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            store.addMessage(historyId, message(i)).await().indefinitely();
+        }
+
+        // then
+        assertEquals(
+                List.of("message 3", "message 4"),
+                texts(store.getMessages(historyId, 0, 2).await().indefinitely()));
+        assertEquals(
+                List.of("message 0", "message 1", "message 2"),
+                texts(store.getMessages(historyId, 2, 10).await().indefinitely()));
+        assertEquals(List.of(), store.getMessages(historyId, 5, 2).await().indefinitely());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import com.github.llamara.ai.config.chat.ChatMemoryConfig;
+import com.github.llamara.ai.internal.StartupException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ChatMemorySummarizer}. */
+@QuarkusTest
+class ChatMemorySummarizerTest {
+    private static final String MEMORY_ID = "memory";
+
+    ChatMemoryConfig config = mock(ChatMemoryConfig.class, RETURNS_DEEP_STUBS);
+    InMemoryChatMemoryStore memoryStore = new InMemoryChatMemoryStore();
+    ChatMemorySummaryStore summaryStore = mock(ChatMemorySummaryStore.class);
+    ChatModel model = mock(ChatModel.class);
+
+    ChatMemorySummarizer summarizer;
+
+    @BeforeEach
+    void setup() {
+        when(config.window()).thenReturn(ChatMemoryConfig.ChatMemoryWindowType.SUMMARY);
+        when(config.summary().modelUid()).thenReturn(Optional.of("cheap"));
+        when(config.summary().maxWords()).thenReturn(100);
+        when(config.summary().promptTemplate())
+                .thenReturn(
+                        "Use at most {{maxWords}} words.\n<summary>{{summary}}</summary>\n"
+                                + "<messages>\n{{messages}}\n</messages>");
+        when(summaryStore.getSummary(MEMORY_ID)).thenReturn(Optional.of("Earlier summary."));
+        when(model.chat(anyString())).thenReturn(" Updated summary. ");
+        memoryStore.updateMessages(MEMORY_ID, List.of(UserMessage.from("Latest message")));
+        summarizer = new ChatMemorySummarizer(config, memoryStore, summaryStore);
+        summarizer.initialize(Map.of("cheap", model));
+    }
+
+    @Test
+    void summarizeFoldsEvictedMessagesIntoSummary() {
+        // when
+        summarizer
+                .summarize(
+                        MEMORY_ID,
+                        List.of(UserMessage.from("Hello world!"), AiMessage.from("Hi there!")))
+                .join();
+
+        // then
+        verify(model, times(1))
+                .chat(
+                        argThat(
+                                (String prompt) ->
+                                        prompt.contains("Use at most 100 words.")
+                                                && prompt.contains(
+                                                        "<summary>Earlier summary.</summary>")
+                                                && prompt.contains("User: Hello world!")
+                                                && prompt.contains("Assistant: Hi there!")));
+        verify(summaryStore, times(1)).updateSummary(MEMORY_ID, "Updated summary.");
+    }
+
+    @Test
+    void summarizeDoesNotRecreateSummaryOfClearedMemory() {
+        // given
+        memoryStore.deleteMessages(MEMORY_ID);
+
+        // when
+        summarizer.summarize(MEMORY_ID, List.of(UserMessage.from("Hello world!"))).join();
+
+        // then
+        verify(summaryStore, never()).updateSummary(any(), any());
+    }
+
+    @Test
+    void initializeThrowsIfSummaryModelIsNotConfigured() {
+        assertThrows(StartupException.class, () -> summarizer.initialize(Map.of()));
+    }
+}
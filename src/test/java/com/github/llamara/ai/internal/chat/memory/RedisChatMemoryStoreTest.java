@@ -0,0 +1,248 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.List;
+import java.util.UUID;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.quarkus.redis.client.RedisClientName;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RedisChatMemoryStore}. */
+@QuarkusTest
+class RedisChatMemoryStoreTest {
+    private static final SystemMessage SYSTEM_MESSAGE = SystemMessage.from("Be helpful.");
+    private static final UserMessage USER_MESSAGE = UserMessage.from("Hello world!");
+    private static final AiMessage AI_MESSAGE = AiMessage.from("Hi!");
+
+    @Inject RedisChatMemoryStore store;
+
+    @Inject
+    @RedisClientName("chat-memory")
+    RedisDataSource redis;
+
+    UUID memoryId;
+
+    @BeforeEach
+    void setup() {
+        memoryId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void destroy() {
+        store.deleteMessages(memoryId);
+    }
+
+    /** Read the messages directly from Redis, bypassing the near-cache. */
+    List<ChatMessage> storedMessages() {
+        return redis.list(String.class).lrange("chat-memory:" + memoryId, 0, -1).stream()
+                .map(ChatMessageDeserializer::messageFromJson)
+                .toList();
+    }
+
+    /** Read the token counts directly from Redis. */
+    List<Integer> storedTokenCounts() {
+        return redis.list(Integer.class).lrange(RedisTokenCountStore.key(memoryId), 0, -1);
+    }
+
+    /** Read the sum of the token counts directly from Redis. */
+    Integer storedTokenTotal() {
+        return redis.value(Integer.class).get(RedisTokenCountStore.totalKey(memoryId));
+    }
+
+    @Test
+    void updateMessagesAppendsMessages() {
+        // when
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE));
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE));
+
+        // then
+        assertEquals(List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), storedMessages());
+        assertEquals(
+                List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), store.getMessages(memoryId));
+    }
+
+    @Test
+    void updateMessagesEvictsOldestMessagesAndKeepsSystemMessage() {
+        // given
+        UserMessage followUp = UserMessage.from("How are you?");
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE));
+
+        // when
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, AI_MESSAGE, followUp));
+
+        // then
+        assertEquals(List.of(SYSTEM_MESSAGE, AI_MESSAGE, followUp), storedMessages());
+        assertEquals(List.of(SYSTEM_MESSAGE, AI_MESSAGE, followUp), store.getMessages(memoryId));
+    }
+
+    @Test
+    void updateMessagesRewritesMemoryIfSystemMessageChanged() {
+        // given
+        SystemMessage otherSystemMessage = SystemMessage.from("Be concise.");
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE));
+
+        // when
+        store.updateMessages(memoryId, List.of(USER_MESSAGE, otherSystemMessage));
+
+        // then
+        assertEquals(List.of(USER_MESSAGE, otherSystemMessage), storedMessages());
+        assertEquals(List.of(USER_MESSAGE, otherSystemMessage), store.getMessages(memoryId));
+    }
+
+    @Test
+    void updateMessagesAppendsAndTrimsTokenCountsWithMessages() {
+        // given
+        UserMessage followUp = UserMessage.from("How are you?");
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE), List.of(3, 4));
+
+        // when
+        store.updateMessages(
+                memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), List.of(3, 4, 2));
+
+        // then
+        assertEquals(List.of(3, 4, 2), storedTokenCounts());
+
+        // when
+        store.updateMessages(
+                memoryId, List.of(SYSTEM_MESSAGE, AI_MESSAGE, followUp), List.of(3, 2, 5));
+
+        // then
+        assertEquals(List.of(SYSTEM_MESSAGE, AI_MESSAGE, followUp), storedMessages());
+        assertEquals(List.of(3, 2, 5), storedTokenCounts());
+        assertEquals(10, storedTokenTotal());
+
+        // when
+        store.updateMessages(memoryId, List.of(), List.of());
+
+        // then
+        assertTrue(storedMessages().isEmpty());
+        assertTrue(storedTokenCounts().isEmpty());
+    }
+
+    @Test
+    void appendMessageAppendsMessageAndAddsTokenCountToTotal() {
+        // given
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE), List.of(3, 4));
+
+        // when
+        boolean appended =
+                store.appendMessage(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), 2);
+
+        // then
+        assertTrue(appended);
+        assertEquals(List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), storedMessages());
+        assertEquals(List.of(3, 4, 2), storedTokenCounts());
+        assertEquals(9, storedTokenTotal());
+    }
+
+    @Test
+    void appendMessageDoesNotAppendIfStoredMessagesDiffer() {
+        // given
+        store.updateMessages(memoryId, List.of(USER_MESSAGE), List.of(4));
+
+        // when
+        boolean appended =
+                store.appendMessage(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE), 2);
+
+        // then
+        assertFalse(appended);
+        assertEquals(List.of(USER_MESSAGE), storedMessages());
+        assertEquals(4, storedTokenTotal());
+    }
+
+    @Test
+    void updateMessagesComparesAgainstRedisIfCachedMemoryIsStale() {
+        // given
+        UserMessage followUp = UserMessage.from("How are you?");
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE));
+        // written by another instance, which did not invalidate the near-cache yet
+        redis.list(String.class)
+                .rpush("chat-memory:" + memoryId, ChatMessageSerializer.messageToJson(AI_MESSAGE));
+
+        // when
+        store.updateMessages(memoryId, List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE, followUp));
+
+        // then
+        assertEquals(List.of(SYSTEM_MESSAGE, USER_MESSAGE, AI_MESSAGE, followUp), storedMessages());
+    }
+
+    @Test
+    void getMessagesMigratesLegacyMemory() {
+        // given
+        redis.value(String.class)
+                .set(
+                        memoryId.toString(),
+                        ChatMessageSerializer.messagesToJson(List.of(USER_MESSAGE, AI_MESSAGE)));
+
+        // when
+        List<ChatMessage> messages = store.getMessages(memoryId);
+
+        // then
+        assertEquals(List.of(USER_MESSAGE, AI_MESSAGE), messages);
+        assertEquals(List.of(USER_MESSAGE, AI_MESSAGE), storedMessages());
+        assertNull(redis.value(String.class).get(memoryId.toString()));
+    }
+
+    @Test
+    void deleteMessagesDeletesLegacyMemory() {
+        // given
+        redis.value(String.class)
+                .set(
+                        memoryId.toString(),
+                        ChatMessageSerializer.messagesToJson(List.of(USER_MESSAGE)));
+
+        // when
+        store.deleteMessages(memoryId);
+
+        // then
+        assertNull(redis.value(String.class).get(memoryId.toString()));
+        assertTrue(store.getMessages(memoryId).isEmpty());
+    }
+
+    @Test
+    void deleteMessagesDeletesMemory() {
+        // given
+        store.updateMessages(memoryId, List.of(USER_MESSAGE, AI_MESSAGE));
+
+        // when
+        store.deleteMessages(memoryId);
+
+        // then
+        assertTrue(storedMessages().isEmpty());
+        assertTrue(store.getMessages(memoryId).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link SummarizingChatMemory}. */
+@QuarkusTest
+class SummarizingChatMemoryTest {
+    private static final String MEMORY_ID = "memory";
+    private static final SystemMessage SYSTEM_MESSAGE = SystemMessage.from("Be helpful.");
+
+    InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+    ChatMemorySummaryStore summaryStore = mock(ChatMemorySummaryStore.class);
+    ChatMemorySummarizer summarizer = mock(ChatMemorySummarizer.class);
+
+    SummarizingChatMemory memory;
+
+    @BeforeEach
+    void setup() {
+        when(summaryStore.getSummary(any())).thenReturn(Optional.empty());
+        memory = new SummarizingChatMemory(MEMORY_ID, 3, store, summaryStore, summarizer);
+    }
+
+    @Test
+    void addSummarizesEvictedMessagesAndKeepsSystemMessage() {
+        // given
+        UserMessage first = UserMessage.from("Message 0");
+
+        // when
+        memory.add(SYSTEM_MESSAGE);
+        memory.add(first);
+        memory.add(AiMessage.from("Answer 0"));
+        verify(summarizer, never()).summarize(any(), any());
+        memory.add(UserMessage.from("Message 1"));
+
+        // then
+        verify(summarizer, times(1)).summarize(MEMORY_ID, List.of(first));
+        List<ChatMessage> messages = memory.messages();
+        assertEquals(3, messages.size());
+        assertEquals(SYSTEM_MESSAGE, messages.getFirst());
+    }
+
+    @Test
+    void messagesAppendsSummaryToSystemMessage() {
+        // given
+        when(summaryStore.getSummary(MEMORY_ID)).thenReturn(Optional.of("The user said hi."));
+        memory.add(SYSTEM_MESSAGE);
+        memory.add(UserMessage.from("Message 1"));
+
+        // test
+        SystemMessage systemMessage = (SystemMessage) memory.messages().getFirst();
+        assertEquals(
+                SYSTEM_MESSAGE.text()
+                        + "\n\n"
+                        + SummarizingChatMemory.SUMMARY_HEADER
+                        + "The user said hi.",
+                systemMessage.text());
+        // the stored system message is unchanged, so it is not replaced on the next turn
+        memory.add(SYSTEM_MESSAGE);
+        assertEquals(SYSTEM_MESSAGE, store.getMessages(MEMORY_ID).getFirst());
+    }
+
+    @Test
+    void clearDeletesSummary() {
+        // given
+        memory.add(UserMessage.from("Message 0"));
+
+        // when
+        memory.clear();
+
+        // then
+        verify(summaryStore, times(1)).deleteSummary(eq(MEMORY_ID));
+        assertEquals(List.of(), store.getMessages(MEMORY_ID));
+    }
+}
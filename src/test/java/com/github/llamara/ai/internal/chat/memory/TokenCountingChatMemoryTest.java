@@ -0,0 +1,218 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.chat.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link TokenCountingChatMemory}. */
+@QuarkusTest
+class TokenCountingChatMemoryTest {
+    private static final String MEMORY_ID = "memory";
+    private static final int TOKENS_PER_MESSAGE = 10;
+
+    TokenCountEstimator tokenizer = mock(TokenCountEstimator.class);
+    TokenCountStore tokenCountStore = new InMemoryTokenCountStore();
+    TokenCountingChatMemoryStore store = new InMemoryTokenCountingChatMemoryStore(tokenCountStore);
+
+    TokenCountingChatMemory memory;
+
+    @BeforeEach
+    void setup() {
+        when(tokenizer.estimateTokenCountInMessage(any())).thenReturn(TOKENS_PER_MESSAGE);
+        memory =
+                new TokenCountingChatMemory(
+                        MEMORY_ID, 3 * TOKENS_PER_MESSAGE, tokenizer, store, tokenCountStore);
+    }
+
+    @Test
+    void addTokenizesOnlyTheAddedMessage() {
+        // when
+        for (int i = 0; i < 5; i++) {
+            memory.add(UserMessage.from("Message " + i));
+        }
+
+        // then
+        verify(tokenizer, times(5)).estimateTokenCountInMessage(any());
+        verify(tokenizer, never()).estimateTokenCountInMessages(any());
+    }
+
+    @Test
+    void addEvictsOldestMessagesExceedingTokenWindow() {
+        // when
+        for (int i = 0; i < 5; i++) {
+            memory.add(UserMessage.from("Message " + i));
+        }
+
+        // then
+        assertEquals(
+                List.of(
+                        UserMessage.from("Message 2"),
+                        UserMessage.from("Message 3"),
+                        UserMessage.from("Message 4")),
+                memory.messages());
+        assertEquals(List.of(10, 10, 10), tokenCountStore.getTokenCounts(MEMORY_ID));
+    }
+
+    @Test
+    void addAppendsMessagesFittingIntoTokenWindow() {
+        // given
+        TokenCountingChatMemoryStore spiedStore = spy(store);
+        memory =
+                new TokenCountingChatMemory(
+                        MEMORY_ID, 3 * TOKENS_PER_MESSAGE, tokenizer, spiedStore, tokenCountStore);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            memory.add(UserMessage.from("Message " + i));
+        }
+
+        // then
+        verify(spiedStore, times(3))
+                .appendMessage(eq(MEMORY_ID), anyList(), eq(TOKENS_PER_MESSAGE));
+        verify(spiedStore, times(1))
+                .updateMessages(eq(MEMORY_ID), anyList(), eq(List.of(10, 10, 10)));
+        assertEquals(List.of(10, 10, 10), tokenCountStore.getTokenCounts(MEMORY_ID));
+    }
+
+    @Test
+    void addRetainsSystemMessage() {
+        // given
+        SystemMessage systemMessage = SystemMessage.from("You are a helpful assistant.");
+
+        // when
+        memory.add(systemMessage);
+        memory.add(UserMessage.from("Hello world!"));
+        memory.add(AiMessage.from("Hi!"));
+        memory.add(UserMessage.from("How are you?"));
+
+        // then
+        List<ChatMessage> messages = memory.messages();
+        assertEquals(3, messages.size());
+        assertEquals(systemMessage, messages.getFirst());
+        assertEquals(UserMessage.from("How are you?"), messages.getLast());
+    }
+
+    @Test
+    void addRecomputesMissingTokenCounts() {
+        // given
+        store.updateMessages(MEMORY_ID, List.of(UserMessage.from("Hello world!")));
+
+        // when
+        memory.add(AiMessage.from("Hi!"));
+
+        // then
+        verify(tokenizer, times(2)).estimateTokenCountInMessage(any());
+        assertEquals(List.of(10, 10), tokenCountStore.getTokenCounts(MEMORY_ID));
+    }
+
+    @Test
+    void clearDeletesMessagesAndTokenCounts() {
+        // given
+        memory.add(UserMessage.from("Hello world!"));
+
+        // when
+        memory.clear();
+
+        // then
+        assertEquals(List.of(), memory.messages());
+        assertEquals(List.of(), tokenCountStore.getTokenCounts(MEMORY_ID));
+    }
+
+    private static class InMemoryTokenCountingChatMemoryStore extends InMemoryChatMemoryStore
+            implements TokenCountingChatMemoryStore {
+        private final TokenCountStore tokenCountStore;
+
+        InMemoryTokenCountingChatMemoryStore(TokenCountStore tokenCountStore) {
+            this.tokenCountStore = tokenCountStore;
+        }
+
+        @Override
+        public void updateMessages(
+                Object memoryId, List<ChatMessage> messages, List<Integer> tokenCounts) {
+            updateMessages(memoryId, messages);
+            tokenCountStore.updateTokenCounts(memoryId, tokenCounts);
+        }
+
+        @Override
+        public boolean appendMessage(
+                Object memoryId, List<ChatMessage> messages, int tokenCount) {
+            if (!getMessages(memoryId).equals(messages.subList(0, messages.size() - 1))) {
+                return false;
+            }
+            List<Integer> tokenCounts = new ArrayList<>(tokenCountStore.getTokenCounts(memoryId));
+            tokenCounts.add(tokenCount);
+            updateMessages(memoryId, messages);
+            tokenCountStore.updateTokenCounts(memoryId, tokenCounts);
+            return true;
+        }
+    }
+
+    private static class InMemoryTokenCountStore implements TokenCountStore {
+        private final Map<Object, List<Integer>> tokenCounts = new HashMap<>();
+
+        @Override
+        public List<Integer> getTokenCounts(Object memoryId) {
+            return tokenCounts.getOrDefault(memoryId, List.of());
+        }
+
+        @Override
+        public Optional<TokenTotal> getTokenTotal(Object memoryId) {
+            List<Integer> counts = getTokenCounts(memoryId);
+            return Optional.of(
+                    new TokenTotal(
+                            counts.size(), counts.stream().mapToInt(Integer::intValue).sum()));
+        }
+
+        @Override
+        public void updateTokenCounts(Object memoryId, List<Integer> tokenCounts) {
+            this.tokenCounts.put(memoryId, List.copyOf(tokenCounts));
+        }
+
+        @Override
+        public void deleteTokenCounts(Object memoryId) {
+            tokenCounts.remove(memoryId);
+        }
+    }
+}
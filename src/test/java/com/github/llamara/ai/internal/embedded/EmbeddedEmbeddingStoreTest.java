@@ -0,0 +1,233 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.embedded;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.UUID;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link EmbeddedEmbeddingStore}. */
+@QuarkusTest
+class EmbeddedEmbeddingStoreTest {
+    private static final int DIMENSION = 8;
+    private static final UUID KNOWLEDGE_ID = UUID.randomUUID();
+
+    @TempDir Path directory;
+
+    private EmbeddingStoreConfig config;
+
+    @BeforeEach
+    void setup() {
+        config = mock(EmbeddingStoreConfig.class, RETURNS_DEEP_STUBS);
+        when(config.vectorSize()).thenReturn(DIMENSION);
+        when(config.embedded().path()).thenReturn(directory.toString());
+        when(config.embedded().snapshotInterval()).thenReturn(100);
+        // small graph parameters, so the graph is searched instead of scanning all vectors
+        when(config.hnsw().m()).thenReturn(4);
+        when(config.hnsw().efConstruct()).thenReturn(32);
+        when(config.hnsw().ef()).thenReturn(OptionalInt.of(16));
+        when(config.hnsw().exact()).thenReturn(false);
+    }
+
+    private static List<Embedding> randomEmbeddings(int count) {
+        Random random = new Random(1);
+        List<Embedding> embeddings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            embeddings.add(Embedding.from(vector));
+        }
+        return embeddings;
+    }
+
+    private static TextSegment segment(int i, String permission) {
+        return TextSegment.from(
+                "segment " + i,
+                Metadata.from(
+                        Map.of(
+                                EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                                KNOWLEDGE_ID.toString(),
+                                EmbeddingMetadataKeys.PERMISSION,
+                                permission)));
+    }
+
+    private static List<EmbeddingMatch<TextSegment>> search(
+            EmbeddedEmbeddingStore store, Embedding query, int maxResults) {
+        return store.search(
+                        EmbeddingSearchRequest.builder()
+                                .queryEmbedding(query)
+                                .maxResults(maxResults)
+                                .build())
+                .matches();
+    }
+
+    @Test
+    void searchFindsNearestEmbedding() throws IOException {
+        List<Embedding> embeddings = randomEmbeddings(200);
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            List<String> ids = store.addAll(embeddings);
+
+            for (int i = 0; i < 200; i += 20) {
+                List<EmbeddingMatch<TextSegment>> matches = search(store, embeddings.get(i), 3);
+                assertEquals(ids.get(i), matches.get(0).embeddingId());
+                assertEquals(1.0, matches.get(0).score(), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    void searchMatchesPermissionArray() throws IOException {
+        List<Embedding> embeddings = randomEmbeddings(3);
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            store.addAll(
+                    embeddings,
+                    List.of(segment(0, "|alice|"), segment(1, "|bob|*|"), segment(2, "|bob|")));
+
+            List<EmbeddingMatch<TextSegment>> matches =
+                    store.search(
+                                    EmbeddingSearchRequest.builder()
+                                            .queryEmbedding(embeddings.get(0))
+                                            .maxResults(3)
+                                            .filter(
+                                                    metadataKey(EmbeddingMetadataKeys.PERMISSION)
+                                                            .isIn("alice", "*"))
+                                            .build())
+                            .matches();
+            assertEquals(
+                    List.of("segment 0", "segment 1"),
+                    matches.stream().map(m -> m.embedded().text()).sorted().toList());
+        }
+    }
+
+    @Test
+    void recoversFromWriteAheadLogAndSnapshot() throws IOException {
+        List<Embedding> embeddings = randomEmbeddings(3);
+        // not closed, so only the write-ahead log is written
+        EmbeddedEmbeddingStore crashed = new EmbeddedEmbeddingStore(config);
+        List<String> ids =
+                crashed.addAll(
+                        embeddings,
+                        List.of(segment(0, "|alice|"), segment(1, "|alice|"), segment(2, "|bob|")));
+        crashed.remove(ids.get(2));
+        crashed.updateMetadata(
+                new IsEqualTo(EmbeddingMetadataKeys.KNOWLEDGE_ID, KNOWLEDGE_ID),
+                Map.of(EmbeddingMetadataKeys.LABEL, "label"));
+
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            List<EmbeddingMatch<TextSegment>> matches = search(store, embeddings.get(0), 3);
+            assertEquals(2, matches.size());
+            assertEquals(ids.get(0), matches.get(0).embeddingId());
+            assertEquals(
+                    "label",
+                    matches.get(0).embedded().metadata().getString(EmbeddingMetadataKeys.LABEL));
+        }
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            assertEquals(2, search(store, embeddings.get(1), 3).size());
+        }
+    }
+
+    @Test
+    void recoversIfWriteAheadLogWasNotTruncatedAfterSnapshot() throws IOException {
+        // given
+        List<Embedding> embeddings = randomEmbeddings(50);
+        Path wal = directory.resolve("wal.bin");
+        Path walCopy = directory.resolve("wal.bin.copy");
+        List<String> ids;
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            ids = store.addAll(embeddings);
+            store.remove(ids.get(1));
+            // simulate a crash after the snapshot on close, but before the log is truncated
+            Files.copy(wal, walCopy);
+        }
+        Files.move(walCopy, wal, StandardCopyOption.REPLACE_EXISTING);
+
+        // test
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            for (int i = 0; i < 50; i += 5) {
+                List<EmbeddingMatch<TextSegment>> matches = search(store, embeddings.get(i), 3);
+                assertEquals(ids.get(i), matches.get(0).embeddingId());
+            }
+            assertTrue(
+                    search(store, embeddings.get(1), 50).stream()
+                            .noneMatch(match -> match.embeddingId().equals(ids.get(1))));
+            store.add(randomEmbeddings(1).get(0));
+        }
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            assertEquals(50, search(store, embeddings.get(0), 100).size());
+        }
+    }
+
+    @Test
+    void removeAllRemovesEmbeddingsMatchingKnowledgeId() throws IOException {
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            store.addAll(randomEmbeddings(2), List.of(segment(0, "|a|"), segment(1, "|a|")));
+
+            store.removeAll(new IsEqualTo(EmbeddingMetadataKeys.KNOWLEDGE_ID, KNOWLEDGE_ID));
+            assertTrue(search(store, randomEmbeddings(1).get(0), 3).isEmpty());
+        }
+    }
+
+    @Test
+    void getByIdsReturnsLiveSegmentsAndSkipsUnknownIds() throws IOException {
+        List<Embedding> embeddings = randomEmbeddings(3);
+        try (EmbeddedEmbeddingStore store = new EmbeddedEmbeddingStore(config)) {
+            List<String> ids =
+                    store.addAll(
+                            embeddings,
+                            List.of(segment(0, "|*|"), segment(1, "|*|"), segment(2, "|*|")));
+            store.remove(ids.get(1));
+
+            Map<String, TextSegment> segments =
+                    store.getByIds(List.of(ids.get(0), ids.get(1), UUID.randomUUID().toString()));
+            assertEquals(1, segments.size());
+            assertEquals("segment 0", segments.get(ids.get(0)).text());
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.github.llamara.ai.internal.knowledge;
 
 import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
 import com.github.llamara.ai.internal.Utils;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.ingestion.DocumentIngestor;
 import com.github.llamara.ai.internal.ingestion.IngestionStatus;
 import com.github.llamara.ai.internal.knowledge.embedding.EmbeddingStorePermissionMetadataManager;
@@ -110,6 +111,7 @@ class KnowledgeManagerImplTest {
     @InjectMock EmbeddingStore<TextSegment> embeddingStore;
     @InjectSpy FileStorage fileStorage;
     @InjectMock EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager;
+    @InjectMock ChatResponseCache chatResponseCache;
 
     private KnowledgeManagerImpl knowledgeManager;
 
@@ -122,7 +124,8 @@ class KnowledgeManagerImplTest {
                         documentIngestor,
                         embeddingStore,
                         fileStorage,
-                        embeddingStorePermissionMetadataManager);
+                        embeddingStorePermissionMetadataManager,
+                        chatResponseCache);
 
         assertEquals(0, knowledgeRepository.count());
 
@@ -271,6 +274,13 @@ class KnowledgeManagerImplTest {
                 () -> knowledgeManager.addTag(UUID.randomUUID(), "tag"));
     }
 
+    @Test
+    void addTagThrowsIllegalTagExceptionIfTagContainsDelimiter() {
+        assertThrows(
+                IllegalTagException.class,
+                () -> knowledgeManager.addTag(UUID.randomUUID(), "a|b"));
+    }
+
     @Test
     void removeTagThrowsKnowledgeNotFoundExceptionIfNoKnowledge() {
         assertThrows(
@@ -624,10 +634,11 @@ class KnowledgeManagerImplTest {
                             assertEquals(
                                     Set.of("tag1", "tag2"),
                                     knowledgeManager.getKnowledge(knowledgeId).getTags()));
+            verify(embeddingStorePermissionMetadataManager, times(2)).updateTagMetadata(any());
         }
 
         @Test
-        void removeTagRemovesTag() throws KnowledgeNotFoundException {
+        void removeTagRemovesTag() throws KnowledgeNotFoundException, IllegalTagException {
             // setup
             knowledgeManager.addTag(knowledgeId, "tag1");
 
@@ -638,10 +649,12 @@ class KnowledgeManagerImplTest {
                             assertEquals(
                                     Set.of(),
                                     knowledgeManager.getKnowledge(knowledgeId).getTags()));
+            verify(embeddingStorePermissionMetadataManager, times(2)).updateTagMetadata(any());
         }
 
         @Test
-        void removeTagDoesNothingIfTagNotExists() throws KnowledgeNotFoundException {
+        void removeTagDoesNothingIfTagNotExists()
+                throws KnowledgeNotFoundException, IllegalTagException {
             // setup
             knowledgeManager.addTag(knowledgeId, "tag1");
 
@@ -19,6 +19,7 @@
  */
 package com.github.llamara.ai.internal.knowledge;
 
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.ingestion.DocumentIngestor;
 import com.github.llamara.ai.internal.knowledge.embedding.EmbeddingStorePermissionMetadataManager;
 import com.github.llamara.ai.internal.knowledge.storage.FileStorage;
@@ -36,12 +37,14 @@ public class TestKnowledgeManagerImpl extends KnowledgeManagerImpl {
             DocumentIngestor ingestor,
             EmbeddingStore<TextSegment> embeddingStore,
             FileStorage fileStorage,
-            EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager) {
+            EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager,
+            ChatResponseCache chatResponseCache) {
         super(
                 repository,
                 ingestor,
                 embeddingStore,
                 fileStorage,
-                embeddingStorePermissionMetadataManager);
+                embeddingStorePermissionMetadataManager,
+                chatResponseCache);
     }
 }
@@ -0,0 +1,339 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.knowledge.embedding;
+
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig;
+import com.github.llamara.ai.config.embedding.EmbeddingStoreConfig.QuantizationConfig;
+import com.github.llamara.ai.internal.CommonMetadataKeys;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.security.PermissionMetadataMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.value;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+/** Tests for {@link QdrantEmbeddingStorePermissionMetadataManagerImpl}. */
+@QuarkusTest
+class QdrantEmbeddingStorePermissionMetadataManagerImplTest {
+    private static final String COLLECTION_NAME = "test";
+    private static final Collections.PayloadSchemaInfo KEYWORD_SCHEMA =
+            Collections.PayloadSchemaInfo.newBuilder()
+                    .setDataType(Collections.PayloadSchemaType.Keyword)
+                    .build();
+    private static final Collections.PayloadIndexParams PERMISSION_INDEX_PARAMS =
+            Collections.PayloadIndexParams.newBuilder()
+                    .setKeywordIndexParams(
+                            Collections.KeywordIndexParams.newBuilder().setIsTenant(true))
+                    .build();
+
+    EmbeddingStoreConfig config;
+    QdrantClient client;
+    QdrantEmbeddingStorePermissionMetadataManagerImpl permissionMetadataManager;
+
+    @BeforeEach
+    void setup() {
+        config = mock(EmbeddingStoreConfig.class, RETURNS_DEEP_STUBS);
+        when(config.collectionName()).thenReturn(COLLECTION_NAME);
+        when(config.updateExisting()).thenReturn(false);
+
+        client = mock(QdrantClient.class);
+        when(client.collectionExistsAsync(COLLECTION_NAME)).thenReturn(immediateFuture(true));
+        when(client.setPayloadAsync(eq(COLLECTION_NAME), anyMap(), anyList(), any(), any(), any()))
+                .thenReturn(immediateFuture(Points.UpdateResult.getDefaultInstance()));
+        when(client.createPayloadIndexAsync(
+                        eq(COLLECTION_NAME), any(), any(), any(), any(), any(), any()))
+                .thenReturn(immediateFuture(Points.UpdateResult.getDefaultInstance()));
+
+        permissionMetadataManager =
+                new QdrantEmbeddingStorePermissionMetadataManagerImpl(config, client);
+    }
+
+    private static Points.RetrievedPoint point(Points.PointId id, JsonWithInt.Value permission) {
+        return Points.RetrievedPoint.newBuilder()
+                .setId(id)
+                .putPayload(EmbeddingMetadataKeys.PERMISSION, permission)
+                .build();
+    }
+
+    private static JsonWithInt.Value oldFormatPermission(String... usernames) {
+        return value(PermissionMetadataMapper.metadataValuesToMetadataEntry(List.of(usernames)));
+    }
+
+    private static List<String> usernames(Map<String, JsonWithInt.Value> payload) {
+        List<JsonWithInt.Value> values =
+                payload.get(EmbeddingMetadataKeys.PERMISSION).getListValue().getValuesList();
+        return values.stream().map(JsonWithInt.Value::getStringValue).toList();
+    }
+
+    private void mockCollectionInfo(String... keywordIndexedKeys) {
+        Collections.CollectionInfo.Builder info = Collections.CollectionInfo.newBuilder();
+        for (String key : keywordIndexedKeys) {
+            info.putPayloadSchema(key, KEYWORD_SCHEMA);
+        }
+        when(client.getCollectionInfoAsync(COLLECTION_NAME))
+                .thenReturn(immediateFuture(info.build()));
+    }
+
+    @Test
+    void checkConnectionAndInitMigratesOldFormatPermissionPayloadInBackground() {
+        // given
+        mockCollectionInfo(EmbeddingMetadataKeys.TAGS, CommonMetadataKeys.CONTENT_TYPE);
+        Points.PointId first = id(UUID.randomUUID());
+        Points.PointId second = id(UUID.randomUUID());
+        Points.PointId migrated = id(UUID.randomUUID());
+        Points.PointId third = id(UUID.randomUUID());
+        Points.ScrollResponse firstPage =
+                Points.ScrollResponse.newBuilder()
+                        .addResult(point(first, oldFormatPermission("alice", "*")))
+                        .addResult(point(second, oldFormatPermission("alice", "*")))
+                        .addResult(point(migrated, list(List.of(value("alice")))))
+                        .setNextPageOffset(third)
+                        .build();
+        Points.ScrollResponse secondPage =
+                Points.ScrollResponse.newBuilder()
+                        .addResult(point(third, oldFormatPermission("bob")))
+                        .build();
+        when(client.scrollAsync(any(Points.ScrollPoints.class)))
+                .thenReturn(immediateFuture(firstPage), immediateFuture(secondPage));
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        verify(client, timeout(5000))
+                .createPayloadIndexAsync(
+                        COLLECTION_NAME,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        Collections.PayloadSchemaType.Keyword,
+                        PERMISSION_INDEX_PARAMS,
+                        null,
+                        null,
+                        null);
+
+        ArgumentCaptor<Points.ScrollPoints> scrolls =
+                ArgumentCaptor.forClass(Points.ScrollPoints.class);
+        verify(client, times(2)).scrollAsync(scrolls.capture());
+        assertEquals(third, scrolls.getAllValues().get(1).getOffset());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, JsonWithInt.Value>> payloads =
+                ArgumentCaptor.forClass(Map.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Points.PointId>> ids = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client, times(2))
+                .setPayloadAsync(
+                        eq(COLLECTION_NAME),
+                        payloads.capture(),
+                        ids.capture(),
+                        isNull(),
+                        isNull(),
+                        isNull());
+        inOrder.verify(client)
+                .createPayloadIndexAsync(
+                        COLLECTION_NAME,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        Collections.PayloadSchemaType.Keyword,
+                        PERMISSION_INDEX_PARAMS,
+                        null,
+                        null,
+                        null);
+
+        // points are grouped by permission, already migrated points are skipped
+        Map<List<Points.PointId>, List<String>> permissionsByIds = new HashMap<>();
+        for (int i = 0; i < ids.getAllValues().size(); i++) {
+            permissionsByIds.put(
+                    ids.getAllValues().get(i), usernames(payloads.getAllValues().get(i)));
+        }
+        assertEquals(
+                Map.of(
+                        List.of(first, second),
+                        List.of("alice", "*"),
+                        List.of(third),
+                        List.of("bob")),
+                permissionsByIds);
+    }
+
+    @Test
+    void checkConnectionAndInitSkipsMigrationIfPermissionIndexExists() {
+        // given
+        mockCollectionInfo(
+                EmbeddingMetadataKeys.TAGS,
+                CommonMetadataKeys.CONTENT_TYPE,
+                EmbeddingMetadataKeys.PERMISSION);
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        assertFalse(permissionMetadataManager.hasLegacyPermissionMetadata());
+        verify(client, never()).scrollAsync(any(Points.ScrollPoints.class));
+        verify(client, never())
+                .createPayloadIndexAsync(
+                        eq(COLLECTION_NAME), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void hasLegacyPermissionMetadataWhileMigrationIsRunning() {
+        // given
+        mockCollectionInfo(EmbeddingMetadataKeys.TAGS, CommonMetadataKeys.CONTENT_TYPE);
+        when(client.scrollAsync(any(Points.ScrollPoints.class)))
+                .thenReturn(SettableFuture.create());
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        assertTrue(permissionMetadataManager.hasLegacyPermissionMetadata());
+        verify(client, never())
+                .createPayloadIndexAsync(
+                        eq(COLLECTION_NAME),
+                        eq(EmbeddingMetadataKeys.PERMISSION),
+                        any(),
+                        any(),
+                        any(),
+                        any(),
+                        any());
+    }
+
+    @Test
+    void checkConnectionAndInitCreatesPermissionTenantIndexForNewCollection() {
+        // given
+        when(client.collectionExistsAsync(COLLECTION_NAME)).thenReturn(immediateFuture(false));
+        when(config.quantization().type()).thenReturn(QuantizationConfig.QuantizationType.NONE);
+        when(client.createCollectionAsync(any(Collections.CreateCollection.class)))
+                .thenReturn(
+                        immediateFuture(
+                                Collections.CollectionOperationResponse.getDefaultInstance()));
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        assertFalse(permissionMetadataManager.hasLegacyPermissionMetadata());
+        assertFalse(captureCreateCollection().hasQuantizationConfig());
+        verify(client)
+                .createPayloadIndexAsync(
+                        COLLECTION_NAME,
+                        EmbeddingMetadataKeys.PERMISSION,
+                        Collections.PayloadSchemaType.Keyword,
+                        PERMISSION_INDEX_PARAMS,
+                        null,
+                        null,
+                        null);
+    }
+
+    @Test
+    void checkConnectionAndInitMapsCollectionConfigToCreateCollection() {
+        // given
+        when(client.collectionExistsAsync(COLLECTION_NAME)).thenReturn(immediateFuture(false));
+        when(config.vectorSize()).thenReturn(768);
+        when(config.onDisk()).thenReturn(true);
+        when(config.onDiskPayload()).thenReturn(true);
+        when(config.hnsw().m()).thenReturn(32);
+        when(config.hnsw().efConstruct()).thenReturn(200);
+        when(config.quantization().type()).thenReturn(QuantizationConfig.QuantizationType.SCALAR);
+        when(config.quantization().alwaysRam()).thenReturn(true);
+        when(client.createCollectionAsync(any(Collections.CreateCollection.class)))
+                .thenReturn(
+                        immediateFuture(
+                                Collections.CollectionOperationResponse.getDefaultInstance()));
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        Collections.CreateCollection createCollection = captureCreateCollection();
+        assertEquals(COLLECTION_NAME, createCollection.getCollectionName());
+        Collections.VectorParams vectorParams = createCollection.getVectorsConfig().getParams();
+        assertEquals(768, vectorParams.getSize());
+        assertEquals(Collections.Distance.Cosine, vectorParams.getDistance());
+        assertTrue(vectorParams.getOnDisk());
+        assertTrue(createCollection.getOnDiskPayload());
+        assertEquals(32, createCollection.getHnswConfig().getM());
+        assertEquals(200, createCollection.getHnswConfig().getEfConstruct());
+        Collections.ScalarQuantization scalar =
+                createCollection.getQuantizationConfig().getScalar();
+        assertEquals(Collections.QuantizationType.Int8, scalar.getType());
+        assertTrue(scalar.getAlwaysRam());
+    }
+
+    @Test
+    void checkConnectionAndInitMapsBinaryQuantizationToCreateCollection() {
+        // given
+        when(client.collectionExistsAsync(COLLECTION_NAME)).thenReturn(immediateFuture(false));
+        when(config.quantization().type()).thenReturn(QuantizationConfig.QuantizationType.BINARY);
+        when(config.quantization().alwaysRam()).thenReturn(false);
+        when(client.createCollectionAsync(any(Collections.CreateCollection.class)))
+                .thenReturn(
+                        immediateFuture(
+                                Collections.CollectionOperationResponse.getDefaultInstance()));
+
+        // when
+        permissionMetadataManager.checkConnectionAndInit();
+
+        // then
+        Collections.QuantizationConfig quantization =
+                captureCreateCollection().getQuantizationConfig();
+        assertTrue(quantization.hasBinary());
+        assertFalse(quantization.hasScalar());
+        assertFalse(quantization.getBinary().getAlwaysRam());
+    }
+
+    private Collections.CreateCollection captureCreateCollection() {
+        ArgumentCaptor<Collections.CreateCollection> captor =
+                ArgumentCaptor.forClass(Collections.CreateCollection.class);
+        verify(client).createCollectionAsync(captor.capture());
+        return captor.getValue();
+    }
+}
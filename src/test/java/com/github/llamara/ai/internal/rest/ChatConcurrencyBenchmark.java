@@ -0,0 +1,166 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.rest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Load test for the chat endpoint, sending many prompts at once to a running instance and
+ * reporting wall time and latency percentiles. As prompts run on virtual threads, the wall time
+ * should stay close to the latency of a single prompt even if the concurrency exceeds the worker
+ * pool size (<code>quarkus.thread-pool.max-threads</code>).
+ *
+ * <p>Not run by default, run it with: <code>
+ * ./mvnw test -Dtest=ChatConcurrencyBenchmark -Dbenchmark.chat.url=http://localhost:8080</code>.
+ * Use <code>benchmark.chat.model</code>, <code>benchmark.chat.token</code> (bearer token, anonymous
+ * if not set), <code>benchmark.concurrency</code> and <code>benchmark.prompt</code> to adjust the
+ * benchmark. Best run against a chat model with stable latency, e.g. a local mock server.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@EnabledIfSystemProperty(named = "benchmark.chat.url", matches = ".+")
+class ChatConcurrencyBenchmark {
+    private static final Pattern SESSION_ID_PATTERN =
+            Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-fA-F-]{36})\"");
+
+    private record Sample(int status, long nanos) {}
+
+    @Test
+    void benchmark() throws InterruptedException, ExecutionException, IOException {
+        String url = System.getProperty("benchmark.chat.url");
+        String model = System.getProperty("benchmark.chat.model", "gpt4o-mini");
+        String token = System.getProperty("benchmark.chat.token");
+        int concurrency = Integer.getInteger("benchmark.concurrency", 500);
+        String prompt = System.getProperty("benchmark.prompt", "Say hello.");
+
+        HttpClient client =
+                HttpClient.newBuilder()
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+
+        // warm up with a single prompt, so its latency is the baseline
+        String warmUpSessionId = createSession(client, url, token);
+        Sample baseline = prompt(client, url, token, model, warmUpSessionId, prompt);
+        assertEquals(200, baseline.status(), "Warm-up prompt failed");
+
+        List<String> sessionIds = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            sessionIds.add(createSession(client, url, token));
+        }
+
+        List<Sample> samples = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Sample>> futures = new ArrayList<>(concurrency);
+            for (String sessionId : sessionIds) {
+                futures.add(
+                        executor.submit(
+                                () -> prompt(client, url, token, model, sessionId, prompt)));
+            }
+            for (Future<Sample> future : futures) {
+                samples.add(future.get());
+            }
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        long failed = samples.stream().filter(sample -> sample.status() != 200).count();
+        List<Long> latencies = new ArrayList<>(samples.stream().map(Sample::nanos).toList());
+        Collections.sort(latencies);
+        System.out.printf(
+                "%d concurrent prompts: wall %.0f ms, single prompt %.0f ms, p50 %.0f ms,"
+                        + " p95 %.0f ms, max %.0f ms, %d failed%n",
+                concurrency,
+                wallNanos / 1e6,
+                baseline.nanos() / 1e6,
+                percentile(latencies, 0.5) / 1e6,
+                percentile(latencies, 0.95) / 1e6,
+                latencies.getLast() / 1e6,
+                failed);
+        assertEquals(0, failed, "Some prompts failed");
+    }
+
+    private static String createSession(HttpClient client, String url, String token)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response =
+                client.send(
+                        request(url + "/rest/chat/sessions/create", token)
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = SESSION_ID_PATTERN.matcher(response.body());
+        if (response.statusCode() != 201 || !matcher.find()) {
+            throw new IllegalStateException(
+                    "Failed to create session: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static Sample prompt(
+            HttpClient client,
+            String url,
+            String token,
+            String model,
+            String sessionId,
+            String prompt)
+            throws IOException, InterruptedException {
+        HttpRequest request =
+                request(url + "/rest/chat/prompt?uid=" + model + "&sessionId=" + sessionId, token)
+                        .header("Content-Type", "text/plain")
+                        .timeout(Duration.ofMinutes(5))
+                        .POST(HttpRequest.BodyPublishers.ofString(prompt))
+                        .build();
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return new Sample(response.statusCode(), System.nanoTime() - start);
+    }
+
+    private static HttpRequest.Builder request(String uri, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.rest;
+
+import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.history.RagSourceContentLoader;
+import com.github.llamara.ai.internal.security.session.SessionManager;
+import com.github.llamara.ai.internal.security.session.SessionNotFoundException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import jakarta.ws.rs.BadRequestException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.message.ChatMessageType;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import org.jboss.resteasy.reactive.RestResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the paging of {@link ChatResource#getHistory(UUID, long, Integer, boolean)}. */
+@QuarkusTest
+class ChatResourceTest {
+    private static final UUID SESSION_ID = UUID.randomUUID();
+
+    SessionManager sessionManager;
+    RagSourceContentLoader sourceContentLoader;
+    ChatResource chatResource;
+
+    @BeforeEach
+    void setup() {
+        sessionManager = mock(SessionManager.class);
+        sourceContentLoader = mock(RagSourceContentLoader.class);
+        chatResource =
+                new ChatResource(sessionManager, null, null, null, sourceContentLoader, null, null);
+    }
+
+    private static List<ChatMessageRecord> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(
+                        i ->
+                                new ChatMessageRecord(
+                                        ChatMessageType.USER,
+                                        "message " + i,
+                                        Instant.EPOCH.plusSeconds(i),
+                                        null,
+                                        null))
+                .toList();
+    }
+
+    private void mockChatHistory(List<ChatMessageRecord> messages)
+            throws SessionNotFoundException {
+        when(sessionManager.getChatHistory(eq(SESSION_ID), anyLong(), anyLong()))
+                .thenReturn(Uni.createFrom().item(messages));
+    }
+
+    @Test
+    void getHistoryFetchesOneMoreMessageAndReturnsNextCursor() throws SessionNotFoundException {
+        // given
+        List<ChatMessageRecord> messages = messages(4);
+        mockChatHistory(messages);
+
+        // when
+        RestResponse<List<ChatMessageRecord>> response =
+                chatResource.getHistory(SESSION_ID, 2, 3, false).await().indefinitely();
+
+        // then
+        verify(sessionManager).getChatHistory(SESSION_ID, 2, 4);
+        // the oldest message only indicates that there are older messages
+        assertEquals(messages.subList(1, 4), response.getEntity());
+        assertEquals(5L, response.getHeaders().getFirst(ChatResource.NEXT_CURSOR_HEADER));
+        verifyNoInteractions(sourceContentLoader);
+    }
+
+    @Test
+    void getHistoryOmitsNextCursorOnLastPage() throws SessionNotFoundException {
+        // given
+        List<ChatMessageRecord> messages = messages(2);
+        mockChatHistory(messages);
+
+        // when
+        RestResponse<List<ChatMessageRecord>> response =
+                chatResource.getHistory(SESSION_ID, 3, 3, false).await().indefinitely();
+
+        // then
+        assertEquals(messages, response.getEntity());
+        assertNull(response.getHeaders().getFirst(ChatResource.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getHistoryWithoutLimitReturnsAllMessages() throws SessionNotFoundException {
+        // given
+        List<ChatMessageRecord> messages = messages(3);
+        mockChatHistory(messages);
+
+        // when
+        RestResponse<List<ChatMessageRecord>> response =
+                chatResource.getHistory(SESSION_ID, 0, null, false).await().indefinitely();
+
+        // then
+        verify(sessionManager).getChatHistory(SESSION_ID, 0, Integer.MAX_VALUE + 1L);
+        assertEquals(messages, response.getEntity());
+        assertNull(response.getHeaders().getFirst(ChatResource.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getHistoryLoadsSourceContentOfPageOnly() throws SessionNotFoundException {
+        // given
+        List<ChatMessageRecord> messages = messages(3);
+        mockChatHistory(messages);
+        when(sourceContentLoader.loadSourceContent(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        RestResponse<List<ChatMessageRecord>> response =
+                chatResource.getHistory(SESSION_ID, 0, 2, true).await().indefinitely();
+
+        // then
+        verify(sourceContentLoader).loadSourceContent(messages.subList(1, 3));
+        assertEquals(messages.subList(1, 3), response.getEntity());
+    }
+
+    @Test
+    void getHistoryRejectsNegativeCursor() throws SessionNotFoundException {
+        assertThrows(
+                BadRequestException.class,
+                () -> chatResource.getHistory(SESSION_ID, -1, null, false));
+        verify(sessionManager, never()).getChatHistory(eq(SESSION_ID), anyLong(), anyLong());
+    }
+
+    @Test
+    void getHistoryRejectsLimitBelowOne() throws SessionNotFoundException {
+        assertThrows(
+                BadRequestException.class, () -> chatResource.getHistory(SESSION_ID, 0, 0, false));
+        verify(sessionManager, never()).getChatHistory(eq(SESSION_ID), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link CompiledPromptTemplate}. */
+@QuarkusTest
+class CompiledPromptTemplateTest {
+    @Test
+    void applyReplacesVariables() {
+        CompiledPromptTemplate template =
+                CompiledPromptTemplate.from("{{userMessage}}\n\nInformation:\n{{ contents }}");
+        assertEquals(
+                "question\n\nInformation:\nanswer",
+                template.apply(Map.of("userMessage", "question", "contents", "answer")));
+    }
+
+    @Test
+    void applyDoesNotReplaceVariablesInValues() {
+        CompiledPromptTemplate template =
+                CompiledPromptTemplate.from("{{userMessage}}|{{contents}}");
+        assertEquals(
+                "{{contents}}|answer",
+                template.apply(Map.of("userMessage", "{{contents}}", "contents", "answer")));
+    }
+
+    @Test
+    void applyReturnsTemplateWithoutVariables() {
+        assertEquals("no variables", CompiledPromptTemplate.from("no variables").apply(Map.of()));
+    }
+
+    @Test
+    void applyThrowsIllegalArgumentExceptionIfValueIsMissing() {
+        CompiledPromptTemplate template = CompiledPromptTemplate.from("{{userMessage}}");
+        Map<String, String> values = Map.of();
+        assertThrows(IllegalArgumentException.class, () -> template.apply(values));
+    }
+}
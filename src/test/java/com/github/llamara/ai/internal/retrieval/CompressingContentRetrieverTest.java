@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.config.RetrievalConfig;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.query.Query;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link CompressingContentRetriever}. */
+@QuarkusTest
+class CompressingContentRetrieverTest {
+    private static final String TEXT =
+            "The office opens at eight. Parking is available in the basement. Vacation requests"
+                    + " must be submitted two weeks in advance. The canteen serves lunch at noon."
+                    + " Visitors must register at the reception.";
+
+    @Test
+    void splitSplitsTextIntoSentences() {
+        List<String> sentences = CompressingContentRetriever.split(TextSegment.from(TEXT));
+        assertEquals(5, sentences.size());
+        assertEquals(TEXT, String.join("", sentences));
+    }
+
+    @Test
+    void selectKeepsTopSentencesWithNeighboursInOrder() {
+        List<String> sentences = List.of("a. ", "b. ", "c. ", "d. ", "e. ", "f.");
+        double[] scores = {0, 0, 0, 1, 0, 0};
+
+        assertEquals("c. d. e. [...]", CompressingContentRetriever.select(sentences, scores, 1, 1));
+        assertEquals("d. [...]", CompressingContentRetriever.select(sentences, scores, 1, 0));
+    }
+
+    @Test
+    void selectKeepsShortSegments() {
+        List<String> sentences = List.of("a. ", "b.");
+        assertEquals("a. b.", CompressingContentRetriever.select(sentences, new double[2], 3, 0));
+    }
+
+    @Test
+    void retrieveKeepsRelevantSentenceAndMetadata() {
+        // given
+        RetrievalConfig.Compression config = mock(RetrievalConfig.Compression.class);
+        when(config.scorer())
+                .thenReturn(RetrievalConfig.Compression.CompressionScorer.LEXICAL);
+        when(config.maxSentences()).thenReturn(1);
+        when(config.neighbours()).thenReturn(0);
+        Content content =
+                Content.from(
+                        TextSegment.from(TEXT),
+                        Map.of(ContentMetadata.EMBEDDING_ID, "embedding-id"));
+        CompressingContentRetriever retriever =
+                new CompressingContentRetriever(
+                        query -> List.of(content),
+                        config,
+                        mock(EmbeddingModel.class));
+
+        // test
+        List<Content> result = retriever.retrieve(Query.from("How to submit vacation requests?"));
+        assertEquals(1, result.size());
+        String text = result.get(0).textSegment().text();
+        assertTrue(text.startsWith("Vacation requests must be submitted"));
+        assertEquals("embedding-id", result.get(0).metadata().get(ContentMetadata.EMBEDDING_ID));
+    }
+
+    @Test
+    void embeddingScorerReusesEmbeddingOfEmbeddedQuery() {
+        // given
+        RetrievalConfig.Compression config = mock(RetrievalConfig.Compression.class);
+        when(config.scorer())
+                .thenReturn(RetrievalConfig.Compression.CompressionScorer.EMBEDDING);
+        when(config.maxSentences()).thenReturn(1);
+        when(config.neighbours()).thenReturn(0);
+        String query = "How to submit vacation requests?";
+        Embedding queryEmbedding = Embedding.from(new float[] {1, 0});
+        EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+        when(embeddingModel.embedAll(anyList()))
+                .thenAnswer(
+                        invocation -> {
+                            List<TextSegment> segments = invocation.getArgument(0);
+                            // only the vacation sentence points in the direction of the query
+                            return Response.from(
+                                    segments.stream()
+                                            .map(
+                                                    s ->
+                                                            s.text().startsWith("Vacation")
+                                                                    ? queryEmbedding
+                                                                    : Embedding.from(
+                                                                            new float[] {0, 1}))
+                                            .toList());
+                        });
+        // the delegate embeds the query, as the multi-query retriever does
+        CompressingContentRetriever retriever =
+                new CompressingContentRetriever(
+                        q -> {
+                            ((EmbeddedQuery) q).embedding(queryEmbedding);
+                            return List.of(Content.from(TEXT));
+                        },
+                        config,
+                        embeddingModel);
+
+        // test
+        List<Content> result = retriever.retrieve(EmbeddedQuery.from(Query.from(query), null));
+        assertTrue(result.get(0).textSegment().text().startsWith("Vacation requests"));
+        verify(embeddingModel)
+                .embedAll(
+                        argThat(
+                                (List<TextSegment> segments) ->
+                                        segments.size() == 5
+                                                && segments.stream()
+                                                        .noneMatch(s -> s.text().equals(query))));
+    }
+}
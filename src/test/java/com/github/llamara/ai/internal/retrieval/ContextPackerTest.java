@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ContextPacker}. */
+@QuarkusTest
+class ContextPackerTest {
+    private static final String KNOWLEDGE_ID = UUID.randomUUID().toString();
+    private static final String OVERLAP = "this text is shared by both segments";
+
+    private final ContextPacker packer = new ContextPacker(String::length, 200);
+
+    private static Content content(String knowledgeId, Integer index, String text) {
+        Metadata metadata = Metadata.from(EmbeddingMetadataKeys.KNOWLEDGE_ID, knowledgeId);
+        if (index != null) {
+            metadata.put(EmbeddingMetadataKeys.INDEX, String.valueOf(index));
+        }
+        return Content.from(
+                TextSegment.from(text, metadata),
+                Map.of(ContentMetadata.EMBEDDING_ID, UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void mergeMergesOverlappingSegmentsOfSameKnowledge() {
+        // given
+        Content first = content(KNOWLEDGE_ID, null, "first part, " + OVERLAP);
+        Content second = content(KNOWLEDGE_ID, null, OVERLAP + ", second part");
+
+        // test
+        List<Content> merged = packer.merge(List.of(second, first));
+        assertEquals(1, merged.size());
+        assertEquals(
+                "first part, " + OVERLAP + ", second part", merged.get(0).textSegment().text());
+        assertEquals(
+                second.metadata().get(ContentMetadata.EMBEDDING_ID)
+                        + ContextPacker.EMBEDDING_ID_DELIMITER
+                        + first.metadata().get(ContentMetadata.EMBEDDING_ID),
+                merged.get(0).metadata().get(ContentMetadata.EMBEDDING_ID));
+    }
+
+    @Test
+    void mergeMergesAdjacentSegmentsByIndex() {
+        // given
+        Content first = content(KNOWLEDGE_ID, 1, "first");
+        Content second = content(KNOWLEDGE_ID, 2, "second");
+        Content third = content(KNOWLEDGE_ID, 3, "third");
+
+        // test
+        List<Content> merged = packer.merge(List.of(third, first, second));
+        assertEquals(1, merged.size());
+        assertEquals("first\nsecond\nthird", merged.get(0).textSegment().text());
+    }
+
+    @Test
+    void mergeRemovesDuplicates() {
+        // given
+        Content first = content(KNOWLEDGE_ID, null, "duplicate text");
+        Content second = content(KNOWLEDGE_ID, null, "duplicate text");
+
+        // test
+        List<Content> merged = packer.merge(List.of(first, second));
+        assertEquals(1, merged.size());
+        assertEquals("duplicate text", merged.get(0).textSegment().text());
+    }
+
+    @Test
+    void mergeDoesNotMergeSegmentsOfDifferentKnowledge() {
+        // given
+        Content first = content(KNOWLEDGE_ID, 1, "first, " + OVERLAP);
+        Content second = content(UUID.randomUUID().toString(), 2, OVERLAP + ", second");
+
+        // test
+        List<Content> merged = packer.merge(List.of(first, second));
+        assertEquals(2, merged.size());
+        assertSame(first, merged.get(0));
+        assertSame(second, merged.get(1));
+    }
+
+    @Test
+    void mergeDoesNotMergeNonAdjacentSegments() {
+        List<Content> merged =
+                packer.merge(
+                        List.of(content(KNOWLEDGE_ID, 1, "first"), content(KNOWLEDGE_ID, 3, "3")));
+        assertEquals(2, merged.size());
+    }
+
+    @Test
+    void fillKeepsContentsWithinBudget() {
+        // separator counts 2 tokens, each character counts as one token
+        List<String> filled = packer.fill(List.of("aaaa", "bbbbbb", "cc"), "\n\n", 10);
+        assertEquals(List.of("aaaa", "cc"), filled);
+    }
+
+    @Test
+    void fillKeepsAllContentsWithoutBudget() {
+        List<String> contents = List.of("aaaa", "bbbbbb", "cc");
+        assertSame(contents, packer.fill(contents, "\n\n", Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.telemetry.StageTracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import jakarta.inject.Inject;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link MultiQueryContentRetriever}. */
+@QuarkusTest
+class MultiQueryContentRetrieverTest {
+    private static final String QUERY = "How to submit vacation requests?";
+    private static final String VARIANT = "Vacation request submission";
+    private static final Embedding QUERY_EMBEDDING = Embedding.from(new float[] {1, 0});
+    private static final Embedding VARIANT_EMBEDDING = Embedding.from(new float[] {0, 1});
+
+    @Inject StageTracer stageTracer;
+
+    EmbeddingStore<TextSegment> store;
+    EmbeddingModel model;
+    ExecutorService executor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        store = mock(EmbeddingStore.class);
+        model = mock(EmbeddingModel.class);
+        when(model.embedAll(anyList()))
+                .thenAnswer(
+                        invocation -> {
+                            List<TextSegment> segments = invocation.getArgument(0);
+                            return Response.from(
+                                    segments.stream()
+                                            .map(
+                                                    s ->
+                                                            s.text().equals(QUERY)
+                                                                    ? QUERY_EMBEDDING
+                                                                    : VARIANT_EMBEDDING)
+                                            .toList());
+                        });
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void destroy() {
+        executor.shutdownNow();
+    }
+
+    private MultiQueryContentRetriever retriever(
+            QueryExpander expander, Function<Query, Filter> filter, int maxResults) {
+        return new MultiQueryContentRetriever(
+                store, model, expander, filter, executor, maxResults, 0.0, stageTracer);
+    }
+
+    private static EmbeddingSearchResult<TextSegment> result(Object... idsAndScores) {
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        for (int i = 0; i < idsAndScores.length; i += 2) {
+            String id = (String) idsAndScores[i];
+            matches.add(
+                    new EmbeddingMatch<>(
+                            (Double) idsAndScores[i + 1], id, null, TextSegment.from(id)));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    @Test
+    void retrieveSearchesAllVariantsConcurrentlyOnExecutor() {
+        // given
+        CountDownLatch searching = new CountDownLatch(2);
+        Set<Thread> searchThreads = ConcurrentHashMap.newKeySet();
+        when(store.search(any()))
+                .thenAnswer(
+                        invocation -> {
+                            searchThreads.add(Thread.currentThread());
+                            searching.countDown();
+                            // only returns if both searches run at the same time
+                            assertTrue(searching.await(5, TimeUnit.SECONDS));
+                            return result();
+                        });
+        MultiQueryContentRetriever retriever =
+                retriever(query -> List.of(QUERY, VARIANT), query -> null, 10);
+
+        // when
+        retriever.retrieve(Query.from(QUERY));
+
+        // then
+        verify(store, times(2)).search(any());
+        assertEquals(2, searchThreads.size());
+        assertFalse(searchThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    void retrieveMergesMatchesByEmbeddingIdKeepingHighestScore() {
+        // given
+        when(store.search(any()))
+                .thenAnswer(
+                        invocation -> {
+                            EmbeddingSearchRequest request = invocation.getArgument(0);
+                            return request.queryEmbedding().equals(QUERY_EMBEDDING)
+                                    ? result("a", 0.9, "b", 0.5)
+                                    : result("b", 0.8, "c", 0.7);
+                        });
+        MultiQueryContentRetriever retriever =
+                retriever(query -> List.of(QUERY, VARIANT), query -> null, 2);
+
+        // when
+        List<Content> contents = retriever.retrieve(Query.from(QUERY));
+
+        // then
+        assertEquals(
+                List.of("a", "b"),
+                contents.stream()
+                        .map(content -> content.metadata().get(ContentMetadata.EMBEDDING_ID))
+                        .toList());
+        assertEquals(0.8, contents.get(1).metadata().get(ContentMetadata.SCORE));
+    }
+
+    @Test
+    void retrieveResolvesFilterOnCallingThread() {
+        // given
+        Filter filter = metadataKey("key").isEqualTo("value");
+        AtomicReference<Thread> filterThread = new AtomicReference<>();
+        List<Filter> searchFilters = new CopyOnWriteArrayList<>();
+        when(store.search(any()))
+                .thenAnswer(
+                        invocation -> {
+                            searchFilters.add(
+                                    invocation.<EmbeddingSearchRequest>getArgument(0).filter());
+                            return result();
+                        });
+        MultiQueryContentRetriever retriever =
+                retriever(
+                        query -> List.of(QUERY, VARIANT),
+                        query -> {
+                            filterThread.set(Thread.currentThread());
+                            return filter;
+                        },
+                        10);
+
+        // when
+        retriever.retrieve(Query.from(QUERY));
+
+        // then
+        assertSame(Thread.currentThread(), filterThread.get());
+        assertEquals(List.of(filter, filter), searchFilters);
+    }
+
+    @Test
+    void retrieveReusesCachedQueryExpansion() {
+        // given
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.chat(anyString())).thenReturn(VARIANT);
+        when(store.search(any())).thenReturn(result());
+        MultiQueryContentRetriever retriever =
+                retriever(
+                        new ModelQueryExpander(chatModel, 2, ModelQueryExpander.createCache(10)),
+                        query -> null,
+                        10);
+
+        // when
+        retriever.retrieve(Query.from(QUERY));
+        retriever.retrieve(Query.from(QUERY));
+
+        // then
+        verify(chatModel, times(1)).chat(anyString());
+        verify(store, times(4)).search(any());
+    }
+
+    @Test
+    void retrieveReusesEmbeddingOfEmbeddedQuery() {
+        // given
+        when(store.search(any())).thenReturn(result());
+        MultiQueryContentRetriever retriever =
+                retriever(query -> List.of(QUERY, VARIANT), query -> null, 10);
+
+        // when
+        retriever.retrieve(EmbeddedQuery.from(Query.from(QUERY), QUERY_EMBEDDING));
+
+        // then
+        verify(model).embedAll(List.of(TextSegment.from(VARIANT)));
+        verify(store, times(2)).search(any());
+    }
+
+    @Test
+    void retrieveSetsEmbeddingOnEmbeddedQuery() {
+        // given
+        when(store.search(any())).thenReturn(result());
+        MultiQueryContentRetriever retriever =
+                retriever(query -> List.of(QUERY, VARIANT), query -> null, 10);
+        EmbeddedQuery query = EmbeddedQuery.from(Query.from(QUERY), null);
+
+        // when
+        retriever.retrieve(query);
+
+        // then
+        assertEquals(QUERY_EMBEDDING, query.embedding());
+    }
+}
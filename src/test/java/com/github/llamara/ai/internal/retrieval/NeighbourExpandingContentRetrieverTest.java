@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+import com.github.llamara.ai.internal.ScrollableEmbeddingStore;
+
+import java.util.List;
+import java.util.Map;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link NeighbourExpandingContentRetriever}. */
+@QuarkusTest
+class NeighbourExpandingContentRetrieverTest {
+    private static final String KNOWLEDGE_ID = "knowledge";
+    private static final Filter FILTER = metadataKey("permission").isIn("user");
+
+    private static TextSegment segment(int index) {
+        return TextSegment.from(
+                "segment " + index,
+                Metadata.from(
+                        Map.of(
+                                EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                                KNOWLEDGE_ID,
+                                EmbeddingMetadataKeys.INDEX,
+                                String.valueOf(index))));
+    }
+
+    private static Content content(int index, double score) {
+        return Content.from(
+                segment(index),
+                Map.of(ContentMetadata.EMBEDDING_ID, "id" + index, ContentMetadata.SCORE, score));
+    }
+
+    @Test
+    void retrieveAddsNeighboursAfterTheirHitWithSingleScroll() {
+        // given
+        ScrollableEmbeddingStore store = mock(ScrollableEmbeddingStore.class);
+        when(store.scroll(any(), anyInt()))
+                .thenReturn(Map.of("id4", segment(4), "id6", segment(6), "id1", segment(1)));
+        NeighbourExpandingContentRetriever retriever =
+                new NeighbourExpandingContentRetriever(
+                        query -> List.of(content(5, 0.9), content(2, 0.8)),
+                        store,
+                        query -> FILTER,
+                        1,
+                        2);
+
+        // test
+        List<Content> result = retriever.retrieve(Query.from("query"));
+        assertEquals(
+                List.of("segment 5", "segment 4", "segment 6", "segment 2", "segment 1"),
+                result.stream().map(c -> c.textSegment().text()).toList());
+        assertEquals("id4", result.get(1).metadata().get(ContentMetadata.EMBEDDING_ID));
+        assertEquals(0.9, result.get(1).metadata().get(ContentMetadata.SCORE));
+        verify(store, times(1)).scroll(any(), eq(4));
+    }
+
+    @Test
+    void retrieveDoesNotFetchAlreadyRetrievedNeighbours() {
+        // given
+        ScrollableEmbeddingStore store = mock(ScrollableEmbeddingStore.class);
+        NeighbourExpandingContentRetriever retriever =
+                new NeighbourExpandingContentRetriever(
+                        query -> List.of(content(0, 0.9), content(1, 0.8)),
+                        store,
+                        query -> FILTER,
+                        1,
+                        1);
+
+        // test
+        assertEquals(2, retriever.retrieve(Query.from("query")).size());
+        verify(store, never()).scroll(any(), anyInt());
+    }
+}
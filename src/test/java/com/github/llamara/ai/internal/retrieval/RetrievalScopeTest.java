@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import com.github.llamara.ai.internal.CommonMetadataKeys;
+import com.github.llamara.ai.internal.EmbeddingMetadataKeys;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RetrievalScope}. */
+@QuarkusTest
+class RetrievalScopeTest {
+    @Test
+    void isNotRestrictedByDefault() {
+        RetrievalScope scope = new RetrievalScope();
+        assertFalse(scope.isRestricted());
+        assertTrue(scope.toFilter().isEmpty());
+    }
+
+    @Test
+    void isNotRestrictedByNullOrEmptyCriteria() {
+        RetrievalScope scope = new RetrievalScope();
+        scope.restrict(null, List.of(), null);
+        assertFalse(scope.isRestricted());
+        assertTrue(scope.toFilter().isEmpty());
+    }
+
+    @Test
+    void toFilterReturnsIsInFilterForSingleCriterion() {
+        // given
+        RetrievalScope scope = new RetrievalScope();
+        scope.restrict(List.of("hr", "legal"), null, null);
+
+        // test
+        assertTrue(scope.isRestricted());
+        assertEquals(
+                new IsIn(EmbeddingMetadataKeys.TAGS, List.of("hr", "legal")),
+                scope.toFilter().orElseThrow());
+    }
+
+    @Test
+    void toFilterAndsMultipleCriteria() {
+        // given
+        UUID knowledgeId = UUID.randomUUID();
+        RetrievalScope scope = new RetrievalScope();
+        scope.restrict(List.of("hr"), List.of(knowledgeId), List.of("application/pdf"));
+
+        // test
+        Filter expected =
+                new And(
+                        new And(
+                                new IsIn(EmbeddingMetadataKeys.TAGS, List.of("hr")),
+                                new IsIn(
+                                        EmbeddingMetadataKeys.KNOWLEDGE_ID,
+                                        List.of(knowledgeId.toString()))),
+                        new IsIn(CommonMetadataKeys.CONTENT_TYPE, List.of("application/pdf")));
+        assertEquals(expected, scope.toFilter().orElseThrow());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RuleBasedQueryExpander}. */
+@QuarkusTest
+class RuleBasedQueryExpanderTest {
+    @Test
+    void expandsToKeywordsAndSubQuestions() {
+        List<String> queries =
+                new RuleBasedQueryExpander(4).expand("What is Quarkus and how does Qdrant work?");
+        assertEquals(
+                List.of(
+                        "What is Quarkus and how does Qdrant work?",
+                        "Quarkus Qdrant work",
+                        "What is Quarkus",
+                        "how does Qdrant work?"),
+                queries);
+    }
+
+    @Test
+    void removesGermanFillerWords() {
+        List<String> queries = new RuleBasedQueryExpander(3).expand("Wie funktioniert Qdrant?");
+        assertEquals(List.of("Wie funktioniert Qdrant?", "funktioniert Qdrant"), queries);
+    }
+
+    @Test
+    void doesNotDuplicateOriginalQuery() {
+        assertEquals(List.of("Qdrant"), new RuleBasedQueryExpander(3).expand("Qdrant"));
+    }
+
+    @Test
+    void limitsNumberOfQueries() {
+        List<String> queries =
+                new RuleBasedQueryExpander(2).expand("What is Quarkus and how does Qdrant work?");
+        assertEquals(2, queries.size());
+    }
+}
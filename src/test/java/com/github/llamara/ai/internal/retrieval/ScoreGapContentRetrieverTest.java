@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.retrieval;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.DoubleStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ScoreGapContentRetriever}. */
+@QuarkusTest
+class ScoreGapContentRetrieverTest {
+    private static List<Content> contents(double... scores) {
+        return DoubleStream.of(scores)
+                .mapToObj(
+                        score ->
+                                Content.from(
+                                        TextSegment.from("segment " + score),
+                                        Map.of(ContentMetadata.SCORE, score)))
+                .toList();
+    }
+
+    @Test
+    void cutsAtLargestScoreGap() {
+        List<Content> result =
+                ScoreGapContentRetriever.cutAtLargestScoreGap(
+                        contents(0.91, 0.9, 0.89, 0.7, 0.69), 1);
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void keepsSingleResultIfFirstGapIsLargest() {
+        List<Content> result =
+                ScoreGapContentRetriever.cutAtLargestScoreGap(contents(0.95, 0.6, 0.58, 0.57), 1);
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void keepsMinResultsRegardlessOfScoreGap() {
+        List<Content> result =
+                ScoreGapContentRetriever.cutAtLargestScoreGap(contents(0.95, 0.94, 0.6, 0.58), 3);
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void keepsAllIfScoresAreEqual() {
+        List<Content> result =
+                ScoreGapContentRetriever.cutAtLargestScoreGap(contents(0.8, 0.8, 0.8), 1);
+        assertEquals(3, result.size());
+    }
+}
@@ -22,6 +22,7 @@ package com.github.llamara.ai.internal.security;
 import com.github.llamara.ai.internal.security.user.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -89,7 +90,53 @@ class PermissionMetadataMapperTest {
     }
 
     @Test
-    void identityToMetadataQueriesReturnsUserQueryForAuthenticatedIdentity() {
+    void permissionsToMetadataValuesReturnsUsernamesOfReaders() {
+        // given
+        Map<User, Permission> permissions =
+                Map.of(USER, Permission.READONLY, new User("user2"), Permission.NONE);
+
+        // test
+        List<String> values = PermissionMetadataMapper.permissionsToMetadataValues(permissions);
+        assertEquals(List.of(USER.getUsername()), values);
+    }
+
+    @Test
+    void metadataEntryToMetadataValuesReturnsUsernames() {
+        // given
+        String metadataEntry =
+                PermissionMetadataMapper.DELIMITER
+                        + USER.getUsername()
+                        + PermissionMetadataMapper.DELIMITER
+                        + Users.ANY_USERNAME
+                        + PermissionMetadataMapper.DELIMITER;
+
+        // test
+        List<String> values = PermissionMetadataMapper.metadataEntryToMetadataValues(metadataEntry);
+        assertEquals(List.of(USER.getUsername(), Users.ANY_USERNAME), values);
+    }
+
+    @Test
+    void metadataEntryToMetadataValuesReturnsEmptyListForEmptyEntry() {
+        assertTrue(PermissionMetadataMapper.metadataEntryToMetadataValues("").isEmpty());
+    }
+
+    @Test
+    void metadataValuesToMetadataEntryIsInverseOfMetadataEntryToMetadataValues() {
+        // given
+        Map<User, Permission> permissions =
+                Map.of(USER, Permission.READONLY, new User("user2"), Permission.OWNER);
+        String metadataEntry = PermissionMetadataMapper.permissionsToMetadataEntry(permissions);
+
+        // test
+        assertEquals(
+                metadataEntry,
+                PermissionMetadataMapper.metadataValuesToMetadataEntry(
+                        PermissionMetadataMapper.metadataEntryToMetadataValues(metadataEntry)));
+        assertEquals("", PermissionMetadataMapper.metadataValuesToMetadataEntry(List.of()));
+    }
+
+    @Test
+    void identityToMetadataQueriesReturnsUsernameForAuthenticatedIdentity() {
         // given
         SecurityIdentity identity =
                 QuarkusSecurityIdentity.builder()
@@ -97,19 +144,15 @@ class PermissionMetadataMapperTest {
                         .setPrincipal(USER::getUsername)
                         .addRole(Roles.USER)
                         .build();
-        String expected =
-                PermissionMetadataMapper.DELIMITER
-                        + USER.getUsername()
-                        + PermissionMetadataMapper.DELIMITER;
 
         // test
         Collection<String> queries = PermissionMetadataMapper.identityToMetadataQueries(identity);
         assertEquals(2, queries.size());
-        assertTrue(queries.contains(expected));
+        assertTrue(queries.contains(USER.getUsername()));
     }
 
     @Test
-    void identityToMetadataQueriesReturnsAnyQueryForAuthenticatedIdentity() {
+    void identityToMetadataQueriesReturnsAnyUsernameForAuthenticatedIdentity() {
         // given
         SecurityIdentity identity =
                 QuarkusSecurityIdentity.builder()
@@ -117,33 +160,24 @@ class PermissionMetadataMapperTest {
                         .setPrincipal(USER::getUsername)
                         .addRole(Roles.USER)
                         .build();
-        String expected =
-                PermissionMetadataMapper.DELIMITER
-                        + Users.ANY_USERNAME
-                        + PermissionMetadataMapper.DELIMITER;
 
         // test
         Collection<String> queries = PermissionMetadataMapper.identityToMetadataQueries(identity);
         assertEquals(2, queries.size());
-        assertTrue(queries.contains(expected));
+        assertTrue(queries.contains(Users.ANY_USERNAME));
     }
 
     @Test
-    void identityToMetadataQueriesReturnsOnlyAnyQueryForAnonymousIdentity() {
+    void identityToMetadataQueriesReturnsOnlyAnyUsernameForAnonymousIdentity() {
         // given
         SecurityIdentity identity =
                 QuarkusSecurityIdentity.builder()
                         .setAnonymous(true)
                         .addRole(Roles.ANONYMOUS_USER)
                         .build();
-        String expected =
-                PermissionMetadataMapper.DELIMITER
-                        + Users.ANY_USERNAME
-                        + PermissionMetadataMapper.DELIMITER;
 
         // test
         Collection<String> queries = PermissionMetadataMapper.identityToMetadataQueries(identity);
-        assertEquals(1, queries.size());
-        assertTrue(queries.contains(expected));
+        assertEquals(List.of(Users.ANY_USERNAME), queries);
     }
 }
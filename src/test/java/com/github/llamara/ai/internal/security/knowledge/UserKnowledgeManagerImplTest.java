@@ -20,9 +20,11 @@
 package com.github.llamara.ai.internal.security.knowledge;
 
 import com.github.llamara.ai.config.SecurityConfig;
+import com.github.llamara.ai.internal.chat.cache.ChatResponseCache;
 import com.github.llamara.ai.internal.ingestion.DocumentIngestor;
 import com.github.llamara.ai.internal.ingestion.IngestionStatus;
 import com.github.llamara.ai.internal.knowledge.IllegalPermissionModificationException;
+import com.github.llamara.ai.internal.knowledge.IllegalTagException;
 import com.github.llamara.ai.internal.knowledge.KnowledgeNotFoundException;
 import com.github.llamara.ai.internal.knowledge.KnowledgeRepository;
 import com.github.llamara.ai.internal.knowledge.TestKnowledgeManagerImpl;
@@ -90,6 +92,7 @@ class UserKnowledgeManagerImplTest {
     @InjectMock EmbeddingStore<TextSegment> embeddingStore;
     @InjectSpy FileStorage fileStorage;
     @InjectMock EmbeddingStorePermissionMetadataManager embeddingStorePermissionMetadataManager;
+    @InjectMock ChatResponseCache chatResponseCache;
 
     @InjectMock SecurityConfig config;
     @InjectSpy UserAwareKnowledgeRepository userAwareKnowledgeRepository;
@@ -112,7 +115,8 @@ class UserKnowledgeManagerImplTest {
                                 documentIngestor,
                                 embeddingStore,
                                 fileStorage,
-                                embeddingStorePermissionMetadataManager));
+                                embeddingStorePermissionMetadataManager,
+                                chatResponseCache));
         userKnowledgeManager =
                 new UserKnowledgeManagerImpl(
                         knowledgeManager,
@@ -399,7 +403,8 @@ class UserKnowledgeManagerImplTest {
         }
 
         @Test
-        void addKnowledgeTagAddsTagToOwnKnowledge() throws KnowledgeNotFoundException {
+        void addKnowledgeTagAddsTagToOwnKnowledge()
+                throws KnowledgeNotFoundException, IllegalTagException {
             assertDoesNotThrow(() -> userKnowledgeManager.addTag(ownKnowledgeId, "tag"));
             verify(knowledgeManager, times(1)).addTag(ownKnowledgeId, "tag");
         }
@@ -895,7 +900,8 @@ class UserKnowledgeManagerImplTest {
         }
 
         @Test
-        void addKnowledgeTagAddsTagToOwnKnowledge() throws KnowledgeNotFoundException {
+        void addKnowledgeTagAddsTagToOwnKnowledge()
+                throws KnowledgeNotFoundException, IllegalTagException {
             assertDoesNotThrow(() -> userKnowledgeManager.addTag(ownKnowledgeId, "tag"));
             verify(knowledgeManager, times(1)).addTag(ownKnowledgeId, "tag");
         }
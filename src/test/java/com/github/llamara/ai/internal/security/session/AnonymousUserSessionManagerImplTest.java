@@ -21,6 +21,8 @@ package com.github.llamara.ai.internal.security.session;
 
 import com.github.llamara.ai.config.SecurityConfig;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.memory.ChatMemorySummaryStore;
+import com.github.llamara.ai.internal.chat.memory.TokenCountStore;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -57,6 +59,8 @@ class AnonymousUserSessionManagerImplTest {
 
     @InjectMock SecurityConfig securityConfig;
     @InjectMock ChatMemoryStore chatMemoryStore;
+    @InjectMock TokenCountStore tokenCountStore;
+    @InjectMock ChatMemorySummaryStore chatMemorySummaryStore;
 
     private AnonymousUserSessionManagerImpl sessionManager;
 
@@ -66,7 +70,9 @@ class AnonymousUserSessionManagerImplTest {
         when(securityConfig.anonymousUserSessionTimeout())
                 .thenReturn(60); // ensure tests have enough time to run without scheduled deletion
         // kicking in
-        sessionManager = new AnonymousUserSessionManagerImpl(securityConfig, chatMemoryStore);
+        sessionManager =
+                new AnonymousUserSessionManagerImpl(
+                        securityConfig, chatMemoryStore, tokenCountStore, chatMemorySummaryStore);
     }
 
     @AfterEach
@@ -146,6 +152,8 @@ class AnonymousUserSessionManagerImplTest {
 
         assertDoesNotThrow(() -> sessionManager.deleteSession(sessionId));
         Mockito.verify(chatMemoryStore, times(1)).deleteMessages(sessionId);
+        Mockito.verify(tokenCountStore, times(1)).deleteTokenCounts(sessionId);
+        Mockito.verify(chatMemorySummaryStore, times(1)).deleteSummary(sessionId);
     }
 
     @Test
@@ -21,6 +21,8 @@ package com.github.llamara.ai.internal.security.session;
 
 import com.github.llamara.ai.internal.chat.history.ChatHistoryStore;
 import com.github.llamara.ai.internal.chat.history.ChatMessageRecord;
+import com.github.llamara.ai.internal.chat.memory.ChatMemorySummaryStore;
+import com.github.llamara.ai.internal.chat.memory.TokenCountStore;
 import com.github.llamara.ai.internal.security.BaseForAuthenticatedUserTests;
 
 import java.util.Collection;
@@ -33,6 +35,7 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.*;
 
@@ -58,6 +61,8 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
             List.of(new UserMessage("Hello, world!"), new AiMessage("Hi!"));
 
     @InjectMock ChatMemoryStore chatMemoryStore;
+    @InjectMock TokenCountStore tokenCountStore;
+    @InjectMock ChatMemorySummaryStore chatMemorySummaryStore;
     @InjectMock ChatHistoryStore chatHistoryStore;
 
     private AuthenticatedUserSessionManagerImpl sessionManager;
@@ -71,6 +76,8 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
                         userRepository,
                         userAwareSessionRepository,
                         chatMemoryStore,
+                        tokenCountStore,
+                        chatMemorySummaryStore,
                         chatHistoryStore,
                         identity);
         clearAllInvocations();
@@ -141,6 +148,7 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
                     SessionNotFoundException.class,
                     () -> sessionManager.getChatHistory(UUID.randomUUID()).await().indefinitely());
             verify(chatHistoryStore, never()).getMessages(any());
+            verify(chatHistoryStore, never()).getMessages(any(), anyLong(), anyLong());
         }
 
         @Test
@@ -190,6 +198,7 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
                     SessionNotFoundException.class,
                     () -> sessionManager.getChatHistory(foreignSessionId).await().indefinitely());
             verify(chatHistoryStore, never()).getMessages(any());
+            verify(chatHistoryStore, never()).getMessages(any(), anyLong(), anyLong());
         }
 
         @Test
@@ -231,6 +240,8 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
         void deleteSessionDeletesOwnSession() throws SessionNotFoundException {
             sessionManager.deleteSession(ownSessionId);
             verify(chatMemoryStore, times(1)).deleteMessages(ownSessionId);
+            verify(tokenCountStore, times(1)).deleteTokenCounts(ownSessionId);
+            verify(chatMemorySummaryStore, times(1)).deleteSummary(ownSessionId);
             verify(chatHistoryStore, times(1)).deleteMessages(ownSessionId);
             verify(userAwareSessionRepository, times(1)).delete(any());
             assertEquals(0, userAwareSessionRepository.count());
@@ -246,6 +257,21 @@ class AuthenticatedUserSessionManagerImplTest extends BaseForAuthenticatedUserTe
             subscriber.assertCompleted().assertItem(Collections.emptyList());
         }
 
+        @Test
+        void getChatHistoryPageReadsPageFromChatHistoryStore() {
+            // given
+            when(chatHistoryStore.getMessages(ownSessionId, 10, 5))
+                    .thenReturn(Uni.createFrom().item(Collections.emptyList()));
+
+            // test
+            Uni<List<ChatMessageRecord>> uni =
+                    assertDoesNotThrow(() -> sessionManager.getChatHistory(ownSessionId, 10, 5));
+            UniAssertSubscriber<Collection<ChatMessageRecord>> subscriber =
+                    uni.subscribe().withSubscriber(UniAssertSubscriber.create());
+            subscriber.assertCompleted().assertItem(Collections.emptyList());
+            verify(chatHistoryStore, times(1)).getMessages(ownSessionId, 10, 5);
+        }
+
         @Test
         void setSessionLabelSetsSessionLabel() throws SessionNotFoundException {
             sessionManager.setSessionLabel(ownSessionId, "label");
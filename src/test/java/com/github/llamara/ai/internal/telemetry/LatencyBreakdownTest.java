@@ -0,0 +1,48 @@
+/*
+ * #%L
+ * llamara-backend
+ * %%
+ * Copyright (C) 2024 - 2025 Contributors to the LLAMARA project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.llamara.ai.internal.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link LatencyBreakdown}. */
+@QuarkusTest
+class LatencyBreakdownTest {
+
+    @Test
+    void isEmptyWithoutStages() {
+        assertTrue(new LatencyBreakdown().isEmpty());
+    }
+
+    @Test
+    void toServerTimingSumsStagesInMillisecondsInOrderOfFirstOccurrence() {
+        // given
+        LatencyBreakdown breakdown = new LatencyBreakdown();
+        breakdown.add(StageTracer.Stage.EMBEDDING, 12_300_000);
+        breakdown.add(StageTracer.Stage.SEARCH, 2_000_000);
+        breakdown.add(StageTracer.Stage.EMBEDDING, 1_000_000);
+
+        // test
+        assertEquals("embedding;dur=13.3, search;dur=2.0", breakdown.toServerTiming());
+    }
+}